@@ -0,0 +1,99 @@
+package edu.ucsb.cs156.example.benchmarks;
+
+import edu.ucsb.cs156.example.ExampleApplication;
+import edu.ucsb.cs156.example.config.CacheConfig;
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.services.CurrentUserService;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+
+/**
+ * {@code CurrentUserServiceImpl.getUser} against the application running on an in-memory H2
+ * database (the integration profile), with the current-user cache in use and with it emptied
+ * before every call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CurrentUserBenchmark {
+
+  @Param({"true", "false"})
+  public boolean cached;
+
+  private ConfigurableApplicationContext context;
+
+  private CurrentUserService currentUserService;
+
+  private Cache currentUsers;
+
+  @Setup
+  public void setup() {
+    // command-line arguments, so they override the integration profile's properties
+    context =
+        new SpringApplicationBuilder(ExampleApplication.class)
+            .run(
+                "--server.port=0",
+                "--logging.level.root=WARN",
+                "--logging.level.sql=WARN",
+                "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN");
+    currentUserService = context.getBean(CurrentUserService.class);
+    currentUsers = context.getBean(CacheManager.class).getCache(CacheConfig.CURRENT_USERS);
+
+    Map<String, Object> attributes =
+        Map.of(
+            "sub", "benchmark-sub",
+            "email", "benchmark@ucsb.edu",
+            "name", "Bench Mark",
+            "given_name", "Bench",
+            "family_name", "Mark",
+            "picture", "https://example.org/picture.png",
+            "email_verified", true,
+            "locale", "en",
+            "hd", "ucsb.edu");
+    DefaultOAuth2User principal =
+        new DefaultOAuth2User(List.of(new SimpleGrantedAuthority("ROLE_USER")), attributes, "sub");
+    SecurityContextHolder.getContext()
+        .setAuthentication(
+            new OAuth2AuthenticationToken(principal, principal.getAuthorities(), "google"));
+    // the first call creates the user row
+    currentUserService.getUser();
+  }
+
+  @TearDown
+  public void tearDown() {
+    SecurityContextHolder.clearContext();
+    context.close();
+  }
+
+  @Benchmark
+  public User getUser() {
+    if (!cached) {
+      currentUsers.clear();
+    }
+    return currentUserService.getUser();
+  }
+}
@@ -0,0 +1,67 @@
+package edu.ucsb.cs156.example.benchmarks;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.repositories.JobLogChunkRepository;
+import edu.ucsb.cs156.example.services.jobs.JobContext;
+import edu.ucsb.cs156.example.services.jobs.JobLogWriter;
+import edu.ucsb.cs156.example.services.jobs.JobStreamService;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Cost of {@link JobContext#log} as a job's log grows, with and without buffering in JobLogWriter.
+ * The repository does nothing, so this measures the chunking and bookkeeping rather than the
+ * database.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class JobContextLogBenchmark {
+
+  @Param({"true", "false"})
+  public boolean buffered;
+
+  private JobContext context;
+
+  private long line;
+
+  @Setup(org.openjdk.jmh.annotations.Level.Iteration)
+  public void setup() {
+    // JobContext also logs each line through slf4j; keep that out of the measurement
+    ((Logger) LoggerFactory.getLogger(JobContext.class)).setLevel(Level.WARN);
+    Job job = Job.builder().id(1L).build();
+    JobLogWriter writer = new JobLogWriter(noOpRepository(), job, 100, buffered, 50);
+    context = new JobContext(job, writer, new JobStreamService(), null);
+    line = 0;
+  }
+
+  private static JobLogChunkRepository noOpRepository() {
+    return (JobLogChunkRepository)
+        Proxy.newProxyInstance(
+            JobLogChunkRepository.class.getClassLoader(),
+            new Class<?>[] {JobLogChunkRepository.class},
+            (proxy, method, args) -> method.getName().equals("save") ? args[0] : null);
+  }
+
+  @Benchmark
+  public void log() {
+    context.log("Processed row " + line++);
+  }
+}
@@ -0,0 +1,103 @@
+package edu.ucsb.cs156.example.benchmarks;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import edu.ucsb.cs156.example.aop.LoggingAspect;
+import edu.ucsb.cs156.example.controllers.RestaurantsController;
+import edu.ucsb.cs156.example.services.AccessLogService;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Per-request overhead of {@link LoggingAspect} with the access log enabled (INFO), sampled, and
+ * disabled (WARN). Records are drained in the background as in the application, but the log lines
+ * are not written anywhere, so console output is not part of the measurement.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class LoggingAspectBenchmark {
+
+  @Param({"INFO", "WARN"})
+  public String level;
+
+  @Param({"1.0", "0.1"})
+  public String sampleRate;
+
+  private final LoggingAspect aspect = new LoggingAspect();
+
+  private JoinPoint joinPoint;
+
+  private ScheduledExecutorService drainer;
+
+  @Setup
+  public void setup() throws Exception {
+    Logger logger = (Logger) LoggerFactory.getLogger(AccessLogService.class);
+    logger.setLevel(Level.toLevel(level));
+    logger.setAdditive(false);
+
+    AccessLogService accessLogService = new AccessLogService();
+    ReflectionTestUtils.setField(accessLogService, "stoplist", Set.of());
+    ReflectionTestUtils.setField(
+        accessLogService, "sampleRates", List.of("RestaurantsController=" + sampleRate));
+    ReflectionTestUtils.setField(accessLogService, "defaultSampleRate", 1.0);
+    ReflectionTestUtils.setField(accessLogService, "queueCapacity", 10000);
+    ReflectionTestUtils.setField(aspect, "accessLogService", accessLogService);
+
+    drainer = Executors.newSingleThreadScheduledExecutor();
+    drainer.scheduleWithFixedDelay(accessLogService::drain, 200, 200, TimeUnit.MILLISECONDS);
+
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/restaurants/all");
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+    Method handler = RestaurantsController.class.getMethod("allRestaurants");
+    MethodSignature signature = proxy(MethodSignature.class, "getMethod", handler);
+    joinPoint = proxy(JoinPoint.class, "getSignature", signature);
+  }
+
+  @TearDown
+  public void tearDown() {
+    drainer.shutdownNow();
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  private static <T> T proxy(Class<T> type, String methodName, Object result) {
+    return type.cast(
+        Proxy.newProxyInstance(
+            type.getClassLoader(),
+            new Class<?>[] {type},
+            (proxy, method, args) -> method.getName().equals(methodName) ? result : null));
+  }
+
+  @Benchmark
+  public void logControllers() {
+    aspect.logControllers(joinPoint);
+  }
+}
@@ -0,0 +1,77 @@
+package edu.ucsb.cs156.example.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItems;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Jackson serialisation of the lists returned by the {@code /all} endpoints for menu items and
+ * dates, from a thousand to a million rows. The mapper is configured like the application's.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+  @Param({"1000", "10000", "100000", "1000000"})
+  public int rows;
+
+  @Param({"UCSBDiningCommonsMenuItems", "UCSBDate"})
+  public String entity;
+
+  private final ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+
+  private Iterable<?> items;
+
+  @Setup
+  public void setup() {
+    List<Object> list = new ArrayList<>(rows);
+    LocalDateTime start = LocalDateTime.parse("2025-01-06T08:00:00");
+    for (int i = 0; i < rows; i++) {
+      if (entity.equals("UCSBDate")) {
+        list.add(
+            UCSBDate.builder()
+                .id(i)
+                .quarterYYYYQ("20251")
+                .name("Date " + i)
+                .localDateTime(start.plusMinutes(i))
+                .build());
+      } else {
+        list.add(
+            UCSBDiningCommonsMenuItems.builder()
+                .id(i)
+                .diningCommonsCode("ortega")
+                .name("Menu item " + i)
+                .station("Entrees")
+                .build());
+      }
+    }
+    items = list;
+  }
+
+  @Benchmark
+  public void serialize() throws IOException {
+    mapper.writeValue(OutputStream.nullOutputStream(), items);
+  }
+}
@@ -1,14 +1,14 @@
 package edu.ucsb.cs156.example.aop;
 
+import edu.ucsb.cs156.example.services.AccessLogService;
 import jakarta.servlet.http.HttpServletRequest;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Optional;
-import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Before;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
@@ -17,11 +17,13 @@ import org.springframework.web.context.request.ServletRequestAttributes;
  * {@code @RequestMapping}, {@code @GetMapping}, {@code @PostMapping}, {@code @PutMapping},
  * {@code @DeleteMapping}, or {@code @PatchMapping}.
  *
+ * <p>The request is only queued here; the stoplist, sampling and writing of the log line are done
+ * by {@link AccessLogService}.
+ *
  * <p>For more information on Aspect Oriented Programming (AOP) and AspectJ, including what a {@code
  * JoinPoint} is, refer to <a
  * href="https://www.baeldung.com/aspectj">https://www.baeldung.com/aspectj</a>
  */
-@Slf4j
 @Aspect
 @Component
 public class LoggingAspect {
@@ -36,9 +38,7 @@ public class LoggingAspect {
       @annotation(org.springframework.web.bind.annotation.PatchMapping)
       """;
 
-  private ArrayList<String> stoplist =
-      new ArrayList<String>(
-          Arrays.asList("edu.ucsb.cs156.example.controllers.FrontendProxyController"));
+  @Autowired private AccessLogService accessLogService;
 
   /**
    * This method is called before any controller method that is annotated with
@@ -49,32 +49,18 @@ public class LoggingAspect {
    */
   @Before(pointcut)
   public void logControllers(JoinPoint joinPoint) {
-    getCurrentHttpRequest()
-        .ifPresent(
-            request -> {
-              String declaringTypeName = joinPoint.getSignature().getDeclaringTypeName();
-              if (!stoplist.contains(declaringTypeName)) {
-                log.info(
-                    "===== %s %s handled by %s in %s"
-                        .formatted(
-                            request.getMethod(),
-                            request.getRequestURI(),
-                            joinPoint.getSignature().getName(),
-                            declaringTypeName));
-              }
-            });
-  }
-
-  /**
-   * The function `getCurrentHttpRequest` returns an `Optional` containing the current
-   * `HttpServletRequest` if available.
-   *
-   * @return An Optional object containing the current HttpServletRequest, if available.
-   */
-  private static Optional<HttpServletRequest> getCurrentHttpRequest() {
-    return Optional.ofNullable(RequestContextHolder.getRequestAttributes())
-        .filter(ServletRequestAttributes.class::isInstance)
-        .map(ServletRequestAttributes.class::cast)
-        .map(ServletRequestAttributes::getRequest);
+    if (!accessLogService.isEnabled()) {
+      return;
+    }
+    RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+    if (attributes instanceof ServletRequestAttributes servletAttributes
+        && joinPoint.getSignature() instanceof MethodSignature signature) {
+      HttpServletRequest request = servletAttributes.getRequest();
+      accessLogService.record(
+          signature.getMethod(),
+          request.getMethod(),
+          request.getRequestURI(),
+          request.getQueryString());
+    }
   }
 }
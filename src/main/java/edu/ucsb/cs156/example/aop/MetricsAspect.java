@@ -0,0 +1,60 @@
+package edu.ucsb.cs156.example.aop;
+
+import edu.ucsb.cs156.example.services.metrics.EndpointMetrics;
+import edu.ucsb.cs156.example.services.metrics.QueryCountInspector;
+import edu.ucsb.cs156.example.services.metrics.RequestMetricsService;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * This class is an Aspect that records the latency, errors and SQL statement count of every request
+ * handled by a subclass of {@code ApiController}; see {@link RequestMetricsService}.
+ *
+ * <p>Exceptions are recorded by type before they reach the controller's exception handlers, so a
+ * request answered with 404 by {@code ApiController.handleGenericException} still counts as an
+ * {@code EntityNotFoundException}.
+ */
+@Aspect
+@Component
+public class MetricsAspect {
+  // language=PointcutExpression
+  private static final String pointcut =
+      """
+      within(edu.ucsb.cs156.example.controllers.ApiController+) && (
+      @annotation(org.springframework.web.bind.annotation.RequestMapping) ||
+      @annotation(org.springframework.web.bind.annotation.GetMapping) ||
+      @annotation(org.springframework.web.bind.annotation.PostMapping) ||
+      @annotation(org.springframework.web.bind.annotation.PutMapping) ||
+      @annotation(org.springframework.web.bind.annotation.DeleteMapping) ||
+      @annotation(org.springframework.web.bind.annotation.PatchMapping))
+      """;
+
+  @Autowired private RequestMetricsService requestMetricsService;
+
+  /**
+   * This method runs around any request mapping method of an {@code ApiController} subclass.
+   *
+   * @param joinPoint the join point (injected by Spring framework)
+   * @return the result of the controller method
+   * @throws Throwable whatever the controller method throws
+   */
+  @Around(pointcut)
+  public Object measure(ProceedingJoinPoint joinPoint) throws Throwable {
+    EndpointMetrics metrics =
+        requestMetricsService.forMethod(((MethodSignature) joinPoint.getSignature()).getMethod());
+    long queriesBefore = QueryCountInspector.getCount();
+    long start = System.nanoTime();
+    try {
+      return joinPoint.proceed();
+    } catch (Throwable e) {
+      metrics.recordError(e);
+      throw e;
+    } finally {
+      metrics.record(System.nanoTime() - start, QueryCountInspector.getCount() - queriesBefore);
+    }
+  }
+}
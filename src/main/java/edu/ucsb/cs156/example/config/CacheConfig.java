@@ -0,0 +1,77 @@
+package edu.ucsb.cs156.example.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * The `CacheConfig` class defines the application's in-memory caches. Each cache is bounded in size
+ * and its entries expire after a fixed time, so a stale entry is never served for long even if an
+ * eviction is missed (e.g. when another instance changes the database).
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+  /** Users resolved from an OAuth2 login, keyed by Google subject id; see CurrentUserServiceImpl */
+  public static final String CURRENT_USERS = "currentUsers";
+
+  /** Whether the user with a given email is an admin in the database; see SecurityConfig */
+  public static final String ADMINS = "admins";
+
+  /** UCSBDate lists and lookups; see UCSBDateRepository */
+  public static final String UCSB_DATES = "ucsbDates";
+
+  /** UCSBDiningCommons lists and lookups; see UCSBDiningCommonsRepository */
+  public static final String UCSB_DINING_COMMONS = "ucsbDiningCommons";
+
+  @Value("${app.cache.current-users.max-size:10000}")
+  private long currentUsersMaxSize;
+
+  @Value("${app.cache.current-users.ttl-seconds:300}")
+  private long currentUsersTtlSeconds;
+
+  @Value("${app.cache.admins.max-size:10000}")
+  private long adminsMaxSize;
+
+  @Value("${app.cache.admins.ttl-seconds:300}")
+  private long adminsTtlSeconds;
+
+  @Value("${app.cache.reference-data.max-size:1000}")
+  private long referenceDataMaxSize;
+
+  @Value("${app.cache.reference-data.ttl-seconds:3600}")
+  private long referenceDataTtlSeconds;
+
+  /**
+   * The cache manager used by {@code @Cacheable} methods and by services that look caches up by
+   * name.
+   *
+   * @return the cache manager
+   */
+  @Bean
+  public CacheManager cacheManager() {
+    CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+    cacheManager.registerCustomCache(
+        CURRENT_USERS, boundedCache(currentUsersMaxSize, currentUsersTtlSeconds));
+    cacheManager.registerCustomCache(ADMINS, boundedCache(adminsMaxSize, adminsTtlSeconds));
+    cacheManager.registerCustomCache(
+        UCSB_DATES, boundedCache(referenceDataMaxSize, referenceDataTtlSeconds));
+    cacheManager.registerCustomCache(
+        UCSB_DINING_COMMONS, boundedCache(referenceDataMaxSize, referenceDataTtlSeconds));
+    return cacheManager;
+  }
+
+  static com.github.benmanes.caffeine.cache.Cache<Object, Object> boundedCache(
+      long maxSize, long ttlSeconds) {
+    return Caffeine.newBuilder()
+        .maximumSize(maxSize)
+        .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+        .recordStats()
+        .build();
+  }
+}
@@ -0,0 +1,100 @@
+package edu.ucsb.cs156.example.config;
+
+import java.util.concurrent.ThreadPoolExecutor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.task.SimpleAsyncTaskExecutorBuilder;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+
+/**
+ * The `JobExecutorConfig` class defines the executor that runs background jobs (see JobService), so
+ * that jobs do not share a thread pool with the rest of the application.
+ *
+ * <p>By default the pool is bounded by {@code app.jobs.executor.max-size} platform threads and a
+ * queue of {@code app.jobs.executor.queue-capacity} jobs; when both are full, new jobs are rejected
+ * rather than queued without limit.
+ *
+ * <p>When {@code spring.threads.virtual.enabled} is true (which also moves Tomcat's request
+ * handling onto virtual threads), each job instead runs on its own virtual thread, with at most
+ * {@code app.jobs.executor.virtual-concurrency-limit} jobs running at once.
+ *
+ * <p>In both modes the submitting thread's SecurityContext is copied onto the thread that runs the
+ * job, so jobs run as the user who launched them.
+ *
+ * <p>Spring Boot does not create its own {@code applicationTaskExecutor} once any other executor
+ * bean exists, and MVC async requests would then each get a new thread from an unbounded
+ * SimpleAsyncTaskExecutor. So this class also declares that executor, built the way Boot builds it.
+ */
+@Configuration
+public class JobExecutorConfig {
+
+  @Value("${spring.threads.virtual.enabled:false}")
+  private boolean virtualThreads;
+
+  @Value("${app.jobs.executor.core-size:2}")
+  private int coreSize;
+
+  @Value("${app.jobs.executor.max-size:4}")
+  private int maxSize;
+
+  @Value("${app.jobs.executor.queue-capacity:100}")
+  private int queueCapacity;
+
+  @Value("${app.jobs.executor.virtual-concurrency-limit:256}")
+  private int virtualConcurrencyLimit;
+
+  /**
+   * The executor used by {@code @Async("jobExecutor")} methods.
+   *
+   * @return the executor for jobs
+   */
+  @Bean(name = "jobExecutor")
+  public AsyncTaskExecutor jobExecutor() {
+    if (virtualThreads) {
+      return virtualThreadExecutor(virtualConcurrencyLimit);
+    }
+    return threadPoolExecutor(coreSize, maxSize, queueCapacity);
+  }
+
+  /**
+   * The executor Spring Boot would otherwise configure, used for MVC async requests. It is
+   * configured by the {@code spring.task.execution} properties.
+   *
+   * @param threadPoolBuilder Boot's builder for the platform thread pool
+   * @param virtualThreadBuilder Boot's builder for virtual threads
+   * @return the application's default executor
+   */
+  @Bean(name = {"applicationTaskExecutor", "taskExecutor"})
+  public AsyncTaskExecutor applicationTaskExecutor(
+      ThreadPoolTaskExecutorBuilder threadPoolBuilder,
+      SimpleAsyncTaskExecutorBuilder virtualThreadBuilder) {
+    if (virtualThreads) {
+      return virtualThreadBuilder.virtualThreads(true).build();
+    }
+    return threadPoolBuilder.build();
+  }
+
+  static ThreadPoolTaskExecutor threadPoolExecutor(int coreSize, int maxSize, int queueCapacity) {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(coreSize);
+    executor.setMaxPoolSize(maxSize);
+    executor.setQueueCapacity(queueCapacity);
+    executor.setThreadNamePrefix("job-");
+    executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+    executor.setTaskDecorator(DelegatingSecurityContextRunnable::new);
+    return executor;
+  }
+
+  static SimpleAsyncTaskExecutor virtualThreadExecutor(int concurrencyLimit) {
+    SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("job-");
+    executor.setVirtualThreads(true);
+    executor.setConcurrencyLimit(concurrencyLimit);
+    executor.setTaskDecorator(DelegatingSecurityContextRunnable::new);
+    return executor;
+  }
+}
@@ -9,16 +9,14 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.Set;
 import java.util.function.Supplier;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
@@ -51,11 +49,14 @@ import org.springframework.web.filter.OncePerRequestFilter;
 @Slf4j
 public class SecurityConfig {
 
+  // Spring splits the comma-separated property into a set once, at startup
   @Value("${app.admin.emails}")
-  private final List<String> adminEmails = new ArrayList<>();
+  private final Set<String> adminEmails = new HashSet<>();
 
   @Autowired UserRepository userRepository;
 
+  @Autowired CacheManager cacheManager;
+
   /**
    * The `filterChain` method in this Java code configures various security settings for an HTTP
    * request, including authorization, exception handling, OAuth2 login, CSRF protection, and logout
@@ -127,7 +128,8 @@ public class SecurityConfig {
 
   /**
    * This method checks if the given email belongs to an admin user either from a predefined list or
-   * by querying the user repository.
+   * by querying the user repository. The answer from the repository is kept in the {@code admins}
+   * cache until it expires or the user's row changes (see UserCacheListener).
    *
    * @param email email address of the user
    * @return whether the user with the given email is an admin
@@ -136,8 +138,9 @@ public class SecurityConfig {
     if (adminEmails.contains(email)) {
       return true;
     }
-    Optional<User> u = userRepository.findByEmail(email);
-    return u.isPresent() && u.get().getAdmin();
+    return cacheManager
+        .getCache(CacheConfig.ADMINS)
+        .get(email, () -> userRepository.findByEmail(email).map(User::getAdmin).orElse(false));
   }
 }
 
@@ -2,10 +2,18 @@ package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
 import edu.ucsb.cs156.example.models.CurrentUser;
+import edu.ucsb.cs156.example.models.CursorPage;
 import edu.ucsb.cs156.example.services.CurrentUserService;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
 import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
@@ -15,6 +23,9 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 public abstract class ApiController {
   @Autowired private CurrentUserService currentUserService;
 
+  @Value("${app.pagination.max-page-size:100}")
+  private int maxPageSize;
+
   /**
    * This method returns the current user.
    *
@@ -34,6 +45,56 @@ public abstract class ApiController {
     return Map.of("message", message);
   }
 
+  /**
+   * This method returns one page of a listing using keyset pagination: rows are read in key order,
+   * starting after the key encoded in the cursor. Every page is read through the key's index, so a
+   * deep page costs the same as the first one.
+   *
+   * <p>One row more than the page size is read, to tell whether there is a next page. The size is
+   * clamped to between 1 and {@code app.pagination.max-page-size}.
+   *
+   * @param cursor the cursor returned with the previous page, or null for the first page
+   * @param size the number of rows wanted
+   * @param firstKey a key smaller than every row's key, used for the first page
+   * @param parseKey turns a decoded cursor back into a key
+   * @param fetchAfter reads up to a limit of rows with keys greater than a key, in key order
+   * @param keyOf the key of a row
+   * @param <T> the type of the rows
+   * @param <K> the type of the key
+   * @return the page, with the cursor for the next page if there is one
+   * @throws IllegalArgumentException if the cursor is not one this method returned
+   */
+  protected <T, K> CursorPage<T> keysetPage(
+      String cursor,
+      int size,
+      K firstKey,
+      Function<String, K> parseKey,
+      BiFunction<K, Limit, List<T>> fetchAfter,
+      Function<T, K> keyOf) {
+    K after = cursor == null ? firstKey : decodeCursor(cursor, parseKey);
+    int pageSize = Math.min(Math.max(size, 1), maxPageSize);
+    List<T> rows = fetchAfter.apply(after, Limit.of(pageSize + 1));
+    if (rows.size() <= pageSize) {
+      return new CursorPage<>(rows, null);
+    }
+    List<T> content = rows.subList(0, pageSize);
+    String nextKey = String.valueOf(keyOf.apply(content.get(pageSize - 1)));
+    return new CursorPage<>(
+        List.copyOf(content),
+        Base64.getUrlEncoder()
+            .withoutPadding()
+            .encodeToString(nextKey.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  private static <K> K decodeCursor(String cursor, Function<String, K> parseKey) {
+    try {
+      return parseKey.apply(
+          new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Invalid cursor: " + cursor);
+    }
+  }
+
   /**
    * This method handles the EntityNotFoundException.
    *
@@ -47,4 +108,18 @@ public abstract class ApiController {
         "type", e.getClass().getSimpleName(),
         "message", e.getMessage());
   }
+
+  /**
+   * This method handles the IllegalArgumentException, e.g. for invalid request parameters.
+   *
+   * @param e the exception
+   * @return a map with the type and message of the exception
+   */
+  @ExceptionHandler({IllegalArgumentException.class})
+  @ResponseStatus(HttpStatus.BAD_REQUEST)
+  public Object handleIllegalArgumentException(Throwable e) {
+    return Map.of(
+        "type", e.getClass().getSimpleName(),
+        "message", e.getMessage());
+  }
 }
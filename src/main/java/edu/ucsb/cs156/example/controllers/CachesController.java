@@ -0,0 +1,84 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.CacheStats;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.util.List;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * This is a REST controller for inspecting and managing the application's in-memory caches (see
+ * CacheConfig).
+ *
+ * <p>These endpoints are only accessible to users with the role "ROLE_ADMIN".
+ */
+@Tag(name = "Caches (admin only)")
+@RequestMapping("/api/admin/caches")
+@RestController
+public class CachesController extends ApiController {
+  @Autowired CacheManager cacheManager;
+
+  /**
+   * This method returns the size and hit/miss counts of every cache.
+   *
+   * @return the stats of each cache, sorted by name
+   */
+  @Operation(summary = "Get hit and miss counts for each cache")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @GetMapping("")
+  public List<CacheStats> getCacheStats() {
+    return cacheManager.getCacheNames().stream()
+        .sorted()
+        .map(name -> toStats((CaffeineCache) cacheManager.getCache(name)))
+        .toList();
+  }
+
+  private static CacheStats toStats(CaffeineCache cache) {
+    com.github.benmanes.caffeine.cache.stats.CacheStats stats = cache.getNativeCache().stats();
+    return CacheStats.builder()
+        .name(cache.getName())
+        .size(cache.getNativeCache().estimatedSize())
+        .hits(stats.hitCount())
+        .misses(stats.missCount())
+        .hitRate(stats.hitRate())
+        .evictions(stats.evictionCount())
+        .build();
+  }
+
+  /**
+   * This method empties one cache, or all of them.
+   *
+   * @param name the name of the cache to empty, or null for all caches
+   * @return a message saying which caches were emptied
+   */
+  @Operation(summary = "Empty one cache, or all caches")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @DeleteMapping("")
+  public Map<String, String> flushCaches(
+      @Parameter(name = "name", description = "cache to empty (default: all caches)")
+          @RequestParam(required = false)
+          String name) {
+    if (name == null) {
+      cacheManager.getCacheNames().forEach(cacheName -> cacheManager.getCache(cacheName).clear());
+      return Map.of("message", "All caches flushed");
+    }
+    // check the name first, because getCache creates caches it does not know
+    if (!cacheManager.getCacheNames().contains(name)) {
+      throw new EntityNotFoundException(Cache.class, name);
+    }
+    cacheManager.getCache(name).clear();
+    return Map.of("message", String.format("Cache %s flushed", name));
+  }
+}
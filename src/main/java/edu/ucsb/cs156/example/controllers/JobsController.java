@@ -5,40 +5,108 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.ucsb.cs156.example.entities.Job;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
 import edu.ucsb.cs156.example.jobs.TestJob;
+import edu.ucsb.cs156.example.models.JobExecutorStats;
+import edu.ucsb.cs156.example.models.JobRetentionReport;
+import edu.ucsb.cs156.example.models.JobSummary;
 import edu.ucsb.cs156.example.repositories.JobsRepository;
+import edu.ucsb.cs156.example.services.jobs.JobLogService;
+import edu.ucsb.cs156.example.services.jobs.JobRetentionService;
 import edu.ucsb.cs156.example.services.jobs.JobService;
+import edu.ucsb.cs156.example.services.jobs.JobStreamService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import java.time.ZonedDateTime;
 import java.util.Map;
+import java.util.Set;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.PagedModel;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @Tag(name = "Jobs")
 @RequestMapping("/api/jobs")
 @RestController
 @Slf4j
 public class JobsController extends ApiController {
+  static final int MAX_PAGE_SIZE = 100;
+
+  private static final Set<String> SORTABLE_FIELDS =
+      Set.of("id", "status", "priority", "createdAt", "updatedAt");
+
   @Autowired private JobsRepository jobsRepository;
 
   @Autowired private JobService jobService;
 
+  @Autowired private JobLogService jobLogService;
+
+  @Autowired private JobStreamService jobStreamService;
+
+  @Autowired private JobRetentionService jobRetentionService;
+
   @Autowired ObjectMapper mapper;
 
-  @Operation(summary = "List all jobs")
+  @Operation(summary = "List summaries of all jobs (without logs); prefer the paged listing")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @GetMapping("/all")
-  public Iterable<Job> allJobs() {
-    Iterable<Job> jobs = jobsRepository.findAll();
-    return jobs;
+  public Iterable<JobSummary> allJobs() {
+    return jobsRepository
+        .findSummaries(null, null, null, Pageable.unpaged(Sort.by(Sort.Direction.DESC, "id")))
+        .getContent();
+  }
+
+  @Operation(summary = "List a page of job summaries (without logs)")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @GetMapping(value = "", params = "!id")
+  public PagedModel<JobSummary> listJobs(
+      @Parameter(name = "page", description = "page number, starting at 0")
+          @RequestParam(defaultValue = "0")
+          int page,
+      @Parameter(name = "size", description = "jobs per page (at most 100)")
+          @RequestParam(defaultValue = "20")
+          int size,
+      @Parameter(name = "sort", description = "id, status, priority, createdAt or updatedAt")
+          @RequestParam(defaultValue = "id")
+          String sort,
+      @Parameter(name = "direction", description = "ASC or DESC")
+          @RequestParam(defaultValue = "DESC")
+          Sort.Direction direction,
+      @Parameter(name = "status", description = "only jobs with this status")
+          @RequestParam(required = false)
+          String status,
+      @Parameter(name = "createdFrom", description = "only jobs created at or after (iso format)")
+          @RequestParam(required = false)
+          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+          ZonedDateTime createdFrom,
+      @Parameter(name = "createdTo", description = "only jobs created before (iso format)")
+          @RequestParam(required = false)
+          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+          ZonedDateTime createdTo) {
+
+    if (!SORTABLE_FIELDS.contains(sort)) {
+      throw new IllegalArgumentException("Cannot sort jobs by " + sort);
+    }
+    PageRequest pageRequest =
+        PageRequest.of(
+            Math.max(page, 0),
+            Math.min(Math.max(size, 1), MAX_PAGE_SIZE),
+            Sort.by(direction, sort));
+    return new PagedModel<>(
+        jobsRepository.findSummaries(status, createdFrom, createdTo, pageRequest));
   }
 
   @Operation(summary = "Delete all job records")
@@ -51,7 +119,7 @@ public class JobsController extends ApiController {
 
   @Operation(summary = "Get a specific Job Log by ID if it is in the database")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
-  @GetMapping("")
+  @GetMapping(value = "", params = "id")
   public Job getJobLogById(
       @Parameter(name = "id", description = "ID of the job") @RequestParam Long id)
       throws JsonProcessingException {
@@ -59,6 +127,7 @@ public class JobsController extends ApiController {
     Job job =
         jobsRepository.findById(id).orElseThrow(() -> new EntityNotFoundException(Job.class, id));
 
+    job.setLog(jobLogService.getLog(job));
     return job;
   }
 
@@ -78,10 +147,38 @@ public class JobsController extends ApiController {
   @PostMapping("/launch/testjob")
   public Job launchTestJob(
       @Parameter(name = "fail") @RequestParam Boolean fail,
-      @Parameter(name = "sleepMs") @RequestParam Integer sleepMs) {
+      @Parameter(name = "sleepMs") @RequestParam Integer sleepMs,
+      @Parameter(name = "priority", description = "higher priority jobs are started first")
+          @RequestParam(defaultValue = "0")
+          Integer priority,
+      @Parameter(
+              name = "maxRuntimeMs",
+              description = "stop the job after this long (default: app.jobs.max-runtime-ms)")
+          @RequestParam(required = false)
+          Long maxRuntimeMs) {
 
     TestJob testJob = TestJob.builder().fail(fail).sleepMs(sleepMs).build();
-    return jobService.runAsJob(testJob);
+    return jobService.runAsJob(testJob, priority, maxRuntimeMs);
+  }
+
+  @Operation(summary = "Cancel a queued or running job")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping("/{id}/cancel")
+  public Job cancelJob(@Parameter(name = "id", description = "Job ID") @PathVariable Long id) {
+    if (!jobsRepository.existsById(id)) {
+      throw new EntityNotFoundException(Job.class, id);
+    }
+    return jobService.cancelJob(id);
+  }
+
+  @Operation(summary = "Run a failed, timed out or cancelled job again")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping("/{id}/retry")
+  public Job retryJob(@Parameter(name = "id", description = "Job ID") @PathVariable Long id) {
+    if (!jobsRepository.existsById(id)) {
+      throw new EntityNotFoundException(Job.class, id);
+    }
+    return jobService.retryJob(id);
   }
 
   @Operation(summary = "Get long job logs")
@@ -91,4 +188,33 @@ public class JobsController extends ApiController {
 
     return jobService.getJobLogs(id);
   }
+
+  @Operation(summary = "Stream a job's log lines and status changes as server-sent events")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @GetMapping(value = "/{id}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter streamJob(
+      @Parameter(name = "id", description = "Job ID") @PathVariable Long id,
+      @Parameter(name = "Last-Event-ID", description = "number of the last log line received")
+          @RequestHeader(value = "Last-Event-ID", defaultValue = "0")
+          Long lastEventId) {
+
+    if (!jobsRepository.existsById(id)) {
+      throw new EntityNotFoundException(Job.class, id);
+    }
+    return jobStreamService.subscribe(id, lastEventId);
+  }
+
+  @Operation(summary = "Get queue depth and counts for the job executor")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @GetMapping("/executor")
+  public JobExecutorStats getExecutorStats() {
+    return jobService.getExecutorStats();
+  }
+
+  @Operation(summary = "Compact old job logs and delete expired jobs now")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping("/retention")
+  public JobRetentionReport runRetention() {
+    return jobRetentionService.run();
+  }
 }
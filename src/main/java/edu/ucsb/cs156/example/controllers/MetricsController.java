@@ -0,0 +1,38 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.services.metrics.RequestMetricsService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * This is a REST controller that exposes request metrics (see RequestMetricsService) for Prometheus
+ * to scrape.
+ *
+ * <p>These endpoints are only accessible to users with the role "ROLE_ADMIN".
+ */
+@Tag(name = "Metrics (admin only)")
+@RequestMapping("/api/admin/metrics")
+@RestController
+public class MetricsController extends ApiController {
+  /** The content type of the Prometheus text exposition format. */
+  public static final String PROMETHEUS_CONTENT_TYPE = "text/plain;version=0.0.4;charset=utf-8";
+
+  @Autowired RequestMetricsService requestMetricsService;
+
+  /**
+   * This method returns the request metrics in the Prometheus text format.
+   *
+   * @return the metrics
+   */
+  @Operation(summary = "Get request metrics in Prometheus text format")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @GetMapping(value = "", produces = PROMETHEUS_CONTENT_TYPE)
+  public String metrics() {
+    return requestMetricsService.render();
+  }
+}
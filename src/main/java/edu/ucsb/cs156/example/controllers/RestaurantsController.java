@@ -2,12 +2,19 @@ package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.entities.Restaurant;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BulkResult;
+import edu.ucsb.cs156.example.models.CursorPage;
 import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+import edu.ucsb.cs156.example.services.BulkWriteService;
+import edu.ucsb.cs156.example.services.NdjsonExportService;
+import edu.ucsb.cs156.example.services.TableVersionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import java.util.List;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -17,6 +24,8 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /** This is a REST controller for Restaurants */
 @Tag(name = "Restaurants")
@@ -26,29 +35,86 @@ public class RestaurantsController extends ApiController {
 
   @Autowired RestaurantRepository restaurantRepository;
 
+  @Autowired TableVersionService tableVersionService;
+
+  @Autowired NdjsonExportService ndjsonExportService;
+
+  @Autowired BulkWriteService bulkWriteService;
+
   /**
    * This method returns a list of all restaurants.
    *
+   * @param request the request; if its If-None-Match header is current, the response is 304
    * @return a list of all restaurants
    */
   @Operation(summary = "List all restaurants")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("/all")
-  public Iterable<Restaurant> allRestaurants() {
+  public Iterable<Restaurant> allRestaurants(ServletWebRequest request) {
+    if (tableVersionService.checkNotModified(request, Restaurant.class)) {
+      return null;
+    }
     Iterable<Restaurant> restaurants = restaurantRepository.findAll();
     return restaurants;
   }
 
+  /**
+   * This method returns one page of restaurants, in id order. Pass the page's nextCursor to get the
+   * next page; the last page has no nextCursor.
+   *
+   * @param size restaurants per page (at most app.pagination.max-page-size)
+   * @param cursor nextCursor of the previous page, or null for the first page
+   * @return a page of restaurants
+   */
+  @Operation(summary = "List restaurants one page at a time")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/page")
+  public CursorPage<Restaurant> pageOfRestaurants(
+      @Parameter(name = "size", description = "restaurants per page")
+          @RequestParam(defaultValue = "20")
+          int size,
+      @Parameter(
+              name = "cursor",
+              description = "nextCursor of the previous page; omit for the first page")
+          @RequestParam(required = false)
+          String cursor) {
+    return keysetPage(
+        cursor,
+        size,
+        0L,
+        Long::valueOf,
+        restaurantRepository::findByIdGreaterThanOrderByIdAsc,
+        Restaurant::getId);
+  }
+
+  /**
+   * This method exports all restaurants as newline-delimited JSON, one per line in id order. Rows
+   * are streamed from the database to the response, so the export is never held in memory.
+   *
+   * @return the restaurants, one JSON object per line
+   */
+  @Operation(summary = "Export all restaurants as newline-delimited JSON")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping(value = "/export", produces = "application/x-ndjson")
+  public ResponseEntity<StreamingResponseBody> exportRestaurants() {
+    return ndjsonExportService.export(restaurantRepository::streamAllByOrderByIdAsc);
+  }
+
   /**
    * This method returns a single restaurant.
    *
    * @param id id of the restaurant to get
+   * @param request the request; if its If-None-Match header is current, the response is 304
    * @return a single restaurant
    */
   @Operation(summary = "Get a single restaurant")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("")
-  public Restaurant getById(@Parameter(name = "id") @RequestParam Long id) {
+  public Restaurant getById(
+      @Parameter(name = "id") @RequestParam Long id, ServletWebRequest request) {
+    if (tableVersionService.checkNotModified(request, Restaurant.class)) {
+      return null;
+    }
     Restaurant restaurant =
         restaurantRepository
             .findById(id)
@@ -123,4 +189,62 @@ public class RestaurantsController extends ApiController {
 
     return restaurant;
   }
+
+  /**
+   * Create many restaurants in one transaction. Accessible only to users with the role
+   * "ROLE_ADMIN". Any ids sent are ignored.
+   *
+   * @param incoming the restaurants to create
+   * @return the new id of each restaurant, in the order sent
+   */
+  @Operation(summary = "Create many restaurants at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping("/bulk")
+  public BulkResult postRestaurants(@RequestBody List<Restaurant> incoming) {
+    return bulkWriteService.create(
+        incoming,
+        row -> {
+          Restaurant restaurant = new Restaurant();
+          restaurant.setName(row.getName());
+          restaurant.setDescription(row.getDescription());
+          return restaurant;
+        },
+        Restaurant::getId,
+        restaurantRepository);
+  }
+
+  /**
+   * Update many restaurants, matched by id, in one transaction. Accessible only to users with the
+   * role "ROLE_ADMIN".
+   *
+   * @param incoming the new restaurant contents, each with its id
+   * @return whether each restaurant was updated or not found, in the order sent
+   */
+  @Operation(summary = "Update many restaurants at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PutMapping("/bulk")
+  public BulkResult updateRestaurants(@RequestBody List<Restaurant> incoming) {
+    return bulkWriteService.update(
+        incoming,
+        Restaurant::getId,
+        (restaurant, row) -> {
+          restaurant.setName(row.getName());
+          restaurant.setDescription(row.getDescription());
+        },
+        restaurantRepository);
+  }
+
+  /**
+   * Delete many restaurants in one transaction. Accessible only to users with the role
+   * "ROLE_ADMIN".
+   *
+   * @param ids ids of the restaurants to delete
+   * @return whether each restaurant was deleted or not found, in the order sent
+   */
+  @Operation(summary = "Delete many restaurants at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @DeleteMapping("/bulk")
+  public BulkResult deleteRestaurants(@RequestBody List<Long> ids) {
+    return bulkWriteService.delete(ids, Restaurant::getId, restaurantRepository);
+  }
 }
@@ -1,17 +1,29 @@
 package edu.ucsb.cs156.example.controllers;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import edu.ucsb.cs156.example.entities.Job;
 import edu.ucsb.cs156.example.entities.UCSBDate;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BulkResult;
+import edu.ucsb.cs156.example.models.CursorPage;
+import edu.ucsb.cs156.example.models.ImportTarget;
 import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.services.BulkWriteService;
+import edu.ucsb.cs156.example.services.ImportService;
+import edu.ucsb.cs156.example.services.NdjsonExportService;
+import edu.ucsb.cs156.example.services.TableVersionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -20,7 +32,11 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /** This is a REST controller for UCSBDates */
 @Tag(name = "UCSBDates")
@@ -31,29 +47,88 @@ public class UCSBDatesController extends ApiController {
 
   @Autowired UCSBDateRepository ucsbDateRepository;
 
+  @Autowired TableVersionService tableVersionService;
+
+  @Autowired NdjsonExportService ndjsonExportService;
+
+  @Autowired BulkWriteService bulkWriteService;
+
+  @Autowired ImportService importService;
+
   /**
    * List all UCSB dates
    *
+   * @param request the request; if its If-None-Match header is current, the response is 304
    * @return an iterable of UCSBDate
    */
   @Operation(summary = "List all ucsb dates")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("/all")
-  public Iterable<UCSBDate> allUCSBDates() {
+  public Iterable<UCSBDate> allUCSBDates(ServletWebRequest request) {
+    if (tableVersionService.checkNotModified(request, UCSBDate.class)) {
+      return null;
+    }
     Iterable<UCSBDate> dates = ucsbDateRepository.findAll();
     return dates;
   }
 
+  /**
+   * This method returns one page of ucsb dates, in id order. Pass the page's nextCursor to get the
+   * next page; the last page has no nextCursor.
+   *
+   * @param size ucsb dates per page (at most app.pagination.max-page-size)
+   * @param cursor nextCursor of the previous page, or null for the first page
+   * @return a page of ucsb dates
+   */
+  @Operation(summary = "List ucsb dates one page at a time")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/page")
+  public CursorPage<UCSBDate> pageOfUCSBDates(
+      @Parameter(name = "size", description = "ucsb dates per page")
+          @RequestParam(defaultValue = "20")
+          int size,
+      @Parameter(
+              name = "cursor",
+              description = "nextCursor of the previous page; omit for the first page")
+          @RequestParam(required = false)
+          String cursor) {
+    return keysetPage(
+        cursor,
+        size,
+        0L,
+        Long::valueOf,
+        ucsbDateRepository::findByIdGreaterThanOrderByIdAsc,
+        UCSBDate::getId);
+  }
+
+  /**
+   * This method exports all ucsb dates as newline-delimited JSON, one per line in id order. Rows
+   * are streamed from the database to the response, so the export is never held in memory.
+   *
+   * @return the ucsb dates, one JSON object per line
+   */
+  @Operation(summary = "Export all ucsb dates as newline-delimited JSON")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping(value = "/export", produces = "application/x-ndjson")
+  public ResponseEntity<StreamingResponseBody> exportUCSBDates() {
+    return ndjsonExportService.export(ucsbDateRepository::streamAllByOrderByIdAsc);
+  }
+
   /**
    * Get a single date by id
    *
    * @param id the id of the date
+   * @param request the request; if its If-None-Match header is current, the response is 304
    * @return a UCSBDate
    */
   @Operation(summary = "Get a single date")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("")
-  public UCSBDate getById(@Parameter(name = "id") @RequestParam Long id) {
+  public UCSBDate getById(
+      @Parameter(name = "id") @RequestParam Long id, ServletWebRequest request) {
+    if (tableVersionService.checkNotModified(request, UCSBDate.class)) {
+      return null;
+    }
     UCSBDate ucsbDate =
         ucsbDateRepository
             .findById(id)
@@ -112,7 +187,7 @@ public class UCSBDatesController extends ApiController {
   public Object deleteUCSBDate(@Parameter(name = "id") @RequestParam Long id) {
     UCSBDate ucsbDate =
         ucsbDateRepository
-            .findById(id)
+            .findUncachedById(id)
             .orElseThrow(() -> new EntityNotFoundException(UCSBDate.class, id));
 
     ucsbDateRepository.delete(ucsbDate);
@@ -134,7 +209,7 @@ public class UCSBDatesController extends ApiController {
 
     UCSBDate ucsbDate =
         ucsbDateRepository
-            .findById(id)
+            .findUncachedById(id)
             .orElseThrow(() -> new EntityNotFoundException(UCSBDate.class, id));
 
     ucsbDate.setQuarterYYYYQ(incoming.getQuarterYYYYQ());
@@ -145,4 +220,78 @@ public class UCSBDatesController extends ApiController {
 
     return ucsbDate;
   }
+
+  /**
+   * Create many UCSBDates in one transaction. Any ids sent are ignored.
+   *
+   * @param incoming the UCSBDates to create
+   * @return the new id of each date, in the order sent
+   */
+  @Operation(summary = "Create many UCSBDates at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping("/bulk")
+  public BulkResult postUCSBDates(@RequestBody List<UCSBDate> incoming) {
+    return bulkWriteService.create(
+        incoming,
+        row -> {
+          UCSBDate ucsbDate = new UCSBDate();
+          ucsbDate.setQuarterYYYYQ(row.getQuarterYYYYQ());
+          ucsbDate.setName(row.getName());
+          ucsbDate.setLocalDateTime(row.getLocalDateTime());
+          return ucsbDate;
+        },
+        UCSBDate::getId,
+        ucsbDateRepository);
+  }
+
+  /**
+   * Update many UCSBDates, matched by id, in one transaction.
+   *
+   * @param incoming the new date contents, each with its id
+   * @return whether each date was updated or not found, in the order sent
+   */
+  @Operation(summary = "Update many UCSBDates at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PutMapping("/bulk")
+  public BulkResult updateUCSBDates(@RequestBody List<UCSBDate> incoming) {
+    return bulkWriteService.update(
+        incoming,
+        UCSBDate::getId,
+        (ucsbDate, row) -> {
+          ucsbDate.setQuarterYYYYQ(row.getQuarterYYYYQ());
+          ucsbDate.setName(row.getName());
+          ucsbDate.setLocalDateTime(row.getLocalDateTime());
+        },
+        ucsbDateRepository);
+  }
+
+  /**
+   * Delete many UCSBDates in one transaction.
+   *
+   * @param ids ids of the UCSBDates to delete
+   * @return whether each date was deleted or not found, in the order sent
+   */
+  @Operation(summary = "Delete many UCSBDates at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @DeleteMapping("/bulk")
+  public BulkResult deleteUCSBDates(@RequestBody List<Long> ids) {
+    return bulkWriteService.delete(ids, UCSBDate::getId, ucsbDateRepository);
+  }
+
+  /**
+   * Import UCSBDates from a CSV or JSON file, as a background job. The job's log shows its progress
+   * and any rows that could not be imported; a job that fails can be retried and carries on where
+   * it stopped.
+   *
+   * @param file a .csv file with a header row (quarterYYYYQ,name,localDateTime), or a .json or
+   *     .ndjson file
+   * @return the import job
+   * @throws IOException if the file cannot be read
+   */
+  @Operation(summary = "Import UCSBDates from a CSV or JSON file as a background job")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+  public Job importUCSBDates(@RequestPart("file") MultipartFile file) throws IOException {
+    return importService.startImport(ImportTarget.UCSB_DATES, file);
+  }
 }
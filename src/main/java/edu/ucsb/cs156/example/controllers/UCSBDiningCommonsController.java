@@ -2,11 +2,14 @@ package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.CursorPage;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.services.TableVersionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import java.util.function.Function;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -18,6 +21,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
 
 /** This is a REST controller for UCSBDiningCommons */
 @Tag(name = "UCSBDiningCommons")
@@ -28,29 +32,69 @@ public class UCSBDiningCommonsController extends ApiController {
 
   @Autowired UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
 
+  @Autowired TableVersionService tableVersionService;
+
   /**
    * THis method returns a list of all ucsbdiningcommons.
    *
+   * @param request the request; if its If-None-Match header is current, the response is 304
    * @return a list of all ucsbdiningcommons
    */
   @Operation(summary = "List all ucsb dining commons")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("/all")
-  public Iterable<UCSBDiningCommons> allCommonss() {
+  public Iterable<UCSBDiningCommons> allCommonss(ServletWebRequest request) {
+    if (tableVersionService.checkNotModified(request, UCSBDiningCommons.class)) {
+      return null;
+    }
     Iterable<UCSBDiningCommons> commons = ucsbDiningCommonsRepository.findAll();
     return commons;
   }
 
+  /**
+   * This method returns one page of ucsb dining commons, in code order. Pass the page's nextCursor
+   * to get the next page; the last page has no nextCursor.
+   *
+   * @param size ucsb dining commons per page (at most app.pagination.max-page-size)
+   * @param cursor nextCursor of the previous page, or null for the first page
+   * @return a page of ucsb dining commons
+   */
+  @Operation(summary = "List ucsb dining commons one page at a time")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/page")
+  public CursorPage<UCSBDiningCommons> pageOfCommons(
+      @Parameter(name = "size", description = "ucsb dining commons per page")
+          @RequestParam(defaultValue = "20")
+          int size,
+      @Parameter(
+              name = "cursor",
+              description = "nextCursor of the previous page; omit for the first page")
+          @RequestParam(required = false)
+          String cursor) {
+    return keysetPage(
+        cursor,
+        size,
+        "",
+        Function.identity(),
+        ucsbDiningCommonsRepository::findByCodeGreaterThanOrderByCodeAsc,
+        UCSBDiningCommons::getCode);
+  }
+
   /**
    * This method returns a single diningcommons.
    *
    * @param code code of the diningcommons
+   * @param request the request; if its If-None-Match header is current, the response is 304
    * @return a single diningcommons
    */
   @Operation(summary = "Get a single commons")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("")
-  public UCSBDiningCommons getById(@Parameter(name = "code") @RequestParam String code) {
+  public UCSBDiningCommons getById(
+      @Parameter(name = "code") @RequestParam String code, ServletWebRequest request) {
+    if (tableVersionService.checkNotModified(request, UCSBDiningCommons.class)) {
+      return null;
+    }
     UCSBDiningCommons commons =
         ucsbDiningCommonsRepository
             .findById(code)
@@ -109,7 +153,7 @@ public class UCSBDiningCommonsController extends ApiController {
   public Object deleteCommons(@Parameter(name = "code") @RequestParam String code) {
     UCSBDiningCommons commons =
         ucsbDiningCommonsRepository
-            .findById(code)
+            .findUncachedById(code)
             .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommons.class, code));
 
     ucsbDiningCommonsRepository.delete(commons);
@@ -132,7 +176,7 @@ public class UCSBDiningCommonsController extends ApiController {
 
     UCSBDiningCommons commons =
         ucsbDiningCommonsRepository
-            .findById(code)
+            .findUncachedById(code)
             .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommons.class, code));
 
     commons.setName(incoming.getName());
@@ -1,15 +1,27 @@
 package edu.ucsb.cs156.example.controllers;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import edu.ucsb.cs156.example.entities.Job;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItems;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BulkResult;
+import edu.ucsb.cs156.example.models.CursorPage;
+import edu.ucsb.cs156.example.models.ImportTarget;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemsRepository;
+import edu.ucsb.cs156.example.services.BulkWriteService;
+import edu.ucsb.cs156.example.services.ImportService;
+import edu.ucsb.cs156.example.services.NdjsonExportService;
+import edu.ucsb.cs156.example.services.TableVersionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -18,7 +30,11 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /** This is a REST controller for UCSBDiningCommonsMenuItems */
 @Tag(name = "UCSBDiningCommonsMenuItems")
@@ -28,29 +44,91 @@ import org.springframework.web.bind.annotation.RestController;
 public class UCSBDiningCommonsMenuItemController extends ApiController {
   @Autowired UCSBDiningCommonsMenuItemsRepository ucsbDiningCommonsMenuItemsRepository;
 
+  @Autowired TableVersionService tableVersionService;
+
+  @Autowired NdjsonExportService ndjsonExportService;
+
+  @Autowired BulkWriteService bulkWriteService;
+
+  @Autowired ImportService importService;
+
   /**
    * List all UCSB dining commons menu items
    *
+   * @param request the request; if its If-None-Match header is current, the response is 304
    * @return an iterable of UCSBDiningCommonsMenuItems
    */
   @Operation(summary = "List all ucsb dining commons menu items")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("/all")
-  public Iterable<UCSBDiningCommonsMenuItems> allUCSBDiningCommonsMenuItems() {
+  public Iterable<UCSBDiningCommonsMenuItems> allUCSBDiningCommonsMenuItems(
+      ServletWebRequest request) {
+    if (tableVersionService.checkNotModified(request, UCSBDiningCommonsMenuItems.class)) {
+      return null;
+    }
     Iterable<UCSBDiningCommonsMenuItems> items = ucsbDiningCommonsMenuItemsRepository.findAll();
     return items;
   }
 
+  /**
+   * This method returns one page of ucsb dining commons menu items, in id order. Pass the page's
+   * nextCursor to get the next page; the last page has no nextCursor.
+   *
+   * @param size ucsb dining commons menu items per page (at most app.pagination.max-page-size)
+   * @param cursor nextCursor of the previous page, or null for the first page
+   * @return a page of ucsb dining commons menu items
+   */
+  @Operation(summary = "List ucsb dining commons menu items one page at a time")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/page")
+  public CursorPage<UCSBDiningCommonsMenuItems> pageOfUCSBDiningCommonsMenuItems(
+      @Parameter(name = "size", description = "ucsb dining commons menu items per page")
+          @RequestParam(defaultValue = "20")
+          int size,
+      @Parameter(
+              name = "cursor",
+              description = "nextCursor of the previous page; omit for the first page")
+          @RequestParam(required = false)
+          String cursor) {
+    return keysetPage(
+        cursor,
+        size,
+        0L,
+        Long::valueOf,
+        ucsbDiningCommonsMenuItemsRepository::findByIdGreaterThanOrderByIdAsc,
+        UCSBDiningCommonsMenuItems::getId);
+  }
+
+  /**
+   * This method exports all ucsb dining commons menu items as newline-delimited JSON, one per line
+   * in id order. Rows are streamed from the database to the response, so the export is never held
+   * in memory.
+   *
+   * @return the ucsb dining commons menu items, one JSON object per line
+   */
+  @Operation(summary = "Export all ucsb dining commons menu items as newline-delimited JSON")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping(value = "/export", produces = "application/x-ndjson")
+  public ResponseEntity<StreamingResponseBody> exportUCSBDiningCommonsMenuItems() {
+    return ndjsonExportService.export(
+        ucsbDiningCommonsMenuItemsRepository::streamAllByOrderByIdAsc);
+  }
+
   /**
    * Get a single menu item by id
    *
    * @param id the id of the menu item
+   * @param request the request; if its If-None-Match header is current, the response is 304
    * @return a UCSBDiningCommonsMenuItems
    */
   @Operation(summary = "Get a single menu item by id")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("")
-  public UCSBDiningCommonsMenuItems getById(@Parameter(name = "id") @RequestParam Long id) {
+  public UCSBDiningCommonsMenuItems getById(
+      @Parameter(name = "id") @RequestParam Long id, ServletWebRequest request) {
+    if (tableVersionService.checkNotModified(request, UCSBDiningCommonsMenuItems.class)) {
+      return null;
+    }
     UCSBDiningCommonsMenuItems ucsbDiningCommonsMenuItem =
         ucsbDiningCommonsMenuItemsRepository
             .findById(id)
@@ -137,4 +215,82 @@ public class UCSBDiningCommonsMenuItemController extends ApiController {
     ucsbDiningCommonsMenuItemsRepository.delete(ucsbDiningCommonsMenuItem);
     return genericMessage("UCSBDiningCommonsMenuItem with id %s deleted".formatted(id));
   }
+
+  /**
+   * Create many menu items in one transaction. Any ids sent are ignored.
+   *
+   * @param incoming the menu items to create
+   * @return the new id of each menu item, in the order sent
+   */
+  @Operation(summary = "Create many menu items at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping("/bulk")
+  public BulkResult postUCSBDiningCommonsMenuItems(
+      @RequestBody List<UCSBDiningCommonsMenuItems> incoming) {
+    return bulkWriteService.create(
+        incoming,
+        row -> {
+          UCSBDiningCommonsMenuItems menuItem = new UCSBDiningCommonsMenuItems();
+          menuItem.setDiningCommonsCode(row.getDiningCommonsCode());
+          menuItem.setName(row.getName());
+          menuItem.setStation(row.getStation());
+          return menuItem;
+        },
+        UCSBDiningCommonsMenuItems::getId,
+        ucsbDiningCommonsMenuItemsRepository);
+  }
+
+  /**
+   * Update many menu items, matched by id, in one transaction.
+   *
+   * @param incoming the new menu item contents, each with its id
+   * @return whether each menu item was updated or not found, in the order sent
+   */
+  @Operation(summary = "Update many menu items at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PutMapping("/bulk")
+  public BulkResult updateUCSBDiningCommonsMenuItems(
+      @RequestBody List<UCSBDiningCommonsMenuItems> incoming) {
+    return bulkWriteService.update(
+        incoming,
+        UCSBDiningCommonsMenuItems::getId,
+        (menuItem, row) -> {
+          menuItem.setDiningCommonsCode(row.getDiningCommonsCode());
+          menuItem.setName(row.getName());
+          menuItem.setStation(row.getStation());
+        },
+        ucsbDiningCommonsMenuItemsRepository);
+  }
+
+  /**
+   * Delete many menu items in one transaction.
+   *
+   * @param ids ids of the menu items to delete
+   * @return whether each menu item was deleted or not found, in the order sent
+   */
+  @Operation(summary = "Delete many menu items at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @DeleteMapping("/bulk")
+  public BulkResult deleteUCSBDiningCommonsMenuItems(@RequestBody List<Long> ids) {
+    return bulkWriteService.delete(
+        ids, UCSBDiningCommonsMenuItems::getId, ucsbDiningCommonsMenuItemsRepository);
+  }
+
+  /**
+   * Import menu items from a CSV or JSON file, as a background job. The job's log shows its
+   * progress and any rows that could not be imported; a job that fails can be retried and carries
+   * on where it stopped.
+   *
+   * @param file a .csv file with a header row (diningCommonsCode,name,station), or a .json or
+   *     .ndjson file
+   * @return the import job
+   * @throws IOException if the file cannot be read
+   */
+  @Operation(summary = "Import menu items from a CSV or JSON file as a background job")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+  public Job importUCSBDiningCommonsMenuItems(@RequestPart("file") MultipartFile file)
+      throws IOException {
+    return importService.startImport(ImportTarget.UCSB_DINING_COMMONS_MENU_ITEMS, file);
+  }
 }
@@ -1,17 +1,29 @@
 package edu.ucsb.cs156.example.controllers;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import edu.ucsb.cs156.example.entities.User;
 import edu.ucsb.cs156.example.repositories.UserRepository;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import java.util.List;
+import java.util.Set;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.PagedModel;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * This is a REST controller for getting information about the users.
@@ -22,6 +34,13 @@ import org.springframework.web.bind.annotation.RestController;
 @RequestMapping("/api/admin/users")
 @RestController
 public class UsersController extends ApiController {
+  static final int MAX_PAGE_SIZE = 100;
+
+  // users read from the database at a time while streaming the full list
+  static final int STREAM_BATCH_SIZE = 500;
+
+  private static final Set<String> SORTABLE_FIELDS = Set.of("id", "email", "fullName");
+
   @Autowired UserRepository userRepository;
 
   @Autowired ObjectMapper mapper;
@@ -29,15 +48,91 @@ public class UsersController extends ApiController {
   /**
    * This method returns a list of all users. Accessible only to users with the role "ROLE_ADMIN".
    *
+   * <p>Users are read in batches and written to the response as they are read, so the whole list is
+   * never held in memory.
+   *
    * @return a list of all users
-   * @throws JsonProcessingException if there is an error processing the JSON
    */
   @Operation(summary = "Get a list of all users")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @GetMapping("")
-  public ResponseEntity<String> users() throws JsonProcessingException {
-    Iterable<User> users = userRepository.findAll();
-    String body = mapper.writeValueAsString(users);
-    return ResponseEntity.ok().body(body);
+  public ResponseEntity<StreamingResponseBody> users() {
+    ObjectWriter writer = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    StreamingResponseBody body =
+        out -> {
+          try (JsonGenerator generator = mapper.getFactory().createGenerator(out)) {
+            generator.writeStartArray();
+            long afterId = 0;
+            List<User> batch;
+            do {
+              batch =
+                  userRepository.findByIdGreaterThanOrderByIdAsc(
+                      afterId, Limit.of(STREAM_BATCH_SIZE));
+              for (User user : batch) {
+                writer.writeValue(generator, user);
+                afterId = user.getId();
+              }
+            } while (batch.size() == STREAM_BATCH_SIZE);
+            generator.writeEndArray();
+          }
+        };
+    return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+  }
+
+  /**
+   * This method returns a page of users, optionally filtered. Accessible only to users with the
+   * role "ROLE_ADMIN".
+   *
+   * @param page page number, starting at 0
+   * @param size users per page (at most 100)
+   * @param sort field to sort by: id, email or fullName
+   * @param direction ASC or DESC
+   * @param search only users whose email or full name starts with this
+   * @param admin only admins (true) or non-admins (false)
+   * @return a page of users
+   */
+  @Operation(summary = "Get a page of users, optionally searching by email or name prefix")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @GetMapping("/paged")
+  public PagedModel<User> pagedUsers(
+      @Parameter(name = "page", description = "page number, starting at 0")
+          @RequestParam(defaultValue = "0")
+          int page,
+      @Parameter(name = "size", description = "users per page (at most 100)")
+          @RequestParam(defaultValue = "20")
+          int size,
+      @Parameter(name = "sort", description = "id, email or fullName")
+          @RequestParam(defaultValue = "id")
+          String sort,
+      @Parameter(name = "direction", description = "ASC or DESC")
+          @RequestParam(defaultValue = "ASC")
+          Sort.Direction direction,
+      @Parameter(
+              name = "search",
+              description = "only users whose email (any case) or full name starts with this")
+          @RequestParam(required = false)
+          String search,
+      @Parameter(name = "admin", description = "only admins (true) or non-admins (false)")
+          @RequestParam(required = false)
+          Boolean admin) {
+
+    if (!SORTABLE_FIELDS.contains(sort)) {
+      throw new IllegalArgumentException("Cannot sort users by " + sort);
+    }
+    PageRequest pageRequest =
+        PageRequest.of(
+            Math.max(page, 0),
+            Math.min(Math.max(size, 1), MAX_PAGE_SIZE),
+            Sort.by(direction, sort));
+
+    String prefix = search == null || search.isBlank() ? null : escapeLike(search.strip());
+    // emails are compared in lower case; see UserRepository.search
+    String emailPattern = prefix == null ? null : prefix.toLowerCase() + "%";
+    String namePattern = prefix == null ? null : prefix + "%";
+    return new PagedModel<>(userRepository.search(emailPattern, namePattern, admin, pageRequest));
+  }
+
+  private static String escapeLike(String text) {
+    return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
   }
 }
@@ -0,0 +1,47 @@
+package edu.ucsb.cs156.example.entities;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import edu.ucsb.cs156.example.models.ImportTarget;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import java.time.ZonedDateTime;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a JPA entity that represents a file uploaded for import, and how far the import has got.
+ *
+ * <p>The counters are updated in the same transaction as each batch of imported rows, so an import
+ * that stops part way through can carry on after the last batch it committed; see ImportService.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+@Entity(name = "import_files")
+public class ImportFile {
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private long id;
+
+  @Enumerated(EnumType.STRING)
+  private ImportTarget target;
+
+  private String filename;
+  private ZonedDateTime createdAt;
+
+  // gzip-compressed contents of the file; cleared once the import has finished
+  @JsonIgnore private byte[] content;
+
+  // rows read from the file so far (imported or failed), i.e. where a resumed import starts
+  private long rowsRead;
+  private long rowsImported;
+  private long rowsFailed;
+}
@@ -24,11 +24,41 @@ public class Job {
   @JoinColumn(name = "created_by_id")
   private User createdBy;
 
+  // read-only copy of the foreign key, so that queries can filter on the user without a join
+  @JsonIgnore
+  @Column(name = "created_by_id", insertable = false, updatable = false)
+  private Long createdById;
+
   @CreatedDate private ZonedDateTime createdAt;
   @LastModifiedDate private ZonedDateTime updatedAt;
 
   private String status;
 
+  // jobs with a higher priority are started first; see JobDispatcher
+  private int priority;
+
+  // class name and JSON of a PersistentJob, so that any instance can run the job
+  private String jobType;
+
+  @JsonIgnore
+  @Column(columnDefinition = "TEXT", length = 1048576)
+  private String payload;
+
+  // id of the app instance running the job; see JobDispatcher
+  private String claimedBy;
+
+  // the job is stopped after running this long, or after app.jobs.max-runtime-ms if null;
+  // see JobCancellationService
+  private Long maxRuntimeMs;
+
+  // set when someone asks to cancel a running job; its instance stops it at the next check
+  private boolean cancelRequested;
+
+  // gzip-compressed log of an old finished job, and its length before compression;
+  // see JobRetentionService
+  @JsonIgnore private byte[] compressedLog;
+  @JsonIgnore private Long logLength;
+
   // 1048576 is 2^20, which is the max size of a mediumtext in MySQL
   @Column(
       columnDefinition = "TEXT",
@@ -0,0 +1,60 @@
+package edu.ucsb.cs156.example.entities;
+
+import edu.ucsb.cs156.example.config.CacheConfig;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * This JPA entity listener empties the cache for UCSB dates or dining commons whenever one of their
+ * rows is written or deleted. The whole cache is emptied, because one row can appear in several
+ * cached lists (all rows, rows for a quarter) as well as under its id.
+ *
+ * <p>The cache is emptied when the change is flushed and again when the transaction completes, so
+ * rows cached by a request that read them in between are not served until they expire.
+ */
+@Component
+public class ReferenceDataCacheListener {
+  @Autowired private ObjectProvider<CacheManager> cacheManager;
+
+  @PostPersist
+  @PostUpdate
+  @PostRemove
+  public void evict(Object entity) {
+    String cacheName;
+    if (entity instanceof UCSBDate) {
+      cacheName = CacheConfig.UCSB_DATES;
+    } else if (entity instanceof UCSBDiningCommons) {
+      cacheName = CacheConfig.UCSB_DINING_COMMONS;
+    } else {
+      return;
+    }
+    clear(cacheName);
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+              clear(cacheName);
+            }
+          });
+    }
+  }
+
+  private void clear(String cacheName) {
+    cacheManager.ifAvailable(
+        manager -> {
+          Cache cache = manager.getCache(cacheName);
+          if (cache != null) {
+            cache.clear();
+          }
+        });
+  }
+}
@@ -0,0 +1,43 @@
+package edu.ucsb.cs156.example.entities;
+
+import edu.ucsb.cs156.example.services.TableVersionService;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * This JPA entity listener bumps the entity type's version (see TableVersionService) whenever one
+ * of its rows is written or deleted, so ETags handed out before the change no longer match.
+ *
+ * <p>The version is bumped when the change is flushed and again when the transaction completes, so
+ * a tag handed out to a request that read the table in between is not reused either.
+ */
+@Component
+public class TableVersionListener {
+  @Autowired private ObjectProvider<TableVersionService> tableVersionService;
+
+  @PostPersist
+  @PostUpdate
+  @PostRemove
+  public void bump(Object entity) {
+    tableVersionService.ifAvailable(
+        service -> {
+          Class<?> type = entity.getClass();
+          service.bump(type);
+          if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                  @Override
+                  public void afterCompletion(int status) {
+                    service.bump(type);
+                  }
+                });
+          }
+        });
+  }
+}
@@ -1,9 +1,11 @@
 package edu.ucsb.cs156.example.entities;
 
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -14,9 +16,15 @@ import lombok.NoArgsConstructor;
 @Data
 @Builder
 @Entity(name = "ucsbdiningcommonsmenuitems")
+@EntityListeners(TableVersionListener.class)
 public class UCSBDiningCommonsMenuItems {
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  // ids are allocated 50 at a time from a sequence, so inserts can be batched
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ucsbdiningcommonsmenuitems_seq")
+  @SequenceGenerator(
+      name = "ucsbdiningcommonsmenuitems_seq",
+      sequenceName = "UCSBDININGCOMMONSMENUITEMS_SEQ",
+      allocationSize = 50)
   private long id;
 
   private String diningCommonsCode;
@@ -0,0 +1,58 @@
+package edu.ucsb.cs156.example.entities;
+
+import edu.ucsb.cs156.example.config.CacheConfig;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * This JPA entity listener evicts a user from the caches whenever their row is written or deleted,
+ * so that a change such as granting or revoking admin takes effect on their next request or login.
+ *
+ * <p>The user is evicted when the change is flushed and again when the transaction completes, so a
+ * lookup in between that cached the user as they were before the change is not served until it
+ * expires.
+ */
+@Component
+public class UserCacheListener {
+  @Autowired private ObjectProvider<CacheManager> cacheManager;
+
+  @PostPersist
+  @PostUpdate
+  @PostRemove
+  public void evict(User user) {
+    String googleSub = user.getGoogleSub();
+    String email = user.getEmail();
+    evict(googleSub, email);
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+              evict(googleSub, email);
+            }
+          });
+    }
+  }
+
+  private void evict(String googleSub, String email) {
+    cacheManager.ifAvailable(
+        manager -> {
+          evict(manager.getCache(CacheConfig.CURRENT_USERS), googleSub);
+          evict(manager.getCache(CacheConfig.ADMINS), email);
+        });
+  }
+
+  private static void evict(Cache cache, String key) {
+    if (cache != null && key != null) {
+      cache.evict(key);
+    }
+  }
+}
@@ -0,0 +1,31 @@
+package edu.ucsb.cs156.example.jobs;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import edu.ucsb.cs156.example.services.ImportService;
+import edu.ucsb.cs156.example.services.jobs.JobContext;
+import edu.ucsb.cs156.example.services.jobs.PersistentJob;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.jackson.Jacksonized;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * A job that imports an uploaded file; see ImportService. Only the id of the stored file is saved
+ * with the job, so the job can be resumed on any instance.
+ */
+public class ImportJob implements PersistentJob {
+  @Getter private final long importFileId;
+
+  @JsonIgnore @Autowired private ImportService importService;
+
+  @Builder
+  @Jacksonized
+  ImportJob(long importFileId) {
+    this.importFileId = importFileId;
+  }
+
+  @Override
+  public void accept(JobContext ctx) throws Exception {
+    importService.runImport(ctx, importFileId);
+  }
+}
@@ -1,13 +1,19 @@
 package edu.ucsb.cs156.example.jobs;
 
 import edu.ucsb.cs156.example.services.jobs.JobContext;
-import edu.ucsb.cs156.example.services.jobs.JobContextConsumer;
+import edu.ucsb.cs156.example.services.jobs.PersistentJob;
 import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.jackson.Jacksonized;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 
+@Getter
 @Builder
-public class TestJob implements JobContextConsumer {
+@Jacksonized
+public class TestJob implements PersistentJob {
+  // how often the job checks whether it has been cancelled while sleeping
+  static final int CHECK_INTERVAL_MS = 100;
 
   private boolean fail;
   private int sleepMs;
@@ -18,7 +24,11 @@ public class TestJob implements JobContextConsumer {
     Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 
     ctx.log("Hello World! from test job!");
-    Thread.sleep(sleepMs);
+    for (int slept = 0; slept < sleepMs; slept += CHECK_INTERVAL_MS) {
+      ctx.checkpoint();
+      Thread.sleep(Math.min(CHECK_INTERVAL_MS, sleepMs - slept));
+    }
+    ctx.checkpoint();
     if (fail) {
       throw new Exception("Fail!");
     }
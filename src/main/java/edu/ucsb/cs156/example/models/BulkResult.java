@@ -0,0 +1,35 @@
+package edu.ucsb.cs156.example.models;
+
+import java.util.List;
+import java.util.Map;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a model class that represents the outcome of a bulk create, update or delete.
+ *
+ * <p>{@code rows} has one entry per row sent, in the same order; {@code counts} totals them by
+ * status.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class BulkResult {
+  /** What happened to one row. */
+  public enum Status {
+    CREATED,
+    UPDATED,
+    DELETED,
+    NOT_FOUND
+  }
+
+  /** The outcome for one row: its id and status. */
+  public record Row(Object id, Status status) {}
+
+  private Map<Status, Long> counts;
+  private List<Row> rows;
+}
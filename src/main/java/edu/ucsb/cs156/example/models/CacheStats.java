@@ -0,0 +1,26 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a model class that represents the hit and miss counts of one cache.
+ *
+ * <p>{@code size} is the current (approximate) number of entries; the other counts are since the
+ * application started.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class CacheStats {
+  private String name;
+  private long size;
+  private long hits;
+  private long misses;
+  private double hitRate;
+  private long evictions;
+}
@@ -0,0 +1,26 @@
+package edu.ucsb.cs156.example.models;
+
+import java.util.List;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a model class that represents one page of a listing read with keyset pagination (see
+ * ApiController#keysetPage).
+ *
+ * <p>{@code nextCursor} is an opaque token to pass back as {@code cursor} for the following page;
+ * it is null on the last page.
+ *
+ * @param <T> the type of the rows on the page
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class CursorPage<T> {
+  private List<T> content;
+  private String nextCursor;
+}
@@ -0,0 +1,19 @@
+package edu.ucsb.cs156.example.models;
+
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItems;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/** The tables that files can be imported into, and the fields each row must have. */
+@Getter
+@AllArgsConstructor
+public enum ImportTarget {
+  UCSB_DATES(UCSBDate.class, List.of("quarterYYYYQ", "name", "localDateTime")),
+  UCSB_DINING_COMMONS_MENU_ITEMS(
+      UCSBDiningCommonsMenuItems.class, List.of("diningCommonsCode", "name", "station"));
+
+  private final Class<?> type;
+  private final List<String> requiredFields;
+}
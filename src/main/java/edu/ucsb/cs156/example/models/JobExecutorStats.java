@@ -0,0 +1,24 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a model class that represents a snapshot of the job executor's load.
+ *
+ * <p>{@code queued} and {@code active} are current values; {@code completed} and {@code rejected}
+ * are counts since the application started.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class JobExecutorStats {
+  private long queued;
+  private long active;
+  private long completed;
+  private long rejected;
+}
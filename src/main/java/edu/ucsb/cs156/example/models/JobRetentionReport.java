@@ -0,0 +1,23 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a model class that reports what one run of JobRetentionService reclaimed.
+ *
+ * <p>Byte counts are approximate: log text is counted in characters.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class JobRetentionReport {
+  private long compactedJobs;
+  private long compactedBytes; // bytes saved by compressing logs
+  private long deletedJobs;
+  private long deletedBytes; // log bytes removed with the deleted jobs
+}
@@ -0,0 +1,26 @@
+package edu.ucsb.cs156.example.models;
+
+import java.time.ZonedDateTime;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a model class that summarizes a job for listings.
+ *
+ * <p>It is built directly by a query, so listing jobs never loads their logs; {@code logLength} is
+ * the number of characters in the job's log.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class JobSummary {
+  private Long id;
+  private String status;
+  private ZonedDateTime createdAt;
+  private ZonedDateTime updatedAt;
+  private Long logLength;
+}
@@ -0,0 +1,42 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.ImportFile;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/** The ImportFilesRepository is a repository for ImportFile entities. */
+@Repository
+public interface ImportFilesRepository extends CrudRepository<ImportFile, Long> {
+  /**
+   * This method records how far an import has got, without rewriting the file's contents. Call it
+   * in the transaction that inserts the batch of rows it counts.
+   *
+   * @param id id of the import file
+   * @param rowsRead rows read from the file so far
+   * @param rowsImported rows imported so far
+   * @param rowsFailed rows rejected so far
+   * @return the number of rows updated
+   */
+  @Modifying
+  @Query(
+      "update import_files f set f.rowsRead = :rowsRead, f.rowsImported = :rowsImported,"
+          + " f.rowsFailed = :rowsFailed where f.id = :id")
+  int updateProgress(
+      @Param("id") long id,
+      @Param("rowsRead") long rowsRead,
+      @Param("rowsImported") long rowsImported,
+      @Param("rowsFailed") long rowsFailed);
+
+  /**
+   * This method deletes the contents of a file once its import has finished.
+   *
+   * @param id id of the import file
+   * @return the number of rows updated
+   */
+  @Modifying
+  @Query("update import_files f set f.content = null where f.id = :id")
+  int clearContent(@Param("id") long id);
+}
@@ -0,0 +1,49 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.JobLogChunk;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/** The JobLogChunkRepository is a repository for JobLogChunk entities. */
+@Repository
+public interface JobLogChunkRepository extends CrudRepository<JobLogChunk, Long> {
+  /**
+   * This method returns all log chunks for a given job, in the order they were written.
+   *
+   * @param jobId id of the job
+   * @return the job's log chunks ordered by sequence number
+   */
+  Iterable<JobLogChunk> findAllByJobIdOrderBySeqAsc(long jobId);
+
+  /**
+   * This method returns the most recently written log chunk of a job.
+   *
+   * @param jobId id of the job
+   * @return the chunk with the highest sequence number, if any
+   */
+  Optional<JobLogChunk> findFirstByJobIdOrderBySeqDesc(long jobId);
+
+  /**
+   * This method returns the number of lines in a job's log.
+   *
+   * @param jobId id of the job
+   * @return the total line count of the job's chunks
+   */
+  @Query("select coalesce(sum(c.lineCount), 0) from job_log_chunks c where c.jobId = :jobId")
+  long countLinesByJobId(@Param("jobId") long jobId);
+
+  @Query(
+      "select coalesce(sum(length(c.content)), 0) from job_log_chunks c where c.jobId in :jobIds")
+  long sumContentLengthByJobIdIn(@Param("jobIds") List<Long> jobIds);
+
+  @Transactional
+  @Modifying
+  @Query("delete from job_log_chunks c where c.jobId in :jobIds")
+  int deleteByJobIdIn(@Param("jobIds") List<Long> jobIds);
+}
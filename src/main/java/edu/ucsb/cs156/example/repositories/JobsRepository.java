@@ -1,8 +1,260 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.models.JobSummary;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.time.ZonedDateTime;
+import java.util.List;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
-public interface JobsRepository extends CrudRepository<Job, Long> {}
+public interface JobsRepository extends CrudRepository<Job, Long> {
+  long countByStatus(String status);
+
+  long countByStatusAndCreatedById(String status, Long createdById);
+
+  long countByStatusAndClaimedBy(String status, String claimedBy);
+
+  /**
+   * This method returns jobs with a given status, highest priority first and oldest first within a
+   * priority. The rows are locked with {@code FOR UPDATE SKIP LOCKED}, so rows another instance is
+   * claiming are skipped rather than waited for; it must be called inside a transaction.
+   *
+   * @param status the status, e.g. "queued"
+   * @param pageable the maximum number of jobs to return
+   * @return jobs in the order they should be started
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+  List<Job> findByStatusOrderByPriorityDescIdAsc(String status, Pageable pageable);
+
+  /**
+   * This method returns a page of job summaries. The log length is computed in the database from
+   * the job's chunks (or its legacy log column), so no log text is loaded.
+   *
+   * @param status only jobs with this status, or all jobs if null
+   * @param createdFrom only jobs created at or after this time, or no lower bound if null
+   * @param createdTo only jobs created before this time, or no upper bound if null
+   * @param pageable the page, size and sort order
+   * @return a page of job summaries
+   */
+  @Query(
+      value =
+          "select new edu.ucsb.cs156.example.models.JobSummary(j.id, j.status, j.createdAt,"
+              + " j.updatedAt, cast(coalesce((select sum(length(c.content)) + count(c) - 1"
+              + " from job_log_chunks c where c.jobId = j.id), length(j.log), j.logLength, 0) as Long))"
+              + " from jobs j where (:status is null or j.status = :status)"
+              + " and (:createdFrom is null or j.createdAt >= :createdFrom)"
+              + " and (:createdTo is null or j.createdAt < :createdTo)",
+      countQuery =
+          "select count(j) from jobs j where (:status is null or j.status = :status)"
+              + " and (:createdFrom is null or j.createdAt >= :createdFrom)"
+              + " and (:createdTo is null or j.createdAt < :createdTo)")
+  Page<JobSummary> findSummaries(
+      @Param("status") String status,
+      @Param("createdFrom") ZonedDateTime createdFrom,
+      @Param("createdTo") ZonedDateTime createdTo,
+      Pageable pageable);
+
+  /**
+   * This method records a heartbeat for every job an instance is running.
+   *
+   * @param claimedBy the instance id
+   * @param now the time of the heartbeat
+   * @return the number of jobs updated
+   */
+  @Transactional
+  @Modifying
+  @Query(
+      "update jobs j set j.updatedAt = :now where j.status = 'running' and j.claimedBy = :claimedBy")
+  int heartbeat(@Param("claimedBy") String claimedBy, @Param("now") ZonedDateTime now);
+
+  /**
+   * This method records the final status of a job that an instance has finished running. Only the
+   * status and {@code updatedAt} are written, so columns other instances may have changed while the
+   * job ran, such as {@code cancelRequested}, are left alone. A job that has meanwhile been
+   * reclaimed and claimed by another instance is not updated.
+   *
+   * @param id the job id
+   * @param claimedBy the instance that ran the job
+   * @param status the final status, e.g. "complete"
+   * @param now the time the job finished
+   * @return the number of jobs updated
+   */
+  @Transactional
+  @Modifying
+  @Query(
+      "update jobs j set j.status = :status, j.updatedAt = :now where j.id = :id"
+          + " and j.status = 'running' and j.claimedBy = :claimedBy")
+  int finish(
+      @Param("id") long id,
+      @Param("claimedBy") String claimedBy,
+      @Param("status") String status,
+      @Param("now") ZonedDateTime now);
+
+  /**
+   * This method clears the compacted and legacy log columns of a job whose log has been moved back
+   * into chunks; see JobLogService.
+   *
+   * @param id the job id
+   * @return 1 if the job exists, 0 otherwise
+   */
+  @Transactional
+  @Modifying
+  @Query(
+      "update jobs j set j.compressedLog = null, j.logLength = null, j.log = null where j.id = :id")
+  int clearStoredLog(@Param("id") long id);
+
+  /**
+   * This method cancels a job if it is still queued, so that no instance can claim it afterwards.
+   *
+   * @param id the job id
+   * @param now the time of the cancellation
+   * @return 1 if the job was cancelled, 0 if it was no longer queued
+   */
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query(
+      "update jobs j set j.status = 'cancelled', j.updatedAt = :now"
+          + " where j.id = :id and j.status = 'queued'")
+  int cancelQueued(@Param("id") long id, @Param("now") ZonedDateTime now);
+
+  /**
+   * This method puts a failed, timed out or cancelled job back on the queue. Only jobs with a
+   * {@code jobType} can be rebuilt and run again.
+   *
+   * @param id the job id
+   * @param now the time of the retry
+   * @return 1 if the job was requeued, 0 otherwise
+   */
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query(
+      "update jobs j set j.status = 'queued', j.claimedBy = null, j.cancelRequested = false,"
+          + " j.updatedAt = :now where j.id = :id and j.jobType is not null"
+          + " and j.status in ('error', 'timeout', 'cancelled')")
+  int requeueFinished(@Param("id") long id, @Param("now") ZonedDateTime now);
+
+  /**
+   * This method asks the instance running a job to cancel it.
+   *
+   * @param id the job id
+   * @return 1 if the job is running, 0 otherwise
+   */
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query("update jobs j set j.cancelRequested = true where j.id = :id and j.status = 'running'")
+  int requestCancel(@Param("id") long id);
+
+  /**
+   * This method returns the ids of running jobs on an instance that someone has asked to cancel.
+   *
+   * @param claimedBy the instance id
+   * @return the job ids
+   */
+  @Query(
+      "select j.id from jobs j where j.status = 'running' and j.claimedBy = :claimedBy"
+          + " and j.cancelRequested = true")
+  List<Long> findCancelRequestedIds(@Param("claimedBy") String claimedBy);
+
+  /**
+   * This method marks abandoned jobs that someone asked to cancel as cancelled, so they are not
+   * requeued.
+   *
+   * @param cutoff jobs last updated before this are considered abandoned
+   * @return the number of jobs cancelled
+   */
+  @Transactional
+  @Modifying
+  @Query(
+      "update jobs j set j.status = 'cancelled' where j.status = 'running'"
+          + " and j.updatedAt < :cutoff and j.cancelRequested = true")
+  int cancelAbandoned(@Param("cutoff") ZonedDateTime cutoff);
+
+  /**
+   * This method puts running jobs that have had no heartbeat since {@code cutoff} back on the
+   * queue. Only jobs with a {@code jobType} can be rebuilt on another instance.
+   *
+   * @param cutoff jobs last updated before this are considered abandoned
+   * @return the number of jobs requeued
+   */
+  @Transactional
+  @Modifying
+  @Query(
+      "update jobs j set j.status = 'queued', j.claimedBy = null where j.status = 'running'"
+          + " and j.updatedAt < :cutoff and j.jobType is not null")
+  int requeueAbandoned(@Param("cutoff") ZonedDateTime cutoff);
+
+  /**
+   * This method marks abandoned jobs that cannot be rebuilt (they ran code held only in the memory
+   * of the instance that died) as failed.
+   *
+   * @param cutoff jobs last updated before this are considered abandoned
+   * @return the number of jobs marked as errors
+   */
+  @Transactional
+  @Modifying
+  @Query(
+      "update jobs j set j.status = 'error' where j.status = 'running'"
+          + " and j.updatedAt < :cutoff and j.jobType is null")
+  int failAbandoned(@Param("cutoff") ZonedDateTime cutoff);
+
+  @Query("select distinct j.status from jobs j where j.status not in ('queued', 'running')")
+  List<String> findFinishedStatuses();
+
+  /**
+   * This method returns ids of jobs with a given status that were last updated before a cutoff.
+   *
+   * @param status the status
+   * @param cutoff jobs last updated before this are returned
+   * @param pageable the maximum number of ids to return
+   * @return ids of matching jobs
+   */
+  @Query("select j.id from jobs j where j.status = :status and j.updatedAt < :cutoff")
+  List<Long> findIdsByStatusUpdatedBefore(
+      @Param("status") String status, @Param("cutoff") ZonedDateTime cutoff, Pageable pageable);
+
+  @Query("select j.id from jobs j where j.status = :status order by j.id desc")
+  List<Long> findIdsByStatusNewestFirst(@Param("status") String status, Pageable pageable);
+
+  @Query("select j.id from jobs j where j.status = :status and j.id <= :maxId")
+  List<Long> findIdsByStatusAndIdAtMost(
+      @Param("status") String status, @Param("maxId") long maxId, Pageable pageable);
+
+  /**
+   * This method returns ids of finished jobs, last updated before a cutoff, whose logs have not
+   * been compacted yet.
+   *
+   * @param cutoff jobs last updated before this are returned
+   * @param pageable the maximum number of ids to return
+   * @return ids of jobs whose logs can be compacted
+   */
+  @Query(
+      "select j.id from jobs j where j.status not in ('queued', 'running')"
+          + " and j.updatedAt < :cutoff and j.logLength is null and (j.log is not null"
+          + " or exists (select c.id from job_log_chunks c where c.jobId = j.id))")
+  List<Long> findIdsToCompact(@Param("cutoff") ZonedDateTime cutoff, Pageable pageable);
+
+  // native, because JPQL has no byte length function for binary columns
+  @Query(
+      value =
+          "select coalesce(sum(coalesce(length(log), 0) + coalesce(octet_length(compressed_log),"
+              + " 0)), 0) from jobs where id in (:ids)",
+      nativeQuery = true)
+  long sumLogBytesByIdIn(@Param("ids") List<Long> ids);
+
+  @Transactional
+  @Modifying
+  @Query("delete from jobs j where j.id in :ids")
+  int deleteByIdIn(@Param("ids") List<Long> ids);
+}
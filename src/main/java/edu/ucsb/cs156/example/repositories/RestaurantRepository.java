@@ -1,9 +1,38 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.Restaurant;
+import jakarta.persistence.QueryHint;
+import java.util.List;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
 /** The RestaurantRepository is a repository for Restaurant entities */
 @Repository
-public interface RestaurantRepository extends CrudRepository<Restaurant, Long> {}
+public interface RestaurantRepository extends CrudRepository<Restaurant, Long> {
+  /**
+   * This method returns the restaurants with ids greater than a given id, in id order, for keyset
+   * pagination.
+   *
+   * @param afterId only restaurants with a greater id are returned
+   * @param limit the maximum number of restaurants to return
+   * @return the next restaurants
+   */
+  List<Restaurant> findByIdGreaterThanOrderByIdAsc(long afterId, Limit limit);
+
+  /**
+   * This method streams all restaurants in id order, for exports. The restaurants are fetched from
+   * the database in batches and loaded read-only. It must be called inside a transaction, and the
+   * stream must be closed.
+   *
+   * @return a stream of all restaurants
+   */
+  @QueryHints({
+    @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+    @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+  })
+  Stream<Restaurant> streamAllByOrderByIdAsc();
+}
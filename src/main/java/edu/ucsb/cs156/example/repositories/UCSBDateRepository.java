@@ -1,12 +1,48 @@
 package edu.ucsb.cs156.example.repositories;
 
+import edu.ucsb.cs156.example.config.CacheConfig;
 import edu.ucsb.cs156.example.entities.UCSBDate;
+import jakarta.persistence.QueryHint;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-/** The UCSBDateRepository is a repository for UCSBDate entities. */
+/**
+ * The UCSBDateRepository is a repository for UCSBDate entities.
+ *
+ * <p>Reads through {@link #findAll()}, {@link #findById} and {@link #findAllByQuarterYYYYQ} are
+ * kept in the {@code ucsbDates} cache, which is emptied whenever a date is written (see
+ * ReferenceDataCacheListener).
+ */
 @Repository
 public interface UCSBDateRepository extends CrudRepository<UCSBDate, Long> {
+  @Override
+  @Cacheable(cacheNames = CacheConfig.UCSB_DATES, key = "'all'")
+  Iterable<UCSBDate> findAll();
+
+  @Override
+  @Cacheable(cacheNames = CacheConfig.UCSB_DATES, key = "'id:' + #p0")
+  Optional<UCSBDate> findById(Long id);
+
+  /**
+   * This method looks up a date without the cache, for requests that change or delete it. The
+   * instance returned by {@link #findById} is shared with concurrent readers and must not be
+   * modified.
+   *
+   * @param id the id of the date
+   * @return the date, if it exists
+   */
+  @Query("select d from ucsbdates d where d.id = :id")
+  Optional<UCSBDate> findUncachedById(@Param("id") Long id);
+
   /**
    * This method returns all UCSBDate entities with a given quarterYYYYQ.
    *
@@ -14,5 +50,29 @@ public interface UCSBDateRepository extends CrudRepository<UCSBDate, Long> {
    *     2024, 20243 for Summer 2024, 20244 for Fall 2024)
    * @return all UCSBDate entities with a given quarterYYYYQ
    */
+  @Cacheable(cacheNames = CacheConfig.UCSB_DATES, key = "'quarter:' + #p0")
   Iterable<UCSBDate> findAllByQuarterYYYYQ(String quarterYYYYQ);
+
+  /**
+   * This method returns the dates with ids greater than a given id, in id order, for keyset
+   * pagination.
+   *
+   * @param afterId only dates with a greater id are returned
+   * @param limit the maximum number of dates to return
+   * @return the next dates
+   */
+  List<UCSBDate> findByIdGreaterThanOrderByIdAsc(long afterId, Limit limit);
+
+  /**
+   * This method streams all dates in id order, for exports. The dates are fetched from the database
+   * in batches and loaded read-only. It must be called inside a transaction, and the stream must be
+   * closed.
+   *
+   * @return a stream of all dates
+   */
+  @QueryHints({
+    @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+    @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+  })
+  Stream<UCSBDate> streamAllByOrderByIdAsc();
 }
@@ -1,9 +1,38 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItems;
+import jakarta.persistence.QueryHint;
+import java.util.List;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface UCSBDiningCommonsMenuItemsRepository
-    extends CrudRepository<UCSBDiningCommonsMenuItems, Long> {}
+    extends CrudRepository<UCSBDiningCommonsMenuItems, Long> {
+  /**
+   * This method returns the menu items with ids greater than a given id, in id order, for keyset
+   * pagination.
+   *
+   * @param afterId only menu items with a greater id are returned
+   * @param limit the maximum number of menu items to return
+   * @return the next menu items
+   */
+  List<UCSBDiningCommonsMenuItems> findByIdGreaterThanOrderByIdAsc(long afterId, Limit limit);
+
+  /**
+   * This method streams all menu items in id order, for exports. The menu items are fetched from
+   * the database in batches and loaded read-only. It must be called inside a transaction, and the
+   * stream must be closed.
+   *
+   * @return a stream of all menu items
+   */
+  @QueryHints({
+    @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+    @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+  })
+  Stream<UCSBDiningCommonsMenuItems> streamAllByOrderByIdAsc();
+}
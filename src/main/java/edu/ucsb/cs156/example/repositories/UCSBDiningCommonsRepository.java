@@ -1,9 +1,51 @@
 package edu.ucsb.cs156.example.repositories;
 
+import edu.ucsb.cs156.example.config.CacheConfig;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-/** The UCSBDiningCommonsRepository is a repository for UCSBDiningCommons entities */
+/**
+ * The UCSBDiningCommonsRepository is a repository for UCSBDiningCommons entities.
+ *
+ * <p>Reads through {@link #findAll()} and {@link #findById} are kept in the {@code
+ * ucsbDiningCommons} cache, which is emptied whenever a commons is written (see
+ * ReferenceDataCacheListener).
+ */
 @Repository
-public interface UCSBDiningCommonsRepository extends CrudRepository<UCSBDiningCommons, String> {}
+public interface UCSBDiningCommonsRepository extends CrudRepository<UCSBDiningCommons, String> {
+  @Override
+  @Cacheable(cacheNames = CacheConfig.UCSB_DINING_COMMONS, key = "'all'")
+  Iterable<UCSBDiningCommons> findAll();
+
+  @Override
+  @Cacheable(cacheNames = CacheConfig.UCSB_DINING_COMMONS, key = "'id:' + #p0")
+  Optional<UCSBDiningCommons> findById(String code);
+
+  /**
+   * This method looks up a commons without the cache, for requests that change or delete it. The
+   * instance returned by {@link #findById} is shared with concurrent readers and must not be
+   * modified.
+   *
+   * @param code the code of the commons
+   * @return the commons, if it exists
+   */
+  @Query("select c from ucsbdiningcommons c where c.code = :code")
+  Optional<UCSBDiningCommons> findUncachedById(@Param("code") String code);
+
+  /**
+   * This method returns the commons with codes greater than a given code, in code order, for keyset
+   * pagination.
+   *
+   * @param afterCode only commons with a greater code are returned
+   * @param limit the maximum number of commons to return
+   * @return the next commons
+   */
+  List<UCSBDiningCommons> findByCodeGreaterThanOrderByCodeAsc(String afterCode, Limit limit);
+}
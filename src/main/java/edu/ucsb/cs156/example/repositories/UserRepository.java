@@ -1,9 +1,20 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.User;
+import jakarta.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 /** The UserRepository is a repository for User entities. */
 @Repository
@@ -15,4 +26,79 @@ public interface UserRepository extends CrudRepository<User, Long> {
    * @return Optional of User (empty if not found)
    */
   Optional<User> findByEmail(String email);
+
+  /**
+   * This method returns a User entity with a given Google subject id.
+   *
+   * @param googleSub Google subject id of the user
+   * @return Optional of User (empty if not found)
+   */
+  Optional<User> findByGoogleSub(String googleSub);
+
+  /**
+   * This method returns the users with ids greater than a given id, in id order. Reading the table
+   * in batches this way uses the primary key index for every batch, however far through the table
+   * it is.
+   *
+   * @param afterId only users with a greater id are returned (0 for the first batch)
+   * @param limit the maximum number of users to return
+   * @return the next batch of users
+   */
+  List<User> findByIdGreaterThanOrderByIdAsc(long afterId, Limit limit);
+
+  /**
+   * This method locks the rows of some users until the end of the transaction, in id order so that
+   * two callers locking overlapping users cannot deadlock. It must be called inside a transaction.
+   *
+   * @param ids the user ids
+   * @return the locked users
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("select u from users u where u.id in :ids order by u.id")
+  List<User> lockByIdIn(@Param("ids") Collection<Long> ids);
+
+  /**
+   * This method returns a page of users whose email or full name matches a LIKE pattern, such as
+   * {@code "chris%"} for a prefix search. Patterns use {@code \} as the escape character.
+   *
+   * @param emailPattern only users whose email in lower case matches this or whose full name
+   *     matches namePattern, or all users if null
+   * @param namePattern the pattern for full names
+   * @param admin only admins (true) or non-admins (false), or all users if null
+   * @param pageable the page, size and sort order
+   * @return a page of users
+   */
+  @Query(
+      "select u from users u where (:emailPattern is null"
+          + " or lower(u.email) like :emailPattern escape '\\'"
+          + " or u.fullName like :namePattern escape '\\')"
+          + " and (:admin is null or u.admin = :admin)")
+  Page<User> search(
+      @Param("emailPattern") String emailPattern,
+      @Param("namePattern") String namePattern,
+      @Param("admin") Boolean admin,
+      Pageable pageable);
+
+  /**
+   * This method inserts a user in a single statement unless a user with the same email already
+   * exists. Two logins racing to insert the same new user are settled by the unique indexes on
+   * email and google_sub: at most one insert succeeds, and the other either inserts nothing or
+   * fails with a DataIntegrityViolationException.
+   *
+   * @param user the user to insert; its id is ignored
+   * @return 1 if the user was inserted, 0 if a user with that email already existed
+   */
+  @Transactional
+  @Modifying
+  @Query(
+      nativeQuery = true,
+      value =
+          "insert into users (email, google_sub, picture_url, full_name, given_name, family_name,"
+              + " email_verified, locale, hosted_domain, admin)"
+              + " select :#{#user.email}, :#{#user.googleSub}, :#{#user.pictureUrl},"
+              + " :#{#user.fullName}, :#{#user.givenName}, :#{#user.familyName},"
+              + " :#{#user.emailVerified}, :#{#user.locale}, :#{#user.hostedDomain},"
+              + " :#{#user.admin}"
+              + " where not exists (select 1 from users where email = :#{#user.email})")
+  int insertIfAbsent(@Param("user") User user);
 }
@@ -0,0 +1,164 @@
+package edu.ucsb.cs156.example.services;
+
+import jakarta.annotation.PostConstruct;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * This is a service that writes the access log: one line per request handled by a controller.
+ *
+ * <p>Request threads only add a record to a lock-free queue; the log lines are written by {@link
+ * #drain()} every {@code app.access-log.flush-interval-ms} milliseconds. At most {@code
+ * app.access-log.queue-capacity} records wait in the queue; beyond that records are dropped and
+ * counted.
+ *
+ * <p>Which requests are logged is decided once per handler method. Controllers listed in {@code
+ * app.access-log.stoplist} are never logged. Otherwise a request is logged with the rate given in
+ * {@code app.access-log.sample-rates} for {@code Controller.method} or {@code Controller} (for
+ * example {@code UsersController.users=0.1}), or {@code app.access-log.default-sample-rate}.
+ */
+@Slf4j
+@Service
+public class AccessLogService {
+
+  @Value("${app.access-log.stoplist:edu.ucsb.cs156.example.controllers.FrontendProxyController}")
+  private Set<String> stoplist;
+
+  @Value("${app.access-log.sample-rates:}")
+  private List<String> sampleRates;
+
+  @Value("${app.access-log.default-sample-rate:1.0}")
+  private double defaultSampleRate;
+
+  @Value("${app.access-log.queue-capacity:10000}")
+  private int queueCapacity;
+
+  /** What to log for one handler method. */
+  record Endpoint(String controller, String handler, double sampleRate) {}
+
+  /** One request waiting to be written to the log. */
+  record AccessLogRecord(
+      long timestamp, String method, String uri, String query, Endpoint endpoint) {}
+
+  // sample rates by Controller.method or Controller; see parseSampleRates
+  private Map<String, Double> rates = Map.of();
+
+  private final Map<Method, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+  private final Queue<AccessLogRecord> queue = new ConcurrentLinkedQueue<>();
+
+  private final AtomicInteger queued = new AtomicInteger();
+
+  private final AtomicLong dropped = new AtomicLong();
+
+  /**
+   * Whether access log lines would be written at all. Callers check this first, so nothing is
+   * allocated for a request when the log level is above INFO.
+   *
+   * @return true if the access log is enabled
+   */
+  public boolean isEnabled() {
+    return log.isInfoEnabled();
+  }
+
+  /**
+   * Queue a request for the access log, if its handler is not on the stoplist and the request is
+   * sampled.
+   *
+   * @param handlerMethod the controller method handling the request
+   * @param method the HTTP method
+   * @param uri the request URI
+   * @param query the query string, or null
+   */
+  public void record(Method handlerMethod, String method, String uri, String query) {
+    Endpoint endpoint = endpoints.get(handlerMethod);
+    if (endpoint == null) {
+      endpoint = endpoints.computeIfAbsent(handlerMethod, this::resolve);
+    }
+    if (endpoint.sampleRate() <= 0.0
+        || (endpoint.sampleRate() < 1.0
+            && ThreadLocalRandom.current().nextDouble() >= endpoint.sampleRate())) {
+      return;
+    }
+    if (queued.incrementAndGet() > queueCapacity) {
+      queued.decrementAndGet();
+      dropped.incrementAndGet();
+      return;
+    }
+    queue.offer(new AccessLogRecord(System.currentTimeMillis(), method, uri, query, endpoint));
+  }
+
+  Endpoint resolve(Method handlerMethod) {
+    Class<?> type = handlerMethod.getDeclaringClass();
+    String controller = type.getSimpleName();
+    String handler = handlerMethod.getName();
+    if (stoplist.contains(type.getName())) {
+      return new Endpoint(controller, handler, 0.0);
+    }
+    double rate =
+        rates.getOrDefault(
+            controller + "." + handler, rates.getOrDefault(controller, defaultSampleRate));
+    return new Endpoint(controller, handler, rate);
+  }
+
+  /** Parse {@code app.access-log.sample-rates} at startup, so a bad entry stops the application. */
+  @PostConstruct
+  void parseSampleRates() {
+    Map<String, Double> parsed = new HashMap<>();
+    for (String entry : sampleRates) {
+      String[] parts = entry.split("=");
+      Double rate = parts.length == 2 ? parseRate(parts[1]) : null;
+      if (rate == null) {
+        throw new IllegalArgumentException(
+            "app.access-log.sample-rates entries must look like Controller.method=rate, not "
+                + entry);
+      }
+      parsed.put(parts[0].trim(), rate);
+    }
+    rates = parsed;
+  }
+
+  private static Double parseRate(String rate) {
+    try {
+      return Double.parseDouble(rate.trim());
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  /** Write the queued records to the log. */
+  @Scheduled(fixedDelayString = "${app.access-log.flush-interval-ms:200}")
+  public void drain() {
+    AccessLogRecord record;
+    while ((record = queue.poll()) != null) {
+      queued.decrementAndGet();
+      Endpoint endpoint = record.endpoint();
+      log.info(
+          "timestamp={} method={} uri={} query={} controller={} handler={} sampleRate={}",
+          record.timestamp(),
+          record.method(),
+          record.uri(),
+          record.query(),
+          endpoint.controller(),
+          endpoint.handler(),
+          endpoint.sampleRate());
+    }
+    long droppedNow = dropped.getAndSet(0);
+    if (droppedNow > 0) {
+      log.warn("Access log queue full; dropped {} records", droppedNow);
+    }
+  }
+}
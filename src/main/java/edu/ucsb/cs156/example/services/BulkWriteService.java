@@ -0,0 +1,141 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.models.BulkResult;
+import edu.ucsb.cs156.example.models.BulkResult.Row;
+import edu.ucsb.cs156.example.models.BulkResult.Status;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * This is a service that creates, updates or deletes many rows of one entity type in a single
+ * transaction.
+ *
+ * <p>All rows are written at once when the transaction is flushed, so Hibernate sends them to the
+ * database in JDBC batches of {@code hibernate.jdbc.batch_size}; entities written in bulk take
+ * their ids from a pooled sequence so that inserts can be batched too. Existing rows are loaded
+ * with one query per call rather than one per row. At most {@code app.bulk.max-rows} rows are
+ * accepted per call.
+ */
+@Service
+public class BulkWriteService {
+  @Value("${app.bulk.max-rows:5000}")
+  private int maxRows;
+
+  /**
+   * Insert new rows.
+   *
+   * @param incoming the rows sent by the client
+   * @param toNew builds the entity to insert from a row sent by the client (ignoring any id)
+   * @param idOf the id of an entity
+   * @param repository the repository for the entity
+   * @param <T> the entity type
+   * @param <ID> the id type
+   * @return the new id of each row
+   */
+  @Transactional
+  public <T, ID> BulkResult create(
+      List<T> incoming,
+      Function<T, T> toNew,
+      Function<T, ID> idOf,
+      CrudRepository<T, ID> repository) {
+    checkSize(incoming.size());
+    List<T> entities = incoming.stream().map(toNew).toList();
+    List<Row> rows = new ArrayList<>();
+    for (T saved : repository.saveAll(entities)) {
+      rows.add(new Row(idOf.apply(saved), Status.CREATED));
+    }
+    return result(rows);
+  }
+
+  /**
+   * Update existing rows, matched by id. Rows whose id does not exist are reported as {@code
+   * NOT_FOUND} and skipped.
+   *
+   * @param incoming the rows sent by the client
+   * @param idOf the id of an entity
+   * @param update copies the fields of a row sent by the client (second) to the stored entity
+   *     (first)
+   * @param repository the repository for the entity
+   * @param <T> the entity type
+   * @param <ID> the id type
+   * @return the outcome for each row
+   */
+  @Transactional
+  public <T, ID> BulkResult update(
+      List<T> incoming,
+      Function<T, ID> idOf,
+      BiConsumer<T, T> update,
+      CrudRepository<T, ID> repository) {
+    checkSize(incoming.size());
+    Map<ID, T> existing = findAll(incoming.stream().map(idOf).toList(), idOf, repository);
+    List<Row> rows = new ArrayList<>();
+    for (T row : incoming) {
+      ID id = idOf.apply(row);
+      T entity = existing.get(id);
+      if (entity == null) {
+        rows.add(new Row(id, Status.NOT_FOUND));
+      } else {
+        update.accept(entity, row);
+        rows.add(new Row(id, Status.UPDATED));
+      }
+    }
+    repository.saveAll(existing.values());
+    return result(rows);
+  }
+
+  /**
+   * Delete rows by id. Ids that do not exist are reported as {@code NOT_FOUND}.
+   *
+   * @param ids the ids to delete
+   * @param idOf the id of an entity
+   * @param repository the repository for the entity
+   * @param <T> the entity type
+   * @param <ID> the id type
+   * @return the outcome for each id
+   */
+  @Transactional
+  public <T, ID> BulkResult delete(
+      List<ID> ids, Function<T, ID> idOf, CrudRepository<T, ID> repository) {
+    checkSize(ids.size());
+    Map<ID, T> existing = findAll(ids, idOf, repository);
+    List<Row> rows =
+        ids.stream()
+            .map(id -> new Row(id, existing.containsKey(id) ? Status.DELETED : Status.NOT_FOUND))
+            .toList();
+    repository.deleteAll(existing.values());
+    return result(rows);
+  }
+
+  private void checkSize(int size) {
+    if (size > maxRows) {
+      throw new IllegalArgumentException(
+          "At most %d rows can be written at once, not %d".formatted(maxRows, size));
+    }
+  }
+
+  private static <T, ID> Map<ID, T> findAll(
+      List<ID> ids, Function<T, ID> idOf, CrudRepository<T, ID> repository) {
+    Map<ID, T> found = new LinkedHashMap<>();
+    for (T entity : repository.findAllById(ids)) {
+      found.put(idOf.apply(entity), entity);
+    }
+    return found;
+  }
+
+  private static BulkResult result(List<Row> rows) {
+    Map<Status, Long> counts = new EnumMap<>(Status.class);
+    for (Row row : rows) {
+      counts.merge(row.status(), 1L, Long::sum);
+    }
+    return new BulkResult(counts, rows);
+  }
+}
@@ -0,0 +1,81 @@
+package edu.ucsb.cs156.example.services;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads comma-separated values (RFC 4180) one record at a time, so a large file is never held in
+ * memory. Fields may be quoted with {@code "}, and quoted fields may contain commas, line breaks
+ * and doubled quotes. Blank lines are skipped.
+ */
+class CsvReader {
+  private static final int END = -1;
+
+  private final Reader reader;
+  private final char[] buffer = new char[8192];
+  private int position = 0;
+  private int length = 0;
+
+  CsvReader(Reader reader) {
+    this.reader = reader;
+  }
+
+  /**
+   * Read the next record.
+   *
+   * @return the record's fields, or null at the end of the input
+   * @throws IOException if the input cannot be read or ends inside a quoted field
+   */
+  List<String> next() throws IOException {
+    int c = read();
+    while (c == '\r' || c == '\n') {
+      c = read();
+    }
+    if (c == END) {
+      return null;
+    }
+    List<String> fields = new ArrayList<>();
+    StringBuilder field = new StringBuilder();
+    boolean quoted = false;
+    while (true) {
+      if (quoted) {
+        if (c == END) {
+          throw new IOException("File ends inside a quoted field");
+        }
+        if (c == '"') {
+          c = read();
+          if (c != '"') {
+            quoted = false;
+            continue;
+          }
+        }
+        field.append((char) c);
+      } else if (c == '"') {
+        quoted = true;
+      } else if (c == ',') {
+        fields.add(field.toString());
+        field.setLength(0);
+      } else if (c == '\r' || c == '\n' || c == END) {
+        fields.add(field.toString());
+        return fields;
+      } else {
+        field.append((char) c);
+      }
+      c = read();
+    }
+  }
+
+  private int read() throws IOException {
+    if (position == length) {
+      length = reader.read(buffer);
+      position = 0;
+      if (length <= 0) {
+        length = 0;
+        return END;
+      }
+    }
+    return buffer[position++];
+  }
+}
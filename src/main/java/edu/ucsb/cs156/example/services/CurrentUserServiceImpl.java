@@ -1,16 +1,20 @@
 package edu.ucsb.cs156.example.services;
 
+import edu.ucsb.cs156.example.config.CacheConfig;
 import edu.ucsb.cs156.example.entities.User;
 import edu.ucsb.cs156.example.models.CurrentUser;
 import edu.ucsb.cs156.example.repositories.UserRepository;
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
+import java.util.HashSet;
 import java.util.Optional;
+import java.util.Set;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.context.annotation.Primary;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContext;
@@ -22,7 +26,9 @@ import org.springframework.stereotype.Service;
 /**
  * This is a service that provides information about the current user.
  *
- * <p>This is the version of the service used in production.
+ * <p>This is the version of the service used in production. The user is looked up (and saved, on
+ * their first login) once, then kept in the {@code currentUsers} cache by Google subject id until
+ * the entry expires or the user's row changes (see UserCacheListener).
  */
 @Slf4j
 @Service("currentUser")
@@ -32,8 +38,10 @@ public class CurrentUserServiceImpl extends CurrentUserService {
 
   @Autowired GrantedAuthoritiesService grantedAuthoritiesService;
 
+  @Autowired private CacheManager cacheManager;
+
   @Value("${app.admin.emails}")
-  private final List<String> adminEmails = new ArrayList<String>();
+  private final Set<String> adminEmails = new HashSet<String>();
 
   /**
    * This method returns the current user as a User object.
@@ -51,7 +59,8 @@ public class CurrentUserServiceImpl extends CurrentUserService {
    * automatically injected by Spring.
    *
    * <p>This method also has a side effect of storing the user in the database if they are not
-   * already there.
+   * already there. The user is inserted with a single insert-if-absent statement, so concurrent
+   * first logins create only one row.
    *
    * @param securityContext the security context (provided by Spring)
    * @param authentication the authentication token (provided by Spring)
@@ -71,32 +80,37 @@ public class CurrentUserServiceImpl extends CurrentUserService {
     String hostedDomain = oAuthUser.getAttribute("hd");
 
     java.util.Map<java.lang.String, java.lang.Object> attrs = oAuthUser.getAttributes();
-    log.info("attrs={}", attrs);
+    log.debug("attrs={}", attrs);
 
     Optional<User> ou = userRepository.findByEmail(email);
-    if (ou.isPresent()) {
-      User u = ou.get();
-      if (adminEmails.contains(email) && !u.getAdmin()) {
-        u.setAdmin(true);
-        userRepository.save(u);
+    if (ou.isEmpty()) {
+      User newUser =
+          User.builder()
+              .googleSub(googleSub)
+              .email(email)
+              .pictureUrl(pictureUrl)
+              .fullName(fullName)
+              .givenName(givenName)
+              .familyName(familyName)
+              .emailVerified(emailVerified)
+              .locale(locale)
+              .hostedDomain(hostedDomain)
+              .admin(adminEmails.contains(email))
+              .build();
+      try {
+        userRepository.insertIfAbsent(newUser);
+      } catch (DataIntegrityViolationException e) {
+        // another login inserted this user first, or the Google account's email changed
+        log.info("User {} was already provisioned: {}", email, e.getMessage());
       }
-      return u;
+      ou = userRepository.findByEmail(email).or(() -> userRepository.findByGoogleSub(googleSub));
     }
 
-    User u =
-        User.builder()
-            .googleSub(googleSub)
-            .email(email)
-            .pictureUrl(pictureUrl)
-            .fullName(fullName)
-            .givenName(givenName)
-            .familyName(familyName)
-            .emailVerified(emailVerified)
-            .locale(locale)
-            .hostedDomain(hostedDomain)
-            .admin(adminEmails.contains(email))
-            .build();
-    userRepository.save(u);
+    User u = ou.orElseThrow();
+    if (adminEmails.contains(email) && !u.getAdmin()) {
+      u.setAdmin(true);
+      userRepository.save(u);
+    }
     return u;
   }
 
@@ -109,8 +123,21 @@ public class CurrentUserServiceImpl extends CurrentUserService {
     SecurityContext securityContext = SecurityContextHolder.getContext();
     Authentication authentication = securityContext.getAuthentication();
 
-    if (authentication instanceof OAuth2AuthenticationToken) {
-      return getOAuth2AuthenticatedUser(securityContext, authentication);
+    if (authentication instanceof OAuth2AuthenticationToken token) {
+      String googleSub = token.getPrincipal().getAttribute("sub");
+      if (googleSub == null) {
+        return getOAuth2AuthenticatedUser(securityContext, authentication);
+      }
+      Cache currentUsers = cacheManager.getCache(CacheConfig.CURRENT_USERS);
+      User cached = currentUsers.get(googleSub, User.class);
+      if (cached != null) {
+        return cached;
+      }
+      // not loaded through cache.get(key, loader): resolving the user may save it, and
+      // UserCacheListener then evicts this same key, which the cache forbids while it is loading
+      User user = getOAuth2AuthenticatedUser(securityContext, authentication);
+      currentUsers.put(googleSub, user);
+      return user;
     }
     return null;
   }
@@ -0,0 +1,376 @@
+package edu.ucsb.cs156.example.services;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import edu.ucsb.cs156.example.entities.ImportFile;
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.jobs.ImportJob;
+import edu.ucsb.cs156.example.models.ImportTarget;
+import edu.ucsb.cs156.example.repositories.ImportFilesRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemsRepository;
+import edu.ucsb.cs156.example.services.jobs.JobContext;
+import edu.ucsb.cs156.example.services.jobs.JobService;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * This is a service that imports CSV and JSON files into the UCSB dates and dining commons menu
+ * items tables as background jobs.
+ *
+ * <p>An uploaded file is stored (gzipped) in the {@code import_files} table and imported by an
+ * {@link ImportJob}. The job reads the file one row at a time and inserts valid rows {@code
+ * app.imports.batch-size} at a time; each batch is committed together with the import's counters,
+ * so an import that stops part way through (because its instance died, or it failed and was
+ * retried) carries on after the last batch it committed. Rows that cannot be imported are counted
+ * and skipped; the first {@code app.imports.max-logged-errors} of them are written to the job log,
+ * along with the progress of each batch. If the database rejects a batch (e.g. a value is too long
+ * for its column), that batch is inserted again one row at a time, so only the rejected rows are
+ * skipped.
+ *
+ * <p>CSV files must have a header row naming the fields. JSON files may hold either an array of
+ * objects or one object per line, as written by the {@code /export} endpoints. An {@code id} field
+ * is ignored; imported rows always get new ids.
+ */
+@Service
+public class ImportService {
+  @Autowired private ImportFilesRepository importFilesRepository;
+
+  @Autowired private UCSBDateRepository ucsbDateRepository;
+
+  @Autowired private UCSBDiningCommonsMenuItemsRepository ucsbDiningCommonsMenuItemsRepository;
+
+  @Autowired private JobService jobService;
+
+  @Autowired private TransactionTemplate transactionTemplate;
+
+  @Autowired private ObjectMapper mapper;
+
+  @Value("${app.imports.batch-size:500}")
+  private int batchSize;
+
+  @Value("${app.imports.max-logged-errors:100}")
+  private int maxLoggedErrors;
+
+  /** One row of a file: either its fields, or why it cannot be read. */
+  private record Row(ObjectNode fields, String error) {}
+
+  /**
+   * A row read since the last commit, with its new entity, or null if it failed and was counted.
+   */
+  private record Pending(long rowNumber, Row row, Object entity) {}
+
+  @FunctionalInterface
+  private interface RowReader {
+    /** Returns the next row, or null at the end of the file. */
+    Row next() throws IOException;
+  }
+
+  /**
+   * Store an uploaded file and start a job that imports it.
+   *
+   * @param target the table to import into
+   * @param file a .csv, .json or .ndjson file
+   * @return the import job
+   * @throws IOException if the file cannot be read
+   * @throws IllegalArgumentException if the file is not CSV or JSON
+   */
+  public Job startImport(ImportTarget target, MultipartFile file) throws IOException {
+    String filename = file.getOriginalFilename();
+    if (!isCsv(filename) && !isJson(filename)) {
+      throw new IllegalArgumentException(
+          "Only .csv, .json and .ndjson files can be imported, not " + filename);
+    }
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (InputStream in = file.getInputStream();
+        GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+      in.transferTo(gzip);
+    }
+    ImportFile importFile =
+        importFilesRepository.save(
+            ImportFile.builder()
+                .target(target)
+                .filename(filename)
+                .createdAt(ZonedDateTime.now())
+                .content(bytes.toByteArray())
+                .build());
+    return jobService.runAsJob(ImportJob.builder().importFileId(importFile.getId()).build());
+  }
+
+  /**
+   * Import a stored file, starting after the last batch already committed. This is the body of
+   * {@link ImportJob}.
+   *
+   * @param ctx the job's context, for logging and cancellation
+   * @param importFileId id of the stored file
+   * @throws IOException if the file is not valid CSV or JSON
+   */
+  public void runImport(JobContext ctx, long importFileId) throws IOException {
+    ImportFile importFile =
+        importFilesRepository
+            .findById(importFileId)
+            .orElseThrow(() -> new EntityNotFoundException(ImportFile.class, importFileId));
+    if (importFile.getContent() == null) {
+      ctx.log("Import of %s has already finished".formatted(importFile.getFilename()));
+      return;
+    }
+    long resumeAfter = importFile.getRowsRead();
+    if (resumeAfter > 0) {
+      ctx.log(
+          "Resuming import of %s after row %d".formatted(importFile.getFilename(), resumeAfter));
+    } else {
+      ctx.log("Importing %s into %s".formatted(importFile.getFilename(), importFile.getTarget()));
+    }
+
+    long start = System.nanoTime();
+    List<Pending> batch = new ArrayList<>();
+    try (Reader reader =
+        new InputStreamReader(
+            new GZIPInputStream(new ByteArrayInputStream(importFile.getContent())),
+            StandardCharsets.UTF_8)) {
+      RowReader rows = isCsv(importFile.getFilename()) ? csvRows(reader) : jsonRows(reader);
+      long rowNumber = 0;
+      Row row;
+      while ((row = rows.next()) != null) {
+        rowNumber++;
+        if (rowNumber <= resumeAfter) {
+          continue;
+        }
+        Object entity = null;
+        try {
+          entity = toEntity(importFile.getTarget(), row);
+        } catch (IllegalArgumentException e) {
+          importFile.setRowsFailed(importFile.getRowsFailed() + 1);
+          logRowError(ctx, importFile.getRowsFailed(), rowNumber, e.getMessage());
+        }
+        batch.add(new Pending(rowNumber, row, entity));
+        if (rowNumber % batchSize == 0) {
+          commit(ctx, importFile, batch, rowNumber, resumeAfter, start);
+        }
+      }
+      commit(ctx, importFile, batch, rowNumber, resumeAfter, start);
+    }
+
+    transactionTemplate.executeWithoutResult(
+        status -> importFilesRepository.clearContent(importFileId));
+    ctx.log(
+        "Finished importing %s: %d rows imported, %d failed"
+            .formatted(
+                importFile.getFilename(),
+                importFile.getRowsImported(),
+                importFile.getRowsFailed()));
+  }
+
+  /** Insert a batch of rows and record how far the import has got, in one transaction. */
+  @SuppressWarnings("unchecked")
+  private void commit(
+      JobContext ctx,
+      ImportFile importFile,
+      List<Pending> batch,
+      long rowNumber,
+      long resumeAfter,
+      long start) {
+    if (rowNumber == importFile.getRowsRead()) {
+      return;
+    }
+    ctx.checkpoint();
+    CrudRepository<Object, Long> repository =
+        (CrudRepository<Object, Long>) repositoryFor(importFile.getTarget());
+    List<Object> entities = batch.stream().map(Pending::entity).filter(Objects::nonNull).toList();
+    long rowsImported = importFile.getRowsImported() + entities.size();
+    try {
+      transactionTemplate.executeWithoutResult(
+          status -> {
+            repository.saveAll(entities);
+            importFilesRepository.updateProgress(
+                importFile.getId(), rowNumber, rowsImported, importFile.getRowsFailed());
+          });
+      importFile.setRowsRead(rowNumber);
+      importFile.setRowsImported(rowsImported);
+    } catch (DataIntegrityViolationException e) {
+      commitRowByRow(ctx, importFile, batch, repository, rowNumber);
+    }
+    batch.clear();
+
+    long elapsedMs = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+    ctx.log(
+        "Read %d rows: %d imported, %d failed (%d rows/s)"
+            .formatted(
+                rowNumber,
+                importFile.getRowsImported(),
+                importFile.getRowsFailed(),
+                (rowNumber - resumeAfter) * 1000 / elapsedMs));
+  }
+
+  /**
+   * Insert the rows of a batch the database rejected (e.g. for a constraint) one at a time, each in
+   * its own transaction together with the import's counters, and count the rows it rejects again as
+   * failed.
+   */
+  private void commitRowByRow(
+      JobContext ctx,
+      ImportFile importFile,
+      List<Pending> batch,
+      CrudRepository<Object, Long> repository,
+      long rowNumber) {
+    long failedBefore =
+        importFile.getRowsFailed() - batch.stream().filter(p -> p.entity() == null).count();
+    long rowsImported = importFile.getRowsImported();
+    long rowsFailed = failedBefore;
+    for (Pending pending : batch) {
+      if (pending.entity() == null) {
+        rowsFailed++;
+        continue;
+      }
+      // a new entity, because the rolled back batch left ids on the first ones
+      Object entity = toEntity(importFile.getTarget(), pending.row());
+      long imported = rowsImported + 1;
+      long failed = rowsFailed;
+      try {
+        transactionTemplate.executeWithoutResult(
+            status -> {
+              repository.save(entity);
+              importFilesRepository.updateProgress(
+                  importFile.getId(), pending.rowNumber(), imported, failed);
+            });
+        rowsImported = imported;
+      } catch (DataIntegrityViolationException e) {
+        rowsFailed++;
+        logRowError(
+            ctx, rowsFailed, pending.rowNumber(), "rejected by the database: " + firstLine(e));
+      }
+    }
+    long imported = rowsImported;
+    long failed = rowsFailed;
+    transactionTemplate.executeWithoutResult(
+        status ->
+            importFilesRepository.updateProgress(importFile.getId(), rowNumber, imported, failed));
+    importFile.setRowsRead(rowNumber);
+    importFile.setRowsImported(rowsImported);
+    importFile.setRowsFailed(rowsFailed);
+  }
+
+  private static String firstLine(Exception e) {
+    String message = String.valueOf(NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+    return message.lines().findFirst().orElse("");
+  }
+
+  private void logRowError(JobContext ctx, long failed, long rowNumber, String message) {
+    if (failed <= maxLoggedErrors) {
+      ctx.log("Row %d: %s".formatted(rowNumber, message));
+    } else if (failed == maxLoggedErrors + 1) {
+      ctx.log(
+          "More than %d rows failed; further errors are counted but not logged"
+              .formatted(maxLoggedErrors));
+    }
+  }
+
+  private CrudRepository<?, Long> repositoryFor(ImportTarget target) {
+    return switch (target) {
+      case UCSB_DATES -> ucsbDateRepository;
+      case UCSB_DINING_COMMONS_MENU_ITEMS -> ucsbDiningCommonsMenuItemsRepository;
+    };
+  }
+
+  /**
+   * Check a row and turn it into a new entity.
+   *
+   * @throws IllegalArgumentException if the row is not valid
+   */
+  private Object toEntity(ImportTarget target, Row row) {
+    if (row.error() != null) {
+      throw new IllegalArgumentException(row.error());
+    }
+    ObjectNode fields = row.fields();
+    fields.remove("id");
+    for (String name : target.getRequiredFields()) {
+      JsonNode value = fields.get(name);
+      if (value == null || value.isNull() || value.asText().isBlank()) {
+        throw new IllegalArgumentException("missing " + name);
+      }
+    }
+    try {
+      return mapper.treeToValue(fields, target.getType());
+    } catch (JsonProcessingException e) {
+      throw new IllegalArgumentException(e.getOriginalMessage());
+    }
+  }
+
+  private RowReader csvRows(Reader reader) throws IOException {
+    CsvReader csv = new CsvReader(reader);
+    List<String> header = csv.next();
+    if (header == null) {
+      return () -> null;
+    }
+    // spreadsheet programs often start UTF-8 CSV files with a byte order mark
+    header.set(0, header.get(0).replace("\uFEFF", ""));
+    return () -> {
+      List<String> record = csv.next();
+      if (record == null) {
+        return null;
+      }
+      if (record.size() != header.size()) {
+        return new Row(
+            null, "has %d fields but the header has %d".formatted(record.size(), header.size()));
+      }
+      ObjectNode fields = mapper.createObjectNode();
+      for (int i = 0; i < header.size(); i++) {
+        fields.put(header.get(i).trim(), record.get(i));
+      }
+      return new Row(fields, null);
+    };
+  }
+
+  private RowReader jsonRows(Reader reader) throws IOException {
+    JsonParser parser = mapper.getFactory().createParser(reader);
+    boolean array = parser.nextToken() == JsonToken.START_ARRAY;
+    if (array) {
+      parser.nextToken();
+    }
+    return () -> {
+      JsonToken token = parser.currentToken();
+      if (token == null || token == JsonToken.END_ARRAY) {
+        return null;
+      }
+      JsonNode node = mapper.readTree(parser);
+      parser.nextToken();
+      return node instanceof ObjectNode fields
+          ? new Row(fields, null)
+          : new Row(null, "is not a JSON object");
+    };
+  }
+
+  private static boolean isCsv(String filename) {
+    return String.valueOf(filename).toLowerCase(Locale.ROOT).endsWith(".csv");
+  }
+
+  private static boolean isJson(String filename) {
+    String name = String.valueOf(filename).toLowerCase(Locale.ROOT);
+    return name.endsWith(".json") || name.endsWith(".ndjson");
+  }
+}
@@ -0,0 +1,81 @@
+package edu.ucsb.cs156.example.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * This is a service that exports a whole table as newline-delimited JSON (one row per line).
+ *
+ * <p>Rows come from a repository method returning a {@link Stream}, which is read inside a
+ * read-only transaction so the JDBC driver can fetch rows in batches (see the fetch size hint on
+ * the repository methods). Each row is written to the response and then detached from the
+ * persistence context, so memory use does not grow with the size of the table.
+ */
+@Service
+public class NdjsonExportService {
+  /** The content type of the exports */
+  public static final MediaType APPLICATION_NDJSON =
+      MediaType.parseMediaType("application/x-ndjson");
+
+  @Autowired private ObjectMapper mapper;
+
+  @Autowired private EntityManager entityManager;
+
+  @Autowired private PlatformTransactionManager transactionManager;
+
+  /**
+   * Build a response that streams rows as newline-delimited JSON.
+   *
+   * @param rows opens the stream of rows; called once the response body is written
+   * @return the response
+   */
+  public ResponseEntity<StreamingResponseBody> export(Supplier<? extends Stream<?>> rows) {
+    StreamingResponseBody body = out -> write(rows, out);
+    return ResponseEntity.ok().contentType(APPLICATION_NDJSON).body(body);
+  }
+
+  /**
+   * Write rows to an output stream as newline-delimited JSON.
+   *
+   * @param rows opens the stream of rows
+   * @param out where to write the rows
+   */
+  void write(Supplier<? extends Stream<?>> rows, OutputStream out) {
+    TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+    transactionTemplate.setReadOnly(true);
+    ObjectWriter writer = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    transactionTemplate.executeWithoutResult(
+        status -> {
+          try (Stream<?> stream = rows.get();
+              JsonGenerator generator = mapper.getFactory().createGenerator(out)) {
+            // rows are ended with a newline rather than separated by Jackson's default space
+            generator.setRootValueSeparator(null);
+            Iterator<?> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+              Object row = iterator.next();
+              writer.writeValue(generator, row);
+              generator.writeRaw('\n');
+              entityManager.detach(row);
+            }
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        });
+  }
+}
@@ -0,0 +1,82 @@
+package edu.ucsb.cs156.example.services;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.ServletWebRequest;
+
+/**
+ * This is a service that keeps a version counter for each entity type, and turns it into ETags for
+ * conditional GETs.
+ *
+ * <p>The counters are bumped by TableVersionListener whenever a row is written, so a client that
+ * sends back the ETag it was given gets {@code 304 Not Modified} until the table changes, without
+ * the database being queried.
+ *
+ * <p>Counters live in memory. Each ETag includes an id for this instance, so tags from another
+ * instance or an earlier run never match, and the current {@code app.etags.max-age-seconds} period.
+ * A write through another instance does not bump this instance's counters, so with several
+ * instances a client can be told its copy is current for up to that long after another instance
+ * changed the table. The default is kept short for that reason.
+ */
+@Service
+public class TableVersionService {
+  @Value("${app.etags.max-age-seconds:30}")
+  private long maxAgeSeconds;
+
+  private final String instanceId = UUID.randomUUID().toString().substring(0, 8);
+
+  private final Map<Class<?>, AtomicLong> versions = new ConcurrentHashMap<>();
+
+  /**
+   * Record that rows of an entity type have changed.
+   *
+   * @param type the entity class
+   */
+  public void bump(Class<?> type) {
+    versions.computeIfAbsent(type, t -> new AtomicLong()).incrementAndGet();
+  }
+
+  /**
+   * The current version of an entity type.
+   *
+   * @param type the entity class
+   * @return the number of times rows of that type have changed since startup
+   */
+  public long getVersion(Class<?> type) {
+    AtomicLong version = versions.get(type);
+    return version == null ? 0 : version.get();
+  }
+
+  /**
+   * A strong ETag for responses built from rows of an entity type.
+   *
+   * @param type the entity class
+   * @return the quoted ETag
+   */
+  public String etag(Class<?> type) {
+    long period = System.currentTimeMillis() / (maxAgeSeconds * 1000);
+    return "\"%s-%s-%d-%d\"".formatted(type.getSimpleName(), instanceId, period, getVersion(type));
+  }
+
+  /**
+   * Check a GET request's {@code If-None-Match} header against the entity type's current ETag. If
+   * it matches, the response status is set to 304 and the handler should return null without
+   * reading the database. Otherwise the ETag is added to the response.
+   *
+   * <p>Either way the response is marked {@code Cache-Control: private, no-cache}, so browsers keep
+   * it but revalidate it on every use (instead of Spring Security's default of not storing it).
+   *
+   * @param request the request
+   * @param type the entity class the response is built from
+   * @return true if the client's copy is current
+   */
+  public boolean checkNotModified(ServletWebRequest request, Class<?> type) {
+    request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+    return request.checkNotModified(etag(type));
+  }
+}
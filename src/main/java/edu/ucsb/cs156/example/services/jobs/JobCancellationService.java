@@ -0,0 +1,92 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * This is a service that stops running jobs that have been cancelled or have run for too long.
+ *
+ * <p>A job may run for {@code maxRuntimeMs} (or {@code app.jobs.max-runtime-ms} if the job does not
+ * set one) before it is stopped with status {@code timeout}. A running job is cancelled by setting
+ * {@code cancelRequested}; the instance running it notices within {@code
+ * app.jobs.cancel.check-interval-ms} and stops it with status {@code cancelled}.
+ *
+ * <p>Stopping a job interrupts its thread and makes {@link JobContext#isCancelled()} return true.
+ * Jobs should call {@link JobContext#checkpoint()} between steps of long work; a job that neither
+ * checks nor blocks in an interruptible call keeps its thread until it returns.
+ */
+@Slf4j
+@Service
+public class JobCancellationService {
+  @Autowired private JobsRepository jobsRepository;
+
+  @Autowired private JobDispatcher jobDispatcher;
+
+  @Value("${app.jobs.max-runtime-ms:3600000}")
+  private long defaultMaxRuntimeMs;
+
+  // job id -> jobs running on this instance
+  private final Map<Long, RunningJob> runningJobs = new ConcurrentHashMap<>();
+
+  /**
+   * Record that a job has started on the current thread.
+   *
+   * @param job the job
+   * @return the handle to pass to {@link #unregister} when the job returns
+   */
+  RunningJob register(Job job) {
+    long maxRuntimeMs = job.getMaxRuntimeMs() == null ? defaultMaxRuntimeMs : job.getMaxRuntimeMs();
+    RunningJob running =
+        new RunningJob(job, Thread.currentThread(), Instant.now().plusMillis(maxRuntimeMs));
+    runningJobs.put(job.getId(), running);
+    return running;
+  }
+
+  /**
+   * Record that a job has returned, and release its thread for the next job.
+   *
+   * @param running the handle returned by {@link #register}
+   */
+  void unregister(RunningJob running) {
+    runningJobs.remove(running.getJob().getId(), running);
+    running.finish();
+  }
+
+  /**
+   * Stop a job if it is running on this instance.
+   *
+   * @param jobId id of the job
+   * @param status the status to finish the job with
+   * @return true if the job was running here and has been told to stop
+   */
+  public boolean stop(long jobId, String status) {
+    RunningJob running = runningJobs.get(jobId);
+    if (running == null || !running.stop(status)) {
+      return false;
+    }
+    log.info("Stopping job {}: {}", jobId, status);
+    return true;
+  }
+
+  /** Stop local jobs that are past their deadline or that someone has asked to cancel. */
+  @Scheduled(fixedDelayString = "${app.jobs.cancel.check-interval-ms:5000}")
+  public void checkRunningJobs() {
+    Instant now = Instant.now();
+    for (RunningJob running : runningJobs.values()) {
+      if (now.isAfter(running.getDeadline())) {
+        stop(running.getJob().getId(), "timeout");
+      }
+    }
+    for (Long jobId : jobsRepository.findCancelRequestedIds(jobDispatcher.getInstanceId())) {
+      stop(jobId, "cancelled");
+    }
+  }
+}
@@ -0,0 +1,11 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+/**
+ * Thrown by {@link JobContext#checkpoint()} when the running job has been cancelled or has run for
+ * longer than its maximum runtime.
+ */
+public class JobCancelledException extends RuntimeException {
+  public JobCancelledException(long jobId, String status) {
+    super(String.format("Job %d stopped: %s", jobId, status));
+  }
+}
@@ -1,20 +1,42 @@
 package edu.ucsb.cs156.example.services.jobs;
 
 import edu.ucsb.cs156.example.entities.Job;
-import edu.ucsb.cs156.example.repositories.JobsRepository;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 @AllArgsConstructor
 @Slf4j
 public class JobContext {
-  private JobsRepository jobsRepository;
   private Job job;
+  private JobLogWriter logWriter;
+  private JobStreamService jobStreamService;
+  private RunningJob running;
 
   public void log(String message) {
-    log.info("Job %s: %s".formatted(job.getId(), message));
-    String previousLog = job.getLog() == null ? "" : (job.getLog() + "\n");
-    job.setLog(previousLog + message);
-    if (jobsRepository != null) jobsRepository.save(job);
+    log.info("Job {}: {}", job.getId(), message);
+    long lineNumber = logWriter.append(message);
+    jobStreamService.publishLog(job, lineNumber, message);
+  }
+
+  /**
+   * Whether the job has been cancelled or has run past its maximum runtime. Long-running jobs
+   * should check this (or call {@link #checkpoint()}) regularly and return early when it is true.
+   *
+   * @return true if the job should stop
+   */
+  public boolean isCancelled() {
+    return running.getStopStatus() != null;
+  }
+
+  /**
+   * Stop the job here if it has been cancelled or has run past its maximum runtime.
+   *
+   * @throws JobCancelledException if the job should stop
+   */
+  public void checkpoint() {
+    String stopStatus = running.getStopStatus();
+    if (stopStatus != null) {
+      throw new JobCancelledException(job.getId(), stopStatus);
+    }
   }
 }
@@ -0,0 +1,252 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * This is a service that starts queued jobs.
+ *
+ * <p>The queue lives in the {@code jobs} table: a job waits with status {@code queued} until the
+ * dispatcher claims it. Jobs are claimed highest priority first; within a priority, users with
+ * fewer running jobs go first, then the oldest job. Each instance runs at most {@code
+ * app.jobs.queue.max-running} jobs at once (by default as many as the jobExecutor runs at once; see
+ * JobExecutorConfig), and at most {@code app.jobs.queue.max-running-per-user} run for any one user
+ * across all instances.
+ *
+ * <p>Several instances can share one database. Queued rows are claimed with {@code SELECT ... FOR
+ * UPDATE SKIP LOCKED}, so two instances never claim the same job, and the rows of the users whose
+ * jobs are being claimed are locked while their running jobs are counted, so the per-user limit
+ * holds across instances. While a job runs, its instance refreshes {@code updatedAt} as a
+ * heartbeat; running jobs whose heartbeat stops are put back on the queue (if they are {@link
+ * PersistentJob}s) or marked as errors, unless someone asked to cancel them.
+ */
+@Slf4j
+@Service
+public class JobDispatcher {
+  @Autowired private JobsRepository jobsRepository;
+
+  @Autowired private UserRepository userRepository;
+
+  @Lazy @Autowired private JobService jobService;
+
+  @Autowired private TransactionTemplate transactionTemplate;
+
+  @Autowired private ObjectMapper mapper;
+
+  // defaults to the jobExecutor's limit, so virtual threads are not held back by the pool's size
+  @Value(
+      "${app.jobs.queue.max-running:#{${spring.threads.virtual.enabled:false}"
+          + " ? ${app.jobs.executor.virtual-concurrency-limit:256}"
+          + " : ${app.jobs.executor.max-size:4}}}")
+  private int maxRunning;
+
+  @Value("${app.jobs.queue.max-running-per-user:2}")
+  private int maxRunningPerUser;
+
+  @Value("${app.jobs.queue.batch-size:50}")
+  private int batchSize;
+
+  @Value("${app.jobs.cluster.instance-id:#{T(java.util.UUID).randomUUID().toString()}}")
+  private String instanceId;
+
+  @Value("${app.jobs.cluster.stale-after-ms:60000}")
+  private long staleAfterMs;
+
+  private record PendingJob(JobContextConsumer jobFunction, SecurityContext securityContext) {}
+
+  private record ClaimedJob(Job job, PendingJob pending) {}
+
+  private final Map<Long, PendingJob> pendingJobs = new ConcurrentHashMap<>();
+
+  /**
+   * Add a saved, queued job to the queue and try to start it straight away.
+   *
+   * @param job the job, already saved with status "queued"
+   * @param jobFunction the code the job runs
+   */
+  public void enqueue(Job job, JobContextConsumer jobFunction) {
+    pendingJobs.put(job.getId(), new PendingJob(jobFunction, SecurityContextHolder.getContext()));
+    dispatch();
+  }
+
+  /**
+   * Cancel a job if it has not been claimed yet.
+   *
+   * @param jobId id of the job
+   * @return true if the job was still queued and is now cancelled
+   */
+  public boolean cancelQueued(long jobId) {
+    if (jobsRepository.cancelQueued(jobId, ZonedDateTime.now()) == 0) {
+      return false;
+    }
+    pendingJobs.remove(jobId);
+    return true;
+  }
+
+  /**
+   * The id this instance records in {@code claimedBy} for the jobs it runs.
+   *
+   * @return the instance id
+   */
+  public String getInstanceId() {
+    return instanceId;
+  }
+
+  /** Claim and start as many queued jobs as the global and per-user limits allow. */
+  @Scheduled(fixedDelayString = "${app.jobs.queue.poll-interval-ms:1000}")
+  public synchronized void dispatch() {
+    List<ClaimedJob> claimed = transactionTemplate.execute(status -> claim());
+    boolean executorFull = false;
+    for (ClaimedJob claimedJob : claimed) {
+      executorFull = executorFull || !start(claimedJob.job(), claimedJob.pending());
+      if (executorFull) {
+        requeue(claimedJob.job(), claimedJob.pending());
+      }
+    }
+  }
+
+  private List<ClaimedJob> claim() {
+    List<ClaimedJob> claimed = new ArrayList<>();
+    long running = jobsRepository.countByStatusAndClaimedBy("running", instanceId);
+    if (running >= maxRunning) {
+      return claimed;
+    }
+
+    List<Job> candidates =
+        new ArrayList<>(
+            jobsRepository.findByStatusOrderByPriorityDescIdAsc(
+                "queued", PageRequest.of(0, batchSize)));
+    // instances claiming jobs for the same user take turns, each counting the jobs the others
+    // have claimed
+    Set<Long> userIds = new TreeSet<>();
+    for (Job job : candidates) {
+      if (job.getCreatedById() != null) {
+        userIds.add(job.getCreatedById());
+      }
+    }
+    if (!userIds.isEmpty()) {
+      userRepository.lockByIdIn(userIds);
+    }
+    Map<Long, Long> runningPerUser = new HashMap<>();
+    for (Job job : candidates) {
+      runningPerUser.computeIfAbsent(
+          job.getCreatedById(),
+          userId -> jobsRepository.countByStatusAndCreatedById("running", userId));
+    }
+    candidates.sort(
+        Comparator.comparingInt(Job::getPriority)
+            .reversed()
+            .thenComparingLong(job -> runningPerUser.get(job.getCreatedById()))
+            .thenComparingLong(Job::getId));
+
+    for (Job job : candidates) {
+      if (running >= maxRunning) {
+        break;
+      }
+      long userRunning = runningPerUser.get(job.getCreatedById());
+      if (userRunning >= maxRunningPerUser) {
+        continue;
+      }
+      PendingJob pending = pendingJob(job);
+      if (pending == null) {
+        continue;
+      }
+      job.setStatus("running");
+      job.setClaimedBy(instanceId);
+      job.setUpdatedAt(ZonedDateTime.now());
+      jobsRepository.save(job);
+      claimed.add(new ClaimedJob(job, pending));
+      running++;
+      runningPerUser.put(job.getCreatedById(), userRunning + 1);
+    }
+    return claimed;
+  }
+
+  /**
+   * Find the code for a queued job: either the consumer passed to {@link #enqueue} on this
+   * instance, or a {@link PersistentJob} rebuilt from the job's JSON payload.
+   */
+  private PendingJob pendingJob(Job job) {
+    PendingJob pending = pendingJobs.remove(job.getId());
+    if (pending != null || job.getJobType() == null) {
+      return pending;
+    }
+    try {
+      Class<?> type = Class.forName(job.getJobType());
+      if (!PersistentJob.class.isAssignableFrom(type)) {
+        throw new IllegalArgumentException(type.getName() + " is not a PersistentJob");
+      }
+      PersistentJob jobFunction = (PersistentJob) mapper.readValue(job.getPayload(), type);
+      return new PendingJob(jobFunction, SecurityContextHolder.createEmptyContext());
+    } catch (Exception e) {
+      log.error("Cannot rebuild job {} of type {}", job.getId(), job.getJobType(), e);
+      return null;
+    }
+  }
+
+  private boolean start(Job job, PendingJob pending) {
+    SecurityContext original = SecurityContextHolder.getContext();
+    try {
+      SecurityContextHolder.setContext(pending.securityContext());
+      jobService.runJobAsync(job, pending.jobFunction());
+      return true;
+    } catch (TaskRejectedException e) {
+      return false;
+    } finally {
+      SecurityContextHolder.setContext(original);
+    }
+  }
+
+  private void requeue(Job job, PendingJob pending) {
+    log.warn("Executor is full; job {} stays queued", job.getId());
+    pendingJobs.put(job.getId(), pending);
+    job.setStatus("queued");
+    job.setClaimedBy(null);
+    jobsRepository.save(job);
+  }
+
+  /** Refresh {@code updatedAt} on the jobs this instance is running. */
+  @Scheduled(fixedDelayString = "${app.jobs.cluster.heartbeat-interval-ms:10000}")
+  public void heartbeat() {
+    jobsRepository.heartbeat(instanceId, ZonedDateTime.now());
+  }
+
+  /** Reclaim running jobs whose instance has stopped sending heartbeats. */
+  @Scheduled(fixedDelayString = "${app.jobs.cluster.reclaim-interval-ms:30000}")
+  public void reclaimAbandonedJobs() {
+    ZonedDateTime cutoff = ZonedDateTime.now().minus(Duration.ofMillis(staleAfterMs));
+    int cancelled = jobsRepository.cancelAbandoned(cutoff);
+    int requeued = jobsRepository.requeueAbandoned(cutoff);
+    int failed = jobsRepository.failAbandoned(cutoff);
+    if (cancelled > 0 || requeued > 0 || failed > 0) {
+      log.warn(
+          "Reclaimed abandoned jobs: {} cancelled, {} requeued, {} marked as errors",
+          cancelled,
+          requeued,
+          failed);
+    }
+  }
+}
@@ -0,0 +1,219 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobLogChunk;
+import edu.ucsb.cs156.example.repositories.JobLogChunkRepository;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * This is a service that writes and reads the chunked logs of jobs.
+ *
+ * <p>When {@code app.jobs.log.buffered} is true, log lines are held in memory by each job's
+ * JobLogWriter and written out by {@link #flushAll()} every {@code app.jobs.log.flush-interval-ms}
+ * milliseconds, or sooner once {@code app.jobs.log.flush-lines} lines are pending.
+ */
+@Slf4j
+@Service
+public class JobLogService {
+  @Autowired private JobLogChunkRepository jobLogChunkRepository;
+
+  @Autowired private JobsRepository jobsRepository;
+
+  @Value("${app.jobs.log.lines-per-chunk:100}")
+  private int linesPerChunk;
+
+  @Value("${app.jobs.log.buffered:false}")
+  private boolean buffered;
+
+  @Value("${app.jobs.log.flush-lines:50}")
+  private int flushLines;
+
+  private final Set<JobLogWriter> openWriters = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Create a writer that appends log lines for the given job. The writer must be passed to {@link
+   * #close(JobLogWriter)} when the job finishes.
+   *
+   * <p>A job that is run again keeps its log: new lines follow its existing chunks, and a log that
+   * was compacted (or written before logs were chunked) is first turned back into chunks, so line
+   * numbers carry on from where the log left off.
+   *
+   * @param job the job whose log will be written
+   * @return a new JobLogWriter for the job
+   */
+  public JobLogWriter openWriter(Job job) {
+    JobLogWriter writer =
+        new JobLogWriter(jobLogChunkRepository, job, linesPerChunk, buffered, flushLines);
+    Optional<JobLogChunk> last = jobLogChunkRepository.findFirstByJobIdOrderBySeqDesc(job.getId());
+    if (last.isPresent()) {
+      writer.resume(last.get().getSeq() + 1, jobLogChunkRepository.countLinesByJobId(job.getId()));
+    } else {
+      String stored = getStoredLog(job);
+      if (stored != null) {
+        writer.append(stored);
+        writer.flush();
+        jobsRepository.clearStoredLog(job.getId());
+        // so that saving the job when it finishes does not write the old log back
+        job.setCompressedLog(null);
+        job.setLogLength(null);
+        job.setLog(null);
+      }
+    }
+    openWriters.add(writer);
+    return writer;
+  }
+
+  /**
+   * Flush any buffered lines of a writer and stop tracking it.
+   *
+   * @param writer the writer to close
+   */
+  public void close(JobLogWriter writer) {
+    openWriters.remove(writer);
+    writer.flush();
+  }
+
+  /**
+   * Flush the buffered lines of a job if it is running on this instance.
+   *
+   * @param jobId id of the job
+   * @return true if the job has an open writer on this instance
+   */
+  public boolean flush(long jobId) {
+    boolean found = false;
+    for (JobLogWriter writer : openWriters) {
+      if (writer.getJobId() == jobId) {
+        writer.flush();
+        found = true;
+      }
+    }
+    return found;
+  }
+
+  /** Flush the buffered lines of every job that is still running. */
+  @Scheduled(fixedDelayString = "${app.jobs.log.flush-interval-ms:1000}")
+  public void flushAll() {
+    for (JobLogWriter writer : openWriters) {
+      try {
+        writer.flush();
+      } catch (Exception e) {
+        log.error("Error flushing job log", e);
+      }
+    }
+  }
+
+  /**
+   * Return the full log of a job by stitching its chunks together in order. Jobs whose log has been
+   * compacted by JobRetentionService are decompressed, and jobs that were written before logs were
+   * chunked fall back to the legacy {@code log} column.
+   *
+   * @param job the job
+   * @return the full log (empty string if there is none)
+   */
+  public String getLog(Job job) {
+    StringBuilder sb = new StringBuilder();
+    boolean hasChunks = false;
+    for (JobLogChunk chunk : jobLogChunkRepository.findAllByJobIdOrderBySeqAsc(job.getId())) {
+      if (hasChunks) {
+        sb.append('\n');
+      }
+      sb.append(chunk.getContent());
+      hasChunks = true;
+    }
+    String stored = hasChunks ? null : getStoredLog(job);
+    return stored != null ? stored : sb.toString();
+  }
+
+  /**
+   * Return the lines of a job's log that come after a given line number. Chunks that lie entirely
+   * before that line are skipped without being split. Like {@link #getLog(Job)}, this falls back to
+   * the compacted or legacy log of a job that has no chunks.
+   *
+   * @param job the job
+   * @param after number of the last line the caller already has (0 for the whole log)
+   * @return lines {@code after + 1}, {@code after + 2}, ... of the log
+   */
+  public List<String> getLinesAfter(Job job, long after) {
+    List<String> lines = new ArrayList<>();
+    long lineNumber = 0;
+    boolean hasChunks = false;
+    for (JobLogChunk chunk : jobLogChunkRepository.findAllByJobIdOrderBySeqAsc(job.getId())) {
+      hasChunks = true;
+      if (lineNumber + chunk.getLineCount() <= after) {
+        lineNumber += chunk.getLineCount();
+        continue;
+      }
+      lineNumber = addLinesAfter(lines, chunk.getContent(), lineNumber, after);
+    }
+    String stored = hasChunks ? null : getStoredLog(job);
+    if (stored != null) {
+      addLinesAfter(lines, stored, 0, after);
+    }
+    return lines;
+  }
+
+  // the log of a job kept outside its chunks: compacted by JobRetentionService, or legacy
+  private static String getStoredLog(Job job) {
+    if (job.getCompressedLog() != null) {
+      return decompress(job.getCompressedLog());
+    }
+    return job.getLog();
+  }
+
+  private static long addLinesAfter(List<String> lines, String text, long lineNumber, long after) {
+    for (String line : text.split("\n", -1)) {
+      lineNumber++;
+      if (lineNumber > after) {
+        lines.add(line);
+      }
+    }
+    return lineNumber;
+  }
+
+  /**
+   * Compress a log with gzip.
+   *
+   * @param log the log text
+   * @return the gzip-compressed UTF-8 bytes of the log
+   */
+  public static byte[] compress(String log) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+      gzip.write(log.getBytes(StandardCharsets.UTF_8));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Decompress a log compressed with {@link #compress(String)}.
+   *
+   * @param compressed the gzip-compressed bytes
+   * @return the log text
+   */
+  public static String decompress(byte[] compressed) {
+    try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+      return new String(gzip.readAllBytes(), StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
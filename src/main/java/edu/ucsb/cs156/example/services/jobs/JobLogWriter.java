@@ -0,0 +1,104 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobLogChunk;
+import edu.ucsb.cs156.example.repositories.JobLogChunkRepository;
+
+/**
+ * Appends the lines logged by a single job to its {@code job_log_chunks} rows.
+ *
+ * <p>Lines accumulate in the current chunk until it holds {@code linesPerChunk} lines; the next
+ * line starts a new chunk. Each save therefore writes at most one bounded chunk, no matter how long
+ * the job's log has grown.
+ *
+ * <p>In buffered mode, appended lines are only held in memory; they are written when {@link
+ * #flush()} is called (by the scheduled flusher in JobLogService, or when the job finishes), or as
+ * soon as {@code flushLines} lines are pending, so a job never waits on the database for every line
+ * it logs.
+ *
+ * <p>Lines are numbered from 1 in the order they are appended; the numbers are used as event ids by
+ * JobStreamService so that clients can resume a stream.
+ */
+public class JobLogWriter {
+  private final JobLogChunkRepository jobLogChunkRepository;
+  private final Job job;
+  private final int linesPerChunk;
+  private final boolean buffered;
+  private final int flushLines;
+
+  private JobLogChunk currentChunk;
+  private StringBuilder currentContent;
+  private int nextSeq = 0;
+  private int pendingLines = 0;
+  private long linesWritten = 0;
+
+  public JobLogWriter(
+      JobLogChunkRepository jobLogChunkRepository,
+      Job job,
+      int linesPerChunk,
+      boolean buffered,
+      int flushLines) {
+    this.jobLogChunkRepository = jobLogChunkRepository;
+    this.job = job;
+    this.linesPerChunk = linesPerChunk;
+    this.buffered = buffered;
+    this.flushLines = flushLines;
+  }
+
+  /**
+   * Continue the log of a job that already has chunks (e.g. a job that was requeued after its
+   * instance died). New lines go into new chunks after the existing ones.
+   *
+   * @param nextSeq sequence number for the next chunk
+   * @param linesWritten number of lines already in the job's log
+   */
+  synchronized void resume(int nextSeq, long linesWritten) {
+    this.nextSeq = nextSeq;
+    this.linesWritten = linesWritten;
+  }
+
+  /**
+   * Append a message to the job's log. A message containing newlines is stored as several lines.
+   * Unless the writer is buffered, the chunk that holds the message is persisted immediately.
+   *
+   * @param message the message to append
+   * @return the number of the message's last line
+   */
+  public synchronized long append(String message) {
+    for (String line : String.valueOf(message).split("\n", -1)) {
+      appendLine(line);
+    }
+    if (!buffered || pendingLines >= flushLines) {
+      flush();
+    }
+    return linesWritten;
+  }
+
+  private void appendLine(String line) {
+    if (currentChunk == null || currentChunk.getLineCount() >= linesPerChunk) {
+      flush();
+      currentChunk = JobLogChunk.builder().jobId(job.getId()).seq(nextSeq++).lineCount(0).build();
+      currentContent = new StringBuilder();
+    } else {
+      currentContent.append('\n');
+    }
+    currentContent.append(line);
+    currentChunk.setLineCount(currentChunk.getLineCount() + 1);
+    pendingLines++;
+    linesWritten++;
+  }
+
+  public long getJobId() {
+    return job.getId();
+  }
+
+  /** Persist any lines that have been appended since the last flush. */
+  public synchronized void flush() {
+    if (pendingLines == 0) {
+      return;
+    }
+    currentChunk.setContent(currentContent.toString());
+    jobLogChunkRepository.save(currentChunk);
+    pendingLines = 0;
+  }
+}
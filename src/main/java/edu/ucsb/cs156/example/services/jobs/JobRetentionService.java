@@ -0,0 +1,151 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.models.JobRetentionReport;
+import edu.ucsb.cs156.example.repositories.JobLogChunkRepository;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * This is a service that keeps the {@code jobs} table from growing without bound.
+ *
+ * <p>For each finished status, each run deletes jobs not updated for {@code
+ * app.jobs.retention.max-age-days} and all but the newest {@code
+ * app.jobs.retention.max-count-per-status} jobs. It then compacts the logs of the remaining
+ * finished jobs not updated for {@code app.jobs.retention.compact-after-hours}: the log is gzipped
+ * into {@code compressed_log}, or kept in {@code log} if gzip would not make it smaller, and its
+ * chunks are deleted. Queued and running jobs are never touched.
+ *
+ * <p>Rows are deleted {@code app.jobs.retention.batch-size} at a time, each batch in its own
+ * transaction, so locks are held only briefly.
+ */
+@Slf4j
+@Service
+public class JobRetentionService {
+  @Autowired private JobsRepository jobsRepository;
+
+  @Autowired private JobLogChunkRepository jobLogChunkRepository;
+
+  @Autowired private JobLogService jobLogService;
+
+  @Autowired private TransactionTemplate transactionTemplate;
+
+  @Value("${app.jobs.retention.compact-after-hours:24}")
+  private long compactAfterHours;
+
+  @Value("${app.jobs.retention.max-age-days:30}")
+  private long maxAgeDays;
+
+  @Value("${app.jobs.retention.max-count-per-status:1000}")
+  private int maxCountPerStatus;
+
+  @Value("${app.jobs.retention.batch-size:500}")
+  private int batchSize;
+
+  @Scheduled(
+      initialDelayString = "${app.jobs.retention.interval-ms:3600000}",
+      fixedDelayString = "${app.jobs.retention.interval-ms:3600000}")
+  public void runScheduled() {
+    run();
+  }
+
+  /**
+   * Compact old logs and delete expired jobs.
+   *
+   * @return how many jobs and bytes were reclaimed
+   */
+  public synchronized JobRetentionReport run() {
+    ZonedDateTime now = ZonedDateTime.now();
+    JobRetentionReport report = JobRetentionReport.builder().build();
+
+    ZonedDateTime ageCutoff = now.minusDays(maxAgeDays);
+    for (String status : jobsRepository.findFinishedStatuses()) {
+      deleteInBatches(
+          () ->
+              jobsRepository.findIdsByStatusUpdatedBefore(
+                  status, ageCutoff, PageRequest.of(0, batchSize)),
+          report);
+
+      // the newest job beyond the first maxCountPerStatus, if any
+      List<Long> oldestExtra =
+          jobsRepository.findIdsByStatusNewestFirst(status, PageRequest.of(maxCountPerStatus, 1));
+      if (!oldestExtra.isEmpty()) {
+        long maxId = oldestExtra.get(0);
+        deleteInBatches(
+            () ->
+                jobsRepository.findIdsByStatusAndIdAtMost(
+                    status, maxId, PageRequest.of(0, batchSize)),
+            report);
+      }
+    }
+
+    compactLogs(now.minusHours(compactAfterHours), report);
+
+    log.info("Job retention: {}", report);
+    return report;
+  }
+
+  private void compactLogs(ZonedDateTime cutoff, JobRetentionReport report) {
+    List<Long> ids;
+    do {
+      ids = jobsRepository.findIdsToCompact(cutoff, PageRequest.of(0, batchSize));
+      for (Long id : ids) {
+        long saved = transactionTemplate.execute(status -> compactLog(id));
+        report.setCompactedJobs(report.getCompactedJobs() + 1);
+        report.setCompactedBytes(report.getCompactedBytes() + saved);
+      }
+    } while (ids.size() == batchSize);
+  }
+
+  private long compactLog(long jobId) {
+    Job job = jobsRepository.findById(jobId).orElse(null);
+    if (job == null) {
+      return 0;
+    }
+    String log = jobLogService.getLog(job);
+    int rawBytes = log.getBytes(StandardCharsets.UTF_8).length;
+    byte[] compressed = JobLogService.compress(log);
+    // short logs grow when gzipped; those are kept as plain text in the log column instead
+    boolean smaller = compressed.length < rawBytes;
+    job.setCompressedLog(smaller ? compressed : null);
+    job.setLog(smaller ? null : log);
+    // set either way, so that findIdsToCompact does not pick the job up again
+    job.setLogLength((long) log.length());
+    jobsRepository.save(job);
+    jobLogChunkRepository.deleteByJobIdIn(List.of(jobId));
+    return smaller ? rawBytes - compressed.length : 0;
+  }
+
+  private void deleteInBatches(Supplier<List<Long>> nextBatch, JobRetentionReport report) {
+    List<Long> ids;
+    do {
+      ids = nextBatch.get();
+      if (ids.isEmpty()) {
+        return;
+      }
+      List<Long> batch = ids;
+      long bytes =
+          transactionTemplate.execute(
+              status -> {
+                long logBytes =
+                    jobLogChunkRepository.sumContentLengthByJobIdIn(batch)
+                        + jobsRepository.sumLogBytesByIdIn(batch);
+                jobLogChunkRepository.deleteByJobIdIn(batch);
+                jobsRepository.deleteByIdIn(batch);
+                return logBytes;
+              });
+      report.setDeletedJobs(report.getDeletedJobs() + batch.size());
+      report.setDeletedBytes(report.getDeletedBytes() + bytes);
+    } while (ids.size() == batchSize);
+  }
+}
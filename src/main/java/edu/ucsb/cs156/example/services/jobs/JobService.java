@@ -1,53 +1,224 @@
 package edu.ucsb.cs156.example.services.jobs;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.JobExecutorStats;
 import edu.ucsb.cs156.example.repositories.JobsRepository;
 import edu.ucsb.cs156.example.services.CurrentUserService;
+import java.time.ZonedDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.annotation.Lazy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
+@Slf4j
 @Service
 public class JobService {
+  public static final int PRIORITY_LOW = -1;
+  public static final int PRIORITY_NORMAL = 0;
+  public static final int PRIORITY_HIGH = 1;
+
   @Autowired private JobsRepository jobsRepository;
 
+  @Autowired private JobLogService jobLogService;
+
   @Autowired private CurrentUserService currentUserService;
 
-  @Lazy @Autowired private JobService self;
+  @Autowired private JobDispatcher jobDispatcher;
+
+  @Autowired private JobStreamService jobStreamService;
+
+  @Autowired private JobCancellationService jobCancellationService;
+
+  @Autowired private ObjectMapper mapper;
+
+  @Autowired private AutowireCapableBeanFactory beanFactory;
+
+  @Value("${app.jobs.queue.max-queued:1000}")
+  private int maxQueued;
+
+  private final AtomicLong activeJobs = new AtomicLong();
+  private final AtomicLong completedJobs = new AtomicLong();
+  private final AtomicLong rejectedJobs = new AtomicLong();
 
   public Job runAsJob(JobContextConsumer jobFunction) {
-    Job job = Job.builder().createdBy(currentUserService.getUser()).status("running").build();
+    return runAsJob(jobFunction, PRIORITY_NORMAL);
+  }
+
+  public Job runAsJob(JobContextConsumer jobFunction, int priority) {
+    return runAsJob(jobFunction, priority, null);
+  }
+
+  /**
+   * Queue a job.
+   *
+   * @param jobFunction the code the job runs
+   * @param priority jobs with a higher priority are started first
+   * @param maxRuntimeMs the job is stopped with status "timeout" after running this long, or after
+   *     {@code app.jobs.max-runtime-ms} if null
+   * @return the saved job
+   */
+  public Job runAsJob(JobContextConsumer jobFunction, int priority, Long maxRuntimeMs) {
+    ZonedDateTime now = ZonedDateTime.now();
+    Job job =
+        Job.builder()
+            .createdBy(currentUserService.getUser())
+            .createdAt(now)
+            .updatedAt(now)
+            .status("queued")
+            .priority(priority)
+            .maxRuntimeMs(maxRuntimeMs)
+            .build();
+
+    if (jobFunction instanceof PersistentJob) {
+      job.setJobType(jobFunction.getClass().getName());
+      job.setPayload(toJson(jobFunction));
+    }
+
+    if (jobsRepository.countByStatus("queued") >= maxQueued) {
+      log.warn("Job queue is full; rejecting job");
+      rejectedJobs.incrementAndGet();
+      job.setStatus("rejected");
+      jobsRepository.save(job);
+      return job;
+    }
 
     jobsRepository.save(job);
-    self.runJobAsync(job, jobFunction);
+    jobDispatcher.enqueue(job, jobFunction);
 
     return job;
   }
 
-  @Async
+  @Async("jobExecutor")
   public void runJobAsync(Job job, JobContextConsumer jobFunction) {
-    JobContext context = new JobContext(jobsRepository, job);
+    activeJobs.incrementAndGet();
+    try {
+      if (jobFunction instanceof PersistentJob) {
+        // a job rebuilt from its JSON payload has no services yet; see PersistentJob
+        beanFactory.autowireBean(jobFunction);
+      }
+      JobLogWriter logWriter = jobLogService.openWriter(job);
+      RunningJob running = jobCancellationService.register(job);
+      JobContext context = new JobContext(job, logWriter, jobStreamService, running);
+      jobStreamService.publishStatus(job);
+
+      String error = null;
+      try {
+        jobFunction.accept(context);
+        job.setStatus("complete");
+      } catch (Exception e) {
+        job.setStatus("error");
+        error = e.getMessage();
+      } finally {
+        // clears any interrupt, so the log and status below are written normally
+        jobCancellationService.unregister(running);
+      }
 
+      // a stopped job may return early without throwing, so it is never marked complete
+      String stopStatus = running.getStopStatus();
+      if (stopStatus != null) {
+        job.setStatus(stopStatus);
+        error = "timeout".equals(stopStatus) ? "Job timed out" : "Job cancelled";
+      }
+      try {
+        if (error != null) {
+          context.log(error);
+        }
+      } finally {
+        jobLogService.close(logWriter);
+      }
+
+      // not saved whole: this copy of the job is stale, e.g. in cancelRequested
+      job.setUpdatedAt(ZonedDateTime.now());
+      jobsRepository.finish(job.getId(), job.getClaimedBy(), job.getStatus(), job.getUpdatedAt());
+      jobStreamService.publishStatus(job);
+    } finally {
+      // runs even if saving or publishing the final status fails, so the executor stats stay right
+      activeJobs.decrementAndGet();
+      completedJobs.incrementAndGet();
+    }
+  }
+
+  private String toJson(JobContextConsumer jobFunction) {
     try {
-      jobFunction.accept(context);
-    } catch (Exception e) {
-      job.setStatus("error");
-      context.log(e.getMessage());
-      return;
+      return mapper.writeValueAsString(jobFunction);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Job cannot be written as JSON", e);
     }
+  }
 
-    job.setStatus("complete");
-    jobsRepository.save(job);
+  public JobExecutorStats getExecutorStats() {
+    return JobExecutorStats.builder()
+        .queued(jobsRepository.countByStatus("queued"))
+        .active(activeJobs.get())
+        .completed(completedJobs.get())
+        .rejected(rejectedJobs.get())
+        .build();
+  }
+
+  /**
+   * Cancel a job. A queued job is cancelled at once; a running job is stopped by the instance
+   * running it (see {@link JobCancellationService}), so its status changes shortly afterwards.
+   *
+   * @param jobId id of the job
+   * @return the job as it is now
+   * @throws EntityNotFoundException if there is no such job
+   * @throws IllegalArgumentException if the job has already finished
+   */
+  public Job cancelJob(long jobId) {
+    if (jobDispatcher.cancelQueued(jobId)) {
+      Job job = jobsRepository.findById(jobId).orElseThrow();
+      jobStreamService.publishStatus(job);
+      return job;
+    }
+    if (jobsRepository.requestCancel(jobId) > 0) {
+      jobCancellationService.stop(jobId, "cancelled");
+    }
+    Job job =
+        jobsRepository
+            .findById(jobId)
+            .orElseThrow(() -> new EntityNotFoundException(Job.class, jobId));
+    if (!job.getCancelRequested()) {
+      throw new IllegalArgumentException(
+          String.format("Job %d has already finished with status %s", jobId, job.getStatus()));
+    }
+    return job;
+  }
+
+  /**
+   * Run a failed, timed out or cancelled job again. This only works for {@link PersistentJob}s,
+   * which are rebuilt from their JSON payload; jobs that record their progress (such as imports)
+   * carry on from where they stopped. The job keeps its id and its log.
+   *
+   * @param jobId id of the job
+   * @return the job, queued again
+   * @throws EntityNotFoundException if there is no such job
+   * @throws IllegalArgumentException if the job cannot be retried
+   */
+  public Job retryJob(long jobId) {
+    if (jobsRepository.requeueFinished(jobId, ZonedDateTime.now()) == 0) {
+      Job job =
+          jobsRepository
+              .findById(jobId)
+              .orElseThrow(() -> new EntityNotFoundException(Job.class, jobId));
+      throw new IllegalArgumentException(
+          String.format("Job %d with status %s cannot be retried", jobId, job.getStatus()));
+    }
+    jobDispatcher.dispatch();
+    return jobsRepository.findById(jobId).orElseThrow();
   }
 
   public String getJobLogs(Long jobId) {
     Job job =
         jobsRepository
             .findById(jobId)
-            .orElseThrow(() -> new IllegalArgumentException("Job not found"));
+            .orElseThrow(() -> new EntityNotFoundException(Job.class, jobId));
 
-    String log = job.getLog();
-    return log != null ? log : "";
+    return jobLogService.getLog(job);
   }
 }
@@ -0,0 +1,171 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * This is a service that streams job logs and status changes to clients as server-sent events.
+ *
+ * <p>Each log line is sent as a {@code log} event whose id is the line number, so a client that
+ * reconnects with {@code Last-Event-ID} only receives the lines it has not seen. Status changes are
+ * sent as {@code status} events without an id. When the job finishes the stream is closed.
+ *
+ * <p>Live events come from jobs running on this instance. For a job that is queued or running on
+ * another instance, the client gets the lines written so far and the current status, then the
+ * stream closes and the client reconnects after {@code app.jobs.stream.retry-ms}.
+ */
+@Slf4j
+@Service
+public class JobStreamService {
+  @Autowired private JobsRepository jobsRepository;
+
+  @Autowired private JobLogService jobLogService;
+
+  @Value("${app.jobs.stream.timeout-ms:300000}")
+  private long timeoutMs;
+
+  @Value("${app.jobs.stream.retry-ms:2000}")
+  private long retryMs;
+
+  // job id -> open streams for that job
+  private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+  /**
+   * Open a stream for a job, starting after the line the client last saw.
+   *
+   * @param jobId id of the job
+   * @param lastEventId number of the last line the client has (0 for the whole log)
+   * @return the emitter for the stream
+   */
+  public SseEmitter subscribe(long jobId, long lastEventId) {
+    SseEmitter emitter = createEmitter();
+    Subscriber subscriber = new Subscriber(jobId, emitter, lastEventId);
+    // Hold the subscriber's lock from registration until the replay is sent: live lines
+    // published meanwhile wait for it, rather than overtaking it and causing it to be skipped
+    synchronized (subscriber) {
+      subscribers.compute(
+          jobId,
+          (id, jobSubscribers) -> {
+            Set<Subscriber> result =
+                jobSubscribers == null ? ConcurrentHashMap.newKeySet() : jobSubscribers;
+            result.add(subscriber);
+            return result;
+          });
+      emitter.onCompletion(subscriber::close);
+      emitter.onTimeout(subscriber::close);
+      emitter.onError(e -> subscriber.close());
+
+      // Subscribe before flushing, so every line is either in the database or sent live
+      boolean runningHere = jobLogService.flush(jobId);
+      Optional<Job> job = jobsRepository.findById(jobId);
+      List<String> lines =
+          job.map(j -> jobLogService.getLinesAfter(j, lastEventId)).orElse(List.of());
+      for (int i = 0; i < lines.size(); i++) {
+        subscriber.sendLine(lastEventId + i + 1, lines.get(i));
+      }
+      String status = job.map(Job::getStatus).orElse(null);
+      subscriber.sendStatus(status);
+      if (isFinished(status) || !runningHere) {
+        subscriber.close();
+      }
+    }
+    return emitter;
+  }
+
+  SseEmitter createEmitter() {
+    return new SseEmitter(timeoutMs);
+  }
+
+  /**
+   * Send a log message to the job's subscribers.
+   *
+   * @param job the job
+   * @param lineNumber number of the message's last line
+   * @param message the message
+   */
+  public void publishLog(Job job, long lineNumber, String message) {
+    for (Subscriber subscriber : subscribers.getOrDefault(job.getId(), Set.of())) {
+      subscriber.sendLine(lineNumber, message);
+    }
+  }
+
+  /**
+   * Send the job's current status to its subscribers, and close their streams if it has finished.
+   *
+   * @param job the job
+   */
+  public void publishStatus(Job job) {
+    for (Subscriber subscriber : subscribers.getOrDefault(job.getId(), Set.of())) {
+      subscriber.sendStatus(job.getStatus());
+      if (isFinished(job.getStatus())) {
+        subscriber.close();
+      }
+    }
+  }
+
+  private static boolean isFinished(String status) {
+    return !"queued".equals(status) && !"running".equals(status);
+  }
+
+  private class Subscriber {
+    private final long jobId;
+    private final SseEmitter emitter;
+    private long lastSent;
+    private boolean closed = false;
+
+    Subscriber(long jobId, SseEmitter emitter, long lastSent) {
+      this.jobId = jobId;
+      this.emitter = emitter;
+      this.lastSent = lastSent;
+    }
+
+    synchronized void sendLine(long lineNumber, String line) {
+      if (lineNumber <= lastSent) {
+        return;
+      }
+      send(SseEmitter.event().id(Long.toString(lineNumber)).name("log").data(line));
+      lastSent = lineNumber;
+    }
+
+    synchronized void sendStatus(String status) {
+      send(SseEmitter.event().name("status").data(String.valueOf(status)).reconnectTime(retryMs));
+    }
+
+    private void send(SseEmitter.SseEventBuilder event) {
+      if (closed) {
+        return;
+      }
+      try {
+        emitter.send(event);
+      } catch (IOException | IllegalStateException e) {
+        log.debug("Job stream closed by client: {}", e.getMessage());
+        close();
+      }
+    }
+
+    synchronized void close() {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      subscribers.computeIfPresent(
+          jobId,
+          (id, jobSubscribers) -> {
+            jobSubscribers.remove(this);
+            return jobSubscribers.isEmpty() ? null : jobSubscribers;
+          });
+      emitter.complete();
+    }
+  }
+}
@@ -0,0 +1,13 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+/**
+ * A job whose state can be written to the {@code jobs} table as JSON.
+ *
+ * <p>Implementations must be serializable and deserializable with Jackson. Persistent jobs can be
+ * claimed by any instance of the app, and are put back on the queue if the instance running them
+ * dies. Other jobs (e.g. lambdas) only run on the instance that queued them.
+ *
+ * <p>Services a job needs can be declared as {@code @Autowired} fields marked {@code @JsonIgnore};
+ * they are injected just before the job runs.
+ */
+public interface PersistentJob extends JobContextConsumer {}
@@ -0,0 +1,59 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import edu.ucsb.cs156.example.entities.Job;
+import java.time.Instant;
+
+/**
+ * A job that is running on this instance, with the thread running it and the reason it was stopped,
+ * if any. See {@link JobCancellationService}.
+ */
+class RunningJob {
+  private final Job job;
+  private final Thread thread;
+  private final Instant deadline;
+  private String stopStatus;
+  private boolean finished = false;
+
+  RunningJob(Job job, Thread thread, Instant deadline) {
+    this.job = job;
+    this.thread = thread;
+    this.deadline = deadline;
+  }
+
+  Job getJob() {
+    return job;
+  }
+
+  Instant getDeadline() {
+    return deadline;
+  }
+
+  /**
+   * Ask the job to stop, and interrupt its thread so that blocking calls such as {@code
+   * Thread.sleep} return straight away.
+   *
+   * @param status the status to finish the job with, "cancelled" or "timeout"
+   * @return false if the job had already finished or been stopped
+   */
+  synchronized boolean stop(String status) {
+    if (finished || stopStatus != null) {
+      return false;
+    }
+    stopStatus = status;
+    thread.interrupt();
+    return true;
+  }
+
+  /**
+   * Mark the job as finished, so that it is no longer interrupted, and clear any interrupt still
+   * pending on the current thread before the thread runs its next job.
+   */
+  synchronized void finish() {
+    finished = true;
+    Thread.interrupted();
+  }
+
+  synchronized String getStopStatus() {
+    return stopStatus;
+  }
+}
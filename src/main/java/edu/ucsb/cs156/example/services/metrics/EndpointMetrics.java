@@ -0,0 +1,149 @@
+package edu.ucsb.cs156.example.services.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The request metrics of one controller method: a latency histogram, the number of requests, the
+ * errors by exception type and the number of SQL statements run.
+ *
+ * <p>All counters are lock-free, so recording a request never blocks another request.
+ */
+public class EndpointMetrics {
+
+  /** Upper bounds of the latency buckets, in seconds; the last bucket has no upper bound. */
+  static final double[] BUCKET_SECONDS = {
+    0.0001, 0.00025, 0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10
+  };
+
+  private static final long[] BUCKET_NANOS = new long[BUCKET_SECONDS.length];
+
+  static {
+    for (int i = 0; i < BUCKET_SECONDS.length; i++) {
+      BUCKET_NANOS[i] = Math.round(BUCKET_SECONDS[i] * 1e9);
+    }
+  }
+
+  private final String handler;
+
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_SECONDS.length + 1);
+
+  private final LongAdder count = new LongAdder();
+
+  private final LongAdder totalNanos = new LongAdder();
+
+  private final LongAdder queries = new LongAdder();
+
+  private final LongAccumulator maxQueries = new LongAccumulator(Math::max, 0);
+
+  private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+  EndpointMetrics(String handler) {
+    this.handler = handler;
+  }
+
+  public String getHandler() {
+    return handler;
+  }
+
+  /**
+   * Record one request.
+   *
+   * @param nanos how long the request took
+   * @param queryCount how many SQL statements it ran
+   */
+  public void record(long nanos, long queryCount) {
+    int bucket = 0;
+    while (bucket < BUCKET_NANOS.length && nanos > BUCKET_NANOS[bucket]) {
+      bucket++;
+    }
+    buckets.incrementAndGet(bucket);
+    count.increment();
+    totalNanos.add(nanos);
+    queries.add(queryCount);
+    maxQueries.accumulate(queryCount);
+  }
+
+  /**
+   * Record that a request ended with an exception.
+   *
+   * @param e the exception
+   */
+  public void recordError(Throwable e) {
+    errors.computeIfAbsent(e.getClass().getSimpleName(), type -> new LongAdder()).increment();
+  }
+
+  public long getCount() {
+    return count.sum();
+  }
+
+  public double getTotalSeconds() {
+    return totalNanos.sum() / 1e9;
+  }
+
+  public long getQueries() {
+    return queries.sum();
+  }
+
+  public long getMaxQueries() {
+    return maxQueries.get();
+  }
+
+  /**
+   * The number of errors by exception type.
+   *
+   * @return a map from the simple name of the exception class to its count
+   */
+  public Map<String, Long> getErrors() {
+    Map<String, Long> result = new TreeMap<>();
+    errors.forEach((type, adder) -> result.put(type, adder.sum()));
+    return result;
+  }
+
+  /**
+   * The cumulative bucket counts: element i is the number of requests that took at most {@code
+   * BUCKET_SECONDS[i]}, and the last element is the number of all requests.
+   *
+   * @return the cumulative counts
+   */
+  public long[] getCumulativeBuckets() {
+    long[] result = new long[buckets.length()];
+    long total = 0;
+    for (int i = 0; i < result.length; i++) {
+      total += buckets.get(i);
+      result[i] = total;
+    }
+    return result;
+  }
+
+  /**
+   * Estimate a latency quantile from the histogram, interpolating linearly within the bucket that
+   * holds it.
+   *
+   * @param quantile the quantile, between 0 and 1
+   * @return the estimated latency in seconds, or 0 if there are no requests
+   */
+  public double getQuantileSeconds(double quantile) {
+    long[] cumulative = getCumulativeBuckets();
+    long total = cumulative[cumulative.length - 1];
+    if (total == 0) {
+      return 0;
+    }
+    double rank = quantile * total;
+    int bucket = 0;
+    while (bucket < BUCKET_SECONDS.length && cumulative[bucket] < rank) {
+      bucket++;
+    }
+    if (bucket == BUCKET_SECONDS.length) {
+      return BUCKET_SECONDS[bucket - 1];
+    }
+    double lower = bucket == 0 ? 0 : BUCKET_SECONDS[bucket - 1];
+    long below = bucket == 0 ? 0 : cumulative[bucket - 1];
+    long inBucket = cumulative[bucket] - below;
+    return lower + (BUCKET_SECONDS[bucket] - lower) * (rank - below) / inBucket;
+  }
+}
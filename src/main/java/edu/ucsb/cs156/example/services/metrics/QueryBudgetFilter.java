@@ -0,0 +1,59 @@
+package edu.ucsb.cs156.example.services.metrics;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * This is a filter that counts the SQL statements run while handling each request, and logs a
+ * warning with the most repeated statement shapes when a request runs more than {@code
+ * app.queries.warn-threshold} of them.
+ *
+ * <p>It runs before the security filters, so the user and admin lookups done while authenticating
+ * are counted too. Statements run on other threads, for example by a StreamingResponseBody, are not
+ * counted. The {@link RequestQueries} of a request are kept in the request attribute {@link
+ * #QUERIES_ATTRIBUTE}, where tests can check them.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class QueryBudgetFilter extends OncePerRequestFilter {
+  /** The request attribute holding the request's {@link RequestQueries}. */
+  public static final String QUERIES_ATTRIBUTE = QueryBudgetFilter.class.getName() + ".QUERIES";
+
+  @Value("${app.queries.warn-threshold:20}")
+  private long warnThreshold;
+
+  @Value("${app.queries.top-shapes:5}")
+  private int topShapes;
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    RequestQueries queries = QueryCountInspector.startRequest();
+    request.setAttribute(QUERIES_ATTRIBUTE, queries);
+    try {
+      filterChain.doFilter(request, response);
+    } finally {
+      QueryCountInspector.endRequest();
+      if (queries.getCount() > warnThreshold) {
+        log.warn(
+            "{} {} ran {} SQL statements (threshold {}); most repeated: {}",
+            request.getMethod(),
+            request.getRequestURI(),
+            queries.getCount(),
+            warnThreshold,
+            queries.getRepeatedShapes(topShapes));
+      }
+    }
+  }
+}
@@ -0,0 +1,54 @@
+package edu.ucsb.cs156.example.services.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * This is a Hibernate StatementInspector that counts the SQL statements prepared on each thread.
+ *
+ * <p>Hibernate creates the inspector itself (see {@code
+ * spring.jpa.properties.hibernate.session_factory.statement_inspector}), so the count is kept in a
+ * static ThreadLocal. Callers read {@link #getCount()} before and after a piece of work to find how
+ * many statements it ran. Between {@link #startRequest()} and {@link #endRequest()}, statements are
+ * also recorded by shape (see {@link RequestQueries}).
+ */
+public class QueryCountInspector implements StatementInspector {
+
+  private static final ThreadLocal<long[]> COUNT = ThreadLocal.withInitial(() -> new long[1]);
+
+  private static final ThreadLocal<RequestQueries> REQUEST = new ThreadLocal<>();
+
+  /**
+   * The number of statements prepared on the current thread so far.
+   *
+   * @return the statement count
+   */
+  public static long getCount() {
+    return COUNT.get()[0];
+  }
+
+  /**
+   * Start recording the statements of a request handled on the current thread.
+   *
+   * @return the statements recorded until {@link #endRequest()}
+   */
+  public static RequestQueries startRequest() {
+    RequestQueries queries = new RequestQueries();
+    REQUEST.set(queries);
+    return queries;
+  }
+
+  /** Stop recording statements on the current thread. */
+  public static void endRequest() {
+    REQUEST.remove();
+  }
+
+  @Override
+  public String inspect(String sql) {
+    COUNT.get()[0]++;
+    RequestQueries queries = REQUEST.get();
+    if (queries != null) {
+      queries.add(sql);
+    }
+    return sql;
+  }
+}
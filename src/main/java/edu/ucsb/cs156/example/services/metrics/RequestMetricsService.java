@@ -0,0 +1,134 @@
+package edu.ucsb.cs156.example.services.metrics;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.stereotype.Service;
+
+/**
+ * This is a service that keeps request metrics for each controller method and renders them in the
+ * Prometheus text exposition format.
+ *
+ * <p>Metrics are cumulative since the application started. Latencies are kept in a fixed-bucket
+ * histogram (see {@link EndpointMetrics}); the p50, p95 and p99 latencies are estimated from it.
+ */
+@Service
+public class RequestMetricsService {
+
+  static final double[] QUANTILES = {0.5, 0.95, 0.99};
+
+  private final Map<String, EndpointMetrics> byHandler = new ConcurrentHashMap<>();
+
+  private final Map<Method, EndpointMetrics> byMethod = new ConcurrentHashMap<>();
+
+  /**
+   * The metrics of a controller method, named {@code Controller.method}.
+   *
+   * @param method the controller method
+   * @return its metrics
+   */
+  public EndpointMetrics forMethod(Method method) {
+    EndpointMetrics metrics = byMethod.get(method);
+    if (metrics == null) {
+      String handler = method.getDeclaringClass().getSimpleName() + "." + method.getName();
+      // overloaded methods share one set of metrics
+      metrics =
+          byMethod.computeIfAbsent(
+              method, m -> byHandler.computeIfAbsent(handler, EndpointMetrics::new));
+    }
+    return metrics;
+  }
+
+  /**
+   * Render all metrics in the Prometheus text format (version 0.0.4).
+   *
+   * @return the metrics
+   */
+  public String render() {
+    Map<String, EndpointMetrics> endpoints = new TreeMap<>(byHandler);
+    StringBuilder out = new StringBuilder();
+
+    family(out, "app_requests_total", "counter", "Requests handled, by controller method");
+    endpoints.forEach((handler, m) -> sample(out, "app_requests_total", handler, m.getCount()));
+
+    family(
+        out,
+        "app_request_errors_total",
+        "counter",
+        "Requests that ended with an exception, by controller method and exception type");
+    endpoints.forEach(
+        (handler, m) ->
+            m.getErrors()
+                .forEach(
+                    (type, count) ->
+                        sample(
+                            out, "app_request_errors_total", handler, "exception", type, count)));
+
+    family(out, "app_request_duration_seconds", "histogram", "Request latency");
+    endpoints.forEach(
+        (handler, m) -> {
+          long[] cumulative = m.getCumulativeBuckets();
+          for (int i = 0; i < cumulative.length; i++) {
+            String le =
+                i < EndpointMetrics.BUCKET_SECONDS.length
+                    ? Double.toString(EndpointMetrics.BUCKET_SECONDS[i])
+                    : "+Inf";
+            sample(out, "app_request_duration_seconds_bucket", handler, "le", le, cumulative[i]);
+          }
+          sample(out, "app_request_duration_seconds_sum", handler, m.getTotalSeconds());
+          sample(out, "app_request_duration_seconds_count", handler, m.getCount());
+        });
+
+    family(
+        out,
+        "app_request_duration_quantile_seconds",
+        "gauge",
+        "Request latency quantiles estimated from app_request_duration_seconds");
+    endpoints.forEach(
+        (handler, m) -> {
+          for (double quantile : QUANTILES) {
+            sample(
+                out,
+                "app_request_duration_quantile_seconds",
+                handler,
+                "quantile",
+                Double.toString(quantile),
+                m.getQuantileSeconds(quantile));
+          }
+        });
+
+    family(out, "app_request_queries_total", "counter", "SQL statements run by requests");
+    endpoints.forEach(
+        (handler, m) -> sample(out, "app_request_queries_total", handler, m.getQueries()));
+
+    family(out, "app_request_queries_max", "gauge", "Most SQL statements run by a single request");
+    endpoints.forEach(
+        (handler, m) -> sample(out, "app_request_queries_max", handler, m.getMaxQueries()));
+
+    return out.toString();
+  }
+
+  private static void family(StringBuilder out, String name, String type, String help) {
+    out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+    out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+  }
+
+  private static void sample(StringBuilder out, String name, String handler, Object value) {
+    sample(out, name, handler, null, null, value);
+  }
+
+  private static void sample(
+      StringBuilder out,
+      String name,
+      String handler,
+      String labelName,
+      String labelValue,
+      Object value) {
+    out.append(name).append("{handler=\"").append(handler).append('"');
+    if (labelName != null) {
+      out.append(',').append(labelName).append("=\"").append(labelValue).append('"');
+    }
+    out.append("} ").append(value).append('\n');
+  }
+}
@@ -0,0 +1,67 @@
+package edu.ucsb.cs156.example.services.metrics;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * The SQL statements run while handling one request, grouped by shape.
+ *
+ * <p>The shape of a statement is its SQL with literals and {@code IN} lists replaced by {@code ?},
+ * so the same query run for different ids, as in an N+1 pattern, has one shape.
+ */
+public class RequestQueries {
+
+  private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+
+  private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+\\b");
+
+  private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+
+  private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+  /** A statement shape and how many times it was run. */
+  public record Shape(String sql, long count) {}
+
+  private final Map<String, Long> shapes = new HashMap<>();
+
+  private long count;
+
+  /**
+   * Record one statement.
+   *
+   * @param sql the statement
+   */
+  public synchronized void add(String sql) {
+    count++;
+    shapes.merge(shape(sql), 1L, Long::sum);
+  }
+
+  public synchronized long getCount() {
+    return count;
+  }
+
+  /**
+   * The shapes run more than once, most frequent first.
+   *
+   * @param limit the maximum number of shapes to return
+   * @return the repeated shapes
+   */
+  public synchronized List<Shape> getRepeatedShapes(int limit) {
+    return shapes.entrySet().stream()
+        .filter(entry -> entry.getValue() > 1)
+        .map(entry -> new Shape(entry.getKey(), entry.getValue()))
+        .sorted(Comparator.comparingLong(Shape::count).reversed().thenComparing(Shape::sql))
+        .limit(limit)
+        .toList();
+  }
+
+  static String shape(String sql) {
+    String result = STRING_LITERAL.matcher(sql).replaceAll("?");
+    result = NUMBER_LITERAL.matcher(result).replaceAll("?");
+    result = IN_LIST.matcher(result).replaceAll("(?)");
+    return WHITESPACE.matcher(result).replaceAll(" ").trim();
+  }
+}
@@ -1,9 +1,14 @@
 package edu.ucsb.cs156.example;
 
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.fail;
+
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.ucsb.cs156.example.services.CurrentUserService;
 import edu.ucsb.cs156.example.services.GrantedAuthoritiesService;
+import edu.ucsb.cs156.example.services.metrics.QueryBudgetFilter;
+import edu.ucsb.cs156.example.services.metrics.RequestQueries;
 import edu.ucsb.cs156.example.services.wiremock.WiremockService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import java.io.UnsupportedEncodingException;
@@ -14,6 +19,7 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultMatcher;
 
 @ActiveProfiles("test")
 @Import(TestConfig.class)
@@ -33,4 +39,26 @@ public abstract class ControllerTestCase {
     String responseString = result.getResponse().getContentAsString();
     return mapper.readValue(responseString, Map.class);
   }
+
+  /**
+   * A ResultMatcher that fails if the request ran more than {@code max} SQL statements, e.g. {@code
+   * mockMvc.perform(get("/api/...")).andExpect(statementsAtMost(2))}. The statements are counted by
+   * QueryBudgetFilter, so this only means something when the repositories are real, as in the
+   * integration tests.
+   *
+   * @param max the statement budget of the request
+   * @return the matcher
+   */
+  public static ResultMatcher statementsAtMost(long max) {
+    return result -> {
+      RequestQueries queries =
+          (RequestQueries) result.getRequest().getAttribute(QueryBudgetFilter.QUERIES_ATTRIBUTE);
+      assertNotNull(queries, "QueryBudgetFilter did not run for this request");
+      if (queries.getCount() > max) {
+        fail(
+            "Request ran %d SQL statements, more than its budget of %d; most repeated: %s"
+                .formatted(queries.getCount(), max, queries.getRepeatedShapes(5)));
+      }
+    };
+  }
 }
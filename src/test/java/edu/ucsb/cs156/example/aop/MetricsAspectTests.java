@@ -0,0 +1,76 @@
+package edu.ucsb.cs156.example.aop;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.services.metrics.EndpointMetrics;
+import edu.ucsb.cs156.example.services.metrics.QueryCountInspector;
+import edu.ucsb.cs156.example.services.metrics.RequestMetricsService;
+import java.lang.reflect.Method;
+import java.util.Map;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class MetricsAspectTests {
+
+  static class SampleController {
+    public String index() {
+      return "ok";
+    }
+  }
+
+  private final RequestMetricsService requestMetricsService = new RequestMetricsService();
+
+  private final MetricsAspect aspect = new MetricsAspect();
+
+  private final ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+
+  private EndpointMetrics metrics;
+
+  @BeforeEach
+  public void setup() throws Exception {
+    ReflectionTestUtils.setField(aspect, "requestMetricsService", requestMetricsService);
+    Method index = SampleController.class.getMethod("index");
+    MethodSignature signature = mock(MethodSignature.class);
+    when(signature.getMethod()).thenReturn(index);
+    when(joinPoint.getSignature()).thenReturn(signature);
+    metrics = requestMetricsService.forMethod(index);
+  }
+
+  @Test
+  void successful_requests_are_timed_and_their_queries_counted() throws Throwable {
+    QueryCountInspector inspector = new QueryCountInspector();
+    when(joinPoint.proceed())
+        .thenAnswer(
+            invocation -> {
+              inspector.inspect("select 1");
+              inspector.inspect("select 2");
+              return "ok";
+            });
+
+    assertEquals("ok", aspect.measure(joinPoint));
+
+    assertEquals(1, metrics.getCount());
+    assertEquals(2, metrics.getQueries());
+    assertEquals(Map.of(), metrics.getErrors());
+  }
+
+  @Test
+  void failed_requests_are_counted_by_exception_type() throws Throwable {
+    EntityNotFoundException e = new EntityNotFoundException(String.class, 1L);
+    when(joinPoint.proceed()).thenThrow(e);
+
+    assertSame(e, assertThrows(EntityNotFoundException.class, () -> aspect.measure(joinPoint)));
+
+    assertEquals(1, metrics.getCount());
+    assertEquals(0, metrics.getQueries());
+    assertEquals(Map.of("EntityNotFoundException", 1L), metrics.getErrors());
+  }
+}
@@ -0,0 +1,146 @@
+package edu.ucsb.cs156.example.config;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.task.SimpleAsyncTaskExecutorBuilder;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@Slf4j
+public class JobExecutorConfigTests {
+
+  private static final int JOBS = 64;
+  private static final int SLEEP_MS = 100;
+
+  @AfterEach
+  public void clearSecurityContext() {
+    SecurityContextHolder.clearContext();
+  }
+
+  /** Runs JOBS sleeping tasks and returns the largest number that were running at once. */
+  private int peakConcurrency(AsyncTaskExecutor executor) throws Exception {
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger peak = new AtomicInteger();
+    List<Future<?>> futures = new ArrayList<>();
+    long start = System.nanoTime();
+    for (int i = 0; i < JOBS; i++) {
+      futures.add(
+          executor.submit(
+              () -> {
+                peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                  Thread.sleep(SLEEP_MS);
+                } catch (InterruptedException e) {
+                  Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+              }));
+    }
+    for (Future<?> future : futures) {
+      future.get(30, TimeUnit.SECONDS);
+    }
+    long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    log.info(
+        "{}: {} jobs of {} ms, peak concurrency {}, elapsed {} ms",
+        executor.getClass().getSimpleName(),
+        JOBS,
+        SLEEP_MS,
+        peak.get(),
+        elapsedMs);
+    return peak.get();
+  }
+
+  @Test
+  public void virtual_threads_run_more_blocking_jobs_concurrently_than_the_thread_pool()
+      throws Exception {
+    ThreadPoolTaskExecutor pool = JobExecutorConfig.threadPoolExecutor(4, 4, 1000);
+    pool.initialize();
+    SimpleAsyncTaskExecutor virtual = JobExecutorConfig.virtualThreadExecutor(JOBS);
+
+    try {
+      int poolPeak = peakConcurrency(pool);
+      int virtualPeak = peakConcurrency(virtual);
+
+      assertTrue(poolPeak <= 4);
+      assertTrue(virtualPeak > poolPeak);
+    } finally {
+      pool.shutdown();
+      virtual.close();
+    }
+  }
+
+  private Authentication authenticationSeenByJob(AsyncTaskExecutor executor) throws Exception {
+    AtomicReference<Authentication> seen = new AtomicReference<>();
+    executor
+        .submit(() -> seen.set(SecurityContextHolder.getContext().getAuthentication()))
+        .get(10, TimeUnit.SECONDS);
+    return seen.get();
+  }
+
+  @Test
+  public void security_context_is_propagated_to_jobs() throws Exception {
+    Authentication authentication = new TestingAuthenticationToken("admin", "password");
+    SecurityContextHolder.getContext().setAuthentication(authentication);
+
+    ThreadPoolTaskExecutor pool = JobExecutorConfig.threadPoolExecutor(1, 1, 10);
+    pool.initialize();
+    SimpleAsyncTaskExecutor virtual = JobExecutorConfig.virtualThreadExecutor(10);
+
+    try {
+      assertSame(authentication, authenticationSeenByJob(pool));
+      assertSame(authentication, authenticationSeenByJob(virtual));
+    } finally {
+      pool.shutdown();
+      virtual.close();
+    }
+  }
+
+  @Test
+  public void job_threads_are_named() throws Exception {
+    SimpleAsyncTaskExecutor virtual = JobExecutorConfig.virtualThreadExecutor(10);
+    AtomicReference<Thread> thread = new AtomicReference<>();
+
+    virtual.submit(() -> thread.set(Thread.currentThread())).get(10, TimeUnit.SECONDS);
+    virtual.close();
+
+    assertTrue(thread.get().isVirtual());
+    assertTrue(thread.get().getName().startsWith("job-"));
+  }
+
+  @Test
+  public void application_task_executor_is_built_for_the_threading_mode() throws Exception {
+    JobExecutorConfig config = new JobExecutorConfig();
+
+    assertTrue(
+        config.applicationTaskExecutor(
+                new ThreadPoolTaskExecutorBuilder(), new SimpleAsyncTaskExecutorBuilder())
+            instanceof ThreadPoolTaskExecutor);
+
+    ReflectionTestUtils.setField(config, "virtualThreads", true);
+    SimpleAsyncTaskExecutor virtual =
+        (SimpleAsyncTaskExecutor)
+            config.applicationTaskExecutor(
+                new ThreadPoolTaskExecutorBuilder(), new SimpleAsyncTaskExecutorBuilder());
+    AtomicReference<Thread> thread = new AtomicReference<>();
+    virtual.submit(() -> thread.set(Thread.currentThread())).get(10, TimeUnit.SECONDS);
+    virtual.close();
+
+    assertTrue(thread.get().isVirtual());
+  }
+}
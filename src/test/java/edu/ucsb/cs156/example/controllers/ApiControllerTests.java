@@ -1,17 +1,25 @@
 package edu.ucsb.cs156.example.controllers;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.models.CursorPage;
 import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.LongStream;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MvcResult;
 
 @WebMvcTest(controllers = DummyController.class)
@@ -53,4 +61,61 @@ public class ApiControllerTests extends ControllerTestCase {
     assertEquals("EntityNotFoundException", json.get("type"));
     assertEquals("String with id 7 not found", json.get("message"));
   }
+
+  private final List<Long> rows = LongStream.rangeClosed(1, 25).boxed().toList();
+
+  private final List<Limit> limits = new ArrayList<>();
+
+  private List<Long> rowsAfter(Long after, Limit limit) {
+    limits.add(limit);
+    return rows.stream().filter(row -> row > after).limit(limit.max()).toList();
+  }
+
+  private CursorPage<Long> page(String cursor, int size) {
+    ApiController apiController = new DummyController();
+    ReflectionTestUtils.setField(apiController, "maxPageSize", 10);
+    return apiController.keysetPage(cursor, size, 0L, Long::valueOf, this::rowsAfter, row -> row);
+  }
+
+  @Test
+  public void keyset_pages_follow_each_other_until_the_last_page() {
+    CursorPage<Long> first = page(null, 10);
+    assertEquals(LongStream.rangeClosed(1, 10).boxed().toList(), first.getContent());
+    assertEquals(Limit.of(11), limits.get(0));
+
+    CursorPage<Long> second = page(first.getNextCursor(), 10);
+    assertEquals(LongStream.rangeClosed(11, 20).boxed().toList(), second.getContent());
+
+    CursorPage<Long> last = page(second.getNextCursor(), 10);
+    assertEquals(LongStream.rangeClosed(21, 25).boxed().toList(), last.getContent());
+    assertNull(last.getNextCursor());
+  }
+
+  @Test
+  public void keyset_page_size_is_clamped() {
+    assertEquals(10, page(null, 1000).getContent().size());
+    assertEquals(List.of(1L), page(null, 0).getContent());
+  }
+
+  @Test
+  public void a_page_that_ends_the_listing_exactly_has_no_next_cursor() {
+    CursorPage<Long> page = page(page(page(null, 10).getNextCursor(), 10).getNextCursor(), 5);
+    assertEquals(LongStream.rangeClosed(21, 25).boxed().toList(), page.getContent());
+    assertNull(page.getNextCursor());
+  }
+
+  @Test
+  public void cursors_are_opaque() {
+    String cursor = page(null, 10).getNextCursor();
+    assertEquals("MTA", cursor);
+  }
+
+  @Test
+  public void invalid_cursors_are_rejected() {
+    IllegalArgumentException notBase64 =
+        assertThrows(IllegalArgumentException.class, () -> page("not a cursor!", 10));
+    assertEquals("Invalid cursor: not a cursor!", notBase64.getMessage());
+    // "abc" in base64
+    assertThrows(IllegalArgumentException.class, () -> page("YWJj", 10));
+  }
 }
@@ -0,0 +1,152 @@
+package edu.ucsb.cs156.example.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.config.CacheConfig;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MvcResult;
+
+@WebMvcTest(controllers = CachesController.class)
+@Import(TestConfig.class)
+public class CachesControllerTests extends ControllerTestCase {
+
+  @MockitoBean UserRepository userRepository;
+
+  @Autowired CacheManager cacheManager;
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void regular_users_cannot_get_cache_stats() throws Exception {
+    mockMvc.perform(get("/api/admin/caches")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_get_cache_stats() throws Exception {
+
+    // arrange
+    Cache dates = cacheManager.getCache(CacheConfig.UCSB_DATES);
+    dates.clear();
+    dates.put("all", List.of());
+    dates.get("all");
+    dates.get("all");
+    dates.get("id:1");
+
+    // act
+    MvcResult response =
+        mockMvc.perform(get("/api/admin/caches")).andExpect(status().isOk()).andReturn();
+
+    // assert
+    List<Map<String, Object>> stats =
+        mapper.readValue(response.getResponse().getContentAsString(), List.class);
+    assertEquals(
+        List.of(
+            CacheConfig.ADMINS,
+            CacheConfig.CURRENT_USERS,
+            CacheConfig.UCSB_DATES,
+            CacheConfig.UCSB_DINING_COMMONS),
+        stats.stream().map(s -> s.get("name")).toList());
+    Map<String, Object> dateStats = stats.get(2);
+    assertEquals(1, dateStats.get("size"));
+    assertEquals(2, dateStats.get("hits"));
+    assertEquals(1, dateStats.get("misses"));
+    assertEquals(2.0 / 3, dateStats.get("hitRate"));
+    assertEquals(0, dateStats.get("evictions"));
+    dates.clear();
+  }
+
+  @Test
+  public void logged_out_users_cannot_flush_caches() throws Exception {
+    mockMvc.perform(delete("/api/admin/caches").with(csrf())).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void regular_users_cannot_flush_caches() throws Exception {
+    mockMvc.perform(delete("/api/admin/caches").with(csrf())).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_flush_all_caches() throws Exception {
+
+    // arrange
+    Cache admins = cacheManager.getCache(CacheConfig.ADMINS);
+    Cache currentUsers = cacheManager.getCache(CacheConfig.CURRENT_USERS);
+    admins.put("a@ucsb.edu", true);
+    currentUsers.put("sub-1", "user");
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(delete("/api/admin/caches").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    assertEquals(
+        mapper.writeValueAsString(Map.of("message", "All caches flushed")),
+        response.getResponse().getContentAsString());
+    assertNull(admins.get("a@ucsb.edu"));
+    assertNull(currentUsers.get("sub-1"));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_flush_one_cache() throws Exception {
+
+    // arrange
+    Cache admins = cacheManager.getCache(CacheConfig.ADMINS);
+    Cache currentUsers = cacheManager.getCache(CacheConfig.CURRENT_USERS);
+    admins.put("a@ucsb.edu", true);
+    currentUsers.put("sub-1", "user");
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(delete("/api/admin/caches?name=admins").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    assertEquals(
+        mapper.writeValueAsString(Map.of("message", "Cache admins flushed")),
+        response.getResponse().getContentAsString());
+    assertNull(admins.get("a@ucsb.edu"));
+    assertEquals("user", currentUsers.get("sub-1").get());
+    currentUsers.clear();
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void flushing_an_unknown_cache_is_not_found() throws Exception {
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(delete("/api/admin/caches?name=nope").with(csrf()))
+            .andExpect(status().isNotFound())
+            .andReturn();
+
+    // assert
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("Cache with id nope not found", json.get("message"));
+  }
+}
@@ -3,7 +3,7 @@ package edu.ucsb.cs156.example.controllers;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.awaitility.Awaitility.await;
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.mockito.ArgumentMatchers.any;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
@@ -11,64 +11,124 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.config.JobExecutorConfig;
 import edu.ucsb.cs156.example.entities.Job;
-import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.entities.JobLogChunk;
+import edu.ucsb.cs156.example.jobs.TestJob;
+import edu.ucsb.cs156.example.models.JobRetentionReport;
+import edu.ucsb.cs156.example.models.JobSummary;
+import edu.ucsb.cs156.example.repositories.JobLogChunkRepository;
 import edu.ucsb.cs156.example.repositories.JobsRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.jobs.JobCancellationService;
+import edu.ucsb.cs156.example.services.jobs.JobDispatcher;
+import edu.ucsb.cs156.example.services.jobs.JobLogService;
+import edu.ucsb.cs156.example.services.jobs.JobRetentionService;
 import edu.ucsb.cs156.example.services.jobs.JobService;
-import java.util.ArrayList;
-import java.util.Arrays;
+import edu.ucsb.cs156.example.services.jobs.JobStreamService;
+import java.time.ZonedDateTime;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.AutoConfigureDataJpa;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.PagedModel;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MvcResult;
 
 @Slf4j
 @WebMvcTest(controllers = JobsController.class)
-@Import(JobService.class)
+@Import({
+  JobService.class,
+  JobDispatcher.class,
+  JobCancellationService.class,
+  JobLogService.class,
+  JobStreamService.class,
+  JobExecutorConfig.class
+})
 @AutoConfigureDataJpa
 public class JobsControllerTests extends ControllerTestCase {
 
   @MockitoBean JobsRepository jobsRepository;
 
+  @MockitoBean JobLogChunkRepository jobLogChunkRepository;
+
   @MockitoBean UserRepository userRepository;
 
+  @MockitoBean JobRetentionService jobRetentionService;
+
   @Autowired JobService jobService;
 
+  @Autowired JobCancellationService jobCancellationService;
+
   @Autowired ObjectMapper objectMapper;
 
+  /**
+   * Make the mocked repository behave like the queue table: saved jobs get ids, and jobs that are
+   * still queued are returned to the dispatcher.
+   */
+  private void mockJobQueue() {
+    Set<Job> savedJobs = Collections.newSetFromMap(new IdentityHashMap<>());
+    AtomicLong nextId = new AtomicLong(1);
+    when(jobsRepository.save(any(Job.class)))
+        .thenAnswer(
+            invocation -> {
+              Job job = invocation.getArgument(0);
+              if (job.getId() == 0) {
+                job.setId(nextId.getAndIncrement());
+              }
+              savedJobs.add(job);
+              return job;
+            });
+    when(jobsRepository.findByStatusOrderByPriorityDescIdAsc(eq("queued"), any(Pageable.class)))
+        .thenAnswer(
+            invocation ->
+                savedJobs.stream().filter(job -> "queued".equals(job.getStatus())).toList());
+  }
+
   @WithMockUser(roles = {"ADMIN"})
   @Test
   public void admin_can_get_all_jobs() throws Exception {
 
     // arrange
 
-    Job job1 = Job.builder().log("this is job 1").build();
-    Job job2 = Job.builder().log("this is job 2").build();
+    JobSummary job1 = JobSummary.builder().id(2L).status("complete").logLength(13L).build();
+    JobSummary job2 = JobSummary.builder().id(1L).status("error").logLength(13L).build();
 
-    ArrayList<Job> expectedJobs = new ArrayList<>();
-    expectedJobs.addAll(Arrays.asList(job1, job2));
+    List<JobSummary> expectedJobs = List.of(job1, job2);
 
-    when(jobsRepository.findAll()).thenReturn(expectedJobs);
+    Pageable unpaged = Pageable.unpaged(Sort.by(Sort.Direction.DESC, "id"));
+    when(jobsRepository.findSummaries(null, null, null, unpaged))
+        .thenReturn(new PageImpl<>(expectedJobs));
 
     // act
     MvcResult response =
         mockMvc.perform(get("/api/jobs/all")).andExpect(status().isOk()).andReturn();
 
-    // assert
+    // assert: the summaries are listed without loading any job or log
 
-    verify(jobsRepository, atLeastOnce()).findAll();
+    verify(jobsRepository, never()).findAll();
     String expectedJson = mapper.writeValueAsString(expectedJobs);
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
@@ -173,6 +233,40 @@ public class JobsControllerTests extends ControllerTestCase {
         .andExpect(content().string(""));
   }
 
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void test_getJobLogs_returns_not_found_for_missing_job() throws Exception {
+    when(jobsRepository.findById(4L)).thenReturn(Optional.empty());
+
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/jobs/logs/{id}", 4L))
+            .andExpect(status().isNotFound())
+            .andReturn();
+
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("Job with id 4 not found", json.get("message"));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void test_getJobLogs_admin_gets_chunks_stitched_together() throws Exception {
+    // Arrange
+    Long jobId = 3L;
+    Job job = Job.builder().id(jobId).build();
+    JobLogChunk chunk0 = JobLogChunk.builder().jobId(jobId).seq(0).content("line 1").build();
+    JobLogChunk chunk1 = JobLogChunk.builder().jobId(jobId).seq(1).content("line 2").build();
+    when(jobsRepository.findById(jobId)).thenReturn(Optional.of(job));
+    when(jobLogChunkRepository.findAllByJobIdOrderBySeqAsc(jobId))
+        .thenReturn(List.of(chunk0, chunk1));
+
+    // Act & Assert
+    mockMvc
+        .perform(get("/api/jobs/logs/{id}", jobId))
+        .andExpect(status().isOk())
+        .andExpect(content().string("line 1\nline 2"));
+  }
+
   @WithMockUser(roles = {"ADMIN"})
   @Test
   public void admin_can_delete_specific_job() throws Exception {
@@ -225,100 +319,442 @@ public class JobsControllerTests extends ControllerTestCase {
   public void admin_can_launch_test_job() throws Exception {
 
     // arrange
+    mockJobQueue();
 
-    User user = currentUserService.getUser();
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(post("/api/jobs/launch/testjob?fail=false&sleepMs=2000").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
 
-    Job jobStarted =
-        Job.builder()
-            .id(0L)
-            .createdBy(user)
-            .createdAt(null)
-            .updatedAt(null)
-            .status("running")
-            .log("Hello World! from test job!")
-            .build();
+    // assert
+    String responseString = response.getResponse().getContentAsString();
+    Job jobReturned = objectMapper.readValue(responseString, Job.class);
 
-    Job jobCompleted =
-        Job.builder()
-            .id(0L)
-            .createdBy(user)
-            .createdAt(null)
-            .updatedAt(null)
-            .status("complete")
-            .log("Hello World! from test job!\nGoodbye from test job!")
-            .build();
+    assertEquals("running", jobReturned.getStatus());
+
+    ArgumentCaptor<String> statusCaptor = ArgumentCaptor.forClass(String.class);
+    await()
+        .atMost(10, SECONDS)
+        .untilAsserted(
+            () -> verify(jobsRepository).finish(anyLong(), any(), statusCaptor.capture(), any()));
+    assertEquals("complete", statusCaptor.getValue());
+
+    ArgumentCaptor<JobLogChunk> chunkCaptor = ArgumentCaptor.forClass(JobLogChunk.class);
+    verify(jobLogChunkRepository, atLeastOnce()).save(chunkCaptor.capture());
+    assertEquals(
+        "Hello World! from test job!\nGoodbye from test job!", chunkCaptor.getValue().getContent());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_launch_test_job_that_fails() throws Exception {
 
-    when(jobsRepository.save(any(Job.class))).thenReturn(jobStarted).thenReturn(jobCompleted);
+    // arrange
+    mockJobQueue();
 
     // act
     MvcResult response =
         mockMvc
-            .perform(post("/api/jobs/launch/testjob?fail=false&sleepMs=2000").with(csrf()))
+            .perform(post("/api/jobs/launch/testjob?fail=true&sleepMs=4000").with(csrf()))
             .andExpect(status().isOk())
             .andReturn();
 
-    // assert
     String responseString = response.getResponse().getContentAsString();
     Job jobReturned = objectMapper.readValue(responseString, Job.class);
 
     assertEquals("running", jobReturned.getStatus());
 
-    await()
-        .atMost(1, SECONDS)
-        .untilAsserted(() -> verify(jobsRepository, times(2)).save(eq(jobStarted)));
+    ArgumentCaptor<String> statusCaptor = ArgumentCaptor.forClass(String.class);
     await()
         .atMost(10, SECONDS)
-        .untilAsserted(() -> verify(jobsRepository, times(4)).save(eq(jobCompleted)));
+        .untilAsserted(
+            () -> verify(jobsRepository).finish(anyLong(), any(), statusCaptor.capture(), any()));
+    assertEquals("error", statusCaptor.getValue());
+
+    ArgumentCaptor<JobLogChunk> chunkCaptor = ArgumentCaptor.forClass(JobLogChunk.class);
+    verify(jobLogChunkRepository, atLeastOnce()).save(chunkCaptor.capture());
+    assertEquals("Hello World! from test job!\nFail!", chunkCaptor.getValue().getContent());
   }
 
   @WithMockUser(roles = {"ADMIN"})
   @Test
-  public void admin_can_launch_test_job_that_fails() throws Exception {
+  public void admin_can_launch_test_job_with_priority() throws Exception {
 
     // arrange
+    mockJobQueue();
 
-    User user = currentUserService.getUser();
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(post("/api/jobs/launch/testjob?fail=false&sleepMs=0&priority=1").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
 
-    Job jobStarted =
-        Job.builder()
-            .id(0L)
-            .createdBy(user)
-            .createdAt(null)
-            .updatedAt(null)
-            .status("running")
-            .log("Hello World! from test job!")
-            .build();
+    // assert
+    Job jobReturned =
+        objectMapper.readValue(response.getResponse().getContentAsString(), Job.class);
+    assertEquals(JobService.PRIORITY_HIGH, jobReturned.getPriority());
+    assertEquals(TestJob.class.getName(), jobReturned.getJobType());
 
-    Job jobFailed =
-        Job.builder()
-            .id(0L)
-            .createdBy(user)
-            .createdAt(null)
-            .updatedAt(null)
-            .status("error")
-            .log("Hello World! from test job!\nFail!")
-            .build();
+    // let the job finish, so that it does not save during the next test
+    await()
+        .atMost(10, SECONDS)
+        .untilAsserted(() -> verify(jobsRepository).finish(anyLong(), any(), any(), any()));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_cancel_a_running_test_job() throws Exception {
 
-    when(jobsRepository.save(any(Job.class))).thenReturn(jobStarted).thenReturn(jobFailed);
+    // arrange
+    mockJobQueue();
+    MvcResult launched =
+        mockMvc
+            .perform(post("/api/jobs/launch/testjob?fail=false&sleepMs=30000").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+    Job job = objectMapper.readValue(launched.getResponse().getContentAsString(), Job.class);
+    Job cancelRequested =
+        Job.builder().id(job.getId()).status("running").cancelRequested(true).build();
+    when(jobsRepository.existsById(job.getId())).thenReturn(true);
+    when(jobsRepository.requestCancel(job.getId())).thenReturn(1);
+    when(jobsRepository.findById(job.getId())).thenReturn(Optional.of(cancelRequested));
+    when(jobsRepository.findCancelRequestedIds(any())).thenReturn(List.of(job.getId()));
 
     // act
     MvcResult response =
         mockMvc
-            .perform(post("/api/jobs/launch/testjob?fail=true&sleepMs=4000").with(csrf()))
+            .perform(post("/api/jobs/" + job.getId() + "/cancel").with(csrf()))
             .andExpect(status().isOk())
             .andReturn();
 
-    String responseString = response.getResponse().getContentAsString();
-    Job jobReturned = objectMapper.readValue(responseString, Job.class);
+    // assert
+    assertEquals(
+        mapper.writeValueAsString(cancelRequested), response.getResponse().getContentAsString());
+    ArgumentCaptor<String> statusCaptor = ArgumentCaptor.forClass(String.class);
+    await()
+        .atMost(10, SECONDS)
+        .untilAsserted(
+            () -> {
+              // the job may not have started when it was cancelled, so keep checking
+              jobCancellationService.checkRunningJobs();
+              verify(jobsRepository).finish(anyLong(), any(), statusCaptor.capture(), any());
+            });
+    assertEquals("cancelled", statusCaptor.getValue());
+
+    ArgumentCaptor<JobLogChunk> chunkCaptor = ArgumentCaptor.forClass(JobLogChunk.class);
+    verify(jobLogChunkRepository, atLeastOnce()).save(chunkCaptor.capture());
+    assertEquals("Hello World! from test job!\nJob cancelled", chunkCaptor.getValue().getContent());
+  }
 
-    assertEquals("running", jobReturned.getStatus());
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void test_job_is_stopped_after_its_max_runtime() throws Exception {
+
+    // arrange
+    mockJobQueue();
 
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/jobs/launch/testjob?fail=false&sleepMs=30000&maxRuntimeMs=0")
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    Job jobReturned =
+        objectMapper.readValue(response.getResponse().getContentAsString(), Job.class);
+    assertEquals(0L, jobReturned.getMaxRuntimeMs());
+    ArgumentCaptor<String> statusCaptor = ArgumentCaptor.forClass(String.class);
     await()
-        .atMost(1, SECONDS)
-        .untilAsserted(() -> verify(jobsRepository, times(2)).save(eq(jobStarted)));
+        .atMost(10, SECONDS)
+        .untilAsserted(
+            () -> {
+              jobCancellationService.checkRunningJobs();
+              verify(jobsRepository).finish(anyLong(), any(), statusCaptor.capture(), any());
+            });
+    assertEquals("timeout", statusCaptor.getValue());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void cancelling_a_finished_job_is_a_bad_request() throws Exception {
+
+    // arrange
+    Job job = Job.builder().id(5L).status("complete").build();
+    when(jobsRepository.existsById(5L)).thenReturn(true);
+    when(jobsRepository.findById(5L)).thenReturn(Optional.of(job));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(post("/api/jobs/5/cancel").with(csrf()))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    // assert
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("Job 5 has already finished with status complete", json.get("message"));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void cancelling_a_missing_job_is_not_found() throws Exception {
+    when(jobsRepository.existsById(5L)).thenReturn(false);
+
+    mockMvc.perform(post("/api/jobs/5/cancel").with(csrf())).andExpect(status().isNotFound());
+
+    verify(jobsRepository, never()).requestCancel(5L);
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void non_admin_cannot_cancel_jobs() throws Exception {
+    mockMvc.perform(post("/api/jobs/5/cancel").with(csrf())).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_retry_a_failed_job() throws Exception {
+
+    // arrange
+    Job job = Job.builder().id(5L).status("queued").build();
+    when(jobsRepository.existsById(5L)).thenReturn(true);
+    when(jobsRepository.requeueFinished(eq(5L), any())).thenReturn(1);
+    when(jobsRepository.findById(5L)).thenReturn(Optional.of(job));
 
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(post("/api/jobs/5/retry").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    assertEquals(mapper.writeValueAsString(job), response.getResponse().getContentAsString());
+    verify(jobsRepository, times(1)).requeueFinished(eq(5L), any());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void retrying_a_missing_job_is_not_found() throws Exception {
+    when(jobsRepository.existsById(5L)).thenReturn(false);
+
+    mockMvc.perform(post("/api/jobs/5/retry").with(csrf())).andExpect(status().isNotFound());
+
+    verify(jobsRepository, never()).requeueFinished(eq(5L), any());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void non_admin_cannot_retry_jobs() throws Exception {
+    mockMvc.perform(post("/api/jobs/5/retry").with(csrf())).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void jobs_run_on_the_job_executor() throws Exception {
+    AtomicReference<String> threadName = new AtomicReference<>();
+    mockJobQueue();
+
+    jobService.runAsJob(ctx -> threadName.set(Thread.currentThread().getName()));
+
+    await().atMost(10, SECONDS).until(() -> threadName.get() != null);
+    assertTrue(threadName.get().startsWith("job-"));
     await()
         .atMost(10, SECONDS)
-        .untilAsserted(() -> verify(jobsRepository, times(3)).save(eq(jobFailed)));
+        .untilAsserted(() -> verify(jobsRepository).finish(anyLong(), any(), any(), any()));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_get_executor_stats() throws Exception {
+
+    // act
+    MvcResult response =
+        mockMvc.perform(get("/api/jobs/executor")).andExpect(status().isOk()).andReturn();
+
+    // assert
+    String responseString = response.getResponse().getContentAsString();
+    String expectedJson = mapper.writeValueAsString(jobService.getExecutorStats());
+    assertEquals(expectedJson, responseString);
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void non_admin_cannot_get_executor_stats() throws Exception {
+    mockMvc.perform(get("/api/jobs/executor")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_stream_a_finished_job_from_last_event_id() throws Exception {
+
+    // arrange
+    Job job = Job.builder().id(1L).status("complete").build();
+    JobLogChunk chunk =
+        JobLogChunk.builder().jobId(1L).seq(0).lineCount(3).content("a\nb\nc").build();
+    when(jobsRepository.existsById(eq(1L))).thenReturn(true);
+    when(jobsRepository.findById(eq(1L))).thenReturn(Optional.of(job));
+    when(jobLogChunkRepository.findAllByJobIdOrderBySeqAsc(1L)).thenReturn(List.of(chunk));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/jobs/1/stream").header("Last-Event-ID", "1"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+    // assert
+    assertEquals(
+        "id:2\nevent:log\ndata:b\n\n"
+            + "id:3\nevent:log\ndata:c\n\n"
+            + "event:status\ndata:complete\nretry:2000\n\n",
+        response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void stream_returns_not_found_for_missing_job() throws Exception {
+
+    // arrange
+    when(jobsRepository.existsById(eq(2L))).thenReturn(false);
+
+    // act
+    MvcResult response =
+        mockMvc.perform(get("/api/jobs/2/stream")).andExpect(status().isNotFound()).andReturn();
+
+    // assert
+    String expectedJson =
+        mapper.writeValueAsString(
+            Map.of("type", "EntityNotFoundException", "message", "Job with id 2 not found"));
+    assertEquals(expectedJson, response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void non_admin_cannot_stream_a_job() throws Exception {
+    mockMvc.perform(get("/api/jobs/1/stream")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_list_a_page_of_job_summaries() throws Exception {
+
+    // arrange
+    ZonedDateTime createdAt = ZonedDateTime.parse("2024-01-02T03:04:05Z");
+    JobSummary summary =
+        JobSummary.builder()
+            .id(7L)
+            .status("complete")
+            .createdAt(createdAt)
+            .updatedAt(createdAt)
+            .logLength(42L)
+            .build();
+    PageRequest expectedPageRequest =
+        PageRequest.of(2, 10, Sort.by(Sort.Direction.ASC, "createdAt"));
+    Page<JobSummary> expectedPage = new PageImpl<>(List.of(summary), expectedPageRequest, 21);
+    when(jobsRepository.findSummaries(
+            eq("complete"),
+            eq(ZonedDateTime.parse("2024-01-01T00:00Z")),
+            eq(ZonedDateTime.parse("2024-02-01T00:00Z")),
+            eq(expectedPageRequest)))
+        .thenReturn(expectedPage);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                get(
+                    "/api/jobs?page=2&size=10&sort=createdAt&direction=ASC&status=complete"
+                        + "&createdFrom=2024-01-01T00:00Z&createdTo=2024-02-01T00:00Z"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    String expectedJson = mapper.writeValueAsString(new PagedModel<>(expectedPage));
+    assertEquals(expectedJson, response.getResponse().getContentAsString());
+    verify(jobsRepository, never()).findAll();
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void list_jobs_uses_defaults_and_clamps_page_size() throws Exception {
+
+    // arrange
+    when(jobsRepository.findSummaries(any(), any(), any(), any())).thenReturn(Page.empty());
+
+    // act
+    mockMvc.perform(get("/api/jobs")).andExpect(status().isOk());
+    mockMvc.perform(get("/api/jobs?page=-1&size=5000")).andExpect(status().isOk());
+    mockMvc.perform(get("/api/jobs?size=0")).andExpect(status().isOk());
+
+    // assert
+    Sort newestFirst = Sort.by(Sort.Direction.DESC, "id");
+    verify(jobsRepository, times(1))
+        .findSummaries(null, null, null, PageRequest.of(0, 20, newestFirst));
+    verify(jobsRepository, times(1))
+        .findSummaries(
+            null, null, null, PageRequest.of(0, JobsController.MAX_PAGE_SIZE, newestFirst));
+    verify(jobsRepository, times(1))
+        .findSummaries(null, null, null, PageRequest.of(0, 1, newestFirst));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void list_jobs_rejects_unknown_sort_field() throws Exception {
+
+    // act
+    MvcResult response =
+        mockMvc.perform(get("/api/jobs?sort=log")).andExpect(status().isBadRequest()).andReturn();
+
+    // assert
+    String expectedJson =
+        mapper.writeValueAsString(
+            Map.of("type", "IllegalArgumentException", "message", "Cannot sort jobs by log"));
+    assertEquals(expectedJson, response.getResponse().getContentAsString());
+    verify(jobsRepository, never()).findSummaries(any(), any(), any(), any());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void non_admin_cannot_list_jobs() throws Exception {
+    mockMvc.perform(get("/api/jobs")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_run_job_retention() throws Exception {
+
+    // arrange
+    JobRetentionReport report =
+        JobRetentionReport.builder()
+            .compactedJobs(1)
+            .compactedBytes(100)
+            .deletedJobs(2)
+            .deletedBytes(50)
+            .build();
+    when(jobRetentionService.run()).thenReturn(report);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(post("/api/jobs/retention").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    assertEquals(mapper.writeValueAsString(report), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void non_admin_cannot_run_job_retention() throws Exception {
+    mockMvc.perform(post("/api/jobs/retention").with(csrf())).andExpect(status().is(403));
+    verify(jobRetentionService, never()).run();
   }
 }
@@ -0,0 +1,58 @@
+package edu.ucsb.cs156.example.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.metrics.RequestMetricsService;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MvcResult;
+
+@WebMvcTest(controllers = MetricsController.class)
+@Import(TestConfig.class)
+public class MetricsControllerTests extends ControllerTestCase {
+
+  @MockitoBean UserRepository userRepository;
+
+  @MockitoBean RequestMetricsService requestMetricsService;
+
+  @Test
+  public void logged_out_users_cannot_get_metrics() throws Exception {
+    mockMvc.perform(get("/api/admin/metrics")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void regular_users_cannot_get_metrics() throws Exception {
+    mockMvc.perform(get("/api/admin/metrics")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_get_metrics_in_prometheus_format() throws Exception {
+
+    // arrange
+    String text = "app_requests_total{handler=\"UsersController.users\"} 3\n";
+    when(requestMetricsService.render()).thenReturn(text);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/admin/metrics"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("Content-Type", MetricsController.PROMETHEUS_CONTENT_TYPE))
+            .andReturn();
+
+    // assert
+    assertEquals(text, response.getResponse().getContentAsString());
+  }
+}
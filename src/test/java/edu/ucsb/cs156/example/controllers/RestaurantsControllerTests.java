@@ -14,27 +14,42 @@ import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.Restaurant;
 import edu.ucsb.cs156.example.repositories.RestaurantRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.BulkWriteService;
+import edu.ucsb.cs156.example.services.NdjsonExportService;
+import edu.ucsb.cs156.example.services.TableVersionService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @WebMvcTest(controllers = RestaurantsController.class)
-@Import(TestConfig.class)
+@Import({TestConfig.class, TableVersionService.class, BulkWriteService.class})
 public class RestaurantsControllerTests extends ControllerTestCase {
 
   @MockitoBean RestaurantRepository restaurantRepository;
 
+  @MockitoBean NdjsonExportService ndjsonExportService;
+
   @MockitoBean UserRepository userRepository;
 
+  @Autowired TableVersionService tableVersionService;
+
   // Authorization tests for /api/phones/admin/all
 
   @Test
@@ -277,4 +292,284 @@ public class RestaurantsControllerTests extends ControllerTestCase {
     Map<String, Object> json = responseToJson(response);
     assertEquals("Restaurant with id 67 not found", json.get("message"));
   }
+
+  // Tests for GET /api/restaurants/page
+
+  @Test
+  public void logged_out_users_cannot_get_a_page() throws Exception {
+    mockMvc.perform(get("/api/restaurants/page")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_the_first_page() throws Exception {
+
+    // arrange
+    when(restaurantRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(3)))
+        .thenReturn(
+            List.of(
+                Restaurant.builder().id(1).name("r1").description("d").build(),
+                Restaurant.builder().id(2).name("r2").description("d").build(),
+                Restaurant.builder().id(3).name("r3").description("d").build()));
+
+    // act and assert
+    mockMvc
+        .perform(get("/api/restaurants/page").param("size", "2"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content.length()").value(2))
+        .andExpect(jsonPath("$.nextCursor").value("Mg"));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_the_next_page() throws Exception {
+
+    // arrange
+    when(restaurantRepository.findByIdGreaterThanOrderByIdAsc(2L, Limit.of(3)))
+        .thenReturn(List.of(Restaurant.builder().id(3).name("r3").description("d").build()));
+
+    // act and assert
+    mockMvc
+        .perform(get("/api/restaurants/page").param("size", "2").param("cursor", "Mg"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content.length()").value(1))
+        .andExpect(jsonPath("$.nextCursor").doesNotExist());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void an_invalid_cursor_is_a_bad_request() throws Exception {
+    mockMvc
+        .perform(get("/api/restaurants/page").param("cursor", "bm90LWFuLWlk"))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.message").value("Invalid cursor: bm90LWFuLWlk"));
+  }
+
+  // Tests for GET /api/restaurants/export
+
+  @Test
+  public void logged_out_users_cannot_export() throws Exception {
+    mockMvc.perform(get("/api/restaurants/export")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_export() throws Exception {
+
+    // arrange
+    StreamingResponseBody body = out -> out.write("{\"id\":1}\n".getBytes());
+    when(ndjsonExportService.export(any()))
+        .thenReturn(
+            ResponseEntity.ok().contentType(NdjsonExportService.APPLICATION_NDJSON).body(body));
+
+    // act
+    MvcResult started =
+        mockMvc
+            .perform(get("/api/restaurants/export"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+    MvcResult response =
+        mockMvc.perform(asyncDispatch(started)).andExpect(status().isOk()).andReturn();
+
+    // assert
+    assertEquals("{\"id\":1}\n", response.getResponse().getContentAsString());
+    ArgumentCaptor<Supplier<? extends Stream<?>>> rows = ArgumentCaptor.captor();
+    verify(ndjsonExportService).export(rows.capture());
+    rows.getValue().get();
+    verify(restaurantRepository).streamAllByOrderByIdAsc();
+  }
+
+  // Tests for conditional GETs
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void an_unchanged_list_is_not_modified() throws Exception {
+
+    // act
+    MvcResult first =
+        mockMvc
+            .perform(get("/api/restaurants/all"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("Cache-Control", "private, no-cache"))
+            .andReturn();
+    String etag = first.getResponse().getHeader("ETag");
+
+    // assert
+    assertEquals(tableVersionService.etag(Restaurant.class), etag);
+    mockMvc
+        .perform(get("/api/restaurants/all").header("If-None-Match", etag))
+        .andExpect(status().isNotModified())
+        .andExpect(content().string(""));
+    verify(restaurantRepository, times(1)).findAll();
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void an_unchanged_item_is_not_modified() throws Exception {
+
+    // act and assert
+    mockMvc
+        .perform(
+            get("/api/restaurants")
+                .param("id", "7")
+                .header("If-None-Match", tableVersionService.etag(Restaurant.class)))
+        .andExpect(status().isNotModified())
+        .andExpect(header().string("ETag", tableVersionService.etag(Restaurant.class)));
+    verify(restaurantRepository, times(0)).findById(7L);
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void a_list_is_sent_again_after_the_table_changes() throws Exception {
+
+    // arrange
+    String etag = tableVersionService.etag(Restaurant.class);
+    tableVersionService.bump(Restaurant.class);
+
+    // act and assert
+    mockMvc
+        .perform(get("/api/restaurants/all").header("If-None-Match", etag))
+        .andExpect(status().isOk())
+        .andExpect(header().string("ETag", tableVersionService.etag(Restaurant.class)));
+    verify(restaurantRepository, times(1)).findAll();
+  }
+
+  // Tests for /api/restaurants/bulk
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void regular_users_cannot_bulk_write_restaurants() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/restaurants/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]")
+                .with(csrf()))
+        .andExpect(status().is(403));
+    mockMvc
+        .perform(
+            put("/api/restaurants/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]")
+                .with(csrf()))
+        .andExpect(status().is(403));
+    mockMvc
+        .perform(
+            delete("/api/restaurants/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]")
+                .with(csrf()))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_bulk_post_restaurants() throws Exception {
+    Restaurant first = Restaurant.builder().name("Restaurant 1").description("Cuisine 1").build();
+    Restaurant second = Restaurant.builder().name("Restaurant 2").description("Cuisine 2").build();
+    when(restaurantRepository.saveAll(List.of(first, second)))
+        .thenReturn(
+            List.of(
+                Restaurant.builder().id(51L).name("Restaurant 1").description("Cuisine 1").build(),
+                Restaurant.builder()
+                    .id(52L)
+                    .name("Restaurant 2")
+                    .description("Cuisine 2")
+                    .build()));
+
+    // ids sent by the client are ignored
+    String requestBody =
+        mapper.writeValueAsString(
+            List.of(
+                Restaurant.builder().id(7L).name("Restaurant 1").description("Cuisine 1").build(),
+                second));
+
+    mockMvc
+        .perform(
+            post("/api/restaurants/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(requestBody)
+                .with(csrf()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.counts.CREATED").value(2))
+        .andExpect(jsonPath("$.rows[0].id").value(51))
+        .andExpect(jsonPath("$.rows[1].id").value(52))
+        .andExpect(jsonPath("$.rows[1].status").value("CREATED"));
+
+    verify(restaurantRepository, times(1)).saveAll(List.of(first, second));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_bulk_update_restaurants() throws Exception {
+    Restaurant stored =
+        Restaurant.builder().id(1L).name("Restaurant 1").description("Cuisine 1").build();
+    when(restaurantRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(stored));
+
+    String requestBody =
+        mapper.writeValueAsString(
+            List.of(
+                Restaurant.builder().id(1L).name("Restaurant 2").description("Cuisine 2").build(),
+                Restaurant.builder().id(2L).name("Restaurant 2").description("Cuisine 2").build()));
+
+    mockMvc
+        .perform(
+            put("/api/restaurants/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(requestBody)
+                .with(csrf()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.counts.UPDATED").value(1))
+        .andExpect(jsonPath("$.counts.NOT_FOUND").value(1))
+        .andExpect(jsonPath("$.rows[1].id").value(2))
+        .andExpect(jsonPath("$.rows[1].status").value("NOT_FOUND"));
+
+    assertEquals(
+        Restaurant.builder().id(1L).name("Restaurant 2").description("Cuisine 2").build(), stored);
+    verify(restaurantRepository, times(1)).saveAll(any());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_bulk_delete_restaurants() throws Exception {
+    when(restaurantRepository.findAllById(List.of(1L, 2L)))
+        .thenReturn(
+            List.of(
+                Restaurant.builder().id(1L).name("Restaurant 1").description("Cuisine 1").build()));
+
+    mockMvc
+        .perform(
+            delete("/api/restaurants/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[1, 2]")
+                .with(csrf()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.counts.DELETED").value(1))
+        .andExpect(jsonPath("$.rows[0].status").value("DELETED"))
+        .andExpect(jsonPath("$.rows[1].status").value("NOT_FOUND"));
+
+    verify(restaurantRepository, times(1)).deleteAll(any());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void bulk_requests_with_too_many_rows_are_rejected() throws Exception {
+    List<Long> ids = new ArrayList<>();
+    for (long id = 1; id <= 5001; id++) {
+      ids.add(id);
+    }
+
+    MvcResult response =
+        mockMvc
+            .perform(
+                delete("/api/restaurants/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(ids))
+                    .with(csrf()))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("At most 5000 rows can be written at once, not 5001", json.get("message"));
+  }
 }
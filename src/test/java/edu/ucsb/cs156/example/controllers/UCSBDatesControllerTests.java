@@ -11,31 +11,52 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.entities.Job;
 import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.models.ImportTarget;
 import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.BulkWriteService;
+import edu.ucsb.cs156.example.services.ImportService;
+import edu.ucsb.cs156.example.services.NdjsonExportService;
+import edu.ucsb.cs156.example.services.TableVersionService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @WebMvcTest(controllers = UCSBDatesController.class)
-@Import(TestConfig.class)
+@Import({TestConfig.class, TableVersionService.class, BulkWriteService.class})
 public class UCSBDatesControllerTests extends ControllerTestCase {
 
   @MockitoBean UCSBDateRepository ucsbDateRepository;
 
+  @MockitoBean NdjsonExportService ndjsonExportService;
+
+  @MockitoBean ImportService importService;
+
   @MockitoBean UserRepository userRepository;
 
+  @Autowired TableVersionService tableVersionService;
+
   // Authorization tests for /api/ucsbdates/admin/all
 
   @Test
@@ -210,7 +231,7 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
             .localDateTime(ldt1)
             .build();
 
-    when(ucsbDateRepository.findById(eq(15L))).thenReturn(Optional.of(ucsbDate1));
+    when(ucsbDateRepository.findUncachedById(eq(15L))).thenReturn(Optional.of(ucsbDate1));
 
     // act
     MvcResult response =
@@ -220,7 +241,7 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
             .andReturn();
 
     // assert
-    verify(ucsbDateRepository, times(1)).findById(15L);
+    verify(ucsbDateRepository, times(1)).findUncachedById(15L);
     verify(ucsbDateRepository, times(1)).delete(any());
 
     Map<String, Object> json = responseToJson(response);
@@ -233,7 +254,7 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
       throws Exception {
     // arrange
 
-    when(ucsbDateRepository.findById(eq(15L))).thenReturn(Optional.empty());
+    when(ucsbDateRepository.findUncachedById(eq(15L))).thenReturn(Optional.empty());
 
     // act
     MvcResult response =
@@ -243,7 +264,7 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
             .andReturn();
 
     // assert
-    verify(ucsbDateRepository, times(1)).findById(15L);
+    verify(ucsbDateRepository, times(1)).findUncachedById(15L);
     Map<String, Object> json = responseToJson(response);
     assertEquals("UCSBDate with id 15 not found", json.get("message"));
   }
@@ -272,7 +293,7 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
 
     String requestBody = mapper.writeValueAsString(ucsbDateEdited);
 
-    when(ucsbDateRepository.findById(eq(67L))).thenReturn(Optional.of(ucsbDateOrig));
+    when(ucsbDateRepository.findUncachedById(eq(67L))).thenReturn(Optional.of(ucsbDateOrig));
 
     // act
     MvcResult response =
@@ -287,7 +308,7 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
             .andReturn();
 
     // assert
-    verify(ucsbDateRepository, times(1)).findById(67L);
+    verify(ucsbDateRepository, times(1)).findUncachedById(67L);
     verify(ucsbDateRepository, times(1)).save(ucsbDateEdited); // should be saved with correct user
     String responseString = response.getResponse().getContentAsString();
     assertEquals(requestBody, responseString);
@@ -309,7 +330,7 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
 
     String requestBody = mapper.writeValueAsString(ucsbEditedDate);
 
-    when(ucsbDateRepository.findById(eq(67L))).thenReturn(Optional.empty());
+    when(ucsbDateRepository.findUncachedById(eq(67L))).thenReturn(Optional.empty());
 
     // act
     MvcResult response =
@@ -324,8 +345,341 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
             .andReturn();
 
     // assert
-    verify(ucsbDateRepository, times(1)).findById(67L);
+    verify(ucsbDateRepository, times(1)).findUncachedById(67L);
     Map<String, Object> json = responseToJson(response);
     assertEquals("UCSBDate with id 67 not found", json.get("message"));
   }
+
+  // Tests for GET /api/ucsbdates/page
+
+  @Test
+  public void logged_out_users_cannot_get_a_page() throws Exception {
+    mockMvc.perform(get("/api/ucsbdates/page")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_the_first_page() throws Exception {
+
+    // arrange
+    when(ucsbDateRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(3)))
+        .thenReturn(
+            List.of(
+                UCSBDate.builder().id(1).name("d1").quarterYYYYQ("20241").build(),
+                UCSBDate.builder().id(2).name("d2").quarterYYYYQ("20241").build(),
+                UCSBDate.builder().id(3).name("d3").quarterYYYYQ("20241").build()));
+
+    // act and assert
+    mockMvc
+        .perform(get("/api/ucsbdates/page").param("size", "2"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content.length()").value(2))
+        .andExpect(jsonPath("$.nextCursor").value("Mg"));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_the_next_page() throws Exception {
+
+    // arrange
+    when(ucsbDateRepository.findByIdGreaterThanOrderByIdAsc(2L, Limit.of(3)))
+        .thenReturn(List.of(UCSBDate.builder().id(3).name("d3").quarterYYYYQ("20241").build()));
+
+    // act and assert
+    mockMvc
+        .perform(get("/api/ucsbdates/page").param("size", "2").param("cursor", "Mg"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content.length()").value(1))
+        .andExpect(jsonPath("$.nextCursor").doesNotExist());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void an_invalid_cursor_is_a_bad_request() throws Exception {
+    mockMvc
+        .perform(get("/api/ucsbdates/page").param("cursor", "bm90LWFuLWlk"))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.message").value("Invalid cursor: bm90LWFuLWlk"));
+  }
+
+  // Tests for GET /api/ucsbdates/export
+
+  @Test
+  public void logged_out_users_cannot_export() throws Exception {
+    mockMvc.perform(get("/api/ucsbdates/export")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_export() throws Exception {
+
+    // arrange
+    StreamingResponseBody body = out -> out.write("{\"id\":1}\n".getBytes());
+    when(ndjsonExportService.export(any()))
+        .thenReturn(
+            ResponseEntity.ok().contentType(NdjsonExportService.APPLICATION_NDJSON).body(body));
+
+    // act
+    MvcResult started =
+        mockMvc
+            .perform(get("/api/ucsbdates/export"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+    MvcResult response =
+        mockMvc.perform(asyncDispatch(started)).andExpect(status().isOk()).andReturn();
+
+    // assert
+    assertEquals("{\"id\":1}\n", response.getResponse().getContentAsString());
+    ArgumentCaptor<Supplier<? extends Stream<?>>> rows = ArgumentCaptor.captor();
+    verify(ndjsonExportService).export(rows.capture());
+    rows.getValue().get();
+    verify(ucsbDateRepository).streamAllByOrderByIdAsc();
+  }
+
+  // Tests for conditional GETs
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void an_unchanged_list_is_not_modified() throws Exception {
+
+    // act
+    MvcResult first =
+        mockMvc
+            .perform(get("/api/ucsbdates/all"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("Cache-Control", "private, no-cache"))
+            .andReturn();
+    String etag = first.getResponse().getHeader("ETag");
+
+    // assert
+    assertEquals(tableVersionService.etag(UCSBDate.class), etag);
+    mockMvc
+        .perform(get("/api/ucsbdates/all").header("If-None-Match", etag))
+        .andExpect(status().isNotModified())
+        .andExpect(content().string(""));
+    verify(ucsbDateRepository, times(1)).findAll();
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void an_unchanged_item_is_not_modified() throws Exception {
+
+    // act and assert
+    mockMvc
+        .perform(
+            get("/api/ucsbdates")
+                .param("id", "7")
+                .header("If-None-Match", tableVersionService.etag(UCSBDate.class)))
+        .andExpect(status().isNotModified())
+        .andExpect(header().string("ETag", tableVersionService.etag(UCSBDate.class)));
+    verify(ucsbDateRepository, times(0)).findById(7L);
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void a_list_is_sent_again_after_the_table_changes() throws Exception {
+
+    // arrange
+    String etag = tableVersionService.etag(UCSBDate.class);
+    tableVersionService.bump(UCSBDate.class);
+
+    // act and assert
+    mockMvc
+        .perform(get("/api/ucsbdates/all").header("If-None-Match", etag))
+        .andExpect(status().isOk())
+        .andExpect(header().string("ETag", tableVersionService.etag(UCSBDate.class)));
+    verify(ucsbDateRepository, times(1)).findAll();
+  }
+
+  // Tests for /api/ucsbdates/bulk
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void regular_users_cannot_bulk_write_dates() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/ucsbdates/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]")
+                .with(csrf()))
+        .andExpect(status().is(403));
+    mockMvc
+        .perform(
+            put("/api/ucsbdates/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]")
+                .with(csrf()))
+        .andExpect(status().is(403));
+    mockMvc
+        .perform(
+            delete("/api/ucsbdates/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]")
+                .with(csrf()))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_bulk_post_dates() throws Exception {
+    UCSBDate first =
+        UCSBDate.builder()
+            .quarterYYYYQ("20241")
+            .name("date 1")
+            .localDateTime(LocalDateTime.parse("2024-01-03T00:00:00"))
+            .build();
+    UCSBDate second =
+        UCSBDate.builder()
+            .quarterYYYYQ("20242")
+            .name("date 2")
+            .localDateTime(LocalDateTime.parse("2024-02-03T00:00:00"))
+            .build();
+    when(ucsbDateRepository.saveAll(List.of(first, second)))
+        .thenReturn(
+            List.of(
+                UCSBDate.builder()
+                    .id(51L)
+                    .quarterYYYYQ("20241")
+                    .name("date 1")
+                    .localDateTime(LocalDateTime.parse("2024-01-03T00:00:00"))
+                    .build(),
+                UCSBDate.builder()
+                    .id(52L)
+                    .quarterYYYYQ("20242")
+                    .name("date 2")
+                    .localDateTime(LocalDateTime.parse("2024-02-03T00:00:00"))
+                    .build()));
+
+    // ids sent by the client are ignored
+    String requestBody =
+        mapper.writeValueAsString(
+            List.of(
+                UCSBDate.builder()
+                    .id(7L)
+                    .quarterYYYYQ("20241")
+                    .name("date 1")
+                    .localDateTime(LocalDateTime.parse("2024-01-03T00:00:00"))
+                    .build(),
+                second));
+
+    mockMvc
+        .perform(
+            post("/api/ucsbdates/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(requestBody)
+                .with(csrf()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.counts.CREATED").value(2))
+        .andExpect(jsonPath("$.rows[0].id").value(51))
+        .andExpect(jsonPath("$.rows[1].id").value(52))
+        .andExpect(jsonPath("$.rows[1].status").value("CREATED"));
+
+    verify(ucsbDateRepository, times(1)).saveAll(List.of(first, second));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_bulk_update_dates() throws Exception {
+    UCSBDate stored =
+        UCSBDate.builder()
+            .id(1L)
+            .quarterYYYYQ("20241")
+            .name("date 1")
+            .localDateTime(LocalDateTime.parse("2024-01-03T00:00:00"))
+            .build();
+    when(ucsbDateRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(stored));
+
+    String requestBody =
+        mapper.writeValueAsString(
+            List.of(
+                UCSBDate.builder()
+                    .id(1L)
+                    .quarterYYYYQ("20242")
+                    .name("date 2")
+                    .localDateTime(LocalDateTime.parse("2024-02-03T00:00:00"))
+                    .build(),
+                UCSBDate.builder()
+                    .id(2L)
+                    .quarterYYYYQ("20242")
+                    .name("date 2")
+                    .localDateTime(LocalDateTime.parse("2024-02-03T00:00:00"))
+                    .build()));
+
+    mockMvc
+        .perform(
+            put("/api/ucsbdates/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(requestBody)
+                .with(csrf()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.counts.UPDATED").value(1))
+        .andExpect(jsonPath("$.counts.NOT_FOUND").value(1))
+        .andExpect(jsonPath("$.rows[1].id").value(2))
+        .andExpect(jsonPath("$.rows[1].status").value("NOT_FOUND"));
+
+    assertEquals(
+        UCSBDate.builder()
+            .id(1L)
+            .quarterYYYYQ("20242")
+            .name("date 2")
+            .localDateTime(LocalDateTime.parse("2024-02-03T00:00:00"))
+            .build(),
+        stored);
+    verify(ucsbDateRepository, times(1)).saveAll(any());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_bulk_delete_dates() throws Exception {
+    when(ucsbDateRepository.findAllById(List.of(1L, 2L)))
+        .thenReturn(
+            List.of(
+                UCSBDate.builder()
+                    .id(1L)
+                    .quarterYYYYQ("20241")
+                    .name("date 1")
+                    .localDateTime(LocalDateTime.parse("2024-01-03T00:00:00"))
+                    .build()));
+
+    mockMvc
+        .perform(
+            delete("/api/ucsbdates/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[1, 2]")
+                .with(csrf()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.counts.DELETED").value(1))
+        .andExpect(jsonPath("$.rows[0].status").value("DELETED"))
+        .andExpect(jsonPath("$.rows[1].status").value("NOT_FOUND"));
+
+    verify(ucsbDateRepository, times(1)).deleteAll(any());
+  }
+
+  // Tests for POST /api/ucsbdates/import
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void regular_users_cannot_import_dates() throws Exception {
+    MockMultipartFile file = new MockMultipartFile("file", "dates.csv", "text/csv", new byte[0]);
+
+    mockMvc
+        .perform(multipart("/api/ucsbdates/import").file(file).with(csrf()))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_start_an_import_of_dates() throws Exception {
+    MockMultipartFile file = new MockMultipartFile("file", "dates.csv", "text/csv", new byte[0]);
+    Job job = Job.builder().id(9L).status("queued").build();
+    when(importService.startImport(ImportTarget.UCSB_DATES, file)).thenReturn(job);
+
+    MvcResult response =
+        mockMvc
+            .perform(multipart("/api/ucsbdates/import").file(file).with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    assertEquals(mapper.writeValueAsString(job), response.getResponse().getContentAsString());
+  }
 }
@@ -14,27 +14,33 @@ import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.TableVersionService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MvcResult;
 
 @WebMvcTest(controllers = UCSBDiningCommonsController.class)
-@Import(TestConfig.class)
+@Import({TestConfig.class, TableVersionService.class})
 public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
 
   @MockitoBean UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
 
   @MockitoBean UserRepository userRepository;
 
+  @Autowired TableVersionService tableVersionService;
+
   // Authorization tests for /api/ucsbdiningcommons/admin/all
 
   @Test
@@ -227,7 +233,8 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
             .longitude(-119.867427)
             .build();
 
-    when(ucsbDiningCommonsRepository.findById(eq("portola"))).thenReturn(Optional.of(portola));
+    when(ucsbDiningCommonsRepository.findUncachedById(eq("portola")))
+        .thenReturn(Optional.of(portola));
 
     // act
     MvcResult response =
@@ -237,7 +244,7 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
             .andReturn();
 
     // assert
-    verify(ucsbDiningCommonsRepository, times(1)).findById("portola");
+    verify(ucsbDiningCommonsRepository, times(1)).findUncachedById("portola");
     verify(ucsbDiningCommonsRepository, times(1)).delete(any());
 
     Map<String, Object> json = responseToJson(response);
@@ -250,7 +257,8 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
       throws Exception {
     // arrange
 
-    when(ucsbDiningCommonsRepository.findById(eq("munger-hall"))).thenReturn(Optional.empty());
+    when(ucsbDiningCommonsRepository.findUncachedById(eq("munger-hall")))
+        .thenReturn(Optional.empty());
 
     // act
     MvcResult response =
@@ -260,7 +268,7 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
             .andReturn();
 
     // assert
-    verify(ucsbDiningCommonsRepository, times(1)).findById("munger-hall");
+    verify(ucsbDiningCommonsRepository, times(1)).findUncachedById("munger-hall");
     Map<String, Object> json = responseToJson(response);
     assertEquals("UCSBDiningCommons with id munger-hall not found", json.get("message"));
   }
@@ -294,7 +302,7 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
 
     String requestBody = mapper.writeValueAsString(carrilloEdited);
 
-    when(ucsbDiningCommonsRepository.findById(eq("carrillo")))
+    when(ucsbDiningCommonsRepository.findUncachedById(eq("carrillo")))
         .thenReturn(Optional.of(carrilloOrig));
 
     // act
@@ -310,7 +318,7 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
             .andReturn();
 
     // assert
-    verify(ucsbDiningCommonsRepository, times(1)).findById("carrillo");
+    verify(ucsbDiningCommonsRepository, times(1)).findUncachedById("carrillo");
     verify(ucsbDiningCommonsRepository, times(1))
         .save(carrilloEdited); // should be saved with updated info
     String responseString = response.getResponse().getContentAsString();
@@ -335,7 +343,8 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
 
     String requestBody = mapper.writeValueAsString(editedCommons);
 
-    when(ucsbDiningCommonsRepository.findById(eq("munger-hall"))).thenReturn(Optional.empty());
+    when(ucsbDiningCommonsRepository.findUncachedById(eq("munger-hall")))
+        .thenReturn(Optional.empty());
 
     // act
     MvcResult response =
@@ -350,8 +359,106 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
             .andReturn();
 
     // assert
-    verify(ucsbDiningCommonsRepository, times(1)).findById("munger-hall");
+    verify(ucsbDiningCommonsRepository, times(1)).findUncachedById("munger-hall");
     Map<String, Object> json = responseToJson(response);
     assertEquals("UCSBDiningCommons with id munger-hall not found", json.get("message"));
   }
+
+  // Tests for GET /api/ucsbdiningcommons/page
+
+  @Test
+  public void logged_out_users_cannot_get_a_page() throws Exception {
+    mockMvc.perform(get("/api/ucsbdiningcommons/page")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_the_first_page() throws Exception {
+
+    // arrange
+    when(ucsbDiningCommonsRepository.findByCodeGreaterThanOrderByCodeAsc("", Limit.of(3)))
+        .thenReturn(
+            List.of(
+                UCSBDiningCommons.builder().code("c1").name("n1").build(),
+                UCSBDiningCommons.builder().code("c2").name("n2").build(),
+                UCSBDiningCommons.builder().code("c3").name("n3").build()));
+
+    // act and assert
+    mockMvc
+        .perform(get("/api/ucsbdiningcommons/page").param("size", "2"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content.length()").value(2))
+        .andExpect(jsonPath("$.nextCursor").value("YzI"));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_the_next_page() throws Exception {
+
+    // arrange
+    when(ucsbDiningCommonsRepository.findByCodeGreaterThanOrderByCodeAsc("c2", Limit.of(3)))
+        .thenReturn(List.of(UCSBDiningCommons.builder().code("c3").name("n3").build()));
+
+    // act and assert
+    mockMvc
+        .perform(get("/api/ucsbdiningcommons/page").param("size", "2").param("cursor", "YzI"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content.length()").value(1))
+        .andExpect(jsonPath("$.nextCursor").doesNotExist());
+  }
+
+  // Tests for conditional GETs
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void an_unchanged_list_is_not_modified() throws Exception {
+
+    // act
+    MvcResult first =
+        mockMvc
+            .perform(get("/api/ucsbdiningcommons/all"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("Cache-Control", "private, no-cache"))
+            .andReturn();
+    String etag = first.getResponse().getHeader("ETag");
+
+    // assert
+    assertEquals(tableVersionService.etag(UCSBDiningCommons.class), etag);
+    mockMvc
+        .perform(get("/api/ucsbdiningcommons/all").header("If-None-Match", etag))
+        .andExpect(status().isNotModified())
+        .andExpect(content().string(""));
+    verify(ucsbDiningCommonsRepository, times(1)).findAll();
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void an_unchanged_item_is_not_modified() throws Exception {
+
+    // act and assert
+    mockMvc
+        .perform(
+            get("/api/ucsbdiningcommons")
+                .param("code", "ortega")
+                .header("If-None-Match", tableVersionService.etag(UCSBDiningCommons.class)))
+        .andExpect(status().isNotModified())
+        .andExpect(header().string("ETag", tableVersionService.etag(UCSBDiningCommons.class)));
+    verify(ucsbDiningCommonsRepository, times(0)).findById("ortega");
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void a_list_is_sent_again_after_the_table_changes() throws Exception {
+
+    // arrange
+    String etag = tableVersionService.etag(UCSBDiningCommons.class);
+    tableVersionService.bump(UCSBDiningCommons.class);
+
+    // act and assert
+    mockMvc
+        .perform(get("/api/ucsbdiningcommons/all").header("If-None-Match", etag))
+        .andExpect(status().isOk())
+        .andExpect(header().string("ETag", tableVersionService.etag(UCSBDiningCommons.class)));
+    verify(ucsbDiningCommonsRepository, times(1)).findAll();
+  }
 }
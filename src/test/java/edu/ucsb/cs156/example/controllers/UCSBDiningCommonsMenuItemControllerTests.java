@@ -7,36 +7,64 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.entities.Job;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItems;
+import edu.ucsb.cs156.example.models.ImportTarget;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemsRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.BulkWriteService;
+import edu.ucsb.cs156.example.services.ImportService;
+import edu.ucsb.cs156.example.services.NdjsonExportService;
+import edu.ucsb.cs156.example.services.TableVersionService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @WebMvcTest(controllers = UCSBDiningCommonsMenuItemController.class)
-@Import(TestConfig.class)
+@Import({TestConfig.class, TableVersionService.class, BulkWriteService.class})
 public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase {
   @MockBean UCSBDiningCommonsMenuItemsRepository ucsbDiningCommonsMenuItemsRepository;
 
+  @MockitoBean NdjsonExportService ndjsonExportService;
+
+  @MockitoBean ImportService importService;
+
   @MockBean UserRepository userRepository;
 
+  @Autowired TableVersionService tableVersionService;
+
   // Authorization tests for /api/ucsb-dining-commons-menu-items/admin/all
 
   @Test
@@ -330,4 +358,348 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
     Map<String, Object> json = responseToJson(response);
     assertEquals("UCSBDiningCommonsMenuItems with id 15 not found", json.get("message"));
   }
+
+  // Tests for GET /api/ucsb-dining-commons-menu-items/page
+
+  @Test
+  public void logged_out_users_cannot_get_a_page() throws Exception {
+    mockMvc.perform(get("/api/ucsb-dining-commons-menu-items/page")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_the_first_page() throws Exception {
+
+    // arrange
+    when(ucsbDiningCommonsMenuItemsRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(3)))
+        .thenReturn(
+            List.of(
+                UCSBDiningCommonsMenuItems.builder().id(1).name("i1").build(),
+                UCSBDiningCommonsMenuItems.builder().id(2).name("i2").build(),
+                UCSBDiningCommonsMenuItems.builder().id(3).name("i3").build()));
+
+    // act and assert
+    mockMvc
+        .perform(get("/api/ucsb-dining-commons-menu-items/page").param("size", "2"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content.length()").value(2))
+        .andExpect(jsonPath("$.nextCursor").value("Mg"));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_the_next_page() throws Exception {
+
+    // arrange
+    when(ucsbDiningCommonsMenuItemsRepository.findByIdGreaterThanOrderByIdAsc(2L, Limit.of(3)))
+        .thenReturn(List.of(UCSBDiningCommonsMenuItems.builder().id(3).name("i3").build()));
+
+    // act and assert
+    mockMvc
+        .perform(
+            get("/api/ucsb-dining-commons-menu-items/page")
+                .param("size", "2")
+                .param("cursor", "Mg"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content.length()").value(1))
+        .andExpect(jsonPath("$.nextCursor").doesNotExist());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void an_invalid_cursor_is_a_bad_request() throws Exception {
+    mockMvc
+        .perform(get("/api/ucsb-dining-commons-menu-items/page").param("cursor", "bm90LWFuLWlk"))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.message").value("Invalid cursor: bm90LWFuLWlk"));
+  }
+
+  // Tests for GET /api/ucsb-dining-commons-menu-items/export
+
+  @Test
+  public void logged_out_users_cannot_export() throws Exception {
+    mockMvc.perform(get("/api/ucsb-dining-commons-menu-items/export")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_export() throws Exception {
+
+    // arrange
+    StreamingResponseBody body = out -> out.write("{\"id\":1}\n".getBytes());
+    when(ndjsonExportService.export(any()))
+        .thenReturn(
+            ResponseEntity.ok().contentType(NdjsonExportService.APPLICATION_NDJSON).body(body));
+
+    // act
+    MvcResult started =
+        mockMvc
+            .perform(get("/api/ucsb-dining-commons-menu-items/export"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+    MvcResult response =
+        mockMvc.perform(asyncDispatch(started)).andExpect(status().isOk()).andReturn();
+
+    // assert
+    assertEquals("{\"id\":1}\n", response.getResponse().getContentAsString());
+    ArgumentCaptor<Supplier<? extends Stream<?>>> rows = ArgumentCaptor.captor();
+    verify(ndjsonExportService).export(rows.capture());
+    rows.getValue().get();
+    verify(ucsbDiningCommonsMenuItemsRepository).streamAllByOrderByIdAsc();
+  }
+
+  // Tests for conditional GETs
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void an_unchanged_list_is_not_modified() throws Exception {
+
+    // act
+    MvcResult first =
+        mockMvc
+            .perform(get("/api/ucsb-dining-commons-menu-items/all"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("Cache-Control", "private, no-cache"))
+            .andReturn();
+    String etag = first.getResponse().getHeader("ETag");
+
+    // assert
+    assertEquals(tableVersionService.etag(UCSBDiningCommonsMenuItems.class), etag);
+    mockMvc
+        .perform(get("/api/ucsb-dining-commons-menu-items/all").header("If-None-Match", etag))
+        .andExpect(status().isNotModified())
+        .andExpect(content().string(""));
+    verify(ucsbDiningCommonsMenuItemsRepository, times(1)).findAll();
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void an_unchanged_item_is_not_modified() throws Exception {
+
+    // act and assert
+    mockMvc
+        .perform(
+            get("/api/ucsb-dining-commons-menu-items")
+                .param("id", "7")
+                .header(
+                    "If-None-Match", tableVersionService.etag(UCSBDiningCommonsMenuItems.class)))
+        .andExpect(status().isNotModified())
+        .andExpect(
+            header().string("ETag", tableVersionService.etag(UCSBDiningCommonsMenuItems.class)));
+    verify(ucsbDiningCommonsMenuItemsRepository, times(0)).findById(7L);
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void a_list_is_sent_again_after_the_table_changes() throws Exception {
+
+    // arrange
+    String etag = tableVersionService.etag(UCSBDiningCommonsMenuItems.class);
+    tableVersionService.bump(UCSBDiningCommonsMenuItems.class);
+
+    // act and assert
+    mockMvc
+        .perform(get("/api/ucsb-dining-commons-menu-items/all").header("If-None-Match", etag))
+        .andExpect(status().isOk())
+        .andExpect(
+            header().string("ETag", tableVersionService.etag(UCSBDiningCommonsMenuItems.class)));
+    verify(ucsbDiningCommonsMenuItemsRepository, times(1)).findAll();
+  }
+
+  // Tests for /api/ucsb-dining-commons-menu-items/bulk
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void regular_users_cannot_bulk_write_menu_items() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/ucsb-dining-commons-menu-items/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]")
+                .with(csrf()))
+        .andExpect(status().is(403));
+    mockMvc
+        .perform(
+            put("/api/ucsb-dining-commons-menu-items/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]")
+                .with(csrf()))
+        .andExpect(status().is(403));
+    mockMvc
+        .perform(
+            delete("/api/ucsb-dining-commons-menu-items/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]")
+                .with(csrf()))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_bulk_post_menu_items() throws Exception {
+    UCSBDiningCommonsMenuItems first =
+        UCSBDiningCommonsMenuItems.builder()
+            .diningCommonsCode("ortega")
+            .name("Dish 1")
+            .station("Station 1")
+            .build();
+    UCSBDiningCommonsMenuItems second =
+        UCSBDiningCommonsMenuItems.builder()
+            .diningCommonsCode("ortega")
+            .name("Dish 2")
+            .station("Station 2")
+            .build();
+    when(ucsbDiningCommonsMenuItemsRepository.saveAll(List.of(first, second)))
+        .thenReturn(
+            List.of(
+                UCSBDiningCommonsMenuItems.builder()
+                    .id(51L)
+                    .diningCommonsCode("ortega")
+                    .name("Dish 1")
+                    .station("Station 1")
+                    .build(),
+                UCSBDiningCommonsMenuItems.builder()
+                    .id(52L)
+                    .diningCommonsCode("ortega")
+                    .name("Dish 2")
+                    .station("Station 2")
+                    .build()));
+
+    // ids sent by the client are ignored
+    String requestBody =
+        mapper.writeValueAsString(
+            List.of(
+                UCSBDiningCommonsMenuItems.builder()
+                    .id(7L)
+                    .diningCommonsCode("ortega")
+                    .name("Dish 1")
+                    .station("Station 1")
+                    .build(),
+                second));
+
+    mockMvc
+        .perform(
+            post("/api/ucsb-dining-commons-menu-items/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(requestBody)
+                .with(csrf()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.counts.CREATED").value(2))
+        .andExpect(jsonPath("$.rows[0].id").value(51))
+        .andExpect(jsonPath("$.rows[1].id").value(52))
+        .andExpect(jsonPath("$.rows[1].status").value("CREATED"));
+
+    verify(ucsbDiningCommonsMenuItemsRepository, times(1)).saveAll(List.of(first, second));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_bulk_update_menu_items() throws Exception {
+    UCSBDiningCommonsMenuItems stored =
+        UCSBDiningCommonsMenuItems.builder()
+            .id(1L)
+            .diningCommonsCode("ortega")
+            .name("Dish 1")
+            .station("Station 1")
+            .build();
+    when(ucsbDiningCommonsMenuItemsRepository.findAllById(List.of(1L, 2L)))
+        .thenReturn(List.of(stored));
+
+    String requestBody =
+        mapper.writeValueAsString(
+            List.of(
+                UCSBDiningCommonsMenuItems.builder()
+                    .id(1L)
+                    .diningCommonsCode("ortega")
+                    .name("Dish 2")
+                    .station("Station 2")
+                    .build(),
+                UCSBDiningCommonsMenuItems.builder()
+                    .id(2L)
+                    .diningCommonsCode("ortega")
+                    .name("Dish 2")
+                    .station("Station 2")
+                    .build()));
+
+    mockMvc
+        .perform(
+            put("/api/ucsb-dining-commons-menu-items/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(requestBody)
+                .with(csrf()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.counts.UPDATED").value(1))
+        .andExpect(jsonPath("$.counts.NOT_FOUND").value(1))
+        .andExpect(jsonPath("$.rows[1].id").value(2))
+        .andExpect(jsonPath("$.rows[1].status").value("NOT_FOUND"));
+
+    assertEquals(
+        UCSBDiningCommonsMenuItems.builder()
+            .id(1L)
+            .diningCommonsCode("ortega")
+            .name("Dish 2")
+            .station("Station 2")
+            .build(),
+        stored);
+    verify(ucsbDiningCommonsMenuItemsRepository, times(1)).saveAll(any());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_bulk_delete_menu_items() throws Exception {
+    when(ucsbDiningCommonsMenuItemsRepository.findAllById(List.of(1L, 2L)))
+        .thenReturn(
+            List.of(
+                UCSBDiningCommonsMenuItems.builder()
+                    .id(1L)
+                    .diningCommonsCode("ortega")
+                    .name("Dish 1")
+                    .station("Station 1")
+                    .build()));
+
+    mockMvc
+        .perform(
+            delete("/api/ucsb-dining-commons-menu-items/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[1, 2]")
+                .with(csrf()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.counts.DELETED").value(1))
+        .andExpect(jsonPath("$.rows[0].status").value("DELETED"))
+        .andExpect(jsonPath("$.rows[1].status").value("NOT_FOUND"));
+
+    verify(ucsbDiningCommonsMenuItemsRepository, times(1)).deleteAll(any());
+  }
+
+  // Tests for POST /api/ucsb-dining-commons-menu-items/import
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void regular_users_cannot_import_menu_items() throws Exception {
+    MockMultipartFile file =
+        new MockMultipartFile("file", "menu_items.csv", "text/csv", new byte[0]);
+
+    mockMvc
+        .perform(multipart("/api/ucsb-dining-commons-menu-items/import").file(file).with(csrf()))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_start_an_import_of_menu_items() throws Exception {
+    MockMultipartFile file =
+        new MockMultipartFile("file", "menu_items.csv", "text/csv", new byte[0]);
+    Job job = Job.builder().id(9L).status("queued").build();
+    when(importService.startImport(ImportTarget.UCSB_DINING_COMMONS_MENU_ITEMS, file))
+        .thenReturn(job);
+
+    MvcResult response =
+        mockMvc
+            .perform(
+                multipart("/api/ucsb-dining-commons-menu-items/import").file(file).with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    assertEquals(mapper.writeValueAsString(job), response.getResponse().getContentAsString());
+  }
 }
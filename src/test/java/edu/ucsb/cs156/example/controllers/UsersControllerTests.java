@@ -1,6 +1,7 @@
 package edu.ucsb.cs156.example.controllers;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -13,9 +14,18 @@ import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.PagedModel;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MvcResult;
@@ -50,18 +60,133 @@ public class UsersControllerTests extends ControllerTestCase {
     ArrayList<User> expectedUsers = new ArrayList<>();
     expectedUsers.addAll(Arrays.asList(u1, u2, u));
 
-    when(userRepository.findAll()).thenReturn(expectedUsers);
+    when(userRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(500)))
+        .thenReturn(expectedUsers);
     String expectedJson = mapper.writeValueAsString(expectedUsers);
 
     // act
 
+    MvcResult started =
+        mockMvc.perform(get("/api/admin/users")).andExpect(request().asyncStarted()).andReturn();
     MvcResult response =
-        mockMvc.perform(get("/api/admin/users")).andExpect(status().isOk()).andReturn();
+        mockMvc.perform(asyncDispatch(started)).andExpect(status().isOk()).andReturn();
 
     // assert
 
-    verify(userRepository, times(1)).findAll();
+    verify(userRepository, times(1)).findByIdGreaterThanOrderByIdAsc(0L, Limit.of(500));
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
   }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void users__are_streamed_in_batches() throws Exception {
+
+    // arrange
+    List<User> firstBatch =
+        LongStream.rangeClosed(1, 500).mapToObj(id -> User.builder().id(id).build()).toList();
+    List<User> secondBatch = List.of(User.builder().id(501L).build());
+    when(userRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(500))).thenReturn(firstBatch);
+    when(userRepository.findByIdGreaterThanOrderByIdAsc(500L, Limit.of(500)))
+        .thenReturn(secondBatch);
+
+    // act
+    MvcResult started =
+        mockMvc.perform(get("/api/admin/users")).andExpect(request().asyncStarted()).andReturn();
+    MvcResult response =
+        mockMvc.perform(asyncDispatch(started)).andExpect(status().isOk()).andReturn();
+
+    // assert
+    List<User> expectedUsers = new ArrayList<>(firstBatch);
+    expectedUsers.addAll(secondBatch);
+    assertEquals(
+        mapper.writeValueAsString(expectedUsers), response.getResponse().getContentAsString());
+  }
+
+  @Test
+  public void paged_users__logged_out() throws Exception {
+    mockMvc.perform(get("/api/admin/users/paged")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void paged_users__user_logged_in() throws Exception {
+    mockMvc.perform(get("/api/admin/users/paged")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void paged_users__returns_first_page_by_default() throws Exception {
+
+    // arrange
+    PageRequest pageRequest = PageRequest.of(0, 20, Sort.by(Sort.Direction.ASC, "id"));
+    Page<User> page =
+        new PageImpl<>(
+            List.of(User.builder().id(1L).build(), User.builder().id(2L).build()), pageRequest, 2);
+    when(userRepository.search(null, null, null, pageRequest)).thenReturn(page);
+
+    // act
+    MvcResult response =
+        mockMvc.perform(get("/api/admin/users/paged")).andExpect(status().isOk()).andReturn();
+
+    // assert
+    assertEquals(
+        mapper.writeValueAsString(new PagedModel<>(page)),
+        response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void paged_users__searches_by_escaped_prefix_and_admin_flag() throws Exception {
+
+    // arrange
+    PageRequest pageRequest = PageRequest.of(2, 100, Sort.by(Sort.Direction.DESC, "fullName"));
+    when(userRepository.search(any(), any(), any(), any()))
+        .thenReturn(new PageImpl<>(List.of(), pageRequest, 0));
+
+    // act
+    mockMvc
+        .perform(
+            get(
+                "/api/admin/users/paged?page=2&size=500&sort=fullName&direction=DESC"
+                    + "&search= Chris_G%\\ &admin=true"))
+        .andExpect(status().isOk());
+
+    // assert
+    verify(userRepository, times(1))
+        .search("chris\\_g\\%\\\\%", "Chris\\_G\\%\\\\%", true, pageRequest);
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void paged_users__ignores_blank_search_and_clamps_page() throws Exception {
+
+    // arrange
+    PageRequest pageRequest = PageRequest.of(0, 1, Sort.by(Sort.Direction.ASC, "email"));
+    when(userRepository.search(any(), any(), any(), any()))
+        .thenReturn(new PageImpl<>(List.of(), pageRequest, 0));
+
+    // act
+    mockMvc
+        .perform(
+            get("/api/admin/users/paged?page=-1&size=0&sort=email&admin=false")
+                .param("search", " "))
+        .andExpect(status().isOk());
+
+    // assert
+    verify(userRepository, times(1)).search(null, null, false, pageRequest);
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void paged_users__rejects_unknown_sort_field() throws Exception {
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/admin/users/paged?sort=googleSub"))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("Cannot sort users by googleSub", json.get("message"));
+  }
 }
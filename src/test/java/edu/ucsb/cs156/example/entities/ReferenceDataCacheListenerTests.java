@@ -0,0 +1,118 @@
+package edu.ucsb.cs156.example.entities;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import edu.ucsb.cs156.example.config.CacheConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class ReferenceDataCacheListenerTests {
+
+  private final ReferenceDataCacheListener listener = new ReferenceDataCacheListener();
+
+  private void useCacheManager(CacheManager cacheManager) {
+    StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+    if (cacheManager != null) {
+      beanFactory.addBean("cacheManager", cacheManager);
+    }
+    ReflectionTestUtils.setField(
+        listener, "cacheManager", beanFactory.getBeanProvider(CacheManager.class));
+  }
+
+  @AfterEach
+  public void teardown() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  @Test
+  void writing_a_date_empties_the_dates_cache() {
+    CacheManager cacheManager =
+        new ConcurrentMapCacheManager(CacheConfig.UCSB_DATES, CacheConfig.UCSB_DINING_COMMONS);
+    useCacheManager(cacheManager);
+    Cache dates = cacheManager.getCache(CacheConfig.UCSB_DATES);
+    Cache commons = cacheManager.getCache(CacheConfig.UCSB_DINING_COMMONS);
+    dates.put("all", "dates");
+    dates.put("quarter:20241", "dates");
+    commons.put("all", "commons");
+
+    listener.evict(UCSBDate.builder().id(1L).build());
+
+    assertNull(dates.get("all"));
+    assertNull(dates.get("quarter:20241"));
+    assertNotNull(commons.get("all"));
+  }
+
+  @Test
+  void writing_a_commons_empties_the_dining_commons_cache() {
+    CacheManager cacheManager =
+        new ConcurrentMapCacheManager(CacheConfig.UCSB_DATES, CacheConfig.UCSB_DINING_COMMONS);
+    useCacheManager(cacheManager);
+    Cache dates = cacheManager.getCache(CacheConfig.UCSB_DATES);
+    Cache commons = cacheManager.getCache(CacheConfig.UCSB_DINING_COMMONS);
+    dates.put("all", "dates");
+    commons.put("id:ortega", "commons");
+
+    listener.evict(UCSBDiningCommons.builder().code("ortega").build());
+
+    assertNotNull(dates.get("all"));
+    assertNull(commons.get("id:ortega"));
+  }
+
+  @Test
+  void evict_ignores_other_entities() {
+    CacheManager cacheManager = mock(CacheManager.class);
+    useCacheManager(cacheManager);
+
+    listener.evict(Restaurant.builder().build());
+
+    verifyNoInteractions(cacheManager);
+  }
+
+  @Test
+  void evict_does_nothing_when_the_cache_does_not_exist() {
+    CacheManager cacheManager = mock(CacheManager.class);
+    useCacheManager(cacheManager);
+
+    listener.evict(UCSBDate.builder().build());
+
+    verify(cacheManager).getCache(CacheConfig.UCSB_DATES);
+  }
+
+  @Test
+  void evict_does_nothing_without_a_cache_manager() {
+    useCacheManager(null);
+
+    listener.evict(UCSBDate.builder().build());
+  }
+
+  @Test
+  void writes_in_a_transaction_empty_the_cache_again_when_it_completes() {
+    CacheManager cacheManager = new ConcurrentMapCacheManager(CacheConfig.UCSB_DINING_COMMONS);
+    useCacheManager(cacheManager);
+    Cache commons = cacheManager.getCache(CacheConfig.UCSB_DINING_COMMONS);
+    TransactionSynchronizationManager.initSynchronization();
+
+    listener.evict(UCSBDiningCommons.builder().code("ortega").build());
+    // a read between the flush and the commit caches the rows as they were before
+    commons.put("all", "old commons");
+    for (TransactionSynchronization synchronization :
+        TransactionSynchronizationManager.getSynchronizations()) {
+      synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+    }
+
+    assertNull(commons.get("all"));
+  }
+}
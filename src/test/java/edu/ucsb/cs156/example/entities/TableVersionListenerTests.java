@@ -0,0 +1,70 @@
+package edu.ucsb.cs156.example.entities;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import edu.ucsb.cs156.example.services.TableVersionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class TableVersionListenerTests {
+
+  private final TableVersionListener listener = new TableVersionListener();
+
+  private final TableVersionService tableVersionService = new TableVersionService();
+
+  private void useTableVersionService(TableVersionService service) {
+    StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+    if (service != null) {
+      beanFactory.addBean("tableVersionService", service);
+    }
+    ReflectionTestUtils.setField(
+        listener, "tableVersionService", beanFactory.getBeanProvider(TableVersionService.class));
+  }
+
+  @BeforeEach
+  public void setup() {
+    useTableVersionService(tableVersionService);
+  }
+
+  @AfterEach
+  public void teardown() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  @Test
+  void writes_outside_a_transaction_bump_the_version_once() {
+    listener.bump(Restaurant.builder().build());
+
+    assertEquals(1, tableVersionService.getVersion(Restaurant.class));
+  }
+
+  @Test
+  void writes_in_a_transaction_bump_the_version_again_when_it_completes() {
+    TransactionSynchronizationManager.initSynchronization();
+
+    listener.bump(UCSBDate.builder().build());
+    assertEquals(1, tableVersionService.getVersion(UCSBDate.class));
+
+    for (TransactionSynchronization synchronization :
+        TransactionSynchronizationManager.getSynchronizations()) {
+      synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+    }
+    assertEquals(2, tableVersionService.getVersion(UCSBDate.class));
+  }
+
+  @Test
+  void bump_does_nothing_without_the_service() {
+    useTableVersionService(null);
+
+    listener.bump(Restaurant.builder().build());
+
+    assertEquals(0, tableVersionService.getVersion(Restaurant.class));
+  }
+}
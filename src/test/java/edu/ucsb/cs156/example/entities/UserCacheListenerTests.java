@@ -0,0 +1,120 @@
+package edu.ucsb.cs156.example.entities;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import edu.ucsb.cs156.example.config.CacheConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class UserCacheListenerTests {
+
+  private final UserCacheListener listener = new UserCacheListener();
+
+  private void useCacheManager(CacheManager cacheManager) {
+    StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+    if (cacheManager != null) {
+      beanFactory.addBean("cacheManager", cacheManager);
+    }
+    ReflectionTestUtils.setField(
+        listener, "cacheManager", beanFactory.getBeanProvider(CacheManager.class));
+  }
+
+  @AfterEach
+  public void teardown() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  @Test
+  void evict_removes_the_users_admin_flag_from_the_admins_cache() {
+    CacheManager cacheManager = new ConcurrentMapCacheManager(CacheConfig.ADMINS);
+    useCacheManager(cacheManager);
+    Cache admins = cacheManager.getCache(CacheConfig.ADMINS);
+    admins.put("a@ucsb.edu", false);
+    admins.put("b@ucsb.edu", true);
+
+    listener.evict(User.builder().email("a@ucsb.edu").build());
+
+    assertNull(admins.get("a@ucsb.edu"));
+    assertNotNull(admins.get("b@ucsb.edu"));
+  }
+
+  @Test
+  void evict_removes_the_user_from_the_current_users_cache() {
+    CacheManager cacheManager = new ConcurrentMapCacheManager(CacheConfig.CURRENT_USERS);
+    useCacheManager(cacheManager);
+    Cache currentUsers = cacheManager.getCache(CacheConfig.CURRENT_USERS);
+    User user = User.builder().googleSub("sub-1").build();
+    currentUsers.put("sub-1", user);
+    currentUsers.put("sub-2", User.builder().googleSub("sub-2").build());
+
+    listener.evict(user);
+
+    assertNull(currentUsers.get("sub-1"));
+    assertNotNull(currentUsers.get("sub-2"));
+  }
+
+  @Test
+  void evict_ignores_users_without_a_google_sub() {
+    CacheManager cacheManager = new ConcurrentMapCacheManager(CacheConfig.CURRENT_USERS);
+    useCacheManager(cacheManager);
+    Cache currentUsers = cacheManager.getCache(CacheConfig.CURRENT_USERS);
+    currentUsers.put("sub-1", User.builder().googleSub("sub-1").build());
+
+    listener.evict(User.builder().build());
+
+    assertNotNull(currentUsers.get("sub-1"));
+  }
+
+  @Test
+  void evict_does_nothing_when_the_cache_does_not_exist() {
+    CacheManager cacheManager = mock(CacheManager.class);
+    useCacheManager(cacheManager);
+
+    listener.evict(User.builder().googleSub("sub-1").build());
+
+    verify(cacheManager).getCache(CacheConfig.CURRENT_USERS);
+    verify(cacheManager).getCache(CacheConfig.ADMINS);
+  }
+
+  @Test
+  void evict_does_nothing_without_a_cache_manager() {
+    useCacheManager(null);
+
+    listener.evict(User.builder().googleSub("sub-1").build());
+  }
+
+  @Test
+  void writes_in_a_transaction_evict_the_user_again_when_it_completes() {
+    CacheManager cacheManager =
+        new ConcurrentMapCacheManager(CacheConfig.CURRENT_USERS, CacheConfig.ADMINS);
+    useCacheManager(cacheManager);
+    Cache admins = cacheManager.getCache(CacheConfig.ADMINS);
+    Cache currentUsers = cacheManager.getCache(CacheConfig.CURRENT_USERS);
+    User user = User.builder().googleSub("sub-1").email("a@ucsb.edu").build();
+    TransactionSynchronizationManager.initSynchronization();
+
+    listener.evict(user);
+    // a lookup between the flush and the commit caches the user as they were before
+    admins.put("a@ucsb.edu", false);
+    currentUsers.put("sub-1", user);
+    for (TransactionSynchronization synchronization :
+        TransactionSynchronizationManager.getSynchronizations()) {
+      synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+    }
+
+    assertNull(admins.get("a@ucsb.edu"));
+    assertNull(currentUsers.get("sub-1"));
+  }
+}
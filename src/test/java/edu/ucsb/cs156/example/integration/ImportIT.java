@@ -0,0 +1,207 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.entities.ImportFile;
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.jobs.ImportJob;
+import edu.ucsb.cs156.example.models.ImportTarget;
+import edu.ucsb.cs156.example.repositories.ImportFilesRepository;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemsRepository;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.jobs.JobLogService;
+import edu.ucsb.cs156.example.services.jobs.JobService;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@ActiveProfiles("integration")
+@Import(TestConfig.class)
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+public class ImportIT {
+  @Autowired JobsRepository jobsRepository;
+
+  @Autowired ImportFilesRepository importFilesRepository;
+
+  @Autowired UCSBDateRepository ucsbDateRepository;
+
+  @Autowired UCSBDiningCommonsMenuItemsRepository ucsbDiningCommonsMenuItemsRepository;
+
+  @Autowired JobService jobService;
+
+  @Autowired public MockMvc mockMvc;
+
+  @Autowired public ObjectMapper mapper;
+
+  @MockitoBean UserRepository userRepository;
+
+  private Job waitForJob(long jobId) throws InterruptedException {
+    for (int i = 0; i < 100; i++) {
+      Job job = jobsRepository.findById(jobId).orElseThrow();
+      if (!"queued".equals(job.getStatus()) && !"running".equals(job.getStatus())) {
+        return job;
+      }
+      Thread.sleep(100);
+    }
+    throw new AssertionError("Job " + jobId + " did not finish");
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_import_dates_from_a_csv_file() throws Exception {
+    // arrange
+    String csv =
+        """
+        quarterYYYYQ,name,localDateTime
+        20221,"Noon, on MLK day",2022-01-17T12:00:00
+        20222,,2022-04-01T00:00:00
+        20223,bad date,not a date
+
+        20224,"the ""last"" day",2022-12-31T23:59:59
+        """;
+    MockMultipartFile file = new MockMultipartFile("file", "dates.csv", "text/csv", csv.getBytes());
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(multipart("/api/ucsbdates/import").file(file).with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+    long jobId = mapper.readTree(response.getResponse().getContentAsString()).get("id").asLong();
+    Job job = waitForJob(jobId);
+
+    // assert
+    assertEquals("complete", job.getStatus());
+    List<String> names = new ArrayList<>();
+    ucsbDateRepository.findAll().forEach(date -> names.add(date.getName()));
+    assertEquals(List.of("Noon, on MLK day", "the \"last\" day"), names);
+    assertEquals(
+        LocalDateTime.parse("2022-12-31T23:59:59"),
+        ucsbDateRepository.findAllByQuarterYYYYQ("20224").iterator().next().getLocalDateTime());
+
+    String log = jobService.getJobLogs(jobId);
+    assertTrue(log.contains("Row 2: missing name"), log);
+    assertTrue(
+        log.contains("Row 3: Cannot deserialize value of type `java.time.LocalDateTime`"), log);
+    assertTrue(log.contains("Finished importing dates.csv: 2 rows imported, 2 failed"), log);
+
+    ImportFile importFile = importFilesRepository.findAll().iterator().next();
+    assertEquals(4, importFile.getRowsRead());
+    assertNull(importFile.getContent());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void a_failed_import_is_retried_from_its_last_committed_batch() throws Exception {
+    // arrange: an NDJSON export of 5 menu items whose import stopped after the first 2 rows
+    String ndjson =
+        IntStream.range(0, 5)
+            .mapToObj(
+                i ->
+                    "{\"id\":%d,\"diningCommonsCode\":\"ortega\",\"name\":\"Dish %d\",\"station\":\"s\"}"
+                        .formatted(i + 100, i))
+            .collect(Collectors.joining("\n"));
+    ImportFile importFile =
+        importFilesRepository.save(
+            ImportFile.builder()
+                .target(ImportTarget.UCSB_DINING_COMMONS_MENU_ITEMS)
+                .filename("items.ndjson")
+                .createdAt(ZonedDateTime.now())
+                .content(JobLogService.compress(ndjson))
+                .rowsRead(2)
+                .rowsImported(2)
+                .build());
+    Job failed =
+        jobsRepository.save(
+            Job.builder()
+                .status("error")
+                .jobType(ImportJob.class.getName())
+                .payload(
+                    mapper.writeValueAsString(
+                        ImportJob.builder().importFileId(importFile.getId()).build()))
+                .build());
+
+    // act
+    mockMvc
+        .perform(post("/api/jobs/%d/retry".formatted(failed.getId())).with(csrf()))
+        .andExpect(status().isOk());
+    Job job = waitForJob(failed.getId());
+
+    // assert
+    assertEquals("complete", job.getStatus());
+    List<String> names = new ArrayList<>();
+    ucsbDiningCommonsMenuItemsRepository.findAll().forEach(item -> names.add(item.getName()));
+    assertEquals(List.of("Dish 2", "Dish 3", "Dish 4"), names);
+    assertTrue(
+        jobService
+            .getJobLogs(failed.getId())
+            .contains("Resuming import of items.ndjson after row 2"));
+    ImportFile finished = importFilesRepository.findById(importFile.getId()).orElseThrow();
+    assertEquals(5, finished.getRowsRead());
+    assertEquals(5, finished.getRowsImported());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void rows_the_database_rejects_are_skipped_and_the_rest_imported() throws Exception {
+    // arrange: every field is present, but one name is too long for its column
+    String csv =
+        """
+        quarterYYYYQ,name,localDateTime
+        20221,first,2022-01-17T12:00:00
+        20222,%s,2022-04-01T00:00:00
+        20223,third,2022-07-01T00:00:00
+        """
+            .formatted("x".repeat(300));
+    MockMultipartFile file = new MockMultipartFile("file", "dates.csv", "text/csv", csv.getBytes());
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(multipart("/api/ucsbdates/import").file(file).with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+    long jobId = mapper.readTree(response.getResponse().getContentAsString()).get("id").asLong();
+    Job job = waitForJob(jobId);
+
+    // assert
+    assertEquals("complete", job.getStatus());
+    List<String> names = new ArrayList<>();
+    ucsbDateRepository.findAll().forEach(date -> names.add(date.getName()));
+    String log = jobService.getJobLogs(jobId);
+    assertEquals(List.of("first", "third"), names, log);
+
+    assertTrue(log.contains("Row 2: rejected by the database: "), log);
+    assertTrue(log.contains("Finished importing dates.csv: 2 rows imported, 1 failed"), log);
+  }
+}
@@ -0,0 +1,218 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobLogChunk;
+import edu.ucsb.cs156.example.jobs.TestJob;
+import edu.ucsb.cs156.example.models.JobRetentionReport;
+import edu.ucsb.cs156.example.repositories.JobLogChunkRepository;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.jobs.JobRetentionService;
+import edu.ucsb.cs156.example.services.jobs.JobService;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import java.time.ZonedDateTime;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@ActiveProfiles("integration")
+@Import(TestConfig.class)
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+// 100 days, so the scheduled reclaim never fails the 40-day-old "running" fixture below
+@TestPropertySource(properties = "app.jobs.cluster.stale-after-ms=8640000000")
+public class JobsIT {
+  @Autowired JobsRepository jobsRepository;
+
+  @Autowired JobLogChunkRepository jobLogChunkRepository;
+
+  @Autowired JobRetentionService jobRetentionService;
+
+  @Autowired JobService jobService;
+
+  @Autowired public MockMvc mockMvc;
+
+  @Autowired public ObjectMapper mapper;
+
+  @MockitoBean UserRepository userRepository;
+
+  private Job waitForJob(long jobId) throws InterruptedException {
+    for (int i = 0; i < 100; i++) {
+      Job job = jobsRepository.findById(jobId).orElseThrow();
+      if (!"queued".equals(job.getStatus()) && !"running".equals(job.getStatus())) {
+        return job;
+      }
+      Thread.sleep(100);
+    }
+    throw new AssertionError("Job " + jobId + " did not finish");
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_list_filtered_job_summaries_with_log_lengths() throws Exception {
+    // arrange
+
+    ZonedDateTime january = ZonedDateTime.parse("2024-01-15T00:00Z");
+    Job chunked = jobsRepository.save(Job.builder().status("complete").createdAt(january).build());
+    jobLogChunkRepository.save(
+        JobLogChunk.builder().jobId(chunked.getId()).seq(0).lineCount(2).content("ab\ncd").build());
+    jobLogChunkRepository.save(
+        JobLogChunk.builder().jobId(chunked.getId()).seq(1).lineCount(1).content("efg").build());
+    Job legacy =
+        jobsRepository.save(
+            Job.builder().status("complete").createdAt(january).log("legacy").build());
+    jobsRepository.save(Job.builder().status("complete").createdAt(january).build());
+    jobsRepository.save(Job.builder().status("error").createdAt(january).build());
+    jobsRepository.save(
+        Job.builder()
+            .status("complete")
+            .createdAt(ZonedDateTime.parse("2024-03-01T00:00Z"))
+            .build());
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                get(
+                    "/api/jobs?status=complete&sort=id&direction=ASC&size=2"
+                        + "&createdFrom=2024-01-01T00:00Z&createdTo=2024-02-01T00:00Z"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    JsonNode page = mapper.readTree(response.getResponse().getContentAsString());
+    assertEquals(3, page.get("page").get("totalElements").asInt());
+    assertEquals(2, page.get("content").size());
+    assertEquals(chunked.getId(), page.get("content").get(0).get("id").asLong());
+    assertEquals("ab\ncd\nefg".length(), page.get("content").get(0).get("logLength").asInt());
+    assertEquals(legacy.getId(), page.get("content").get(1).get("id").asLong());
+    assertEquals("legacy".length(), page.get("content").get(1).get("logLength").asInt());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void retention_compacts_old_logs_and_deletes_expired_jobs() throws Exception {
+    // arrange
+
+    ZonedDateTime now = ZonedDateTime.now();
+    Job compactable =
+        jobsRepository.save(Job.builder().status("complete").updatedAt(now.minusDays(2)).build());
+    String longLog = "line\n".repeat(200) + "last";
+    jobLogChunkRepository.save(
+        JobLogChunk.builder()
+            .jobId(compactable.getId())
+            .seq(0)
+            .lineCount(201)
+            .content(longLog)
+            .build());
+    Job expired =
+        jobsRepository.save(
+            Job.builder().status("error").log("old").updatedAt(now.minusDays(40)).build());
+    Job overCount1 = jobsRepository.save(Job.builder().status("error").updatedAt(now).build());
+    Job kept1 = jobsRepository.save(Job.builder().status("error").updatedAt(now).build());
+    Job kept2 = jobsRepository.save(Job.builder().status("error").updatedAt(now).build());
+    Job running =
+        jobsRepository.save(Job.builder().status("running").updatedAt(now.minusDays(40)).build());
+    ReflectionTestUtils.setField(jobRetentionService, "maxCountPerStatus", 2);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(post("/api/jobs/retention").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    JobRetentionReport report =
+        mapper.readValue(response.getResponse().getContentAsString(), JobRetentionReport.class);
+    assertEquals(1, report.getCompactedJobs());
+    assertTrue(report.getCompactedBytes() > 0);
+    assertEquals(2, report.getDeletedJobs());
+    assertEquals("old".length(), report.getDeletedBytes());
+
+    assertFalse(jobsRepository.existsById(expired.getId()));
+    assertFalse(jobsRepository.existsById(overCount1.getId()));
+    assertTrue(jobsRepository.existsById(kept1.getId()));
+    assertTrue(jobsRepository.existsById(kept2.getId()));
+    assertTrue(jobsRepository.existsById(running.getId()));
+
+    assertFalse(
+        jobLogChunkRepository
+            .findAllByJobIdOrderBySeqAsc(compactable.getId())
+            .iterator()
+            .hasNext());
+    MvcResult logResponse =
+        mockMvc
+            .perform(get("/api/jobs?id=" + compactable.getId()))
+            .andExpect(status().isOk())
+            .andReturn();
+    Job compacted = mapper.readValue(logResponse.getResponse().getContentAsString(), Job.class);
+    assertEquals(longLog, compacted.getLog());
+
+    JsonNode page =
+        mapper.readTree(
+            mockMvc
+                .perform(get("/api/jobs?status=complete"))
+                .andReturn()
+                .getResponse()
+                .getContentAsString());
+    assertEquals(longLog.length(), page.get("content").get(0).get("logLength").asInt());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void a_retried_job_keeps_its_compacted_log() throws Exception {
+    // arrange: a failed job whose log has been compacted; long enough for gzip to shrink it
+    String firstRun = "first run\n".repeat(20) + "Fail!";
+    Job failed =
+        jobsRepository.save(
+            Job.builder()
+                .status("error")
+                .jobType(TestJob.class.getName())
+                .payload(mapper.writeValueAsString(TestJob.builder().build()))
+                .updatedAt(ZonedDateTime.now().minusDays(2))
+                .build());
+    jobLogChunkRepository.save(
+        JobLogChunk.builder().jobId(failed.getId()).seq(0).lineCount(21).content(firstRun).build());
+    jobRetentionService.run();
+    assertNotNull(jobsRepository.findById(failed.getId()).orElseThrow().getCompressedLog());
+
+    // act
+    mockMvc
+        .perform(post("/api/jobs/%d/retry".formatted(failed.getId())).with(csrf()))
+        .andExpect(status().isOk());
+    Job job = waitForJob(failed.getId());
+
+    // assert
+    assertEquals("complete", job.getStatus());
+    assertEquals(null, job.getCompressedLog());
+    assertEquals(
+        firstRun + "\nHello World! from test job!\nGoodbye from test job!",
+        jobService.getJobLogs(failed.getId()));
+  }
+}
@@ -0,0 +1,101 @@
+package edu.ucsb.cs156.example.integration;
+
+import static edu.ucsb.cs156.example.ControllerTestCase.statementsAtMost;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@ActiveProfiles("integration")
+@Import(TestConfig.class)
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+public class MetricsIT {
+  @Autowired public MockMvc mockMvc;
+
+  @Autowired RestaurantRepository restaurantRepository;
+
+  @MockitoBean UserRepository userRepository;
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void requests_errors_and_queries_are_reported() throws Exception {
+    // arrange
+    restaurantRepository.save(
+        Restaurant.builder().name("Taco Bell").description("Mexican").build());
+
+    // act
+    mockMvc.perform(get("/api/restaurants/all")).andExpect(status().isOk());
+    mockMvc.perform(get("/api/restaurants/all")).andExpect(status().isOk());
+    mockMvc.perform(get("/api/restaurants?id=99")).andExpect(status().isNotFound());
+    String text =
+        mockMvc
+            .perform(get("/api/admin/metrics"))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+
+    // assert
+    assertTrue(
+        text.contains("app_requests_total{handler=\"RestaurantsController.allRestaurants\"} 2\n"),
+        text);
+    assertTrue(
+        text.contains(
+            "app_request_errors_total{handler=\"RestaurantsController.getById\","
+                + "exception=\"EntityNotFoundException\"} 1\n"),
+        text);
+    assertTrue(
+        text.contains(
+            "app_request_queries_total{handler=\"RestaurantsController.allRestaurants\"} 2\n"),
+        text);
+    assertTrue(
+        text.contains(
+            "app_request_duration_quantile_seconds{handler=\"RestaurantsController.allRestaurants\","
+                + "quantile=\"0.99\"}"),
+        text);
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void statement_budgets_are_checked() throws Exception {
+    // arrange
+    restaurantRepository.save(
+        Restaurant.builder().name("Taco Bell").description("Mexican").build());
+
+    // act
+    MvcResult result =
+        mockMvc
+            .perform(get("/api/restaurants/all"))
+            .andExpect(status().isOk())
+            .andExpect(statementsAtMost(1))
+            .andReturn();
+
+    // assert
+    AssertionError e = assertThrows(AssertionError.class, () -> statementsAtMost(0).match(result));
+    assertTrue(
+        e.getMessage().startsWith("Request ran 1 SQL statements, more than its budget of 0"),
+        e.getMessage());
+  }
+}
@@ -0,0 +1,198 @@
+package edu.ucsb.cs156.example.integration;
+
+import static edu.ucsb.cs156.example.ControllerTestCase.statementsAtMost;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.config.CacheConfig;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@ActiveProfiles("integration")
+@Import(TestConfig.class)
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+public class ReferenceDataCacheIT {
+  @Autowired public MockMvc mockMvc;
+
+  @Autowired public ObjectMapper mapper;
+
+  @Autowired UCSBDateRepository ucsbDateRepository;
+
+  @Autowired CacheManager cacheManager;
+
+  @MockitoBean UserRepository userRepository;
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void dates_are_read_from_the_cache_until_they_are_written() throws Exception {
+    // arrange
+    UCSBDate date =
+        ucsbDateRepository.save(
+            UCSBDate.builder()
+                .quarterYYYYQ("20241")
+                .name("firstDayOfClasses")
+                .localDateTime(LocalDateTime.parse("2024-01-08T00:00:00"))
+                .build());
+
+    // act and assert: the second read does not touch the database
+    mockMvc.perform(get("/api/ucsbdates/all")).andExpect(status().isOk());
+    mockMvc
+        .perform(get("/api/ucsbdates/all"))
+        .andExpect(status().isOk())
+        .andExpect(statementsAtMost(0))
+        .andExpect(jsonPath("$[0].name").value("firstDayOfClasses"));
+
+    // an update through the controller is visible straight away
+    date.setName("lastDayOfClasses");
+    mockMvc
+        .perform(
+            put("/api/ucsbdates")
+                .param("id", Long.toString(date.getId()))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(date))
+                .with(csrf()))
+        .andExpect(status().isOk());
+    mockMvc
+        .perform(get("/api/ucsbdates/all"))
+        .andExpect(jsonPath("$[0].name").value("lastDayOfClasses"));
+    mockMvc
+        .perform(get("/api/ucsbdates").param("id", Long.toString(date.getId())))
+        .andExpect(jsonPath("$.name").value("lastDayOfClasses"));
+
+    // so is a delete
+    mockMvc
+        .perform(delete("/api/ucsbdates").param("id", Long.toString(date.getId())).with(csrf()))
+        .andExpect(status().isOk());
+    mockMvc.perform(get("/api/ucsbdates/all")).andExpect(jsonPath("$.length()").value(0));
+    mockMvc
+        .perform(get("/api/ucsbdates").param("id", Long.toString(date.getId())))
+        .andExpect(status().isNotFound());
+  }
+
+  @Test
+  public void dates_for_a_quarter_are_cached() {
+    // arrange
+    ucsbDateRepository.save(UCSBDate.builder().quarterYYYYQ("20241").name("a").build());
+
+    // act
+    ucsbDateRepository.findAllByQuarterYYYYQ("20241");
+
+    // assert
+    assertNotNull(cacheManager.getCache(CacheConfig.UCSB_DATES).get("quarter:20241"));
+    ucsbDateRepository.save(UCSBDate.builder().quarterYYYYQ("20241").name("b").build());
+    assertNull(cacheManager.getCache(CacheConfig.UCSB_DATES).get("quarter:20241"));
+    assertEquals(2, ((Collection<?>) ucsbDateRepository.findAllByQuarterYYYYQ("20241")).size());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void dining_commons_are_read_from_the_cache_until_they_are_written() throws Exception {
+    // arrange
+    mockMvc
+        .perform(
+            post("/api/ucsbdiningcommons/post")
+                .param("code", "ortega")
+                .param("name", "Ortega")
+                .param("hasSackMeal", "true")
+                .param("hasTakeOutMeal", "true")
+                .param("hasDiningCam", "true")
+                .param("latitude", "34.41")
+                .param("longitude", "-119.84")
+                .with(csrf()))
+        .andExpect(status().isOk());
+
+    // act and assert
+    mockMvc.perform(get("/api/ucsbdiningcommons").param("code", "ortega"));
+    mockMvc
+        .perform(get("/api/ucsbdiningcommons").param("code", "ortega"))
+        .andExpect(statementsAtMost(0))
+        .andExpect(jsonPath("$.name").value("Ortega"));
+
+    UCSBDiningCommons incoming =
+        UCSBDiningCommons.builder()
+            .code("ortega")
+            .name("Ortega Commons")
+            .hasSackMeal(false)
+            .hasTakeOutMeal(true)
+            .hasDiningCam(true)
+            .latitude(34.41)
+            .longitude(-119.84)
+            .build();
+    mockMvc
+        .perform(
+            put("/api/ucsbdiningcommons")
+                .param("code", "ortega")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(incoming))
+                .with(csrf()))
+        .andExpect(status().isOk());
+    mockMvc
+        .perform(get("/api/ucsbdiningcommons").param("code", "ortega"))
+        .andExpect(jsonPath("$.name").value("Ortega Commons"));
+    mockMvc
+        .perform(get("/api/ucsbdiningcommons/all"))
+        .andExpect(jsonPath("$[0].name").value("Ortega Commons"));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void updates_do_not_modify_the_cached_instance() throws Exception {
+    // arrange: a date that has been read into the cache
+    UCSBDate date =
+        ucsbDateRepository.save(UCSBDate.builder().quarterYYYYQ("20241").name("before").build());
+    mockMvc
+        .perform(get("/api/ucsbdates").param("id", Long.toString(date.getId())))
+        .andExpect(status().isOk());
+    UCSBDate cached =
+        (UCSBDate) cacheManager.getCache(CacheConfig.UCSB_DATES).get("id:" + date.getId()).get();
+
+    // act
+    date.setName("after");
+    mockMvc
+        .perform(
+            put("/api/ucsbdates")
+                .param("id", Long.toString(date.getId()))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(date))
+                .with(csrf()))
+        .andExpect(status().isOk());
+
+    // assert: readers that still hold the cached date never see it change
+    assertEquals("before", cached.getName());
+    mockMvc
+        .perform(get("/api/ucsbdates").param("id", Long.toString(date.getId())))
+        .andExpect(jsonPath("$.name").value("after"));
+  }
+}
@@ -1,6 +1,9 @@
 package edu.ucsb.cs156.example.integration;
 
+import static edu.ucsb.cs156.example.ControllerTestCase.statementsAtMost;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -12,20 +15,27 @@ import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.services.CurrentUserService;
 import edu.ucsb.cs156.example.services.GrantedAuthoritiesService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
+import java.util.List;
+import java.util.stream.IntStream;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.annotation.DirtiesContext.ClassMode;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
 
 @ExtendWith(SpringExtension.class)
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -44,6 +54,12 @@ public class RestaurantIT {
 
   @Autowired public ObjectMapper mapper;
 
+  @Autowired RequestMappingHandlerAdapter handlerAdapter;
+
+  @Autowired
+  @Qualifier("applicationTaskExecutor")
+  ThreadPoolTaskExecutor applicationTaskExecutor;
+
   @MockitoBean UserRepository userRepository;
 
   @WithMockUser(roles = {"USER"})
@@ -85,4 +101,142 @@ public class RestaurantIT {
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
   }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void a_logged_in_user_can_export_all_restaurants_as_ndjson() throws Exception {
+    // arrange
+    List<Restaurant> restaurants =
+        IntStream.range(0, 1200)
+            .mapToObj(i -> Restaurant.builder().name("Restaurant " + i).description("d").build())
+            .toList();
+    restaurantRepository.saveAll(restaurants);
+
+    // act
+    MvcResult started =
+        mockMvc
+            .perform(get("/api/restaurants/export"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+    MvcResult response =
+        mockMvc
+            .perform(asyncDispatch(started))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("application/x-ndjson"))
+            .andReturn();
+
+    // assert
+    String[] lines = response.getResponse().getContentAsString().split("\n");
+    assertEquals(1200, lines.length);
+    assertEquals(mapper.writeValueAsString(restaurants.get(0)), lines[0]);
+    assertEquals(mapper.writeValueAsString(restaurants.get(1199)), lines[1199]);
+  }
+
+  @Test
+  public void async_requests_run_on_the_bounded_application_task_executor() {
+    assertSame(
+        applicationTaskExecutor, ReflectionTestUtils.getField(handlerAdapter, "taskExecutor"));
+    assertEquals(8, applicationTaskExecutor.getMaxPoolSize());
+    assertEquals(60000L, ReflectionTestUtils.getField(handlerAdapter, "asyncRequestTimeout"));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_unchanged_list_is_not_modified_until_a_restaurant_is_added() throws Exception {
+    // arrange
+    restaurantRepository.save(
+        Restaurant.builder().name("Taco Bell").description("Mexican").build());
+    String etag =
+        mockMvc
+            .perform(get("/api/restaurants/all"))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getHeader("ETag");
+
+    // act and assert: a matching tag is answered without querying the database
+    mockMvc
+        .perform(get("/api/restaurants/all").header("If-None-Match", etag))
+        .andExpect(status().isNotModified())
+        .andExpect(statementsAtMost(0));
+
+    mockMvc
+        .perform(post("/api/restaurants/post?name=Chipotle&description=Mexican").with(csrf()))
+        .andExpect(status().isOk());
+
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/restaurants/all").header("If-None-Match", etag))
+            .andExpect(status().isOk())
+            .andReturn();
+    assertNotEquals(etag, response.getResponse().getHeader("ETag"));
+    assertEquals(2, mapper.readTree(response.getResponse().getContentAsString()).size());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_bulk_post_restaurants_in_a_few_batched_statements()
+      throws Exception {
+    // arrange
+    List<Restaurant> restaurants =
+        IntStream.range(0, 120)
+            .mapToObj(i -> Restaurant.builder().name("Restaurant " + i).description("d").build())
+            .toList();
+
+    // act: 120 ids from 3 sequence calls, and 120 inserts in 3 JDBC batches
+    mockMvc
+        .perform(
+            post("/api/restaurants/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(restaurants))
+                .with(csrf()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.counts.CREATED").value(120))
+        .andExpect(jsonPath("$.rows[0].id").value(1))
+        .andExpect(jsonPath("$.rows[119].id").value(120))
+        .andExpect(statementsAtMost(10));
+
+    // assert
+    assertEquals(120, restaurantRepository.count());
+    assertEquals("Restaurant 119", restaurantRepository.findById(120L).get().getName());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_bulk_update_and_delete_restaurants() throws Exception {
+    // arrange
+    List<Restaurant> restaurants =
+        IntStream.range(0, 120)
+            .mapToObj(i -> Restaurant.builder().name("Restaurant " + i).description("d").build())
+            .toList();
+    restaurantRepository.saveAll(restaurants);
+    List<Restaurant> renamed =
+        restaurants.stream()
+            .map(r -> Restaurant.builder().id(r.getId()).name("Renamed").description("e").build())
+            .toList();
+    List<Long> ids = restaurants.stream().map(Restaurant::getId).toList();
+
+    // act and assert
+    mockMvc
+        .perform(
+            put("/api/restaurants/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(renamed))
+                .with(csrf()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.counts.UPDATED").value(120))
+        .andExpect(statementsAtMost(10));
+    assertEquals("Renamed", restaurantRepository.findById(ids.get(7)).get().getName());
+
+    mockMvc
+        .perform(
+            delete("/api/restaurants/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(ids))
+                .with(csrf()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.counts.DELETED").value(120))
+        .andExpect(statementsAtMost(10));
+    assertEquals(0, restaurantRepository.count());
+  }
 }
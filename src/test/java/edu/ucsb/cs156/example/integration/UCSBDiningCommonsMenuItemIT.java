@@ -1,10 +1,12 @@
 package edu.ucsb.cs156.example.integration;
 
+import static edu.ucsb.cs156.example.ControllerTestCase.statementsAtMost;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItems;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemsRepository;
@@ -12,6 +14,9 @@ import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.services.CurrentUserService;
 import edu.ucsb.cs156.example.services.GrantedAuthoritiesService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -100,4 +105,47 @@ public class UCSBDiningCommonsMenuItemIT {
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
   }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void pages_cover_every_item_once_in_id_order() throws Exception {
+    // arrange
+    ucsbDiningCommonsMenuItemsRepository.saveAll(
+        IntStream.range(0, 45)
+            .mapToObj(
+                i ->
+                    UCSBDiningCommonsMenuItems.builder()
+                        .name("Item " + i)
+                        .diningCommonsCode("ortega")
+                        .station("Entrees")
+                        .build())
+            .toList());
+
+    // act
+    List<Long> ids = new ArrayList<>();
+    List<Integer> pageSizes = new ArrayList<>();
+    String cursor = null;
+    do {
+      var request = get("/api/ucsb-dining-commons-menu-items/page").param("size", "20");
+      if (cursor != null) {
+        request.param("cursor", cursor);
+      }
+      String body =
+          mockMvc
+              .perform(request)
+              .andExpect(status().isOk())
+              .andExpect(statementsAtMost(1))
+              .andReturn()
+              .getResponse()
+              .getContentAsString();
+      JsonNode page = mapper.readTree(body);
+      page.get("content").forEach(item -> ids.add(item.get("id").asLong()));
+      pageSizes.add(page.get("content").size());
+      cursor = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText();
+    } while (cursor != null);
+
+    // assert
+    assertEquals(List.of(20, 20, 5), pageSizes);
+    assertEquals(IntStream.rangeClosed(1, 45).asLongStream().boxed().toList(), ids);
+  }
 }
@@ -0,0 +1,129 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.CurrentUserServiceImpl;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.StreamSupport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+@ActiveProfiles("integration")
+@Import(TestConfig.class)
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+public class UserProvisioningIT {
+  @Autowired UserRepository userRepository;
+
+  @Autowired CurrentUserServiceImpl currentUserService;
+
+  @AfterEach
+  public void teardown() {
+    SecurityContextHolder.clearContext();
+  }
+
+  private User newUser(String email, String googleSub) {
+    return User.builder().email(email).googleSub(googleSub).fullName("Chris Gaucho").build();
+  }
+
+  private long countUsers(String email) {
+    return StreamSupport.stream(userRepository.findAll().spliterator(), false)
+        .filter(user -> email.equals(user.getEmail()))
+        .count();
+  }
+
+  @Test
+  public void insertIfAbsent_inserts_a_user_only_once() {
+    assertEquals(1, userRepository.insertIfAbsent(newUser("cgaucho@ucsb.edu", "sub-1")));
+    assertEquals(0, userRepository.insertIfAbsent(newUser("cgaucho@ucsb.edu", "sub-1")));
+
+    User user = userRepository.findByEmail("cgaucho@ucsb.edu").orElseThrow();
+    assertEquals("sub-1", user.getGoogleSub());
+    assertEquals("Chris Gaucho", user.getFullName());
+    assertEquals(1, countUsers("cgaucho@ucsb.edu"));
+  }
+
+  @Test
+  public void email_and_google_sub_are_unique() {
+    userRepository.save(newUser("cgaucho@ucsb.edu", "sub-1"));
+
+    assertThrows(
+        DataIntegrityViolationException.class,
+        () -> userRepository.save(newUser("cgaucho@ucsb.edu", "sub-2")));
+    assertThrows(
+        DataIntegrityViolationException.class,
+        () -> userRepository.insertIfAbsent(newUser("other@ucsb.edu", "sub-1")));
+  }
+
+  @Test
+  public void concurrent_first_logins_create_one_user() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    List<Callable<Integer>> logins = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      logins.add(
+          () -> {
+            try {
+              return userRepository.insertIfAbsent(newUser("cgaucho@ucsb.edu", "sub-1"));
+            } catch (DataIntegrityViolationException e) {
+              return 0;
+            }
+          });
+    }
+
+    int inserted = 0;
+    for (Future<Integer> result : executor.invokeAll(logins)) {
+      inserted += result.get();
+    }
+    executor.shutdown();
+
+    assertEquals(1, inserted);
+    assertEquals(1, countUsers("cgaucho@ucsb.edu"));
+    assertTrue(userRepository.findByGoogleSub("sub-1").isPresent());
+  }
+
+  @Test
+  public void an_existing_user_listed_as_an_admin_is_promoted_and_cached() {
+    // app.admin.emails in the integration profile
+    userRepository.save(newUser("admingaucho@ucsb.edu", "sub-1"));
+    DefaultOAuth2User principal =
+        new DefaultOAuth2User(
+            AuthorityUtils.createAuthorityList("ROLE_USER"),
+            Map.of("sub", "sub-1", "email", "admingaucho@ucsb.edu", "email_verified", true),
+            "sub");
+    SecurityContextHolder.getContext()
+        .setAuthentication(
+            new OAuth2AuthenticationToken(principal, principal.getAuthorities(), "google"));
+
+    User user = currentUserService.getUser();
+
+    assertTrue(user.getAdmin());
+    assertTrue(userRepository.findByEmail("admingaucho@ucsb.edu").orElseThrow().getAdmin());
+    assertSame(user, currentUserService.getUser());
+  }
+}
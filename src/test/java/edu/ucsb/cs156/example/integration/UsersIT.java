@@ -0,0 +1,105 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.config.SecurityConfig;
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import jakarta.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@ActiveProfiles("integration")
+@Import(TestConfig.class)
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+public class UsersIT {
+  @Autowired UserRepository userRepository;
+
+  @Autowired MockMvc mockMvc;
+
+  @Autowired ObjectMapper mapper;
+
+  @Autowired SecurityConfig securityConfig;
+
+  @Autowired TransactionTemplate transactionTemplate;
+
+  @Autowired EntityManager entityManager;
+
+  private void saveUser(String email, String fullName, boolean admin) {
+    userRepository.save(User.builder().email(email).fullName(fullName).admin(admin).build());
+  }
+
+  private List<String> searchEmails(String query) throws Exception {
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/admin/users/paged?sort=email" + query))
+            .andExpect(status().isOk())
+            .andReturn();
+    JsonNode page = mapper.readTree(response.getResponse().getContentAsString());
+    List<String> emails = new ArrayList<>();
+    page.get("content").forEach(user -> emails.add(user.get("email").asText()));
+    return emails;
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_search_users_by_prefix_and_admin_flag() throws Exception {
+    saveUser("chris@ucsb.edu", "Chris Gaucho", true);
+    saveUser("christine@ucsb.edu", "Christine Storke", false);
+    saveUser("alex@ucsb.edu", "Chrisandra Alexander", false);
+    saveUser("c_r@ucsb.edu", "Carl Rogers", false);
+    saveUser("cxr@ucsb.edu", "Cora Xu", false);
+    saveUser("Chrissy@UCSB.edu", "Zoe Young", false);
+
+    assertEquals(
+        List.of("Chrissy@UCSB.edu", "alex@ucsb.edu", "chris@ucsb.edu", "christine@ucsb.edu"),
+        searchEmails("&search=Chris"));
+    assertEquals(List.of("chris@ucsb.edu"), searchEmails("&search=chris&admin=true"));
+    assertEquals(List.of("c_r@ucsb.edu"), searchEmails("&search=c_"));
+    assertEquals(6, searchEmails("").size());
+  }
+
+  @Test
+  public void a_lookup_between_flush_and_commit_does_not_keep_the_old_admin_flag() {
+    saveUser("dana@ucsb.edu", "Dana Gaucho", false);
+    assertFalse(securityConfig.getAdmin("dana@ucsb.edu"));
+
+    transactionTemplate.executeWithoutResult(
+        status -> {
+          User user = userRepository.findByEmail("dana@ucsb.edu").orElseThrow();
+          user.setAdmin(true);
+          userRepository.save(user);
+          entityManager.flush();
+          // another request, outside this transaction, still reads and caches the old flag
+          assertFalse(
+              CompletableFuture.supplyAsync(() -> securityConfig.getAdmin("dana@ucsb.edu")).join());
+        });
+
+    assertTrue(securityConfig.getAdmin("dana@ucsb.edu"));
+  }
+}
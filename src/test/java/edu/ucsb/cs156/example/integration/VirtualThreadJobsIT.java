@@ -0,0 +1,62 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@ActiveProfiles("integration")
+@Import(TestConfig.class)
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+@TestPropertySource(
+    properties = {"spring.threads.virtual.enabled=true", "app.jobs.queue.max-running-per-user=100"})
+public class VirtualThreadJobsIT {
+  private static final int JOBS = 8;
+
+  @Autowired JobsRepository jobsRepository;
+
+  @Autowired public MockMvc mockMvc;
+
+  @MockitoBean UserRepository userRepository;
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void the_dispatcher_runs_more_jobs_at_once_than_the_thread_pool_would() throws Exception {
+    // act: more jobs than app.jobs.executor.max-size, each sleeping long enough to overlap
+    for (int i = 0; i < JOBS; i++) {
+      mockMvc
+          .perform(post("/api/jobs/launch/testjob?fail=false&sleepMs=3000").with(csrf()))
+          .andExpect(status().isOk());
+    }
+
+    // assert
+    long peak = 0;
+    for (int i = 0; i < 50 && peak < JOBS; i++) {
+      peak = Math.max(peak, jobsRepository.countByStatus("running"));
+      Thread.sleep(50);
+    }
+    assertEquals(JOBS, peak);
+    assertEquals(0, jobsRepository.countByStatus("queued"));
+  }
+}
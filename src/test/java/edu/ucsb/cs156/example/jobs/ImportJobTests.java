@@ -0,0 +1,39 @@
+package edu.ucsb.cs156.example.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.services.ImportService;
+import edu.ucsb.cs156.example.services.jobs.JobContext;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class ImportJobTests {
+
+  private final ObjectMapper mapper = new ObjectMapper();
+
+  @Test
+  void only_the_file_id_is_stored_as_json() throws Exception {
+    ImportJob job = ImportJob.builder().importFileId(7).build();
+    ReflectionTestUtils.setField(job, "importService", mock(ImportService.class));
+
+    String json = mapper.writeValueAsString(job);
+
+    assertEquals("{\"importFileId\":7}", json);
+    assertEquals(7, mapper.readValue(json, ImportJob.class).getImportFileId());
+  }
+
+  @Test
+  void accept_runs_the_import() throws Exception {
+    ImportService importService = mock(ImportService.class);
+    JobContext ctx = mock(JobContext.class);
+    ImportJob job = ImportJob.builder().importFileId(7).build();
+    ReflectionTestUtils.setField(job, "importService", importService);
+
+    job.accept(ctx);
+
+    verify(importService).runImport(ctx, 7);
+  }
+}
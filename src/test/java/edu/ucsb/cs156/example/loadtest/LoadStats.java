@@ -0,0 +1,126 @@
+package edu.ucsb.cs156.example.loadtest;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Latencies and errors of the requests made during the measured part of a load test, by operation
+ * (e.g. {@code GET /api/restaurants/all}).
+ */
+public class LoadStats {
+
+  /** The summary of one operation; latencies are in milliseconds. */
+  public record Summary(
+      long count,
+      long errors,
+      double throughput,
+      double mean,
+      double p50,
+      double p95,
+      double p99,
+      double max) {}
+
+  private static class Samples {
+    private long[] nanos = new long[1024];
+    private int size;
+    private long errors;
+
+    synchronized void add(long value, boolean ok) {
+      if (size == nanos.length) {
+        nanos = Arrays.copyOf(nanos, size * 2);
+      }
+      nanos[size++] = value;
+      if (!ok) {
+        errors++;
+      }
+    }
+
+    synchronized Summary summarize(double seconds) {
+      long[] sorted = Arrays.copyOf(nanos, size);
+      Arrays.sort(sorted);
+      double total = 0;
+      for (long value : sorted) {
+        total += value;
+      }
+      return new Summary(
+          size,
+          errors,
+          size / seconds,
+          size == 0 ? 0 : total / size / 1e6,
+          percentile(sorted, 0.50),
+          percentile(sorted, 0.95),
+          percentile(sorted, 0.99),
+          size == 0 ? 0 : sorted[size - 1] / 1e6);
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+      if (sorted.length == 0) {
+        return 0;
+      }
+      int index = (int) Math.ceil(quantile * sorted.length) - 1;
+      return sorted[Math.max(index, 0)] / 1e6;
+    }
+  }
+
+  private final Map<String, Samples> operations = new ConcurrentHashMap<>();
+
+  private volatile boolean measuring = false;
+
+  private long startNanos;
+
+  private long endNanos;
+
+  /** Start measuring; requests made before this (e.g. during warm-up) are not recorded. */
+  public void start() {
+    operations.clear();
+    startNanos = System.nanoTime();
+    measuring = true;
+  }
+
+  /** Stop measuring. */
+  public void stop() {
+    measuring = false;
+    endNanos = System.nanoTime();
+  }
+
+  /**
+   * Record one request.
+   *
+   * @param operation the operation, e.g. {@code GET /api/restaurants/all}
+   * @param nanos how long the request took
+   * @param ok false if the request failed
+   */
+  public void record(String operation, long nanos, boolean ok) {
+    if (measuring) {
+      operations.computeIfAbsent(operation, op -> new Samples()).add(nanos, ok);
+    }
+  }
+
+  /**
+   * The summary of each operation, sorted by name, followed by the summary of all operations
+   * together under {@code TOTAL}.
+   *
+   * @return the summaries
+   */
+  public Map<String, Summary> summarize() {
+    double seconds = (endNanos - startNanos) / 1e9;
+    Samples all = new Samples();
+    Map<String, Summary> result = new LinkedHashMap<>();
+    new TreeMap<>(operations)
+        .forEach(
+            (operation, samples) -> {
+              result.put(operation, samples.summarize(seconds));
+              synchronized (samples) {
+                for (int i = 0; i < samples.size; i++) {
+                  all.add(samples.nanos[i], true);
+                }
+                all.errors += samples.errors;
+              }
+            });
+    result.put("TOTAL", all.summarize(seconds));
+    return result;
+  }
+}
@@ -0,0 +1,374 @@
+package edu.ucsb.cs156.example.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import edu.ucsb.cs156.example.ExampleApplication;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * A load test that runs entirely on one machine: it starts the app on an in-memory H2 database and
+ * an {@link OauthStandIn} for Google, logs in many synthetic users, and has them send a mix of
+ * reads and writes for a while. Throughput and latency percentiles of each operation are printed
+ * and written as JSON. Logins are timed separately from the API traffic.
+ *
+ * <p>Every user reads the dates, dining commons, menu items and restaurants. Admin users also list
+ * and launch jobs, and with probability {@code write-ratio} send a write instead of a read. Options
+ * are passed as {@code --name=value}:
+ *
+ * <ul>
+ *   <li>{@code users} (default 50): number of users, including the admins
+ *   <li>{@code admins} (default 5): number of admin users
+ *   <li>{@code duration-seconds} (default 60): length of the measured run
+ *   <li>{@code warmup-seconds} (default 10): traffic before measuring starts
+ *   <li>{@code write-ratio} (default 0.2): share of an admin's requests that are writes
+ *   <li>{@code think-ms} (default 0): pause between a user's requests
+ *   <li>{@code seed-rows} (default 100): rows of each kind created before the run
+ *   <li>{@code report} (default target/loadtest-report.json): where to write the results
+ * </ul>
+ */
+public class LoadTestRunner {
+
+  /** The options of a run. */
+  public record Options(
+      int users,
+      int admins,
+      Duration duration,
+      Duration warmup,
+      double writeRatio,
+      long thinkMs,
+      int seedRows,
+      Path report) {
+
+    /**
+     * Parse {@code --name=value} arguments.
+     *
+     * @param args the arguments
+     * @return the options, with defaults for those not given
+     */
+    public static Options parse(String... args) {
+      Map<String, String> values = new HashMap<>();
+      for (String arg : args) {
+        if (!arg.startsWith("--") || !arg.contains("=")) {
+          throw new IllegalArgumentException("Expected --name=value, got " + arg);
+        }
+        String[] parts = arg.substring(2).split("=", 2);
+        values.put(parts[0], parts[1]);
+      }
+      Options options =
+          new Options(
+              Integer.parseInt(values.getOrDefault("users", "50")),
+              Integer.parseInt(values.getOrDefault("admins", "5")),
+              Duration.ofSeconds(Long.parseLong(values.getOrDefault("duration-seconds", "60"))),
+              Duration.ofSeconds(Long.parseLong(values.getOrDefault("warmup-seconds", "10"))),
+              Double.parseDouble(values.getOrDefault("write-ratio", "0.2")),
+              Long.parseLong(values.getOrDefault("think-ms", "0")),
+              Integer.parseInt(values.getOrDefault("seed-rows", "100")),
+              Path.of(values.getOrDefault("report", "target/loadtest-report.json")));
+      if (options.admins() < 1 || options.admins() > options.users()) {
+        throw new IllegalArgumentException("admins must be between 1 and users");
+      }
+      return options;
+    }
+  }
+
+  private static final String[] COMMONS = {"carrillo", "de-la-guerra", "ortega", "portola"};
+
+  private final Options options;
+
+  private final LoadStats stats = new LoadStats();
+
+  private final List<Long> restaurantIds = new ArrayList<>();
+
+  private final List<Long> dateIds = new ArrayList<>();
+
+  private final List<Long> menuItemIds = new ArrayList<>();
+
+  public LoadTestRunner(Options options) {
+    this.options = options;
+  }
+
+  public static void main(String[] args) throws Exception {
+    Map<String, LoadStats.Summary> summary = new LoadTestRunner(Options.parse(args)).run();
+    System.exit(summary.get("TOTAL").errors() == 0 ? 0 : 1);
+  }
+
+  /**
+   * Run the load test.
+   *
+   * @return the summary of each operation, and of all of them under {@code TOTAL}
+   * @throws Exception if the app cannot be started or a user cannot log in
+   */
+  public Map<String, LoadStats.Summary> run() throws Exception {
+    OauthStandIn oauth = new OauthStandIn();
+    oauth.start();
+    String oauthUrl = "http://localhost:" + oauth.getPort();
+    List<String> usernames =
+        IntStream.range(0, options.users())
+            .mapToObj(i -> i < options.admins() ? "loadadmin" + i : "loaduser" + i)
+            .toList();
+    usernames.forEach(oauth::addUser);
+    String adminEmails =
+        usernames.stream()
+            .limit(options.admins())
+            .map(username -> username + "@ucsb.edu")
+            .collect(Collectors.joining(","));
+
+    // devtools would otherwise restart the app in a new class loader when run from main()
+    System.setProperty("spring.devtools.restart.enabled", "false");
+    // command-line arguments, so they override the integration profile's properties
+    ConfigurableApplicationContext app =
+        new SpringApplicationBuilder(ExampleApplication.class)
+            .run(
+                "--spring.profiles.active=integration",
+                "--server.port=0",
+                "--app.admin.emails=" + adminEmails,
+                "--logging.level.sql=WARN",
+                "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+                "--spring.security.oauth2.client.registration.my-oauth-provider.redirect-uri="
+                    + "{baseUrl}/login/oauth2/code/{registrationId}",
+                "--spring.security.oauth2.client.provider.my-oauth-provider.authorization-uri="
+                    + oauthUrl
+                    + "/oauth/authorize",
+                "--spring.security.oauth2.client.provider.my-oauth-provider.token-uri="
+                    + oauthUrl
+                    + "/oauth/token",
+                "--spring.security.oauth2.client.provider.my-oauth-provider.user-info-uri="
+                    + oauthUrl
+                    + "/userinfo");
+    try {
+      String baseUrl =
+          "http://localhost:" + ((WebServerApplicationContext) app).getWebServer().getPort();
+      List<SyntheticUser> users =
+          usernames.stream()
+              .map(username -> new SyntheticUser(username, baseUrl, oauthUrl, stats))
+              .toList();
+      return runUsers(users);
+    } finally {
+      app.close();
+      oauth.stop();
+    }
+  }
+
+  private Map<String, LoadStats.Summary> runUsers(List<SyntheticUser> users) throws Exception {
+    LoadStats loginStats = new LoadStats();
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      loginStats.start();
+      List<Future<?>> logins = new ArrayList<>();
+      for (SyntheticUser user : users) {
+        logins.add(
+            executor.submit(
+                () -> {
+                  long start = System.nanoTime();
+                  boolean ok = false;
+                  try {
+                    user.login();
+                    ok = true;
+                  } finally {
+                    loginStats.record("LOGIN", System.nanoTime() - start, ok);
+                  }
+                  return null;
+                }));
+      }
+      for (Future<?> login : logins) {
+        login.get();
+      }
+      loginStats.stop();
+      seed(users.get(0));
+
+      long warmupEnd = System.nanoTime() + options.warmup().toNanos();
+      long end = warmupEnd + options.duration().toNanos();
+      List<Future<?>> running = new ArrayList<>();
+      for (int i = 0; i < users.size(); i++) {
+        SyntheticUser user = users.get(i);
+        boolean admin = i < options.admins();
+        Random random = new Random(i);
+        running.add(
+            executor.submit(
+                () -> {
+                  drive(user, admin, random, end);
+                  return null;
+                }));
+      }
+      Thread.sleep(options.warmup().toMillis());
+      stats.start();
+      for (Future<?> user : running) {
+        user.get();
+      }
+      stats.stop();
+    }
+
+    Map<String, LoadStats.Summary> summary = new LinkedHashMap<>();
+    summary.put("LOGIN", loginStats.summarize().get("LOGIN"));
+    summary.putAll(stats.summarize());
+    print(summary);
+    Files.createDirectories(options.report().toAbsolutePath().getParent());
+    new ObjectMapper()
+        .findAndRegisterModules()
+        .enable(SerializationFeature.INDENT_OUTPUT)
+        .writeValue(options.report().toFile(), Map.of("options", options, "results", summary));
+    return summary;
+  }
+
+  private void seed(SyntheticUser admin) throws InterruptedException {
+    for (String code : COMMONS) {
+      admin.request(
+          "POST",
+          "/api/ucsbdiningcommons/post",
+          "code=%s&name=%s&hasSackMeal=true&hasTakeOutMeal=true&hasDiningCam=false"
+                  .formatted(code, code)
+              + "&latitude=34.41&longitude=-119.85",
+          null);
+    }
+    for (int i = 0; i < options.seedRows(); i++) {
+      addId(restaurantIds, postRestaurant(admin, i));
+      addId(dateIds, postDate(admin, i));
+      addId(menuItemIds, postMenuItem(admin, i));
+    }
+  }
+
+  private static void addId(List<Long> ids, JsonNode created) {
+    if (created != null) {
+      ids.add(created.get("id").asLong());
+    }
+  }
+
+  private static JsonNode postRestaurant(SyntheticUser user, int i) throws InterruptedException {
+    return user.request(
+        "POST",
+        "/api/restaurants/post",
+        "name=Restaurant+%d&description=Seeded".formatted(i),
+        null);
+  }
+
+  private static JsonNode postDate(SyntheticUser user, int i) throws InterruptedException {
+    String dateTime = LocalDateTime.parse("2025-01-06T08:00:00").plusHours(i).toString();
+    return user.request(
+        "POST",
+        "/api/ucsbdates/post",
+        "quarterYYYYQ=20251&name=Date+%d&localDateTime=%s"
+            .formatted(i, SyntheticUser.encode(dateTime)),
+        null);
+  }
+
+  private static JsonNode postMenuItem(SyntheticUser user, int i) throws InterruptedException {
+    return user.request(
+        "POST",
+        "/api/ucsb-dining-commons-menu-items/post",
+        "diningCommonsCode=%s&name=Item+%d&station=Entrees"
+            .formatted(COMMONS[i % COMMONS.length], i),
+        null);
+  }
+
+  private void drive(SyntheticUser user, boolean admin, Random random, long end)
+      throws InterruptedException {
+    while (System.nanoTime() < end) {
+      if (admin && random.nextDouble() < options.writeRatio()) {
+        write(user, random);
+      } else {
+        read(user, admin, random);
+      }
+      if (options.thinkMs() > 0) {
+        Thread.sleep(options.thinkMs());
+      }
+    }
+  }
+
+  private void read(SyntheticUser user, boolean admin, Random random) throws InterruptedException {
+    switch (random.nextInt(admin ? 8 : 7)) {
+      case 0 -> user.request("GET", "/api/ucsbdates/all", null, null);
+      case 1 -> user.request("GET", "/api/ucsbdiningcommons/all", null, null);
+      case 2 -> user.request("GET", "/api/ucsb-dining-commons-menu-items/all", null, null);
+      case 3 -> user.request("GET", "/api/restaurants/all", null, null);
+      case 4 -> user.request("GET", "/api/restaurants", "id=" + pick(restaurantIds, random), null);
+      case 5 ->
+          user.request(
+              "GET",
+              "/api/ucsbdiningcommons",
+              "code=" + COMMONS[random.nextInt(COMMONS.length)],
+              null);
+      case 6 ->
+          user.request(
+              "GET",
+              "/api/ucsb-dining-commons-menu-items",
+              "id=" + pick(menuItemIds, random),
+              null);
+      default -> user.request("GET", "/api/jobs", "size=20", null);
+    }
+  }
+
+  private void write(SyntheticUser user, Random random) throws InterruptedException {
+    int i = random.nextInt(1_000_000);
+    switch (random.nextInt(5)) {
+      case 0 -> {
+        // create and delete, so the tables keep their size
+        JsonNode created = postRestaurant(user, i);
+        if (created != null) {
+          user.request("DELETE", "/api/restaurants", "id=" + created.get("id").asLong(), null);
+        }
+      }
+      case 1 -> {
+        JsonNode created = postMenuItem(user, i);
+        if (created != null) {
+          user.request(
+              "DELETE",
+              "/api/ucsb-dining-commons-menu-items",
+              "id=" + created.get("id").asLong(),
+              null);
+        }
+      }
+      case 2 -> {
+        JsonNode created = postDate(user, i % 1000);
+        if (created != null) {
+          user.request("DELETE", "/api/ucsbdates", "id=" + created.get("id").asLong(), null);
+        }
+      }
+      case 3 ->
+          user.request(
+              "PUT",
+              "/api/restaurants",
+              "id=" + pick(restaurantIds, random),
+              Map.of("name", "Restaurant " + i, "description", "Updated"));
+      default -> user.request("POST", "/api/jobs/launch/testjob", "fail=false&sleepMs=0", null);
+    }
+  }
+
+  private static long pick(List<Long> ids, Random random) {
+    return ids.isEmpty() ? 1 : ids.get(random.nextInt(ids.size()));
+  }
+
+  private static void print(Map<String, LoadStats.Summary> summary) {
+    System.out.printf(
+        "%-48s %8s %7s %9s %9s %9s %9s %9s%n",
+        "operation", "count", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+    summary.forEach(
+        (operation, s) ->
+            System.out.printf(
+                "%-48s %8d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n",
+                operation,
+                s.count(),
+                s.errors(),
+                s.throughput(),
+                s.p50(),
+                s.p95(),
+                s.p99(),
+                s.max()));
+  }
+}
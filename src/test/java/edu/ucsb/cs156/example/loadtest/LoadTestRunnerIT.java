@@ -0,0 +1,56 @@
+package edu.ucsb.cs156.example.loadtest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+public class LoadTestRunnerIT {
+
+  @Test
+  public void options_have_defaults_and_can_be_set() {
+    LoadTestRunner.Options defaults = LoadTestRunner.Options.parse();
+    assertEquals(50, defaults.users());
+    assertEquals(Duration.ofSeconds(60), defaults.duration());
+
+    LoadTestRunner.Options options =
+        LoadTestRunner.Options.parse("--users=3", "--admins=3", "--write-ratio=0.5");
+    assertEquals(3, options.users());
+    assertEquals(3, options.admins());
+    assertEquals(0.5, options.writeRatio());
+
+    assertThrows(IllegalArgumentException.class, () -> LoadTestRunner.Options.parse("users=3"));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> LoadTestRunner.Options.parse("--users=3", "--admins=4"));
+  }
+
+  @Test
+  public void a_short_run_logs_in_every_user_without_errors() throws Exception {
+    Path report = Path.of("target/loadtest-it-report.json");
+    LoadTestRunner.Options options =
+        LoadTestRunner.Options.parse(
+            "--users=4",
+            "--admins=2",
+            "--duration-seconds=3",
+            "--warmup-seconds=1",
+            "--write-ratio=0.5",
+            "--seed-rows=5",
+            "--report=" + report);
+
+    Map<String, LoadStats.Summary> summary = new LoadTestRunner(options).run();
+
+    assertEquals(4, summary.get("LOGIN").count());
+    assertEquals(0, summary.get("LOGIN").errors());
+    assertEquals(0, summary.get("TOTAL").errors(), summary.toString());
+    assertTrue(summary.get("TOTAL").count() > 0);
+    assertTrue(summary.containsKey("GET /api/restaurants/all"), summary.keySet().toString());
+    assertTrue(summary.containsKey("GET /api/jobs"), summary.keySet().toString());
+    assertTrue(Files.readString(report).contains("\"results\""));
+  }
+}
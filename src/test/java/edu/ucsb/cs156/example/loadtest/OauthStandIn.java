@@ -0,0 +1,81 @@
+package edu.ucsb.cs156.example.loadtest;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.temporaryRedirect;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import edu.ucsb.cs156.example.services.wiremock.WiremockServiceImpl;
+
+/**
+ * The OAuth provider used by the load test: the stubs of {@link
+ * WiremockServiceImpl#setupOauthMocks}, plus stubs that let many different users log in.
+ *
+ * <p>setupOauthMocks always logs in the same user, so the login, token and userinfo stubs are
+ * overridden: the username typed on the login page becomes the authorization code, the code becomes
+ * the access token, and each user added with {@link #addUser} has a userinfo stub matching its
+ * token. A user's email is its username at ucsb.edu.
+ */
+public class OauthStandIn {
+
+  private final WireMockServer server =
+      new WireMockServer(options().dynamicPort().globalTemplating(true));
+
+  /** Start the stand-in on a free port. */
+  public void start() {
+    WiremockServiceImpl.setupOauthMocks(server, false);
+
+    // stubs added later take precedence over those of setupOauthMocks
+    server.stubFor(
+        post(urlPathEqualTo("/login"))
+            .willReturn(
+                temporaryRedirect(
+                    "{{formData request.body 'form' urlDecode=true}}{{{form.redirectUri}}}?code={{{form.username}}}&state={{{form.state}}}")));
+    server.stubFor(
+        post(urlPathEqualTo("/oauth/token"))
+            .willReturn(
+                okJson(
+                    "{{formData request.body 'form' urlDecode=true}}{\"access_token\":\"{{{form.code}}}\",\"token_type\": \"Bearer\",\"expires_in\":\"3600\",\"scope\":\"https://www.googleapis.com/auth/userinfo.profile https://www.googleapis.com/auth/userinfo.email openid\"}")));
+    server.start();
+  }
+
+  public void stop() {
+    server.stop();
+  }
+
+  public int getPort() {
+    return server.port();
+  }
+
+  /**
+   * Let a user log in.
+   *
+   * @param username the username, made of letters and digits
+   */
+  public void addUser(String username) {
+    server.stubFor(
+        get(urlPathMatching("/userinfo"))
+            .withHeader("Authorization", equalTo("Bearer " + username))
+            .willReturn(
+                okJson(
+                    """
+                    {
+                      "sub": "%s",
+                      "name": "Load %s",
+                      "given_name": "Load",
+                      "family_name": "%s",
+                      "picture": "https://example.org/%s.png",
+                      "email": "%s@ucsb.edu",
+                      "email_verified": true,
+                      "locale": "en",
+                      "hd": "ucsb.edu"
+                    }
+                    """
+                        .formatted(username, username, username, username, username))));
+  }
+}
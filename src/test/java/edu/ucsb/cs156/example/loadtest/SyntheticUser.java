@@ -0,0 +1,169 @@
+package edu.ucsb.cs156.example.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.CookiePolicy;
+import java.net.HttpCookie;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * One simulated user of the load test, with its own cookies (and so its own session). The user logs
+ * in through the OAuth flow of the {@link OauthStandIn} just like a browser would, then sends API
+ * requests whose latencies are recorded in a {@link LoadStats}.
+ */
+public class SyntheticUser {
+
+  private static final ObjectMapper mapper = new ObjectMapper();
+
+  private final String username;
+
+  private final String baseUrl;
+
+  private final String oauthUrl;
+
+  private final LoadStats stats;
+
+  private final CookieManager cookies = new CookieManager(null, CookiePolicy.ACCEPT_ALL);
+
+  private final HttpClient client;
+
+  private String csrfToken;
+
+  public SyntheticUser(String username, String baseUrl, String oauthUrl, LoadStats stats) {
+    this.username = username;
+    this.baseUrl = baseUrl;
+    this.oauthUrl = oauthUrl;
+    this.stats = stats;
+    this.client =
+        HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .cookieHandler(cookies)
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .build();
+  }
+
+  public String getUsername() {
+    return username;
+  }
+
+  /**
+   * Log in: start the OAuth flow on the app, submit the stand-in's login page, and follow the
+   * redirect back to the app, which then fetches the token and user info from the stand-in.
+   *
+   * @throws IOException if the login fails
+   * @throws InterruptedException if interrupted
+   */
+  public void login() throws IOException, InterruptedException {
+    HttpResponse<String> authorize =
+        send(
+            HttpRequest.newBuilder(
+                URI.create(baseUrl + "/oauth2/authorization/my-oauth-provider")));
+    Map<String, String> query = parseQuery(location(authorize).getRawQuery());
+
+    String form =
+        "state=%s&redirectUri=%s&username=%s&password=password"
+            .formatted(
+                encode(query.get("state")), encode(query.get("redirect_uri")), encode(username));
+    HttpResponse<String> login =
+        send(
+            HttpRequest.newBuilder(URI.create(oauthUrl + "/login"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form)));
+
+    HttpResponse<String> callback = send(HttpRequest.newBuilder(location(login)));
+    if (callback.statusCode() != 302 || location(callback).toString().contains("error")) {
+      throw new IOException(
+          "Login of %s failed: %d %s"
+              .formatted(username, callback.statusCode(), callback.headers().map()));
+    }
+
+    // the session changed at login, so fetch the new CSRF token
+    send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/currentUser")));
+    csrfToken =
+        cookies.getCookieStore().getCookies().stream()
+            .filter(cookie -> cookie.getName().equals("XSRF-TOKEN"))
+            .map(HttpCookie::getValue)
+            .findFirst()
+            .orElseThrow(() -> new IOException("No XSRF-TOKEN cookie for " + username));
+  }
+
+  /**
+   * Send a request to the app and record its latency under {@code "METHOD /path"}.
+   *
+   * @param method the HTTP method
+   * @param path the path, without the query
+   * @param query the query string, or null
+   * @param body a JSON body, or null
+   * @return the response body parsed as JSON, or null if the request failed
+   * @throws InterruptedException if interrupted
+   */
+  public JsonNode request(String method, String path, String query, Object body)
+      throws InterruptedException {
+    String uri = baseUrl + path + (query == null ? "" : "?" + query);
+    HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(uri));
+    if (body != null) {
+      try {
+        request
+            .header("Content-Type", "application/json")
+            .method(method, HttpRequest.BodyPublishers.ofString(mapper.writeValueAsString(body)));
+      } catch (IOException e) {
+        throw new IllegalArgumentException(e);
+      }
+    } else {
+      request.method(method, HttpRequest.BodyPublishers.noBody());
+    }
+    if (!method.equals("GET")) {
+      request.header("X-XSRF-TOKEN", csrfToken);
+    }
+
+    long start = System.nanoTime();
+    try {
+      HttpResponse<String> response = send(request);
+      boolean ok = response.statusCode() < 400;
+      stats.record(method + " " + path, System.nanoTime() - start, ok);
+      return ok ? mapper.readTree(response.body()) : null;
+    } catch (IOException e) {
+      stats.record(method + " " + path, System.nanoTime() - start, false);
+      return null;
+    }
+  }
+
+  private HttpResponse<String> send(HttpRequest.Builder request)
+      throws IOException, InterruptedException {
+    return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+  }
+
+  private static URI location(HttpResponse<?> response) throws IOException {
+    return URI.create(
+        response
+            .headers()
+            .firstValue("Location")
+            .orElseThrow(
+                () -> new IOException("Expected a redirect, got " + response.statusCode())));
+  }
+
+  private static Map<String, String> parseQuery(String query) {
+    Map<String, String> result = new HashMap<>();
+    for (String pair : query.split("&")) {
+      String[] parts = pair.split("=", 2);
+      result.put(
+          URLDecoder.decode(parts[0], StandardCharsets.UTF_8),
+          parts.length > 1 ? URLDecoder.decode(parts[1], StandardCharsets.UTF_8) : "");
+    }
+    return result;
+  }
+
+  static String encode(String value) {
+    return URLEncoder.encode(value, StandardCharsets.UTF_8);
+  }
+}
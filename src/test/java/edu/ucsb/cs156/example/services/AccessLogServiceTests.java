@@ -0,0 +1,187 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class AccessLogServiceTests {
+
+  static class SampleController {
+    public void index() {}
+
+    public void other() {}
+  }
+
+  static class StoppedController {
+    public void index() {}
+  }
+
+  private AccessLogService accessLogService;
+
+  private final Logger logger = (Logger) LoggerFactory.getLogger(AccessLogService.class);
+
+  private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+  private Level originalLevel;
+
+  @BeforeEach
+  public void setup() {
+    accessLogService = new AccessLogService();
+    ReflectionTestUtils.setField(
+        accessLogService, "stoplist", Set.of(StoppedController.class.getName()));
+    ReflectionTestUtils.setField(accessLogService, "sampleRates", List.of());
+    ReflectionTestUtils.setField(accessLogService, "defaultSampleRate", 1.0);
+    ReflectionTestUtils.setField(accessLogService, "queueCapacity", 10);
+    originalLevel = logger.getLevel();
+    logger.setLevel(Level.INFO);
+    appender.start();
+    logger.addAppender(appender);
+  }
+
+  @AfterEach
+  public void teardown() {
+    logger.detachAppender(appender);
+    logger.setLevel(originalLevel);
+  }
+
+  private static Method method(Class<?> type, String name) throws Exception {
+    return type.getMethod(name);
+  }
+
+  @Test
+  void is_enabled_follows_the_log_level() {
+    assertTrue(accessLogService.isEnabled());
+    logger.setLevel(Level.WARN);
+    assertFalse(accessLogService.isEnabled());
+  }
+
+  @Test
+  void records_are_written_when_drained() throws Exception {
+    accessLogService.record(method(SampleController.class, "index"), "GET", "/api/x", "a=1");
+    assertTrue(appender.list.isEmpty());
+
+    accessLogService.drain();
+
+    assertEquals(1, appender.list.size());
+    String line = appender.list.get(0).getFormattedMessage();
+    assertTrue(line.contains("method=GET uri=/api/x query=a=1"), line);
+    assertTrue(line.contains("controller=SampleController handler=index sampleRate=1.0"), line);
+  }
+
+  @Test
+  void stoplisted_controllers_are_not_logged() throws Exception {
+    accessLogService.record(method(StoppedController.class, "index"), "GET", "/", null);
+    accessLogService.drain();
+
+    assertTrue(appender.list.isEmpty());
+  }
+
+  @Test
+  void endpoints_are_resolved_once_per_method() throws Exception {
+    Method index = method(SampleController.class, "index");
+    accessLogService.record(index, "GET", "/a", null);
+    Object first = getEndpoints().get(index);
+    accessLogService.record(index, "GET", "/a", null);
+
+    assertSame(first, getEndpoints().get(index));
+  }
+
+  @SuppressWarnings("unchecked")
+  private Map<Method, Object> getEndpoints() {
+    return (Map<Method, Object>) ReflectionTestUtils.getField(accessLogService, "endpoints");
+  }
+
+  @Test
+  void sample_rates_apply_to_methods_then_controllers() throws Exception {
+    ReflectionTestUtils.setField(
+        accessLogService,
+        "sampleRates",
+        List.of("SampleController=0.25", " SampleController.index = 0.5"));
+    accessLogService.parseSampleRates();
+
+    assertEquals(
+        0.5, accessLogService.resolve(method(SampleController.class, "index")).sampleRate());
+    assertEquals(
+        0.25, accessLogService.resolve(method(SampleController.class, "other")).sampleRate());
+    assertEquals(
+        0.0, accessLogService.resolve(method(StoppedController.class, "index")).sampleRate());
+  }
+
+  @Test
+  void zero_sample_rate_logs_nothing() throws Exception {
+    ReflectionTestUtils.setField(accessLogService, "sampleRates", List.of("SampleController=0"));
+    accessLogService.parseSampleRates();
+
+    accessLogService.record(method(SampleController.class, "index"), "GET", "/", null);
+    accessLogService.drain();
+
+    assertTrue(appender.list.isEmpty());
+  }
+
+  @Test
+  void partial_sample_rate_logs_some_requests() throws Exception {
+    ReflectionTestUtils.setField(accessLogService, "sampleRates", List.of("SampleController=0.5"));
+    accessLogService.parseSampleRates();
+    ReflectionTestUtils.setField(accessLogService, "queueCapacity", 10000);
+
+    Method index = method(SampleController.class, "index");
+    for (int i = 0; i < 1000; i++) {
+      accessLogService.record(index, "GET", "/", null);
+    }
+    accessLogService.drain();
+
+    assertTrue(appender.list.size() > 300, "logged " + appender.list.size());
+    assertTrue(appender.list.size() < 700, "logged " + appender.list.size());
+  }
+
+  @Test
+  void invalid_sample_rates_are_rejected_when_parsed() throws Exception {
+    for (String entry : List.of("SampleController", "SampleController=often")) {
+      ReflectionTestUtils.setField(accessLogService, "sampleRates", List.of(entry));
+
+      IllegalArgumentException e =
+          assertThrows(IllegalArgumentException.class, accessLogService::parseSampleRates);
+      assertEquals(
+          "app.access-log.sample-rates entries must look like Controller.method=rate, not " + entry,
+          e.getMessage());
+    }
+  }
+
+  @Test
+  void records_beyond_the_capacity_are_dropped_and_counted() throws Exception {
+    ReflectionTestUtils.setField(accessLogService, "queueCapacity", 2);
+
+    Method index = method(SampleController.class, "index");
+    for (int i = 0; i < 5; i++) {
+      accessLogService.record(index, "GET", "/" + i, null);
+    }
+    accessLogService.drain();
+
+    assertEquals(3, appender.list.size());
+    assertEquals(
+        "Access log queue full; dropped 3 records", appender.list.get(2).getFormattedMessage());
+    assertEquals(Level.WARN, appender.list.get(2).getLevel());
+
+    // the queue has room again after draining
+    appender.list.clear();
+    accessLogService.record(index, "GET", "/again", null);
+    accessLogService.drain();
+    assertEquals(1, appender.list.size());
+  }
+}
@@ -0,0 +1,122 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.models.BulkResult;
+import edu.ucsb.cs156.example.models.BulkResult.Row;
+import edu.ucsb.cs156.example.models.BulkResult.Status;
+import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatcher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class BulkWriteServiceTests {
+
+  private BulkWriteService bulkWriteService;
+
+  private RestaurantRepository restaurantRepository;
+
+  @BeforeEach
+  public void setup() {
+    bulkWriteService = new BulkWriteService();
+    ReflectionTestUtils.setField(bulkWriteService, "maxRows", 3);
+    restaurantRepository = mock(RestaurantRepository.class);
+  }
+
+  private static Restaurant restaurant(long id, String name) {
+    return Restaurant.builder().id(id).name(name).description("d").build();
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void create_saves_all_rows_at_once_and_reports_their_ids() {
+    when(restaurantRepository.saveAll(anyList()))
+        .thenReturn(List.of(restaurant(51, "a"), restaurant(52, "b")));
+
+    BulkResult result =
+        bulkWriteService.create(
+            List.of(restaurant(7, "a"), restaurant(8, "b")),
+            row -> Restaurant.builder().name(row.getName()).build(),
+            Restaurant::getId,
+            restaurantRepository);
+
+    assertEquals(
+        List.of(new Row(51L, Status.CREATED), new Row(52L, Status.CREATED)), result.getRows());
+    assertEquals(Map.of(Status.CREATED, 2L), result.getCounts());
+    verify(restaurantRepository)
+        .saveAll(
+            (Iterable<Restaurant>)
+                List.of(
+                    Restaurant.builder().name("a").build(),
+                    Restaurant.builder().name("b").build()));
+  }
+
+  @Test
+  void update_applies_rows_to_the_stored_entities_and_reports_missing_ids() {
+    Restaurant stored = restaurant(1, "old");
+    when(restaurantRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(stored));
+
+    BulkResult result =
+        bulkWriteService.update(
+            List.of(restaurant(1, "new"), restaurant(2, "missing")),
+            Restaurant::getId,
+            (entity, row) -> entity.setName(row.getName()),
+            restaurantRepository);
+
+    assertEquals("new", stored.getName());
+    assertEquals(
+        List.of(new Row(1L, Status.UPDATED), new Row(2L, Status.NOT_FOUND)), result.getRows());
+    assertEquals(Map.of(Status.UPDATED, 1L, Status.NOT_FOUND, 1L), result.getCounts());
+    verify(restaurantRepository).saveAll(argThat(contains(stored)));
+  }
+
+  @Test
+  void delete_removes_the_rows_that_exist() {
+    Restaurant stored = restaurant(1, "a");
+    when(restaurantRepository.findAllById(List.of(1L, 2L, 1L))).thenReturn(List.of(stored));
+
+    BulkResult result =
+        bulkWriteService.delete(List.of(1L, 2L, 1L), Restaurant::getId, restaurantRepository);
+
+    assertEquals(
+        List.of(
+            new Row(1L, Status.DELETED),
+            new Row(2L, Status.NOT_FOUND),
+            new Row(1L, Status.DELETED)),
+        result.getRows());
+    verify(restaurantRepository).deleteAll(argThat(contains(stored)));
+  }
+
+  private static ArgumentMatcher<Iterable<Restaurant>> contains(Restaurant... expected) {
+    return rows -> {
+      List<Restaurant> actual = new ArrayList<>();
+      rows.forEach(actual::add);
+      return actual.equals(List.of(expected));
+    };
+  }
+
+  @Test
+  void too_many_rows_are_rejected() {
+    List<Long> ids = List.of(1L, 2L, 3L, 4L);
+
+    IllegalArgumentException e =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> bulkWriteService.delete(ids, Restaurant::getId, restaurantRepository));
+
+    assertEquals("At most 3 rows can be written at once, not 4", e.getMessage());
+    verify(restaurantRepository, never()).findAllById(ids);
+  }
+}
@@ -0,0 +1,49 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class CsvReaderTests {
+
+  @Test
+  void reads_plain_records_and_skips_blank_lines() throws Exception {
+    CsvReader csv = new CsvReader(new StringReader("a,b,c\r\n\r\n1,,3\n\n"));
+
+    assertEquals(List.of("a", "b", "c"), csv.next());
+    assertEquals(List.of("1", "", "3"), csv.next());
+    assertNull(csv.next());
+    assertNull(csv.next());
+  }
+
+  @Test
+  void reads_quoted_fields_with_commas_quotes_and_line_breaks() throws Exception {
+    CsvReader csv = new CsvReader(new StringReader("\"x, y\",\"say \"\"hi\"\"\",\"two\nlines\""));
+
+    assertEquals(List.of("x, y", "say \"hi\"", "two\nlines"), csv.next());
+    assertNull(csv.next());
+  }
+
+  @Test
+  void reads_records_longer_than_the_buffer() throws Exception {
+    String longField = "x".repeat(20000);
+    CsvReader csv = new CsvReader(new StringReader(longField + ",end\nnext"));
+
+    assertEquals(List.of(longField, "end"), csv.next());
+    assertEquals(List.of("next"), csv.next());
+  }
+
+  @Test
+  void an_unterminated_quoted_field_is_an_error() {
+    CsvReader csv = new CsvReader(new StringReader("a,\"b"));
+
+    IOException e = assertThrows(IOException.class, csv::next);
+
+    assertEquals("File ends inside a quoted field", e.getMessage());
+  }
+}
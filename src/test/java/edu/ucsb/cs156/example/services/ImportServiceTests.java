@@ -0,0 +1,380 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.entities.ImportFile;
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItems;
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.jobs.ImportJob;
+import edu.ucsb.cs156.example.models.ImportTarget;
+import edu.ucsb.cs156.example.repositories.ImportFilesRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemsRepository;
+import edu.ucsb.cs156.example.services.jobs.JobCancelledException;
+import edu.ucsb.cs156.example.services.jobs.JobContext;
+import edu.ucsb.cs156.example.services.jobs.JobLogService;
+import edu.ucsb.cs156.example.services.jobs.JobService;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+public class ImportServiceTests {
+
+  @Mock private ImportFilesRepository importFilesRepository;
+
+  @Mock private UCSBDateRepository ucsbDateRepository;
+
+  @Mock private UCSBDiningCommonsMenuItemsRepository ucsbDiningCommonsMenuItemsRepository;
+
+  @Mock private JobService jobService;
+
+  @InjectMocks private ImportService importService;
+
+  private final JobContext ctx = mock(JobContext.class);
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    ReflectionTestUtils.setField(
+        importService,
+        "transactionTemplate",
+        new TransactionTemplate(mock(PlatformTransactionManager.class)));
+    ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+    ReflectionTestUtils.setField(importService, "mapper", mapper);
+    ReflectionTestUtils.setField(importService, "batchSize", 2);
+    ReflectionTestUtils.setField(importService, "maxLoggedErrors", 100);
+  }
+
+  private ImportFile stored(ImportTarget target, String filename, String content) {
+    ImportFile importFile =
+        ImportFile.builder()
+            .id(3L)
+            .target(target)
+            .filename(filename)
+            .content(JobLogService.compress(content))
+            .build();
+    when(importFilesRepository.findById(3L)).thenReturn(Optional.of(importFile));
+    return importFile;
+  }
+
+  /** The batches passed to saveAll; the service reuses its batch list, so each is copied. */
+  private static List<List<Object>> recordBatches(CrudRepository<?, Long> repository) {
+    List<List<Object>> batches = new ArrayList<>();
+    when(repository.saveAll(any()))
+        .thenAnswer(
+            invocation -> {
+              List<Object> batch = new ArrayList<>();
+              invocation.<Iterable<Object>>getArgument(0).forEach(batch::add);
+              batches.add(batch);
+              return batch;
+            });
+    return batches;
+  }
+
+  private static UCSBDate date(String quarter, String name, String localDateTime) {
+    return UCSBDate.builder()
+        .quarterYYYYQ(quarter)
+        .name(name)
+        .localDateTime(LocalDateTime.parse(localDateTime))
+        .build();
+  }
+
+  private static UCSBDiningCommonsMenuItems menuItem(String name) {
+    return UCSBDiningCommonsMenuItems.builder()
+        .diningCommonsCode("ortega")
+        .name(name)
+        .station("grill")
+        .build();
+  }
+
+  @Test
+  void startImport_stores_the_file_gzipped_and_queues_an_import_job() throws Exception {
+    String csv = "quarterYYYYQ,name,localDateTime\n20221,a,2022-01-01T00:00:00\n";
+    MockMultipartFile file = new MockMultipartFile("file", "dates.csv", "text/csv", csv.getBytes());
+    when(importFilesRepository.save(any()))
+        .thenAnswer(
+            invocation -> {
+              ImportFile importFile = invocation.getArgument(0);
+              importFile.setId(3L);
+              return importFile;
+            });
+    Job job = Job.builder().id(9L).status("queued").build();
+    when(jobService.runAsJob(any())).thenReturn(job);
+
+    assertSame(job, importService.startImport(ImportTarget.UCSB_DATES, file));
+
+    ArgumentCaptor<ImportFile> importFile = ArgumentCaptor.forClass(ImportFile.class);
+    verify(importFilesRepository).save(importFile.capture());
+    assertEquals(ImportTarget.UCSB_DATES, importFile.getValue().getTarget());
+    assertEquals("dates.csv", importFile.getValue().getFilename());
+    assertEquals(csv, JobLogService.decompress(importFile.getValue().getContent()));
+    ArgumentCaptor<ImportJob> importJob = ArgumentCaptor.forClass(ImportJob.class);
+    verify(jobService).runAsJob(importJob.capture());
+    assertEquals(3L, importJob.getValue().getImportFileId());
+  }
+
+  @Test
+  void startImport_accepts_json_and_ndjson_files() throws Exception {
+    when(importFilesRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+    importService.startImport(
+        ImportTarget.UCSB_DATES, new MockMultipartFile("file", "dates.JSON", null, new byte[0]));
+    importService.startImport(
+        ImportTarget.UCSB_DATES, new MockMultipartFile("file", "dates.ndjson", null, new byte[0]));
+
+    verify(jobService, times(2)).runAsJob(any());
+  }
+
+  @Test
+  void startImport_rejects_other_files() {
+    MockMultipartFile text = new MockMultipartFile("file", "dates.txt", null, new byte[0]);
+    MultipartFile unnamed = mock(MultipartFile.class);
+
+    IllegalArgumentException e =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> importService.startImport(ImportTarget.UCSB_DATES, text));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> importService.startImport(ImportTarget.UCSB_DATES, unnamed));
+
+    assertEquals(
+        "Only .csv, .json and .ndjson files can be imported, not dates.txt", e.getMessage());
+    verify(importFilesRepository, never()).save(any());
+  }
+
+  @Test
+  void runImport_imports_a_csv_file_in_batches_and_logs_bad_rows() throws Exception {
+    stored(
+        ImportTarget.UCSB_DATES,
+        "dates.csv",
+        """
+        \uFEFFid, quarterYYYYQ ,name,localDateTime
+        7,20221,"Noon, MLK day",2022-01-17T12:00:00
+        8,20222,,2022-04-01T00:00:00
+        9,20223
+        10,20224,Last day,2022-12-31T23:59:59
+        11,20231,Bad,not a date
+        """);
+    List<List<Object>> batches = recordBatches(ucsbDateRepository);
+
+    importService.runImport(ctx, 3L);
+
+    assertEquals(
+        List.of(
+            List.of(date("20221", "Noon, MLK day", "2022-01-17T12:00:00")),
+            List.of(date("20224", "Last day", "2022-12-31T23:59:59")),
+            List.of()),
+        batches);
+    InOrder inOrder = inOrder(ctx, importFilesRepository);
+    inOrder.verify(ctx).log("Importing dates.csv into UCSB_DATES");
+    inOrder.verify(ctx).log("Row 2: missing name");
+    inOrder.verify(importFilesRepository).updateProgress(3L, 2, 1, 1);
+    inOrder.verify(ctx).log(startsWith("Read 2 rows: 1 imported, 1 failed ("));
+    inOrder.verify(ctx).log("Row 3: has 2 fields but the header has 4");
+    inOrder.verify(importFilesRepository).updateProgress(3L, 4, 2, 2);
+    inOrder
+        .verify(ctx)
+        .log(startsWith("Row 5: Cannot deserialize value of type `java.time.LocalDateTime`"));
+    inOrder.verify(importFilesRepository).updateProgress(3L, 5, 2, 3);
+    inOrder.verify(importFilesRepository).clearContent(3L);
+    inOrder.verify(ctx).log("Finished importing dates.csv: 2 rows imported, 3 failed");
+  }
+
+  @Test
+  void runImport_imports_a_json_array_and_rejects_rows_that_are_not_valid_objects()
+      throws Exception {
+    stored(
+        ImportTarget.UCSB_DINING_COMMONS_MENU_ITEMS,
+        "items.json",
+        """
+        [
+          {"id": 5, "diningCommonsCode": "ortega", "name": "Taco", "station": "grill"},
+          42,
+          {"diningCommonsCode": "ortega", "name": null, "station": "grill"},
+          {"diningCommonsCode": "ortega", "name": "Soup"}
+        ]
+        """);
+    List<List<Object>> batches = recordBatches(ucsbDiningCommonsMenuItemsRepository);
+
+    importService.runImport(ctx, 3L);
+
+    assertEquals(List.of(List.of(menuItem("Taco")), List.of()), batches);
+    verify(ctx).log("Row 2: is not a JSON object");
+    verify(ctx).log("Row 3: missing name");
+    verify(ctx).log("Row 4: missing station");
+    verify(importFilesRepository).updateProgress(3L, 2, 1, 1);
+    verify(importFilesRepository).updateProgress(3L, 4, 1, 3);
+    verify(ctx).log("Finished importing items.json: 1 rows imported, 3 failed");
+  }
+
+  @Test
+  void runImport_resumes_after_the_last_committed_row() throws Exception {
+    ImportFile importFile =
+        stored(
+            ImportTarget.UCSB_DINING_COMMONS_MENU_ITEMS,
+            "items.ndjson",
+            """
+            {"diningCommonsCode": "ortega", "name": "A", "station": "grill"}
+            {"diningCommonsCode": "ortega", "name": "B", "station": "grill"}
+            {"diningCommonsCode": "ortega", "name": "C", "station": "grill"}
+            {"diningCommonsCode": "ortega", "name": "D", "station": "grill"}
+            """);
+    importFile.setRowsRead(2);
+    importFile.setRowsImported(1);
+    importFile.setRowsFailed(1);
+    List<List<Object>> batches = recordBatches(ucsbDiningCommonsMenuItemsRepository);
+
+    importService.runImport(ctx, 3L);
+
+    assertEquals(List.of(List.of(menuItem("C"), menuItem("D"))), batches);
+    verify(ctx).log("Resuming import of items.ndjson after row 2");
+    verify(importFilesRepository).updateProgress(3L, 4, 3, 1);
+    verify(ctx).log("Finished importing items.ndjson: 3 rows imported, 1 failed");
+  }
+
+  @Test
+  void runImport_inserts_a_rejected_batch_row_by_row_and_skips_the_rows_the_database_rejects()
+      throws Exception {
+    ReflectionTestUtils.setField(importService, "batchSize", 3);
+    String tooLong = "x".repeat(300);
+    stored(
+        ImportTarget.UCSB_DINING_COMMONS_MENU_ITEMS,
+        "items.csv",
+        """
+        diningCommonsCode,name,station
+        ortega,A,grill
+        ortega,,grill
+        ortega,%s,grill
+        """
+            .formatted(tooLong));
+    when(ucsbDiningCommonsMenuItemsRepository.saveAll(any()))
+        .thenThrow(new DataIntegrityViolationException("batch rejected"));
+    when(ucsbDiningCommonsMenuItemsRepository.save(menuItem(tooLong)))
+        .thenThrow(
+            new DataIntegrityViolationException(
+                "could not execute statement",
+                new SQLException("Value too long for column \"NAME\"\nSQL statement: insert")));
+
+    importService.runImport(ctx, 3L);
+
+    verify(ucsbDiningCommonsMenuItemsRepository).save(menuItem("A"));
+    InOrder inOrder = inOrder(ctx, importFilesRepository);
+    inOrder.verify(ctx).log("Row 2: missing name");
+    inOrder.verify(importFilesRepository).updateProgress(3L, 1, 1, 0);
+    inOrder.verify(ctx).log("Row 3: rejected by the database: Value too long for column \"NAME\"");
+    inOrder.verify(importFilesRepository).updateProgress(3L, 3, 1, 2);
+    inOrder.verify(ctx).log(startsWith("Read 3 rows: 1 imported, 2 failed ("));
+    inOrder.verify(ctx).log("Finished importing items.csv: 1 rows imported, 2 failed");
+  }
+
+  @Test
+  void runImport_fails_on_a_transient_database_error_so_a_retry_resumes() throws Exception {
+    stored(
+        ImportTarget.UCSB_DINING_COMMONS_MENU_ITEMS,
+        "items.csv",
+        "diningCommonsCode,name,station\nortega,A,grill\n");
+    when(ucsbDiningCommonsMenuItemsRepository.saveAll(any()))
+        .thenThrow(new QueryTimeoutException("statement timed out"));
+
+    assertThrows(QueryTimeoutException.class, () -> importService.runImport(ctx, 3L));
+
+    verify(ucsbDiningCommonsMenuItemsRepository, never()).save(any());
+    verify(importFilesRepository, never())
+        .updateProgress(anyLong(), anyLong(), anyLong(), anyLong());
+  }
+
+  @Test
+  void runImport_stops_logging_row_errors_after_the_limit() throws Exception {
+    ReflectionTestUtils.setField(importService, "maxLoggedErrors", 1);
+    stored(ImportTarget.UCSB_DATES, "dates.csv", "name\na\nb\nc\n");
+
+    importService.runImport(ctx, 3L);
+
+    verify(ctx).log("Row 1: missing quarterYYYYQ");
+    verify(ctx).log("More than 1 rows failed; further errors are counted but not logged");
+    verify(ctx, never()).log("Row 2: missing quarterYYYYQ");
+    verify(ctx, never()).log("Row 3: missing quarterYYYYQ");
+    verify(ctx).log("Finished importing dates.csv: 0 rows imported, 3 failed");
+  }
+
+  @Test
+  void runImport_of_empty_files_imports_nothing() throws Exception {
+    stored(ImportTarget.UCSB_DATES, "dates.csv", "");
+    importService.runImport(ctx, 3L);
+    stored(ImportTarget.UCSB_DATES, "dates.json", "");
+    importService.runImport(ctx, 3L);
+
+    verify(ucsbDateRepository, never()).saveAll(any());
+    verify(importFilesRepository, never())
+        .updateProgress(anyLong(), anyLong(), anyLong(), anyLong());
+    verify(ctx).log("Finished importing dates.csv: 0 rows imported, 0 failed");
+    verify(ctx).log("Finished importing dates.json: 0 rows imported, 0 failed");
+  }
+
+  @Test
+  void runImport_stops_before_committing_when_the_job_is_cancelled() {
+    stored(ImportTarget.UCSB_DATES, "dates.csv", "name\na\nb\n");
+    doThrow(new JobCancelledException(1L, "cancelled")).when(ctx).checkpoint();
+
+    assertThrows(JobCancelledException.class, () -> importService.runImport(ctx, 3L));
+
+    verify(importFilesRepository, never())
+        .updateProgress(anyLong(), anyLong(), anyLong(), anyLong());
+    verify(importFilesRepository, never()).clearContent(3L);
+  }
+
+  @Test
+  void runImport_does_nothing_when_the_import_has_finished() throws Exception {
+    ImportFile importFile = stored(ImportTarget.UCSB_DATES, "dates.csv", "");
+    importFile.setContent(null);
+
+    importService.runImport(ctx, 3L);
+
+    verify(ctx).log("Import of dates.csv has already finished");
+    verify(importFilesRepository, never()).clearContent(3L);
+  }
+
+  @Test
+  void runImport_throws_when_the_file_does_not_exist() {
+    when(importFilesRepository.findById(3L)).thenReturn(Optional.empty());
+
+    EntityNotFoundException e =
+        assertThrows(EntityNotFoundException.class, () -> importService.runImport(ctx, 3L));
+
+    assertEquals("ImportFile with id 3 not found", e.getMessage());
+  }
+}
@@ -5,7 +5,9 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
 import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
 import edu.ucsb.cs156.example.repositories.JobsRepository;
+import edu.ucsb.cs156.example.services.jobs.JobLogService;
 import edu.ucsb.cs156.example.services.jobs.JobService;
 import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
@@ -16,6 +18,8 @@ public class JobLogsServiceTests {
 
   @Mock private JobsRepository jobRepository;
 
+  @Mock private JobLogService jobLogService;
+
   @InjectMocks private JobService jobService;
 
   @BeforeEach
@@ -28,8 +32,8 @@ public class JobLogsServiceTests {
     // Arrange
     Long jobId = 1L;
     Job job = Job.builder().build();
-    job.setLog("This is a job log");
     when(jobRepository.findById(jobId)).thenReturn(Optional.of(job));
+    when(jobLogService.getLog(job)).thenReturn("This is a job log");
 
     // Act
     String result = jobService.getJobLogs(jobId);
@@ -38,21 +42,6 @@ public class JobLogsServiceTests {
     assertEquals("This is a job log", result);
   }
 
-  @Test
-  void test_getJobLogs_with_null_log() {
-    // Arrange
-    Long jobId = 2L;
-    Job job = Job.builder().build();
-    job.setLog(null);
-    when(jobRepository.findById(jobId)).thenReturn(Optional.of(job));
-
-    // Act
-    String result = jobService.getJobLogs(jobId);
-
-    // Assert
-    assertEquals("", result);
-  }
-
   @Test
   void test_getJobLogs_job_not_found() {
     // Arrange
@@ -60,6 +49,8 @@ public class JobLogsServiceTests {
     when(jobRepository.findById(jobId)).thenReturn(Optional.empty());
 
     // Act & Assert
-    assertThrows(IllegalArgumentException.class, () -> jobService.getJobLogs(jobId));
+    EntityNotFoundException e =
+        assertThrows(EntityNotFoundException.class, () -> jobService.getJobLogs(jobId));
+    assertEquals("Job with id 3 not found", e.getMessage());
   }
 }
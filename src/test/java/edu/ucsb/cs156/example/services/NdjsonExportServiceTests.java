@@ -0,0 +1,108 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.entities.Restaurant;
+import jakarta.persistence.EntityManager;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+public class NdjsonExportServiceTests {
+
+  private final NdjsonExportService ndjsonExportService = new NdjsonExportService();
+
+  private final EntityManager entityManager = mock(EntityManager.class);
+
+  private final PlatformTransactionManager transactionManager =
+      mock(PlatformTransactionManager.class);
+
+  private final Restaurant first =
+      Restaurant.builder().id(1L).name("Taco Bell").description("Mexican").build();
+
+  private final Restaurant second =
+      Restaurant.builder().id(2L).name("Chipotle").description("Mexican").build();
+
+  @BeforeEach
+  public void setup() {
+    ReflectionTestUtils.setField(ndjsonExportService, "mapper", new ObjectMapper());
+    ReflectionTestUtils.setField(ndjsonExportService, "entityManager", entityManager);
+    ReflectionTestUtils.setField(ndjsonExportService, "transactionManager", transactionManager);
+    when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+  }
+
+  @Test
+  void rows_are_written_one_per_line_and_detached() throws Exception {
+    // arrange
+    AtomicBoolean closed = new AtomicBoolean();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    // act
+    ResponseEntity<StreamingResponseBody> response =
+        ndjsonExportService.export(() -> Stream.of(first, second).onClose(() -> closed.set(true)));
+    response.getBody().writeTo(out);
+
+    // assert
+    assertEquals(NdjsonExportService.APPLICATION_NDJSON, response.getHeaders().getContentType());
+    assertEquals(
+        """
+        {"id":1,"name":"Taco Bell","description":"Mexican"}
+        {"id":2,"name":"Chipotle","description":"Mexican"}
+        """,
+        out.toString());
+    verify(entityManager).detach(first);
+    verify(entityManager).detach(second);
+    assertTrue(closed.get(), "the stream of rows was not closed");
+  }
+
+  @Test
+  void rows_are_read_in_a_read_only_transaction() {
+    ndjsonExportService.write(Stream::of, new ByteArrayOutputStream());
+
+    ArgumentCaptor<TransactionDefinition> definition =
+        ArgumentCaptor.forClass(TransactionDefinition.class);
+    verify(transactionManager).getTransaction(definition.capture());
+    assertTrue(definition.getValue().isReadOnly());
+  }
+
+  @Test
+  void write_errors_are_rethrown() {
+    OutputStream broken =
+        new OutputStream() {
+          @Override
+          public void write(int b) throws IOException {
+            throw new IOException("client went away");
+          }
+
+          @Override
+          public void write(byte[] b, int off, int len) throws IOException {
+            throw new IOException("client went away");
+          }
+        };
+
+    UncheckedIOException e =
+        assertThrows(
+            UncheckedIOException.class,
+            () -> ndjsonExportService.write(() -> Stream.of(first), broken));
+    assertEquals("client went away", e.getCause().getMessage());
+  }
+}
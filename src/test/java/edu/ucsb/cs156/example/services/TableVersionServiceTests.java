@@ -0,0 +1,83 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+public class TableVersionServiceTests {
+
+  private TableVersionService tableVersionService;
+
+  @BeforeEach
+  public void setup() {
+    tableVersionService = new TableVersionService();
+    ReflectionTestUtils.setField(tableVersionService, "maxAgeSeconds", 300L);
+  }
+
+  @Test
+  void versions_start_at_zero_and_are_bumped_per_type() {
+    assertEquals(0, tableVersionService.getVersion(Restaurant.class));
+
+    tableVersionService.bump(Restaurant.class);
+    tableVersionService.bump(Restaurant.class);
+
+    assertEquals(2, tableVersionService.getVersion(Restaurant.class));
+    assertEquals(0, tableVersionService.getVersion(UCSBDate.class));
+  }
+
+  @Test
+  void etags_are_strong_and_change_with_the_version() {
+    String before = tableVersionService.etag(Restaurant.class);
+    assertTrue(before.matches("\"Restaurant-[0-9a-f]{8}-\\d+-0\""), before);
+
+    tableVersionService.bump(Restaurant.class);
+
+    assertNotEquals(before, tableVersionService.etag(Restaurant.class));
+  }
+
+  @Test
+  void etags_differ_between_instances() {
+    TableVersionService other = new TableVersionService();
+    ReflectionTestUtils.setField(other, "maxAgeSeconds", 300L);
+
+    assertNotEquals(tableVersionService.etag(Restaurant.class), other.etag(Restaurant.class));
+  }
+
+  @Test
+  void a_matching_if_none_match_header_is_not_modified() {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/restaurants/all");
+    request.addHeader("If-None-Match", tableVersionService.etag(Restaurant.class));
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    assertTrue(
+        tableVersionService.checkNotModified(
+            new ServletWebRequest(request, response), Restaurant.class));
+    assertEquals(304, response.getStatus());
+    assertEquals("private, no-cache", response.getHeader("Cache-Control"));
+  }
+
+  @Test
+  void a_stale_if_none_match_header_gets_the_current_etag() {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/restaurants/all");
+    request.addHeader("If-None-Match", tableVersionService.etag(Restaurant.class));
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    tableVersionService.bump(Restaurant.class);
+
+    assertFalse(
+        tableVersionService.checkNotModified(
+            new ServletWebRequest(request, response), Restaurant.class));
+    assertEquals(200, response.getStatus());
+    assertEquals(tableVersionService.etag(Restaurant.class), response.getHeader("ETag"));
+    assertEquals("private, no-cache", response.getHeader("Cache-Control"));
+  }
+}
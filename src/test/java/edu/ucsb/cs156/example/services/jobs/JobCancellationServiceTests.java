@@ -0,0 +1,132 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class JobCancellationServiceTests {
+
+  @Mock private JobsRepository jobsRepository;
+
+  @Mock private JobDispatcher jobDispatcher;
+
+  @InjectMocks private JobCancellationService jobCancellationService;
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    ReflectionTestUtils.setField(jobCancellationService, "defaultMaxRuntimeMs", 60000L);
+    when(jobDispatcher.getInstanceId()).thenReturn("instance-1");
+  }
+
+  @AfterEach
+  public void clearInterrupt() {
+    Thread.interrupted();
+  }
+
+  @Test
+  void register_uses_the_default_max_runtime() {
+    Instant before = Instant.now();
+
+    RunningJob running = jobCancellationService.register(Job.builder().id(1L).build());
+
+    assertFalse(running.getDeadline().isBefore(before.plusMillis(60000)));
+    assertTrue(running.getDeadline().isBefore(Instant.now().plusMillis(60001)));
+  }
+
+  @Test
+  void register_uses_the_jobs_own_max_runtime() {
+    Instant before = Instant.now();
+
+    RunningJob running =
+        jobCancellationService.register(Job.builder().id(1L).maxRuntimeMs(10L).build());
+
+    assertFalse(running.getDeadline().isBefore(before.plusMillis(10)));
+    assertTrue(running.getDeadline().isBefore(Instant.now().plusMillis(11)));
+  }
+
+  @Test
+  void stop_interrupts_a_job_running_here() throws Exception {
+    AtomicReference<RunningJob> running = new AtomicReference<>();
+    CountDownLatch started = new CountDownLatch(1);
+    AtomicBoolean interrupted = new AtomicBoolean(false);
+    Thread thread =
+        new Thread(
+            () -> {
+              running.set(jobCancellationService.register(Job.builder().id(1L).build()));
+              started.countDown();
+              try {
+                Thread.sleep(30000);
+              } catch (InterruptedException e) {
+                interrupted.set(true);
+              }
+            });
+    thread.start();
+    started.await();
+
+    assertTrue(jobCancellationService.stop(1L, "cancelled"));
+    thread.join(10000);
+
+    assertTrue(interrupted.get());
+    assertEquals("cancelled", running.get().getStopStatus());
+    assertFalse(jobCancellationService.stop(1L, "timeout"));
+    assertEquals("cancelled", running.get().getStopStatus());
+  }
+
+  @Test
+  void stop_ignores_jobs_not_running_here() {
+    assertFalse(jobCancellationService.stop(1L, "cancelled"));
+  }
+
+  @Test
+  void unregistered_jobs_are_not_stopped_and_their_interrupt_is_cleared() {
+    RunningJob running = jobCancellationService.register(Job.builder().id(1L).build());
+    Thread.currentThread().interrupt();
+
+    jobCancellationService.unregister(running);
+
+    assertFalse(Thread.currentThread().isInterrupted());
+    assertFalse(jobCancellationService.stop(1L, "cancelled"));
+    assertFalse(running.stop("cancelled"));
+    assertNull(running.getStopStatus());
+  }
+
+  @Test
+  void checkRunningJobs_stops_jobs_past_their_deadline() {
+    RunningJob late =
+        jobCancellationService.register(Job.builder().id(1L).maxRuntimeMs(-1L).build());
+    RunningJob onTime = jobCancellationService.register(Job.builder().id(2L).build());
+
+    jobCancellationService.checkRunningJobs();
+
+    assertEquals("timeout", late.getStopStatus());
+    assertNull(onTime.getStopStatus());
+  }
+
+  @Test
+  void checkRunningJobs_stops_jobs_someone_asked_to_cancel() {
+    RunningJob running = jobCancellationService.register(Job.builder().id(2L).build());
+    when(jobsRepository.findCancelRequestedIds("instance-1")).thenReturn(List.of(2L, 3L));
+
+    jobCancellationService.checkRunningJobs();
+
+    assertEquals("cancelled", running.getStopStatus());
+  }
+}
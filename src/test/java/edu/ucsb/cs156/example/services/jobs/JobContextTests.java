@@ -1,23 +1,106 @@
 package edu.ucsb.cs156.example.services.jobs;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobLogChunk;
+import edu.ucsb.cs156.example.repositories.JobLogChunkRepository;
+import java.time.Instant;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 
 public class JobContextTests {
+  private final JobStreamService jobStreamService = mock(JobStreamService.class);
+
+  private final RunningJob running =
+      new RunningJob(Job.builder().id(17L).build(), Thread.currentThread(), Instant.MAX);
+
   @Test
-  public void when_jobs_repository_is_null_does_not_save() throws Exception {
+  public void log_appends_to_the_current_chunk() throws Exception {
 
     // arrange
 
-    Job job1 = Job.builder().build();
-    JobContext ctx = new JobContext(null, job1);
+    JobLogChunkRepository jobLogChunkRepository = mock(JobLogChunkRepository.class);
+    Job job1 = Job.builder().id(17L).build();
+    JobContext ctx =
+        new JobContext(
+            job1,
+            new JobLogWriter(jobLogChunkRepository, job1, 100, false, 50),
+            jobStreamService,
+            running);
 
     // act
     ctx.log("This is a log message");
+    ctx.log("This is another log message");
 
     // assert
-    assertEquals("This is a log message", job1.getLog());
+    ArgumentCaptor<JobLogChunk> captor = ArgumentCaptor.forClass(JobLogChunk.class);
+    verify(jobLogChunkRepository, times(2)).save(captor.capture());
+    JobLogChunk chunk = captor.getValue();
+    assertEquals(17L, chunk.getJobId());
+    assertEquals(0, chunk.getSeq());
+    assertEquals(2, chunk.getLineCount());
+    assertEquals("This is a log message\nThis is another log message", chunk.getContent());
+    verify(jobStreamService, times(1)).publishLog(job1, 1, "This is a log message");
+    verify(jobStreamService, times(1)).publishLog(job1, 2, "This is another log message");
+  }
+
+  @Test
+  public void log_starts_a_new_chunk_when_the_current_one_is_full() throws Exception {
+
+    // arrange
+
+    JobLogChunkRepository jobLogChunkRepository = mock(JobLogChunkRepository.class);
+    Job job1 = Job.builder().id(17L).build();
+    JobContext ctx =
+        new JobContext(
+            job1,
+            new JobLogWriter(jobLogChunkRepository, job1, 2, false, 50),
+            jobStreamService,
+            running);
+
+    // act
+    ctx.log("line 1");
+    ctx.log("line 2");
+    ctx.log("line 3");
+
+    // assert
+    ArgumentCaptor<JobLogChunk> captor = ArgumentCaptor.forClass(JobLogChunk.class);
+    verify(jobLogChunkRepository, times(3)).save(captor.capture());
+    JobLogChunk first = captor.getAllValues().get(0);
+    JobLogChunk second = captor.getAllValues().get(2);
+    assertEquals(0, first.getSeq());
+    assertEquals("line 1\nline 2", first.getContent());
+    assertEquals(1, second.getSeq());
+    assertEquals(1, second.getLineCount());
+    assertEquals("line 3", second.getContent());
+  }
+
+  @Test
+  public void checkpoint_does_nothing_until_the_job_is_stopped() {
+    Job job1 = Job.builder().id(17L).build();
+    JobContext ctx = new JobContext(job1, mock(JobLogWriter.class), jobStreamService, running);
+
+    assertFalse(ctx.isCancelled());
+    ctx.checkpoint();
+  }
+
+  @Test
+  public void checkpoint_throws_once_the_job_is_stopped() {
+    Job job1 = Job.builder().id(17L).build();
+    JobContext ctx = new JobContext(job1, mock(JobLogWriter.class), jobStreamService, running);
+
+    running.stop("cancelled");
+    running.finish();
+
+    assertTrue(ctx.isCancelled());
+    JobCancelledException e = assertThrows(JobCancelledException.class, ctx::checkpoint);
+    assertEquals("Job 17 stopped: cancelled", e.getMessage());
   }
 }
@@ -0,0 +1,357 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.jobs.TestJob;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+public class JobDispatcherTests {
+
+  @Mock private JobsRepository jobsRepository;
+
+  @Mock private UserRepository userRepository;
+
+  @Mock private JobService jobService;
+
+  @Mock private TransactionTemplate transactionTemplate;
+
+  @Spy private ObjectMapper mapper = new ObjectMapper();
+
+  @InjectMocks private JobDispatcher jobDispatcher;
+
+  private final List<Job> started = new ArrayList<>();
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    ReflectionTestUtils.setField(jobDispatcher, "maxRunning", 2);
+    ReflectionTestUtils.setField(jobDispatcher, "maxRunningPerUser", 1);
+    ReflectionTestUtils.setField(jobDispatcher, "batchSize", 50);
+    ReflectionTestUtils.setField(jobDispatcher, "instanceId", "instance-1");
+    ReflectionTestUtils.setField(jobDispatcher, "staleAfterMs", 60000L);
+    when(transactionTemplate.execute(any()))
+        .thenAnswer(
+            invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    doAnswer(invocation -> started.add(invocation.getArgument(0)))
+        .when(jobService)
+        .runJobAsync(any(Job.class), any(JobContextConsumer.class));
+  }
+
+  @AfterEach
+  public void clearSecurityContext() {
+    SecurityContextHolder.clearContext();
+  }
+
+  private Job queuedJob(long id, long userId, int priority) {
+    return Job.builder().id(id).createdById(userId).priority(priority).status("queued").build();
+  }
+
+  private void queue(Job... jobs) {
+    when(jobsRepository.findByStatusOrderByPriorityDescIdAsc(eq("queued"), any(Pageable.class)))
+        .thenReturn(List.of(jobs));
+  }
+
+  private void enqueueAll(Job... jobs) {
+    for (Job job : jobs) {
+      jobDispatcher.enqueue(job, ctx -> {});
+    }
+    started.clear();
+  }
+
+  @Test
+  void dispatch_does_nothing_when_max_running_reached() {
+    Job job = queuedJob(1L, 10L, 0);
+    when(jobsRepository.countByStatusAndClaimedBy("running", "instance-1")).thenReturn(2L);
+    jobDispatcher.enqueue(job, ctx -> {});
+
+    verify(jobsRepository, never()).findByStatusOrderByPriorityDescIdAsc(any(), any());
+    verify(jobService, never()).runJobAsync(any(Job.class), any(JobContextConsumer.class));
+    assertEquals("queued", job.getStatus());
+  }
+
+  @Test
+  void dispatch_starts_highest_priority_first_up_to_max_running() {
+    Job low = queuedJob(1L, 10L, JobService.PRIORITY_LOW);
+    Job normal = queuedJob(2L, 11L, JobService.PRIORITY_NORMAL);
+    Job high = queuedJob(3L, 12L, JobService.PRIORITY_HIGH);
+    enqueueAll(low, normal, high);
+    queue(low, normal, high);
+
+    jobDispatcher.dispatch();
+
+    assertEquals(List.of(high, normal), started);
+    assertEquals("running", high.getStatus());
+    assertEquals("running", normal.getStatus());
+    assertEquals("instance-1", high.getClaimedBy());
+    assertEquals("queued", low.getStatus());
+    verify(jobsRepository, times(1)).save(high);
+    verify(jobsRepository, times(1)).save(normal);
+  }
+
+  @Test
+  void dispatch_locks_the_users_before_counting_their_running_jobs() {
+    Job job1 = queuedJob(1L, 11L, 0);
+    Job job2 = queuedJob(2L, 10L, 0);
+    Job anonymous = Job.builder().id(3L).priority(0).status("queued").build();
+    enqueueAll(job1, job2, anonymous);
+    queue(job1, job2, anonymous);
+
+    jobDispatcher.dispatch();
+
+    InOrder inOrder = inOrder(userRepository, jobsRepository);
+    inOrder.verify(userRepository).lockByIdIn(Set.of(10L, 11L));
+    inOrder.verify(jobsRepository).countByStatusAndCreatedById("running", 11L);
+  }
+
+  @Test
+  void dispatch_locks_no_users_for_jobs_without_one() {
+    Job anonymous = Job.builder().id(3L).priority(0).status("queued").build();
+    enqueueAll(anonymous);
+    queue(anonymous);
+
+    jobDispatcher.dispatch();
+
+    verify(userRepository, never()).lockByIdIn(any());
+  }
+
+  @Test
+  void dispatch_respects_per_user_limit_and_prefers_users_with_fewer_running_jobs() {
+    Job busyUserJob = queuedJob(1L, 10L, 0);
+    Job busyUserJob2 = queuedJob(2L, 10L, 0);
+    Job idleUserJob = queuedJob(3L, 11L, 0);
+    ReflectionTestUtils.setField(jobDispatcher, "maxRunning", 3);
+    ReflectionTestUtils.setField(jobDispatcher, "maxRunningPerUser", 2);
+    when(jobsRepository.countByStatusAndCreatedById("running", 10L)).thenReturn(1L);
+    when(jobsRepository.countByStatusAndCreatedById("running", 11L)).thenReturn(0L);
+    enqueueAll(busyUserJob, busyUserJob2, idleUserJob);
+    queue(busyUserJob, busyUserJob2, idleUserJob);
+
+    jobDispatcher.dispatch();
+
+    assertEquals(List.of(idleUserJob, busyUserJob), started);
+    assertEquals("queued", busyUserJob2.getStatus());
+  }
+
+  @Test
+  void dispatch_skips_jobs_that_were_not_enqueued_here() {
+    Job unknown = queuedJob(1L, 10L, 0);
+    Job known = queuedJob(2L, 11L, 0);
+    enqueueAll(known);
+    queue(unknown, known);
+
+    jobDispatcher.dispatch();
+
+    assertEquals(List.of(known), started);
+    assertEquals("queued", unknown.getStatus());
+  }
+
+  @Test
+  void dispatch_does_not_start_the_same_job_twice() {
+    Job job = queuedJob(1L, 10L, 0);
+    enqueueAll(job);
+    queue(job);
+
+    jobDispatcher.dispatch();
+    jobDispatcher.dispatch();
+
+    assertEquals(List.of(job), started);
+  }
+
+  @Test
+  void dispatch_requeues_claimed_jobs_when_executor_rejects_them() {
+    Job job = queuedJob(1L, 10L, 0);
+    Job job2 = queuedJob(2L, 11L, 0);
+    enqueueAll(job, job2);
+    queue(job, job2);
+    doThrow(new TaskRejectedException("full"))
+        .when(jobService)
+        .runJobAsync(any(Job.class), any(JobContextConsumer.class));
+
+    jobDispatcher.dispatch();
+
+    assertEquals("queued", job.getStatus());
+    assertEquals("queued", job2.getStatus());
+    assertNull(job.getClaimedBy());
+    verify(jobService, times(1)).runJobAsync(eq(job), any(JobContextConsumer.class));
+    verify(jobService, never()).runJobAsync(eq(job2), any(JobContextConsumer.class));
+    verify(jobsRepository, times(2)).save(job);
+    verify(jobsRepository, times(2)).save(job2);
+
+    doAnswer(invocation -> started.add(invocation.getArgument(0)))
+        .when(jobService)
+        .runJobAsync(any(Job.class), any(JobContextConsumer.class));
+    jobDispatcher.dispatch();
+    assertEquals(List.of(job, job2), started);
+  }
+
+  @Test
+  void dispatch_rebuilds_persistent_jobs_queued_by_other_instances() throws Exception {
+    AtomicReference<JobContextConsumer> jobFunction = new AtomicReference<>();
+    AtomicReference<Authentication> seen = new AtomicReference<>();
+    doAnswer(
+            invocation -> {
+              jobFunction.set(invocation.getArgument(1));
+              seen.set(SecurityContextHolder.getContext().getAuthentication());
+              return null;
+            })
+        .when(jobService)
+        .runJobAsync(any(Job.class), any(JobContextConsumer.class));
+    Job job = queuedJob(1L, 10L, 0);
+    job.setJobType(TestJob.class.getName());
+    job.setPayload("{\"fail\":true,\"sleepMs\":5}");
+    queue(job);
+
+    jobDispatcher.dispatch();
+
+    assertEquals("running", job.getStatus());
+    TestJob testJob = (TestJob) jobFunction.get();
+    assertTrue(testJob.getFail());
+    assertEquals(5, testJob.getSleepMs());
+    assertNull(seen.get());
+  }
+
+  @Test
+  void dispatch_skips_jobs_that_cannot_be_rebuilt() {
+    Job missingClass = queuedJob(1L, 10L, 0);
+    missingClass.setJobType("edu.ucsb.cs156.example.jobs.NoSuchJob");
+    Job notAJob = queuedJob(2L, 11L, 0);
+    notAJob.setJobType(String.class.getName());
+    notAJob.setPayload("\"hello\"");
+    queue(missingClass, notAJob);
+
+    jobDispatcher.dispatch();
+
+    assertEquals(List.of(), started);
+    assertEquals("queued", missingClass.getStatus());
+    assertEquals("queued", notAJob.getStatus());
+  }
+
+  @Test
+  void heartbeat_touches_jobs_claimed_by_this_instance() {
+    jobDispatcher.heartbeat();
+
+    verify(jobsRepository, times(1)).heartbeat(eq("instance-1"), any(ZonedDateTime.class));
+  }
+
+  @Test
+  void reclaimAbandonedJobs_uses_a_cutoff_of_stale_after_ms() {
+    ArgumentCaptor<ZonedDateTime> cutoff = ArgumentCaptor.forClass(ZonedDateTime.class);
+    ZonedDateTime before = ZonedDateTime.now().minusSeconds(60);
+
+    jobDispatcher.reclaimAbandonedJobs();
+
+    verify(jobsRepository, times(1)).cancelAbandoned(cutoff.capture());
+    verify(jobsRepository, times(1)).requeueAbandoned(cutoff.getValue());
+    verify(jobsRepository, times(1)).failAbandoned(cutoff.getValue());
+    assertFalse(cutoff.getValue().isBefore(before));
+    assertTrue(cutoff.getValue().isBefore(ZonedDateTime.now().minusSeconds(59)));
+  }
+
+  @Test
+  void reclaimAbandonedJobs_reports_cancelled_requeued_and_failed_jobs() {
+    when(jobsRepository.cancelAbandoned(any(ZonedDateTime.class))).thenReturn(0, 0, 3);
+    when(jobsRepository.requeueAbandoned(any(ZonedDateTime.class))).thenReturn(2, 0, 0);
+    when(jobsRepository.failAbandoned(any(ZonedDateTime.class))).thenReturn(0, 1, 0);
+
+    jobDispatcher.reclaimAbandonedJobs();
+    jobDispatcher.reclaimAbandonedJobs();
+    jobDispatcher.reclaimAbandonedJobs();
+
+    verify(jobsRepository, times(3)).cancelAbandoned(any(ZonedDateTime.class));
+    verify(jobsRepository, times(3)).requeueAbandoned(any(ZonedDateTime.class));
+    verify(jobsRepository, times(3)).failAbandoned(any(ZonedDateTime.class));
+  }
+
+  @Test
+  void cancelQueued_forgets_the_cancelled_job() {
+    Job job = queuedJob(1L, 10L, 0);
+    JobContextConsumer consumer = ctx -> {};
+    jobDispatcher.enqueue(job, consumer);
+    when(jobsRepository.cancelQueued(eq(1L), any(ZonedDateTime.class))).thenReturn(1);
+    when(jobsRepository.findByStatusOrderByPriorityDescIdAsc(eq("queued"), any()))
+        .thenReturn(List.of(job));
+
+    assertTrue(jobDispatcher.cancelQueued(1L));
+    jobDispatcher.dispatch();
+
+    verify(jobService, never()).runJobAsync(job, consumer);
+  }
+
+  @Test
+  void cancelQueued_returns_false_when_job_is_not_queued() {
+    when(jobsRepository.cancelQueued(eq(1L), any(ZonedDateTime.class))).thenReturn(0);
+
+    assertFalse(jobDispatcher.cancelQueued(1L));
+  }
+
+  @Test
+  void getInstanceId_returns_the_configured_id() {
+    assertEquals("instance-1", jobDispatcher.getInstanceId());
+  }
+
+  @Test
+  void job_is_started_with_the_security_context_of_the_user_who_queued_it() {
+    Authentication submitter = new TestingAuthenticationToken("admin", "password");
+    Authentication scheduler = new TestingAuthenticationToken("scheduler", "password");
+    AtomicReference<Authentication> seen = new AtomicReference<>();
+    doAnswer(
+            invocation -> {
+              seen.set(SecurityContextHolder.getContext().getAuthentication());
+              return null;
+            })
+        .when(jobService)
+        .runJobAsync(any(Job.class), any(JobContextConsumer.class));
+
+    Job job = queuedJob(1L, 10L, 0);
+    when(jobsRepository.countByStatusAndClaimedBy("running", "instance-1")).thenReturn(2L);
+    SecurityContextHolder.getContext().setAuthentication(submitter);
+    jobDispatcher.enqueue(job, ctx -> {});
+
+    SecurityContextHolder.clearContext();
+    SecurityContextHolder.getContext().setAuthentication(scheduler);
+    when(jobsRepository.countByStatusAndClaimedBy("running", "instance-1")).thenReturn(0L);
+    queue(job);
+    jobDispatcher.dispatch();
+
+    assertSame(submitter, seen.get());
+    assertSame(scheduler, SecurityContextHolder.getContext().getAuthentication());
+  }
+}
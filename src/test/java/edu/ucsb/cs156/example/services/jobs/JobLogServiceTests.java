@@ -0,0 +1,247 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mockConstruction;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobLogChunk;
+import edu.ucsb.cs156.example.repositories.JobLogChunkRepository;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockedConstruction;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class JobLogServiceTests {
+
+  @Mock private JobLogChunkRepository jobLogChunkRepository;
+
+  @Mock private JobsRepository jobsRepository;
+
+  @InjectMocks private JobLogService jobLogService;
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+  }
+
+  @Test
+  void getLog_stitches_chunks_in_order() {
+    Job job = Job.builder().id(5L).build();
+    JobLogChunk c0 = JobLogChunk.builder().jobId(5L).seq(0).content("a\nb").build();
+    JobLogChunk c1 = JobLogChunk.builder().jobId(5L).seq(1).content("c").build();
+    when(jobLogChunkRepository.findAllByJobIdOrderBySeqAsc(5L)).thenReturn(List.of(c0, c1));
+
+    assertEquals("a\nb\nc", jobLogService.getLog(job));
+  }
+
+  @Test
+  void getLog_falls_back_to_legacy_log_column() {
+    Job job = Job.builder().id(6L).log("legacy log").build();
+    when(jobLogChunkRepository.findAllByJobIdOrderBySeqAsc(6L)).thenReturn(List.of());
+
+    assertEquals("legacy log", jobLogService.getLog(job));
+  }
+
+  @Test
+  void getLog_returns_empty_string_when_there_is_no_log() {
+    Job job = Job.builder().id(7L).build();
+    when(jobLogChunkRepository.findAllByJobIdOrderBySeqAsc(7L)).thenReturn(List.of());
+
+    assertEquals("", jobLogService.getLog(job));
+  }
+
+  @Test
+  void openWriter_returns_writer_for_job() {
+    Job job = Job.builder().id(8L).build();
+    JobLogWriter writer = jobLogService.openWriter(job);
+    writer.append("hello");
+
+    verify(jobLogChunkRepository, times(1)).save(any(JobLogChunk.class));
+  }
+
+  @Test
+  void flushAll_flushes_open_buffered_writers() {
+    ReflectionTestUtils.setField(jobLogService, "buffered", true);
+    ReflectionTestUtils.setField(jobLogService, "flushLines", 50);
+    ReflectionTestUtils.setField(jobLogService, "linesPerChunk", 100);
+    JobLogWriter writer = jobLogService.openWriter(Job.builder().id(9L).build());
+    writer.append("hello");
+    verify(jobLogChunkRepository, never()).save(any(JobLogChunk.class));
+
+    jobLogService.flushAll();
+
+    verify(jobLogChunkRepository, times(1)).save(any(JobLogChunk.class));
+  }
+
+  @Test
+  void close_flushes_writer_and_stops_tracking_it() {
+    ReflectionTestUtils.setField(jobLogService, "buffered", true);
+    ReflectionTestUtils.setField(jobLogService, "flushLines", 50);
+    ReflectionTestUtils.setField(jobLogService, "linesPerChunk", 100);
+    JobLogWriter writer = jobLogService.openWriter(Job.builder().id(9L).build());
+    writer.append("hello");
+
+    jobLogService.close(writer);
+    verify(jobLogChunkRepository, times(1)).save(any(JobLogChunk.class));
+
+    writer.append("world");
+    jobLogService.flushAll();
+    verify(jobLogChunkRepository, times(1)).save(any(JobLogChunk.class));
+  }
+
+  @Test
+  void flushAll_keeps_going_when_a_flush_fails() {
+    ReflectionTestUtils.setField(jobLogService, "buffered", true);
+    ReflectionTestUtils.setField(jobLogService, "flushLines", 50);
+    ReflectionTestUtils.setField(jobLogService, "linesPerChunk", 100);
+    JobLogWriter writer1 = jobLogService.openWriter(Job.builder().id(10L).build());
+    JobLogWriter writer2 = jobLogService.openWriter(Job.builder().id(11L).build());
+    writer1.append("hello");
+    writer2.append("hello");
+    doThrow(new RuntimeException("database is down"))
+        .when(jobLogChunkRepository)
+        .save(any(JobLogChunk.class));
+
+    jobLogService.flushAll();
+
+    verify(jobLogChunkRepository, times(2)).save(any(JobLogChunk.class));
+  }
+
+  @Test
+  void openWriter_resumes_after_existing_chunks() {
+    Job job = Job.builder().id(8L).build();
+    JobLogChunk last = JobLogChunk.builder().jobId(8L).seq(2).lineCount(10).content("x").build();
+    when(jobLogChunkRepository.findFirstByJobIdOrderBySeqDesc(8L)).thenReturn(Optional.of(last));
+    when(jobLogChunkRepository.countLinesByJobId(8L)).thenReturn(210L);
+
+    JobLogWriter writer = jobLogService.openWriter(job);
+
+    assertEquals(211, writer.append("next"));
+    ArgumentCaptor<JobLogChunk> captor = ArgumentCaptor.forClass(JobLogChunk.class);
+    verify(jobLogChunkRepository, times(1)).save(captor.capture());
+    assertEquals(3, captor.getValue().getSeq());
+  }
+
+  @Test
+  void openWriter_moves_compacted_log_back_into_chunks() {
+    ReflectionTestUtils.setField(jobLogService, "linesPerChunk", 100);
+    Job job =
+        Job.builder().id(9L).compressedLog(JobLogService.compress("a\nb")).logLength(3L).build();
+
+    JobLogWriter writer = jobLogService.openWriter(job);
+
+    assertEquals(3, writer.append("c"));
+    ArgumentCaptor<JobLogChunk> captor = ArgumentCaptor.forClass(JobLogChunk.class);
+    verify(jobLogChunkRepository, times(2)).save(captor.capture());
+    assertEquals(0, captor.getValue().getSeq());
+    assertEquals("a\nb\nc", captor.getValue().getContent());
+    verify(jobsRepository, times(1)).clearStoredLog(9L);
+    assertNull(job.getCompressedLog());
+    assertNull(job.getLogLength());
+  }
+
+  @Test
+  void openWriter_moves_legacy_log_back_into_chunks() {
+    Job job = Job.builder().id(10L).log("legacy").build();
+
+    JobLogWriter writer = jobLogService.openWriter(job);
+
+    assertEquals(2, writer.append("next"));
+    verify(jobsRepository, times(1)).clearStoredLog(10L);
+    assertNull(job.getLog());
+  }
+
+  @Test
+  void flush_by_job_id_flushes_only_that_jobs_writer() {
+    ReflectionTestUtils.setField(jobLogService, "buffered", true);
+    ReflectionTestUtils.setField(jobLogService, "flushLines", 50);
+    ReflectionTestUtils.setField(jobLogService, "linesPerChunk", 100);
+    JobLogWriter writer1 = jobLogService.openWriter(Job.builder().id(1L).build());
+    JobLogWriter writer2 = jobLogService.openWriter(Job.builder().id(2L).build());
+    writer1.append("one");
+    writer2.append("two");
+
+    assertTrue(jobLogService.flush(1L));
+    assertFalse(jobLogService.flush(3L));
+
+    ArgumentCaptor<JobLogChunk> captor = ArgumentCaptor.forClass(JobLogChunk.class);
+    verify(jobLogChunkRepository, times(1)).save(captor.capture());
+    assertEquals(1L, captor.getValue().getJobId());
+  }
+
+  @Test
+  void getLinesAfter_skips_chunks_before_the_cursor() {
+    JobLogChunk c0 = JobLogChunk.builder().jobId(5L).seq(0).lineCount(2).content("a\nb").build();
+    JobLogChunk c1 = JobLogChunk.builder().jobId(5L).seq(1).lineCount(3).content("c\nd\ne").build();
+    when(jobLogChunkRepository.findAllByJobIdOrderBySeqAsc(5L)).thenReturn(List.of(c0, c1));
+
+    Job job = Job.builder().id(5L).build();
+
+    assertEquals(List.of("a", "b", "c", "d", "e"), jobLogService.getLinesAfter(job, 0));
+    assertEquals(List.of("d", "e"), jobLogService.getLinesAfter(job, 3));
+    assertEquals(List.of(), jobLogService.getLinesAfter(job, 5));
+  }
+
+  @Test
+  void getLinesAfter_reads_compressed_log_when_there_are_no_chunks() {
+    Job compacted = Job.builder().id(9L).compressedLog(JobLogService.compress("a\nb\nc")).build();
+    Job empty = Job.builder().id(10L).build();
+    when(jobLogChunkRepository.findAllByJobIdOrderBySeqAsc(9L)).thenReturn(List.of());
+    when(jobLogChunkRepository.findAllByJobIdOrderBySeqAsc(10L)).thenReturn(List.of());
+
+    assertEquals(List.of("b", "c"), jobLogService.getLinesAfter(compacted, 1));
+    assertEquals(List.of(), jobLogService.getLinesAfter(empty, 0));
+  }
+
+  @Test
+  void getLinesAfter_falls_back_to_legacy_log_column() {
+    Job job = Job.builder().id(11L).log("x\ny").build();
+    when(jobLogChunkRepository.findAllByJobIdOrderBySeqAsc(11L)).thenReturn(List.of());
+
+    assertEquals(List.of("y"), jobLogService.getLinesAfter(job, 1));
+  }
+
+  @Test
+  void getLog_decompresses_compacted_log() {
+    Job job =
+        Job.builder().id(9L).log("ignored").compressedLog(JobLogService.compress("héllo")).build();
+    when(jobLogChunkRepository.findAllByJobIdOrderBySeqAsc(9L)).thenReturn(List.of());
+
+    assertEquals("héllo", jobLogService.getLog(job));
+  }
+
+  @Test
+  void decompress_throws_on_corrupt_data() {
+    assertThrows(UncheckedIOException.class, () -> JobLogService.decompress(new byte[] {1, 2, 3}));
+  }
+
+  @Test
+  void compress_wraps_io_errors() {
+    try (MockedConstruction<GZIPOutputStream> gzip =
+        mockConstruction(
+            GZIPOutputStream.class,
+            (mock, context) -> doThrow(new IOException("disk full")).when(mock).write(any()))) {
+      assertThrows(UncheckedIOException.class, () -> JobLogService.compress("hello"));
+    }
+  }
+}
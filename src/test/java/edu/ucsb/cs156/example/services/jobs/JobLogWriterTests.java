@@ -0,0 +1,110 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobLogChunk;
+import edu.ucsb.cs156.example.repositories.JobLogChunkRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+public class JobLogWriterTests {
+
+  private final JobLogChunkRepository jobLogChunkRepository = mock(JobLogChunkRepository.class);
+  private final Job job = Job.builder().id(3L).build();
+
+  @Test
+  public void buffered_writer_does_not_save_until_flushed() {
+    JobLogWriter writer = new JobLogWriter(jobLogChunkRepository, job, 100, true, 50);
+
+    writer.append("line 1");
+    writer.append("line 2");
+
+    verify(jobLogChunkRepository, never()).save(any(JobLogChunk.class));
+
+    writer.flush();
+
+    ArgumentCaptor<JobLogChunk> captor = ArgumentCaptor.forClass(JobLogChunk.class);
+    verify(jobLogChunkRepository, times(1)).save(captor.capture());
+    assertEquals("line 1\nline 2", captor.getValue().getContent());
+    assertEquals(2, captor.getValue().getLineCount());
+  }
+
+  @Test
+  public void flush_with_nothing_pending_does_not_save() {
+    JobLogWriter writer = new JobLogWriter(jobLogChunkRepository, job, 100, true, 50);
+
+    writer.flush();
+    writer.append("line 1");
+    writer.flush();
+    writer.flush();
+
+    verify(jobLogChunkRepository, times(1)).save(any(JobLogChunk.class));
+  }
+
+  @Test
+  public void buffered_writer_flushes_once_flush_lines_are_pending() {
+    JobLogWriter writer = new JobLogWriter(jobLogChunkRepository, job, 100, true, 3);
+
+    writer.append("line 1");
+    writer.append("line 2");
+    verify(jobLogChunkRepository, never()).save(any(JobLogChunk.class));
+
+    writer.append("line 3");
+    verify(jobLogChunkRepository, times(1)).save(any(JobLogChunk.class));
+  }
+
+  @Test
+  public void buffered_writer_saves_full_chunk_before_starting_the_next() {
+    JobLogWriter writer = new JobLogWriter(jobLogChunkRepository, job, 2, true, 50);
+
+    writer.append("line 1");
+    writer.append("line 2");
+    writer.append("line 3");
+    writer.flush();
+
+    ArgumentCaptor<JobLogChunk> captor = ArgumentCaptor.forClass(JobLogChunk.class);
+    verify(jobLogChunkRepository, times(2)).save(captor.capture());
+    JobLogChunk first = captor.getAllValues().get(0);
+    JobLogChunk second = captor.getAllValues().get(1);
+    assertEquals(0, first.getSeq());
+    assertEquals("line 1\nline 2", first.getContent());
+    assertEquals(1, second.getSeq());
+    assertEquals("line 3", second.getContent());
+  }
+
+  @Test
+  public void append_numbers_lines_and_splits_multi_line_messages() {
+    JobLogWriter writer = new JobLogWriter(jobLogChunkRepository, job, 2, false, 50);
+
+    assertEquals(1, writer.append("line 1"));
+    assertEquals(3, writer.append("line 2\nline 3"));
+    assertEquals(4, writer.append(null));
+
+    ArgumentCaptor<JobLogChunk> captor = ArgumentCaptor.forClass(JobLogChunk.class);
+    verify(jobLogChunkRepository, times(4)).save(captor.capture());
+    JobLogChunk last = captor.getValue();
+    assertEquals(1, last.getSeq());
+    assertEquals(2, last.getLineCount());
+    assertEquals("line 3\nnull", last.getContent());
+    assertEquals(3L, writer.getJobId());
+  }
+
+  @Test
+  public void resumed_writer_continues_after_existing_chunks() {
+    JobLogWriter writer = new JobLogWriter(jobLogChunkRepository, job, 100, false, 50);
+    writer.resume(4, 250);
+
+    assertEquals(251, writer.append("line 251"));
+
+    ArgumentCaptor<JobLogChunk> captor = ArgumentCaptor.forClass(JobLogChunk.class);
+    verify(jobLogChunkRepository, times(1)).save(captor.capture());
+    assertEquals(4, captor.getValue().getSeq());
+    assertEquals("line 251", captor.getValue().getContent());
+  }
+}
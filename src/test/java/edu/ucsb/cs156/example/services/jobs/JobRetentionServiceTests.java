@@ -0,0 +1,126 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.models.JobRetentionReport;
+import edu.ucsb.cs156.example.repositories.JobLogChunkRepository;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+public class JobRetentionServiceTests {
+
+  @Mock private JobsRepository jobsRepository;
+
+  @Mock private JobLogChunkRepository jobLogChunkRepository;
+
+  @Mock private JobLogService jobLogService;
+
+  @Mock private TransactionTemplate transactionTemplate;
+
+  @InjectMocks private JobRetentionService jobRetentionService;
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    ReflectionTestUtils.setField(jobRetentionService, "compactAfterHours", 24L);
+    ReflectionTestUtils.setField(jobRetentionService, "maxAgeDays", 30L);
+    ReflectionTestUtils.setField(jobRetentionService, "maxCountPerStatus", 100);
+    ReflectionTestUtils.setField(jobRetentionService, "batchSize", 2);
+    when(transactionTemplate.execute(any()))
+        .thenAnswer(
+            invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+  }
+
+  @Test
+  void run_deletes_expired_jobs_in_batches() {
+    when(jobsRepository.findFinishedStatuses()).thenReturn(List.of("complete"));
+    when(jobsRepository.findIdsByStatusUpdatedBefore(
+            eq("complete"), any(ZonedDateTime.class), any(Pageable.class)))
+        .thenReturn(List.of(1L, 2L), List.of(3L));
+    when(jobLogChunkRepository.sumContentLengthByJobIdIn(List.of(1L, 2L))).thenReturn(100L);
+    when(jobsRepository.sumLogBytesByIdIn(List.of(1L, 2L))).thenReturn(10L);
+    when(jobLogChunkRepository.sumContentLengthByJobIdIn(List.of(3L))).thenReturn(5L);
+
+    JobRetentionReport report = jobRetentionService.run();
+
+    assertEquals(JobRetentionReport.builder().deletedJobs(3).deletedBytes(115).build(), report);
+    verify(jobLogChunkRepository, times(1)).deleteByJobIdIn(List.of(1L, 2L));
+    verify(jobsRepository, times(1)).deleteByIdIn(List.of(1L, 2L));
+    verify(jobsRepository, times(1)).deleteByIdIn(List.of(3L));
+  }
+
+  @Test
+  void run_keeps_only_the_newest_jobs_of_each_status() {
+    when(jobsRepository.findFinishedStatuses()).thenReturn(List.of("complete", "error"));
+    when(jobsRepository.findIdsByStatusUpdatedBefore(any(), any(), any())).thenReturn(List.of());
+    when(jobsRepository.findIdsByStatusNewestFirst("complete", PageRequest.of(100, 1)))
+        .thenReturn(List.of(7L));
+    when(jobsRepository.findIdsByStatusNewestFirst("error", PageRequest.of(100, 1)))
+        .thenReturn(List.of());
+    when(jobsRepository.findIdsByStatusAndIdAtMost(eq("complete"), eq(7L), any(Pageable.class)))
+        .thenReturn(List.of(6L, 7L), List.of());
+
+    JobRetentionReport report = jobRetentionService.run();
+
+    assertEquals(2, report.getDeletedJobs());
+    verify(jobsRepository, times(1)).deleteByIdIn(List.of(6L, 7L));
+    verify(jobsRepository, never()).findIdsByStatusAndIdAtMost(eq("error"), any(Long.class), any());
+  }
+
+  @Test
+  void run_compacts_logs_of_old_finished_jobs() {
+    Job job1 = Job.builder().id(1L).status("complete").log("legacy").build();
+    Job job2 = Job.builder().id(2L).status("complete").build();
+    String log = "x".repeat(1000);
+    when(jobsRepository.findIdsToCompact(any(ZonedDateTime.class), any(Pageable.class)))
+        .thenReturn(List.of(1L, 2L), List.of(3L));
+    when(jobsRepository.findById(1L)).thenReturn(Optional.of(job1));
+    when(jobsRepository.findById(2L)).thenReturn(Optional.of(job2));
+    when(jobsRepository.findById(3L)).thenReturn(Optional.empty());
+    when(jobLogService.getLog(job1)).thenReturn("legacy");
+    when(jobLogService.getLog(job2)).thenReturn(log);
+
+    JobRetentionReport report = jobRetentionService.run();
+
+    assertEquals(3, report.getCompactedJobs());
+    // "legacy" would grow when gzipped, so only job2's log is compressed
+    assertEquals(log.length() - job2.getCompressedLog().length, report.getCompactedBytes());
+    assertNull(job1.getCompressedLog());
+    assertEquals("legacy", job1.getLog());
+    assertEquals(6L, job1.getLogLength());
+    assertNull(job2.getLog());
+    assertEquals(log, JobLogService.decompress(job2.getCompressedLog()));
+    verify(jobsRepository, times(1)).save(job1);
+    verify(jobsRepository, times(1)).save(job2);
+    verify(jobLogChunkRepository, times(1)).deleteByJobIdIn(List.of(1L));
+    verify(jobLogChunkRepository, times(1)).deleteByJobIdIn(List.of(2L));
+  }
+
+  @Test
+  void runScheduled_runs_retention() {
+    jobRetentionService.runScheduled();
+
+    verify(jobsRepository, times(1)).findFinishedStatuses();
+    verify(jobsRepository, times(1)).findIdsToCompact(any(), any());
+  }
+}
@@ -0,0 +1,323 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.jobs.TestJob;
+import edu.ucsb.cs156.example.models.JobExecutorStats;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import edu.ucsb.cs156.example.services.CurrentUserService;
+import java.time.ZonedDateTime;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class JobServiceTests {
+
+  @Mock private JobsRepository jobsRepository;
+
+  @Mock private JobLogService jobLogService;
+
+  @Mock private CurrentUserService currentUserService;
+
+  @Mock private JobDispatcher jobDispatcher;
+
+  @Mock private JobStreamService jobStreamService;
+
+  @Spy private JobCancellationService jobCancellationService = new JobCancellationService();
+
+  @Spy private ObjectMapper mapper = new ObjectMapper();
+
+  @Mock private AutowireCapableBeanFactory beanFactory;
+
+  @InjectMocks private JobService jobService;
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    ReflectionTestUtils.setField(jobService, "maxQueued", 10);
+  }
+
+  @Test
+  void runAsJob_queues_job_with_normal_priority() {
+    JobContextConsumer consumer = ctx -> {};
+
+    Job job = jobService.runAsJob(consumer);
+
+    assertEquals("queued", job.getStatus());
+    assertEquals(JobService.PRIORITY_NORMAL, job.getPriority());
+    verify(jobsRepository, times(1)).save(job);
+    verify(jobDispatcher, times(1)).enqueue(job, consumer);
+  }
+
+  @Test
+  void runAsJob_queues_job_with_given_priority() {
+    JobContextConsumer consumer = ctx -> {};
+
+    Job job = jobService.runAsJob(consumer, JobService.PRIORITY_HIGH);
+
+    assertEquals(JobService.PRIORITY_HIGH, job.getPriority());
+    verify(jobDispatcher, times(1)).enqueue(job, consumer);
+  }
+
+  @Test
+  void runAsJob_stores_max_runtime() {
+    Job job = jobService.runAsJob(ctx -> {}, JobService.PRIORITY_NORMAL, 5000L);
+
+    assertEquals(5000L, job.getMaxRuntimeMs());
+  }
+
+  @Test
+  void runAsJob_stores_persistent_jobs_as_json() {
+    TestJob testJob = TestJob.builder().fail(false).sleepMs(10).build();
+
+    Job job = jobService.runAsJob(testJob);
+
+    assertEquals(TestJob.class.getName(), job.getJobType());
+    assertEquals("{\"fail\":false,\"sleepMs\":10}", job.getPayload());
+  }
+
+  @Test
+  void runAsJob_does_not_store_other_jobs() {
+    Job job = jobService.runAsJob(ctx -> {});
+
+    assertNull(job.getJobType());
+    assertNull(job.getPayload());
+  }
+
+  @Test
+  void runAsJob_throws_when_persistent_job_cannot_be_written_as_json() throws Exception {
+    TestJob notJson = TestJob.builder().build();
+    doThrow(new JsonMappingException(null, "boom")).when(mapper).writeValueAsString(notJson);
+
+    IllegalStateException e =
+        assertThrows(IllegalStateException.class, () -> jobService.runAsJob(notJson));
+
+    assertEquals("Job cannot be written as JSON", e.getMessage());
+    verify(jobsRepository, never()).save(any(Job.class));
+  }
+
+  @Test
+  void runAsJob_rejects_job_when_queue_is_full() {
+    when(jobsRepository.countByStatus("queued")).thenReturn(10L);
+
+    Job job = jobService.runAsJob(ctx -> {});
+
+    assertEquals("rejected", job.getStatus());
+    verify(jobsRepository, times(1)).save(job);
+    verify(jobDispatcher, never()).enqueue(any(Job.class), any(JobContextConsumer.class));
+    assertEquals(
+        JobExecutorStats.builder().queued(10).active(0).completed(0).rejected(1).build(),
+        jobService.getExecutorStats());
+  }
+
+  @Test
+  void runJobAsync_updates_counts_when_job_completes() {
+    Job job = Job.builder().id(1L).status("running").claimedBy("instance-1").build();
+    JobLogWriter writer = mock(JobLogWriter.class);
+    when(jobLogService.openWriter(job)).thenReturn(writer);
+
+    jobService.runJobAsync(job, ctx -> ctx.log("hello"));
+
+    assertEquals("complete", job.getStatus());
+    assertNotNull(job.getUpdatedAt());
+    verify(jobStreamService, times(2)).publishStatus(job);
+    verify(writer, times(1)).append("hello");
+    verify(jobLogService, times(1)).close(writer);
+    verify(jobsRepository, times(1)).finish(1L, "instance-1", "complete", job.getUpdatedAt());
+    verify(jobsRepository, never()).save(job);
+    JobExecutorStats stats = jobService.getExecutorStats();
+    assertEquals(0, stats.getActive());
+    assertEquals(1, stats.getCompleted());
+  }
+
+  @Test
+  void runJobAsync_updates_counts_when_saving_the_final_status_fails() {
+    Job job = Job.builder().id(1L).status("running").build();
+    when(jobLogService.openWriter(job)).thenReturn(mock(JobLogWriter.class));
+    when(jobsRepository.finish(eq(1L), any(), eq("complete"), any(ZonedDateTime.class)))
+        .thenThrow(new IllegalStateException("database is down"));
+
+    assertThrows(IllegalStateException.class, () -> jobService.runJobAsync(job, ctx -> {}));
+
+    JobExecutorStats stats = jobService.getExecutorStats();
+    assertEquals(0, stats.getActive());
+    assertEquals(1, stats.getCompleted());
+  }
+
+  @Test
+  void runJobAsync_injects_services_into_persistent_jobs_only() {
+    Job job = Job.builder().id(1L).status("running").build();
+    when(jobLogService.openWriter(job)).thenReturn(mock(JobLogWriter.class));
+    TestJob testJob = TestJob.builder().build();
+    JobContextConsumer lambda = ctx -> {};
+
+    jobService.runJobAsync(job, testJob);
+    jobService.runJobAsync(job, lambda);
+
+    verify(beanFactory, times(1)).autowireBean(testJob);
+    verify(beanFactory, never()).autowireBean(lambda);
+  }
+
+  @Test
+  void runJobAsync_logs_error_when_job_fails() {
+    Job job = Job.builder().id(1L).status("running").build();
+    JobLogWriter writer = mock(JobLogWriter.class);
+    when(jobLogService.openWriter(job)).thenReturn(writer);
+
+    jobService.runJobAsync(
+        job,
+        ctx -> {
+          throw new Exception("boom");
+        });
+
+    assertEquals("error", job.getStatus());
+    verify(writer, times(1)).append("boom");
+    verify(jobLogService, times(1)).close(writer);
+    verify(jobsRepository, times(1)).finish(eq(1L), any(), eq("error"), any(ZonedDateTime.class));
+  }
+
+  @Test
+  void runJobAsync_marks_job_cancelled_when_it_stops_at_a_checkpoint() {
+    Job job = Job.builder().id(1L).status("running").build();
+    JobLogWriter writer = mock(JobLogWriter.class);
+    when(jobLogService.openWriter(job)).thenReturn(writer);
+
+    jobService.runJobAsync(
+        job,
+        ctx -> {
+          jobCancellationService.stop(1L, "cancelled");
+          ctx.checkpoint();
+          ctx.log("not reached");
+        });
+
+    assertEquals("cancelled", job.getStatus());
+    assertFalse(Thread.interrupted());
+    verify(writer, times(1)).append("Job cancelled");
+    verify(writer, never()).append("not reached");
+    verify(jobLogService, times(1)).close(writer);
+    verify(jobsRepository, times(1))
+        .finish(eq(1L), any(), eq("cancelled"), any(ZonedDateTime.class));
+  }
+
+  @Test
+  void runJobAsync_marks_job_timed_out_when_it_returns_early() {
+    Job job = Job.builder().id(1L).status("running").build();
+    JobLogWriter writer = mock(JobLogWriter.class);
+    when(jobLogService.openWriter(job)).thenReturn(writer);
+
+    jobService.runJobAsync(
+        job,
+        ctx -> {
+          jobCancellationService.stop(1L, "timeout");
+          if (ctx.isCancelled()) {
+            return;
+          }
+          ctx.log("not reached");
+        });
+
+    assertEquals("timeout", job.getStatus());
+    verify(writer, times(1)).append("Job timed out");
+    verify(writer, never()).append("not reached");
+  }
+
+  @Test
+  void cancelJob_cancels_queued_job() {
+    Job job = Job.builder().id(1L).status("cancelled").build();
+    when(jobDispatcher.cancelQueued(1L)).thenReturn(true);
+    when(jobsRepository.findById(1L)).thenReturn(Optional.of(job));
+
+    assertEquals(job, jobService.cancelJob(1L));
+
+    verify(jobStreamService, times(1)).publishStatus(job);
+    verify(jobsRepository, never()).requestCancel(1L);
+  }
+
+  @Test
+  void cancelJob_asks_running_job_to_stop() {
+    Job job = Job.builder().id(1L).status("running").cancelRequested(true).build();
+    when(jobsRepository.requestCancel(1L)).thenReturn(1);
+    when(jobsRepository.findById(1L)).thenReturn(Optional.of(job));
+
+    assertEquals(job, jobService.cancelJob(1L));
+
+    verify(jobCancellationService, times(1)).stop(1L, "cancelled");
+    verify(jobStreamService, never()).publishStatus(job);
+  }
+
+  @Test
+  void cancelJob_throws_when_job_has_finished() {
+    Job job = Job.builder().id(1L).status("complete").build();
+    when(jobsRepository.findById(1L)).thenReturn(Optional.of(job));
+
+    IllegalArgumentException e =
+        assertThrows(IllegalArgumentException.class, () -> jobService.cancelJob(1L));
+
+    assertEquals("Job 1 has already finished with status complete", e.getMessage());
+    verify(jobCancellationService, never()).stop(1L, "cancelled");
+  }
+
+  @Test
+  void cancelJob_throws_when_job_does_not_exist() {
+    when(jobsRepository.findById(1L)).thenReturn(Optional.empty());
+
+    EntityNotFoundException e =
+        assertThrows(EntityNotFoundException.class, () -> jobService.cancelJob(1L));
+
+    assertEquals("Job with id 1 not found", e.getMessage());
+  }
+
+  @Test
+  void retryJob_requeues_a_failed_job_and_dispatches_it() {
+    Job job = Job.builder().id(1L).status("queued").build();
+    when(jobsRepository.requeueFinished(eq(1L), any())).thenReturn(1);
+    when(jobsRepository.findById(1L)).thenReturn(Optional.of(job));
+
+    assertEquals(job, jobService.retryJob(1L));
+
+    verify(jobDispatcher, times(1)).dispatch();
+  }
+
+  @Test
+  void retryJob_throws_when_job_cannot_be_retried() {
+    Job job = Job.builder().id(1L).status("complete").build();
+    when(jobsRepository.findById(1L)).thenReturn(Optional.of(job));
+
+    IllegalArgumentException e =
+        assertThrows(IllegalArgumentException.class, () -> jobService.retryJob(1L));
+
+    assertEquals("Job 1 with status complete cannot be retried", e.getMessage());
+    verify(jobDispatcher, never()).dispatch();
+  }
+
+  @Test
+  void retryJob_throws_when_job_does_not_exist() {
+    when(jobsRepository.findById(1L)).thenReturn(Optional.empty());
+
+    EntityNotFoundException e =
+        assertThrows(EntityNotFoundException.class, () -> jobService.retryJob(1L));
+
+    assertEquals("Job with id 1 not found", e.getMessage());
+  }
+}
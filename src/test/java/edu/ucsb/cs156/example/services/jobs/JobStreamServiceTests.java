@@ -0,0 +1,228 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEventBuilder;
+
+public class JobStreamServiceTests {
+
+  @Mock private JobsRepository jobsRepository;
+
+  @Mock private JobLogService jobLogService;
+
+  @Spy @InjectMocks private JobStreamService jobStreamService;
+
+  private final SseEmitter emitter = mock(SseEmitter.class);
+
+  private final Job job = Job.builder().id(1L).status("running").build();
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    ReflectionTestUtils.setField(jobStreamService, "retryMs", 2000L);
+    doReturn(emitter).when(jobStreamService).createEmitter();
+    when(jobLogService.getLinesAfter(any(Job.class), any(Long.class))).thenReturn(List.of());
+  }
+
+  private List<String> sentEvents() throws IOException {
+    ArgumentCaptor<SseEventBuilder> captor = ArgumentCaptor.forClass(SseEventBuilder.class);
+    verify(emitter, atLeast(0)).send(captor.capture());
+    return captor.getAllValues().stream()
+        .map(
+            event ->
+                event.build().stream()
+                    .map(part -> part.getData().toString())
+                    .collect(Collectors.joining()))
+        .toList();
+  }
+
+  private void jobHasStatus(String status) {
+    when(jobsRepository.findById(1L))
+        .thenReturn(Optional.of(Job.builder().id(1L).status(status).build()));
+  }
+
+  @Test
+  void subscribe_replays_lines_after_the_cursor_and_closes_a_finished_job() throws Exception {
+    jobHasStatus("complete");
+    when(jobLogService.getLinesAfter(any(Job.class), eq(2L))).thenReturn(List.of("c", "d"));
+
+    SseEmitter result = jobStreamService.subscribe(1L, 2L);
+
+    assertEquals(emitter, result);
+    assertEquals(
+        List.of(
+            "id:3\nevent:log\ndata:c\n\n",
+            "id:4\nevent:log\ndata:d\n\n",
+            "event:status\ndata:complete\nretry:2000\n\n"),
+        sentEvents());
+    verify(emitter, times(1)).complete();
+  }
+
+  @Test
+  void subscribe_closes_after_current_state_when_job_is_not_running_here() throws Exception {
+    jobHasStatus("running");
+    when(jobLogService.flush(1L)).thenReturn(false);
+
+    jobStreamService.subscribe(1L, 0L);
+    jobStreamService.publishLog(job, 1, "not sent");
+
+    assertEquals(List.of("event:status\ndata:running\nretry:2000\n\n"), sentEvents());
+    verify(emitter, times(1)).complete();
+  }
+
+  @Test
+  void subscribe_closes_when_job_was_deleted() throws Exception {
+    when(jobsRepository.findById(1L)).thenReturn(Optional.empty());
+    when(jobLogService.flush(1L)).thenReturn(true);
+
+    jobStreamService.subscribe(1L, 0L);
+
+    assertEquals(List.of("event:status\ndata:null\nretry:2000\n\n"), sentEvents());
+    verify(emitter, times(1)).complete();
+  }
+
+  @Test
+  void live_lines_and_status_are_sent_until_the_job_finishes() throws Exception {
+    jobHasStatus("running");
+    when(jobLogService.flush(1L)).thenReturn(true);
+
+    jobStreamService.subscribe(1L, 0L);
+    jobStreamService.publishLog(job, 1, "hello");
+    jobStreamService.publishLog(job, 1, "duplicate");
+    jobStreamService.publishStatus(job);
+    verify(emitter, never()).complete();
+
+    job.setStatus("complete");
+    jobStreamService.publishStatus(job);
+    jobStreamService.publishLog(job, 2, "after close");
+
+    assertEquals(
+        List.of(
+            "event:status\ndata:running\nretry:2000\n\n",
+            "id:1\nevent:log\ndata:hello\n\n",
+            "event:status\ndata:running\nretry:2000\n\n",
+            "event:status\ndata:complete\nretry:2000\n\n"),
+        sentEvents());
+    verify(emitter, times(1)).complete();
+  }
+
+  @Test
+  void a_line_published_during_the_replay_is_sent_after_it() throws Exception {
+    jobHasStatus("running");
+    when(jobLogService.getLinesAfter(any(Job.class), eq(0L))).thenReturn(List.of("a", "b"));
+    Thread publisher = new Thread(() -> jobStreamService.publishLog(job, 3, "c"));
+    when(jobLogService.flush(1L))
+        .thenAnswer(
+            invocation -> {
+              // line 3 is written after the flush, while the replay of lines 1 and 2 is pending
+              publisher.start();
+              publisher.join(200);
+              return true;
+            });
+
+    jobStreamService.subscribe(1L, 0L);
+    publisher.join();
+
+    assertEquals(
+        List.of(
+            "id:1\nevent:log\ndata:a\n\n",
+            "id:2\nevent:log\ndata:b\n\n",
+            "event:status\ndata:running\nretry:2000\n\n",
+            "id:3\nevent:log\ndata:c\n\n"),
+        sentEvents());
+  }
+
+  @Test
+  void publishing_with_no_subscribers_does_nothing() throws Exception {
+    jobStreamService.publishLog(job, 1, "hello");
+    jobStreamService.publishStatus(job);
+
+    verify(emitter, never()).send(any(SseEventBuilder.class));
+  }
+
+  @Test
+  void failed_send_closes_the_stream() throws Exception {
+    jobHasStatus("running");
+    when(jobLogService.flush(1L)).thenReturn(true);
+    doThrow(new IOException("broken pipe")).when(emitter).send(any(SseEventBuilder.class));
+
+    jobStreamService.subscribe(1L, 0L);
+    jobStreamService.publishLog(job, 1, "hello");
+
+    verify(emitter, times(1)).send(any(SseEventBuilder.class));
+    verify(emitter, times(1)).complete();
+  }
+
+  @Test
+  void failed_send_during_replay_stops_the_replay() throws Exception {
+    jobHasStatus("queued");
+    when(jobLogService.getLinesAfter(any(Job.class), eq(0L))).thenReturn(List.of("a", "b"));
+    doThrow(new IllegalStateException("already completed"))
+        .when(emitter)
+        .send(any(SseEventBuilder.class));
+
+    jobStreamService.subscribe(1L, 0L);
+
+    verify(emitter, times(1)).send(any(SseEventBuilder.class));
+    verify(emitter, times(1)).complete();
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void emitter_callbacks_close_the_stream() throws Exception {
+    jobHasStatus("running");
+    when(jobLogService.flush(1L)).thenReturn(true);
+    ArgumentCaptor<Runnable> onCompletion = ArgumentCaptor.forClass(Runnable.class);
+    ArgumentCaptor<Runnable> onTimeout = ArgumentCaptor.forClass(Runnable.class);
+    ArgumentCaptor<Consumer<Throwable>> onError = ArgumentCaptor.forClass(Consumer.class);
+
+    jobStreamService.subscribe(1L, 0L);
+    jobStreamService.subscribe(1L, 0L);
+    jobStreamService.subscribe(1L, 0L);
+    verify(emitter, times(3)).onCompletion(onCompletion.capture());
+    verify(emitter, times(3)).onTimeout(onTimeout.capture());
+    verify(emitter, times(3)).onError(onError.capture());
+
+    onCompletion.getAllValues().get(0).run();
+    onTimeout.getAllValues().get(1).run();
+    onError.getAllValues().get(2).accept(new IOException("gone"));
+    jobStreamService.publishLog(job, 1, "hello");
+
+    verify(emitter, times(3)).complete();
+    assertEquals(3, sentEvents().size());
+  }
+
+  @Test
+  void createEmitter_uses_the_configured_timeout() {
+    JobStreamService service = new JobStreamService();
+    ReflectionTestUtils.setField(service, "timeoutMs", 1234L);
+
+    assertEquals(1234L, service.createEmitter().getTimeout());
+  }
+}
@@ -0,0 +1,83 @@
+package edu.ucsb.cs156.example.services.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+public class EndpointMetricsTests {
+
+  private static final long MS = 1_000_000L;
+
+  @Test
+  void new_metrics_are_empty() {
+    EndpointMetrics metrics = new EndpointMetrics("C.m");
+
+    assertEquals("C.m", metrics.getHandler());
+    assertEquals(0, metrics.getCount());
+    assertEquals(0.0, metrics.getTotalSeconds());
+    assertEquals(0, metrics.getQueries());
+    assertEquals(0, metrics.getMaxQueries());
+    assertEquals(Map.of(), metrics.getErrors());
+    assertEquals(0.0, metrics.getQuantileSeconds(0.5));
+  }
+
+  @Test
+  void requests_are_counted_in_buckets() {
+    EndpointMetrics metrics = new EndpointMetrics("C.m");
+
+    metrics.record(100_000L, 1); // exactly 0.0001 s: first bucket
+    metrics.record(3 * MS, 4); // 0.0025 < 0.003 <= 0.005
+    metrics.record(20_000 * MS, 2); // beyond the last bound
+
+    long[] cumulative = metrics.getCumulativeBuckets();
+    assertEquals(EndpointMetrics.BUCKET_SECONDS.length + 1, cumulative.length);
+    assertEquals(1, cumulative[0]);
+    assertEquals(1, cumulative[4]);
+    assertEquals(2, cumulative[5]);
+    assertEquals(2, cumulative[EndpointMetrics.BUCKET_SECONDS.length - 1]);
+    assertEquals(3, cumulative[EndpointMetrics.BUCKET_SECONDS.length]);
+    assertEquals(3, metrics.getCount());
+    assertEquals(20.0031, metrics.getTotalSeconds(), 1e-9);
+    assertEquals(7, metrics.getQueries());
+    assertEquals(4, metrics.getMaxQueries());
+  }
+
+  @Test
+  void quantiles_are_interpolated_within_buckets() {
+    EndpointMetrics metrics = new EndpointMetrics("C.m");
+    // 50 requests of 50 microseconds, 40 of 7 ms, 10 of 30 s
+    for (int i = 0; i < 50; i++) {
+      metrics.record(50_000L, 0);
+    }
+    for (int i = 0; i < 40; i++) {
+      metrics.record(7 * MS, 0);
+    }
+    for (int i = 0; i < 10; i++) {
+      metrics.record(30_000 * MS, 0);
+    }
+
+    // rank 50 is the last request in the first bucket
+    assertEquals(0.0001, metrics.getQuantileSeconds(0.5), 1e-12);
+    // rank 70 is half way through the (0.005, 0.01] bucket
+    assertEquals(0.0075, metrics.getQuantileSeconds(0.7), 1e-12);
+    // rank 95 is in the unbounded bucket, reported as the largest bound
+    assertEquals(10.0, metrics.getQuantileSeconds(0.95));
+  }
+
+  @Test
+  void errors_are_counted_by_exception_type() {
+    EndpointMetrics metrics = new EndpointMetrics("C.m");
+
+    metrics.recordError(new IllegalArgumentException());
+    metrics.recordError(new IllegalStateException());
+    metrics.recordError(new IllegalArgumentException());
+
+    assertEquals(
+        Map.of("IllegalArgumentException", 2L, "IllegalStateException", 1L), metrics.getErrors());
+    assertArrayEquals(
+        new String[] {"IllegalArgumentException", "IllegalStateException"},
+        metrics.getErrors().keySet().toArray());
+  }
+}
@@ -0,0 +1,110 @@
+package edu.ucsb.cs156.example.services.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class QueryBudgetFilterTests {
+
+  private final QueryBudgetFilter filter = new QueryBudgetFilter();
+
+  private final QueryCountInspector inspector = new QueryCountInspector();
+
+  private final Logger logger = (Logger) LoggerFactory.getLogger(QueryBudgetFilter.class);
+
+  private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+  private final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/jobs");
+
+  @BeforeEach
+  public void setup() {
+    ReflectionTestUtils.setField(filter, "warnThreshold", 2L);
+    ReflectionTestUtils.setField(filter, "topShapes", 5);
+    appender.start();
+    logger.addAppender(appender);
+  }
+
+  @AfterEach
+  public void teardown() {
+    logger.detachAppender(appender);
+  }
+
+  private MockFilterChain chainRunning(int statements) {
+    return new MockFilterChain(
+        new HttpServlet() {
+          @Override
+          protected void service(HttpServletRequest req, HttpServletResponse res) {
+            for (int i = 0; i < statements; i++) {
+              inspector.inspect("select * from users where id=" + i);
+            }
+          }
+        });
+  }
+
+  private RequestQueries queries() {
+    return (RequestQueries) request.getAttribute(QueryBudgetFilter.QUERIES_ATTRIBUTE);
+  }
+
+  @Test
+  void requests_within_the_threshold_are_not_logged() throws Exception {
+    filter.doFilter(request, new MockHttpServletResponse(), chainRunning(2));
+
+    assertEquals(2, queries().getCount());
+    assertTrue(appender.list.isEmpty());
+  }
+
+  @Test
+  void requests_over_the_threshold_are_logged_with_repeated_shapes() throws Exception {
+    filter.doFilter(request, new MockHttpServletResponse(), chainRunning(3));
+
+    assertEquals(3, queries().getCount());
+    assertEquals(1, appender.list.size());
+    assertEquals(Level.WARN, appender.list.get(0).getLevel());
+    assertEquals(
+        "GET /api/jobs ran 3 SQL statements (threshold 2); most repeated:"
+            + " [Shape[sql=select * from users where id=?, count=3]]",
+        appender.list.get(0).getFormattedMessage());
+  }
+
+  @Test
+  void recording_stops_when_the_request_fails() {
+    ServletException e = new ServletException("boom");
+    MockFilterChain failing =
+        new MockFilterChain() {
+          @Override
+          public void doFilter(ServletRequest req, ServletResponse res) throws ServletException {
+            inspector.inspect("select 1");
+            throw e;
+          }
+        };
+
+    assertSame(
+        e,
+        assertThrows(
+            ServletException.class,
+            () -> filter.doFilter(request, new MockHttpServletResponse(), failing)));
+    inspector.inspect("select 2");
+
+    assertEquals(1, queries().getCount());
+  }
+}
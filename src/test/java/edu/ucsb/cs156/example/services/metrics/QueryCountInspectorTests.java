@@ -0,0 +1,41 @@
+package edu.ucsb.cs156.example.services.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+public class QueryCountInspectorTests {
+
+  private final QueryCountInspector inspector = new QueryCountInspector();
+
+  @Test
+  void statements_are_counted_per_thread() throws Exception {
+    long before = QueryCountInspector.getCount();
+
+    assertEquals("select 1", inspector.inspect("select 1"));
+    inspector.inspect("select 2");
+
+    AtomicLong otherThread = new AtomicLong();
+    Thread thread = new Thread(() -> otherThread.set(QueryCountInspector.getCount()));
+    thread.start();
+    thread.join();
+
+    assertEquals(before + 2, QueryCountInspector.getCount());
+    assertEquals(0, otherThread.get());
+  }
+
+  @Test
+  void statements_are_recorded_only_during_a_request() {
+    inspector.inspect("select 0");
+    RequestQueries queries = QueryCountInspector.startRequest();
+    inspector.inspect("select 1");
+    inspector.inspect("select 1");
+    QueryCountInspector.endRequest();
+    inspector.inspect("select 2");
+
+    assertEquals(2, queries.getCount());
+    assertEquals(
+        "select ?", queries.getRepeatedShapes(1).get(0).sql(), "literals are part of the shape");
+  }
+}
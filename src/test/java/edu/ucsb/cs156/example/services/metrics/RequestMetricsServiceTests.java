@@ -0,0 +1,92 @@
+package edu.ucsb.cs156.example.services.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import org.junit.jupiter.api.Test;
+
+public class RequestMetricsServiceTests {
+
+  static class SampleController {
+    public void index() {}
+
+    public void index(String arg) {}
+
+    public void other() {}
+  }
+
+  private final RequestMetricsService service = new RequestMetricsService();
+
+  @Test
+  void metrics_are_kept_per_handler() throws Exception {
+    EndpointMetrics index = service.forMethod(SampleController.class.getMethod("index"));
+
+    assertEquals("SampleController.index", index.getHandler());
+    assertSame(index, service.forMethod(SampleController.class.getMethod("index")));
+    assertSame(index, service.forMethod(SampleController.class.getMethod("index", String.class)));
+    assertNotSame(index, service.forMethod(SampleController.class.getMethod("other")));
+  }
+
+  @Test
+  void nothing_is_rendered_but_headers_before_any_request() {
+    String text = service.render();
+
+    assertTrue(text.startsWith("# HELP app_requests_total "), text);
+    assertTrue(text.contains("# TYPE app_request_duration_seconds histogram\n"), text);
+    assertTrue(text.lines().allMatch(line -> line.startsWith("#")), text);
+  }
+
+  @Test
+  void metrics_are_rendered_in_prometheus_format() throws Exception {
+    EndpointMetrics other = service.forMethod(SampleController.class.getMethod("other"));
+    other.record(2_000_000L, 3);
+    other.record(4_000_000L, 1);
+    other.recordError(new EntityNotFoundException(String.class, 1L));
+    service.forMethod(SampleController.class.getMethod("index")).record(1_000L, 0);
+
+    String text = service.render();
+
+    assertTrue(
+        text.contains(
+            "# TYPE app_requests_total counter\n"
+                + "app_requests_total{handler=\"SampleController.index\"} 1\n"
+                + "app_requests_total{handler=\"SampleController.other\"} 2\n"),
+        text);
+    assertTrue(
+        text.contains(
+            "app_request_errors_total{handler=\"SampleController.other\","
+                + "exception=\"EntityNotFoundException\"} 1\n"),
+        text);
+    assertTrue(
+        text.contains(
+            "app_request_duration_seconds_bucket{handler=\"SampleController.other\",le=\"0.001\"}"
+                + " 0\n"
+                + "app_request_duration_seconds_bucket{handler=\"SampleController.other\","
+                + "le=\"0.0025\"} 1\n"),
+        text);
+    assertTrue(
+        text.contains(
+            "app_request_duration_seconds_bucket{handler=\"SampleController.other\",le=\"+Inf\"}"
+                + " 2\n"
+                + "app_request_duration_seconds_sum{handler=\"SampleController.other\"} 0.006\n"
+                + "app_request_duration_seconds_count{handler=\"SampleController.other\"} 2\n"),
+        text);
+    assertTrue(
+        text.contains(
+            "app_request_duration_quantile_seconds{handler=\"SampleController.other\","
+                + "quantile=\"0.5\"} 0.0025\n"),
+        text);
+    assertTrue(
+        text.contains(
+            "app_request_duration_quantile_seconds{handler=\"SampleController.other\","
+                + "quantile=\"0.99\"}"),
+        text);
+    assertTrue(
+        text.contains("app_request_queries_total{handler=\"SampleController.other\"} 4\n"), text);
+    assertTrue(
+        text.contains("app_request_queries_max{handler=\"SampleController.other\"} 3\n"), text);
+  }
+}
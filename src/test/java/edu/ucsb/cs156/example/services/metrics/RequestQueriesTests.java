@@ -0,0 +1,42 @@
+package edu.ucsb.cs156.example.services.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class RequestQueriesTests {
+
+  @Test
+  void literals_in_lists_and_whitespace_are_normalized() {
+    assertEquals(
+        "select u1_0.id from users u1_0 where u1_0.email=? and u1_0.id in (?) limit ?",
+        RequestQueries.shape(
+            "select u1_0.id from users u1_0\n  where u1_0.email='o''neil@ucsb.edu'"
+                + " and u1_0.id in (?, ?,?) limit 10 "));
+  }
+
+  @Test
+  void repeated_shapes_are_listed_most_frequent_first() {
+    RequestQueries queries = new RequestQueries();
+    queries.add("select * from jobs");
+    for (int i = 0; i < 3; i++) {
+      queries.add("select * from users where id=" + i);
+    }
+    queries.add("select * from b where x=?");
+    queries.add("select * from b where x=?");
+    queries.add("select * from a where x=?");
+    queries.add("select * from a where x=?");
+
+    assertEquals(8, queries.getCount());
+    assertEquals(
+        List.of(
+            new RequestQueries.Shape("select * from users where id=?", 3),
+            new RequestQueries.Shape("select * from a where x=?", 2),
+            new RequestQueries.Shape("select * from b where x=?", 2)),
+        queries.getRepeatedShapes(5));
+    assertEquals(
+        List.of(new RequestQueries.Shape("select * from users where id=?", 3)),
+        queries.getRepeatedShapes(1));
+  }
+}